@@ -0,0 +1,33 @@
+package com.vku.benchmark;
+
+import com.vku.auth.AuthenticationManager;
+import com.vku.auth.Session;
+import com.vku.model.Role;
+import com.vku.model.Student;
+import com.vku.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login path: email lookup and full authentication with session setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AuthenticationBenchmark {
+    
+    @Benchmark
+    public User findUserByEmail(CampusState campus, CampusState.Cursor cursor) {
+        return campus.dataManager.findUserByEmail(cursor.nextStudent(campus).getEmail());
+    }
+    
+    @Benchmark
+    public Session authenticateStudent(CampusState campus, CampusState.Cursor cursor) {
+        Student student = cursor.nextStudent(campus);
+        Session session = AuthenticationManager.authenticate(Role.STUDENT, student.getEmail(),
+                                                             SyntheticData.STUDENT_PASSWORD.toCharArray());
+        // Close it again so sessions do not pile up across iterations
+        AuthenticationManager.logout(session);
+        return session;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.vku.benchmark;
+
+import com.vku.data.DataManager;
+import com.vku.model.Student;
+import com.vku.model.Subject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+
+/**
+ * Shared benchmark state: a synthetic campus loaded into the DataManager
+ * singleton once per trial. Each trial runs in its own forked JVM, so the
+ * singleton starts out empty.
+ */
+@State(Scope.Benchmark)
+public class CampusState {
+    @Param({"1000", "10000"})
+    public int students;
+    
+    @Param({"60"})
+    public int subjects;
+    
+    @Param({"6"})
+    public int subjectsPerStudent;
+    
+    @Param({"10"})
+    public int attendanceDays;
+    
+    public DataManager dataManager;
+    public List<Student> studentList;
+    public List<Subject> subjectList;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticData data = new SyntheticData(students, subjects, subjectsPerStudent, attendanceDays, 42L);
+        dataManager = DataManager.getInstance();
+        data.populate(dataManager);
+        studentList = data.getStudents();
+        subjectList = data.getSubjects();
+    }
+    
+    /**
+     * Per-thread position used to rotate through students and subjects, so a
+     * benchmark does not keep hitting the same cached entry.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+        
+        public Student nextStudent(CampusState campus) {
+            next = (next + 7919) % campus.studentList.size();
+            return campus.studentList.get(next);
+        }
+        
+        public Subject nextSubject(CampusState campus) {
+            next = (next + 1) % campus.subjectList.size();
+            return campus.subjectList.get(next);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.vku.benchmark;
+
+import com.vku.data.CampusStatistics;
+import com.vku.model.Grade;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Teacher dashboard figures, read as-is and right after a grade change.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DashboardBenchmark {
+    
+    @Benchmark
+    public CampusStatistics.Snapshot statistics(CampusState campus) {
+        return campus.dataManager.getStatistics();
+    }
+    
+    @Benchmark
+    public CampusStatistics.Snapshot statisticsAfterGradeChange(CampusState campus, CampusState.Cursor cursor) {
+        Grade grade = cursor.nextStudent(campus).getGrades().get(0);
+        grade.setFinalScore(10.0 - grade.getFinalScore());
+        return campus.dataManager.getStatistics();
+    }
+}
\ No newline at end of file
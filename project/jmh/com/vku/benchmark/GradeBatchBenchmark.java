@@ -0,0 +1,23 @@
+package com.vku.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recomputing every stored average and letter grade of the campus.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GradeBatchBenchmark {
+    
+    @Benchmark
+    public void recomputeGrades(CampusState campus) {
+        campus.dataManager.recomputeGrades();
+    }
+    
+    @Benchmark
+    public int[] letterDistribution(CampusState campus, CampusState.Cursor cursor) {
+        return campus.dataManager.getLetterDistribution(cursor.nextSubject(campus));
+    }
+}
\ No newline at end of file
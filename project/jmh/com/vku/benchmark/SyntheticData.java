@@ -0,0 +1,134 @@
+package com.vku.benchmark;
+
+import com.vku.auth.PasswordHasher;
+import com.vku.data.DataManager;
+import com.vku.model.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates a reproducible synthetic campus for benchmarks.
+ */
+public class SyntheticData {
+    public static final String STUDENT_PASSWORD = "student123";
+    
+    private static final String[] FAMILY_NAMES = {"Nguyen", "Tran", "Le", "Pham", "Hoang", "Phan", "Vu", "Dang", "Bui", "Do"};
+    private static final String[] GIVEN_NAMES = {"An", "Binh", "Chi", "Dung", "Giang", "Hanh", "Khoa", "Linh", "Minh", "Nam", "Phuong", "Quan", "Thao", "Trung"};
+    private static final String[] MAJORS = {"Information Technology", "Business Administration", "Design", "Digital Marketing"};
+    private static final String[] CLASS_PREFIXES = {"K40", "K41", "K42", "K43"};
+    private static final int STUDENTS_PER_CLASS = 60;
+    private static final int SUBJECTS_PER_TEACHER = 4;
+    private static final int STUDENTS_PER_PROJECT = 4;
+    
+    private final int students;
+    private final int subjects;
+    private final int subjectsPerStudent;
+    private final int attendanceDays;
+    private final Random random;
+    
+    private final List<Student> studentList = new ArrayList<>();
+    private final List<Subject> subjectList = new ArrayList<>();
+    
+    /**
+     * @param students number of students to create
+     * @param subjects number of subjects to create
+     * @param subjectsPerStudent subjects each student is enrolled in, each with a grade
+     * @param attendanceDays attendance records per enrolled subject, one per day
+     * @param seed random seed, so runs are comparable across commits
+     */
+    public SyntheticData(int students, int subjects, int subjectsPerStudent, int attendanceDays, long seed) {
+        if (subjectsPerStudent > subjects) {
+            throw new IllegalArgumentException("Cannot enroll in more subjects than exist");
+        }
+        this.students = students;
+        this.subjects = subjects;
+        this.subjectsPerStudent = subjectsPerStudent;
+        this.attendanceDays = attendanceDays;
+        this.random = new Random(seed);
+    }
+    
+    /**
+     * Fills a data manager with the synthetic campus. The built-in sample data
+     * is loaded first so the manager is marked ready for authentication; the
+     * generated ids do not clash with it.
+     *
+     * @param dataManager a data manager that has not been loaded yet
+     */
+    public void populate(DataManager dataManager) {
+        dataManager.initializeData();
+        
+        // Teachers and subjects
+        Teacher teacher = null;
+        for (int i = 0; i < subjects; i++) {
+            if (i % SUBJECTS_PER_TEACHER == 0) {
+                int number = i / SUBJECTS_PER_TEACHER;
+                teacher = new Teacher(String.format("BT%04d", number), "Teacher " + number,
+                                      String.format("bt%04d@vku.vn", number), "teacher123");
+                dataManager.addTeacher(teacher);
+            }
+            Subject subject = new Subject(String.format("BSUB%04d", i), "Subject " + i, 2 + random.nextInt(3), teacher);
+            dataManager.addSubject(subject);
+            subjectList.add(subject);
+        }
+        
+        // Students with grades, attendance and fees. One hash is shared by
+        // all students; hashing each one would dominate the setup time.
+        String passwordHash = PasswordHasher.hash(STUDENT_PASSWORD.toCharArray());
+        long today = System.currentTimeMillis();
+        for (int i = 0; i < students; i++) {
+            String name = FAMILY_NAMES[random.nextInt(FAMILY_NAMES.length)] + " Van "
+                        + GIVEN_NAMES[random.nextInt(GIVEN_NAMES.length)];
+            int classNumber = i / STUDENTS_PER_CLASS;
+            String className = CLASS_PREFIXES[classNumber % CLASS_PREFIXES.length] + (char) ('A' + classNumber / CLASS_PREFIXES.length % 26);
+            Student student = new Student(String.format("B%07d", i), name, className,
+                                          MAJORS[classNumber % MAJORS.length], "2022-2026",
+                                          String.format("b%07d@vku.vn", i), passwordHash);
+            dataManager.addStudent(student);
+            studentList.add(student);
+            
+            // A contiguous run of subjects from a random start keeps them distinct
+            int first = random.nextInt(subjects);
+            for (int s = 0; s < subjectsPerStudent; s++) {
+                Subject subject = subjectList.get((first + s) % subjects);
+                Grade grade = new Grade(student, subject);
+                grade.setAssignmentScore(randomScore());
+                grade.setMidtermScore(randomScore());
+                grade.setAttendanceScore(randomScore());
+                grade.setFinalScore(randomScore());
+                dataManager.addGrade(grade);
+                
+                for (int d = 0; d < attendanceDays; d++) {
+                    Date date = new Date(today - TimeUnit.DAYS.toMillis(d));
+                    dataManager.addAttendance(new Attendance(student, subject, date, random.nextInt(10) != 0));
+                }
+            }
+            
+            dataManager.addFee(new Fee(student, subjectsPerStudent * 1000000.0, random.nextBoolean()));
+        }
+        
+        // Project groups
+        for (int i = 0; i + STUDENTS_PER_PROJECT <= students; i += STUDENTS_PER_PROJECT * 10) {
+            List<Student> group = new ArrayList<>(studentList.subList(i, i + STUDENTS_PER_PROJECT));
+            Subject subject = subjectList.get(random.nextInt(subjects));
+            Project project = new Project(String.format("BP%06d", i), "Project " + i, group, subject.getTeacher(), "2026-12-31");
+            project.setProgress(random.nextInt(101));
+            dataManager.addProject(project);
+        }
+    }
+    
+    public List<Student> getStudents() {
+        return studentList;
+    }
+    
+    public List<Subject> getSubjects() {
+        return subjectList;
+    }
+    
+    private double randomScore() {
+        return Math.round(random.nextDouble() * 100) / 10.0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.vku.ui.panels;
+
+import com.vku.benchmark.CampusState;
+import com.vku.data.StudentFacets.Facet;
+import com.vku.model.Grade;
+import com.vku.model.Student;
+import com.vku.ui.models.GradeSheetTableModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The background queries behind the teacher tables: student filtering,
+ * grade sheet population and attendance lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PanelQueryBenchmark {
+    // Rows visible on the first screen of a table
+    private static final int VISIBLE_ROWS = 25;
+    
+    @Benchmark
+    public StudentInfoPanel.Matches filterStudentsByClass(CampusState campus, CampusState.Cursor cursor) {
+        Student student = cursor.nextStudent(campus);
+        return StudentInfoPanel.findStudents(Collections.singletonMap(Facet.CLASS, student.getClassName()), "");
+    }
+    
+    @Benchmark
+    public StudentInfoPanel.Matches filterStudentsByFacets(CampusState campus, CampusState.Cursor cursor) {
+        // Every facet narrowed at once, counts included
+        Student student = cursor.nextStudent(campus);
+        Map<Facet, String> choices = new EnumMap<>(Facet.class);
+        choices.put(Facet.MAJOR, student.getMajor());
+        choices.put(Facet.COURSE, student.getCourse());
+        choices.put(Facet.RANK, student.getRank());
+        return StudentInfoPanel.findStudents(choices, "");
+    }
+    
+    @Benchmark
+    public StudentInfoPanel.Matches searchStudentsByName(CampusState campus, CampusState.Cursor cursor) {
+        String givenName = cursor.nextStudent(campus).getName();
+        return StudentInfoPanel.findStudents(Collections.emptyMap(), givenName.substring(givenName.lastIndexOf(' ') + 1));
+    }
+    
+    @Benchmark
+    public StudentInfoPanel.Matches searchStudentsWithTypo(CampusState campus, CampusState.Cursor cursor) {
+        // Full name with the last letter dropped, matched by edit distance
+        String name = cursor.nextStudent(campus).getName();
+        return StudentInfoPanel.findStudents(Collections.emptyMap(), name.substring(0, name.length() - 1));
+    }
+    
+    @Benchmark
+    public double populateGradeSheet(CampusState campus, CampusState.Cursor cursor) {
+        List<Grade> grades = GradesPanel.findGrades(cursor.nextSubject(campus).getName());
+        GradeSheetTableModel model = new GradeSheetTableModel();
+        model.setGrades(grades);
+        
+        // Read the cells the table paints first, derived columns included
+        double sum = 0;
+        int rows = Math.min(VISIBLE_ROWS, model.getRowCount());
+        for (int row = 0; row < rows; row++) {
+            sum += (Double) model.getValueAt(row, GradeSheetTableModel.AVERAGE_COLUMN);
+            sum += model.getValueAt(row, GradeSheetTableModel.RANK_COLUMN).hashCode();
+        }
+        return sum;
+    }
+    
+    @Benchmark
+    public List<Object[]> loadAttendanceSheet(CampusState campus, CampusState.Cursor cursor) {
+        return AttendancePanel.findAttendanceRows(cursor.nextSubject(campus).getName(), new Date());
+    }
+}
\ No newline at end of file
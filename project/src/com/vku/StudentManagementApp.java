@@ -4,9 +4,14 @@ import com.vku.auth.AuthenticationManager;
 import com.vku.ui.LoginPanel;
 import com.vku.ui.MainFrame;
 import com.vku.data.DataManager;
+import com.vku.data.DatabaseConfig;
+import com.vku.data.JdbcDataStore;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.sql.SQLException;
 
 /**
  * Main class for the Student Management Application.
@@ -25,18 +30,22 @@ public class StudentManagementApp {
         // Initialize custom UI settings
         initUISettings();
 
-        // Initialize data
-        DataManager.getInstance().initializeData();
+        // Load data in the background so the login window shows immediately
+        Thread dataLoader = new Thread(() -> {
+            try {
+                initData();
+            } catch (RuntimeException | Error e) {
+                e.printStackTrace();
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+                    "The application data could not be loaded: " + e,
+                    "Startup Error", JOptionPane.ERROR_MESSAGE));
+            }
+        }, "data-loader");
+        dataLoader.start();
 
         // Start the application with the login screen
         SwingUtilities.invokeLater(() -> {
-            LoginPanel loginPanel = new LoginPanel();
-            JFrame loginFrame = new JFrame("VKU Student Management System");
-            loginFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-            loginFrame.setSize(400, 500);
-            loginFrame.setLocationRelativeTo(null);
-            loginFrame.add(loginPanel);
-            loginFrame.setVisible(true);
+            JFrame loginFrame = LoginPanel.showLoginFrame();
 
             // Set application icon
             ImageIcon appIcon = new ImageIcon(StudentManagementApp.class.getResource("/resources/app_icon.png"));
@@ -46,6 +55,86 @@ public class StudentManagementApp {
         });
     }
 
+    /**
+     * Initialize application data from the configured database, or from the
+     * journal directory set with {@code vku.journal.dir}, falling back to the
+     * built-in sample data when neither is set up. Also used by the headless
+     * API server. Threads waiting for the data are released even if this
+     * fails; they then get the failure instead.
+     */
+    public static void initData() {
+        DataManager dataManager = DataManager.getInstance();
+        Throwable failure = null;
+        try {
+            loadData(dataManager);
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            dataManager.finishLoading(failure);
+        }
+    }
+    
+    private static void loadData(DataManager dataManager) {
+        DatabaseConfig config = DatabaseConfig.fromSystemProperties();
+        if (config == null) {
+            initJournal(dataManager, System.getProperty("vku.journal.dir"));
+            return;
+        }
+        
+        try {
+            JdbcDataStore store = new JdbcDataStore(config);
+            
+            // Seed an empty database with the sample data
+            if (store.isEmpty()) {
+                dataManager.initializeData();
+                dataManager.saveTo(store);
+                dataManager.attachDatabase(store);
+            } else if (config.isPaged()) {
+                dataManager.openPaged(store, config.getPageSize(), config.getResidentPages());
+            } else {
+                dataManager.loadFrom(store);
+            }
+            
+            // Write changes back when the application exits
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    dataManager.saveTo(store);
+                } catch (SQLException e) {
+                    e.printStackTrace();
+                } finally {
+                    store.close();
+                }
+            }));
+        } catch (SQLException e) {
+            e.printStackTrace();
+            dataManager.resetToSampleData();
+        }
+    }
+    
+    private static void initJournal(DataManager dataManager, String directory) {
+        if (directory == null || directory.isEmpty()) {
+            dataManager.initializeData();
+            return;
+        }
+        
+        try {
+            dataManager.openJournal(Paths.get(directory));
+            
+            // Write a final snapshot when the application exits
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    dataManager.closeJournal();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+        } catch (IOException e) {
+            e.printStackTrace();
+            dataManager.resetToSampleData();
+        }
+    }
+    
     /**
      * Initialize custom UI settings for the application
      */
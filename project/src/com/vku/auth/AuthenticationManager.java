@@ -1,66 +1,112 @@
 package com.vku.auth;
 
 import com.vku.data.DataManager;
+import com.vku.model.Role;
 import com.vku.model.User;
 
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Handles user authentication for the application.
+ * Password checks are deliberately slow, so they run on a small bounded
+ * pool; when too many logins are already queued, new attempts are rejected
+ * instead of piling up.
  */
 public class AuthenticationManager {
-    private static User currentUser;
+    private static final int VERIFIER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int MAX_QUEUED_LOGINS = 64;
+    private static final ExecutorService VERIFIER = new ThreadPoolExecutor(
+        VERIFIER_THREADS, VERIFIER_THREADS, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(MAX_QUEUED_LOGINS), new VerifierThreadFactory());
+    
+    // Checked when the email is unknown, so a miss costs as much as a wrong password
+    private static final String DUMMY_HASH = PasswordHasher.hash("dummy-password".toCharArray());
     
     /**
-     * Authenticates a user based on role, email and password.
-     * 
-     * @param role the user's role (Teacher or Student)
+     * Authenticates a user on the verification pool and opens a session
+     * for them.
+     *
+     * @param role the role the user signs in as
      * @param email the user's email
-     * @param password the user's password
-     * @return true if authentication is successful, false otherwise
+     * @param password the user's password; cleared once checked
+     * @return a future that completes with the new session, or with null if
+     *         the credentials are wrong; it fails with RejectedExecutionException
+     *         when too many logins are pending
      */
-    public static boolean authenticate(String role, String email, String password) {
-        for (User user : DataManager.getInstance().getUsers()) {
-            if (user.getEmail().equals(email) && 
-                user.getPassword().equals(password) && 
-                user.getClass().getSimpleName().equalsIgnoreCase(role)) {
-                
-                currentUser = user;
-                return true;
-            }
+    public static CompletableFuture<Session> authenticateAsync(Role role, String email, char[] password) {
+        try {
+            return CompletableFuture.supplyAsync(() -> verify(role, email, password), VERIFIER);
+        } catch (RejectedExecutionException e) {
+            Arrays.fill(password, '\0');
+            CompletableFuture<Session> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(e);
+            return rejected;
         }
-        return false;
     }
     
     /**
-     * Gets the currently authenticated user.
-     * 
-     * @return the current user, or null if no user is authenticated
+     * Authenticates a user based on role, email and password, waiting for
+     * the result.
+     *
+     * @param role the role the user signs in as
+     * @param email the user's email
+     * @param password the user's password; cleared once checked
+     * @return the new session, or null if authentication failed
      */
-    public static User getCurrentUser() {
-        return currentUser;
+    public static Session authenticate(Role role, String email, char[] password) {
+        try {
+            return authenticateAsync(role, email, password).join();
+        } catch (CompletionException e) {
+            return null;
+        }
     }
     
-    /**
-     * Logs out the current user.
-     */
-    public static void logout() {
-        currentUser = null;
+    private static Session verify(Role role, String email, char[] password) {
+        try {
+            // Data is loaded in the background at startup
+            DataManager.getInstance().awaitReady();
+            
+            User user = DataManager.getInstance().findUserByEmail(email);
+            if (user == null) {
+                PasswordHasher.verify(password, DUMMY_HASH);
+                return null;
+            }
+            
+            String stored = user.getPassword();
+            if (!PasswordHasher.verify(password, stored) || user.getRole() != role) {
+                return null;
+            }
+            
+            // Replace a legacy plaintext password with a hash on first login
+            if (!PasswordHasher.isHash(stored)) {
+                user.setPassword(PasswordHasher.hash(password));
+            }
+            
+            return SessionManager.getInstance().open(user);
+        } finally {
+            Arrays.fill(password, '\0');
+        }
     }
     
     /**
-     * Checks if the current user is a teacher.
-     * 
-     * @return true if the current user is a teacher, false otherwise
+     * Logs out the user of a session.
+     *
+     * @param session the session to close
      */
-    public static boolean isTeacher() {
-        return currentUser != null && currentUser.getClass().getSimpleName().equalsIgnoreCase("Teacher");
+    public static void logout(Session session) {
+        SessionManager.getInstance().close(session);
     }
     
-    /**
-     * Checks if the current user is a student.
-     * 
-     * @return true if the current user is a student, false otherwise
-     */
-    public static boolean isStudent() {
-        return currentUser != null && currentUser.getClass().getSimpleName().equalsIgnoreCase("Student");
+    private static class VerifierThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "auth-verifier-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+package com.vku.auth;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Salted PBKDF2 password hashing.
+ * Hashes are stored as "pbkdf2$iterations$salt$hash" with Base64 salt and
+ * hash, so the work factor can be raised later without breaking old hashes.
+ */
+public class PasswordHasher {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2$";
+    private static final int ITERATIONS = 100000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
+    private PasswordHasher() {
+    }
+    
+    /**
+     * Hashes a password with a fresh random salt.
+     *
+     * @param password the plaintext password
+     * @return the encoded hash
+     */
+    public static String hash(char[] password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        byte[] hash = derive(password, salt, ITERATIONS);
+        
+        Base64.Encoder encoder = Base64.getEncoder();
+        return PREFIX + ITERATIONS + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(hash);
+    }
+    
+    /**
+     * Checks a password against a stored value in constant time.
+     * Stored values that are not hashes are treated as legacy plaintext.
+     *
+     * @param password the password to check
+     * @param stored the stored hash or legacy plaintext password
+     * @return true if the password matches
+     */
+    public static boolean verify(char[] password, String stored) {
+        if (stored == null) {
+            return false;
+        }
+        if (!isHash(stored)) {
+            byte[] given = new String(password).getBytes(StandardCharsets.UTF_8);
+            return MessageDigest.isEqual(given, stored.getBytes(StandardCharsets.UTF_8));
+        }
+        
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            int iterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(derive(password, salt, iterations), expected);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Checks whether a stored value is a hash produced by this class.
+     *
+     * @param stored the stored password value
+     * @return true if it is a PBKDF2 hash, false for legacy plaintext
+     */
+    public static boolean isHash(String stored) {
+        return stored != null && stored.startsWith(PREFIX);
+    }
+    
+    private static byte[] derive(char[] password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Password hashing is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
\ No newline at end of file
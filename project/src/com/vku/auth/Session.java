@@ -0,0 +1,113 @@
+package com.vku.auth;
+
+import com.vku.model.Role;
+import com.vku.model.Student;
+import com.vku.model.User;
+
+/**
+ * A logged-in user's session. Sessions are created by the SessionManager
+ * and identified by an unguessable token, so several users can be signed
+ * in to the same process at once.
+ */
+public class Session {
+    private final String id;
+    private final User user;
+    private final long createdAt;
+    private volatile long lastAccessed;
+    private volatile boolean closed;
+    
+    Session(String id, User user, long now) {
+        this.id = id;
+        this.user = user;
+        this.createdAt = now;
+        this.lastAccessed = now;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public User getUser() {
+        return user;
+    }
+    
+    public Role getRole() {
+        return user.getRole();
+    }
+    
+    public long getCreatedAt() {
+        return createdAt;
+    }
+    
+    public long getLastAccessed() {
+        return lastAccessed;
+    }
+    
+    /**
+     * Checks if the session belongs to a teacher.
+     *
+     * @return true if the user is a teacher, false otherwise
+     */
+    public boolean isTeacher() {
+        return getRole() == Role.TEACHER;
+    }
+    
+    /**
+     * Checks if the session belongs to a student.
+     *
+     * @return true if the user is a student, false otherwise
+     */
+    public boolean isStudent() {
+        return getRole() == Role.STUDENT;
+    }
+    
+    /**
+     * Gets the signed-in student.
+     *
+     * @return the student
+     * @throws IllegalStateException if the session does not belong to a student
+     */
+    public Student getStudent() {
+        requireRole(Role.STUDENT);
+        return (Student) user;
+    }
+    
+    /**
+     * Marks the session as used and checks that it may still be used for
+     * the given role. Called before each data access.
+     *
+     * @param role the role the access requires
+     * @throws SessionExpiredException if the session was closed or expired
+     * @throws IllegalStateException if the user has a different role
+     */
+    public void requireRole(Role role) {
+        touch();
+        if (getRole() != role) {
+            throw new IllegalStateException(role.getLabel() + " access required");
+        }
+    }
+    
+    /**
+     * Marks the session as used, postponing its idle expiry.
+     *
+     * @throws SessionExpiredException if the session was closed or expired
+     */
+    public void touch() {
+        if (closed) {
+            throw new SessionExpiredException();
+        }
+        lastAccessed = System.currentTimeMillis();
+    }
+    
+    public boolean isClosed() {
+        return closed;
+    }
+    
+    boolean isIdle(long now, long timeoutMillis) {
+        return now - lastAccessed > timeoutMillis;
+    }
+    
+    void close() {
+        closed = true;
+    }
+}
\ No newline at end of file
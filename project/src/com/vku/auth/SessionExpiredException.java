@@ -0,0 +1,12 @@
+package com.vku.auth;
+
+/**
+ * Thrown when a session is used after it was closed or expired, so the
+ * user has to sign in again.
+ */
+public class SessionExpiredException extends IllegalStateException {
+    
+    public SessionExpiredException() {
+        super("Session has expired, please sign in again");
+    }
+}
\ No newline at end of file
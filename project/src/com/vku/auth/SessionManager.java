@@ -0,0 +1,146 @@
+package com.vku.auth;
+
+import com.vku.data.DataManager;
+import com.vku.model.Student;
+import com.vku.model.User;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of open sessions. Sessions that have not been used for longer
+ * than the idle timeout are closed by a background sweep.
+ * Implements the Singleton pattern to ensure a single instance.
+ */
+public class SessionManager {
+    private static final long DEFAULT_IDLE_MINUTES = 30;
+    private static final long SWEEP_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+    private static SessionManager instance;
+    
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private final ScheduledExecutorService sweeper;
+    private volatile long idleTimeout;
+    
+    private SessionManager() {
+        idleTimeout = TimeUnit.MINUTES.toMillis(Long.getLong("vku.session.idleMinutes", DEFAULT_IDLE_MINUTES));
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::expireIdleSessions, SWEEP_INTERVAL, SWEEP_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Get the singleton instance of SessionManager
+     *
+     * @return the SessionManager instance
+     */
+    public static synchronized SessionManager getInstance() {
+        if (instance == null) {
+            instance = new SessionManager();
+        }
+        return instance;
+    }
+    
+    /**
+     * Opens a session for an authenticated user.
+     *
+     * @param user the user who signed in
+     * @return the new session
+     */
+    Session open(User user) {
+        byte[] token = new byte[24];
+        random.nextBytes(token);
+        Session session = new Session(Base64.getUrlEncoder().withoutPadding().encodeToString(token),
+                                      user, System.currentTimeMillis());
+        sessions.put(session.getId(), session);
+        
+        // Keep the student resident while paging
+        if (user instanceof Student) {
+            DataManager.getInstance().pinStudent((Student) user);
+        }
+        return session;
+    }
+    
+    /**
+     * Looks up an open session and marks it as used.
+     *
+     * @param id the session token
+     * @return the session, or null if it does not exist or has expired
+     */
+    public Session getSession(String id) {
+        if (id == null) {
+            return null;
+        }
+        Session session = sessions.get(id);
+        if (session == null) {
+            return null;
+        }
+        if (session.isIdle(System.currentTimeMillis(), idleTimeout)) {
+            close(session);
+            return null;
+        }
+        session.touch();
+        return session;
+    }
+    
+    /**
+     * Closes a session; further use of it fails.
+     *
+     * @param session the session to close
+     */
+    public void close(Session session) {
+        if (sessions.remove(session.getId(), session)) {
+            session.close();
+            User user = session.getUser();
+            if (user instanceof Student && !hasSession(user)) {
+                DataManager.getInstance().unpinStudent((Student) user);
+            }
+        }
+    }
+    
+    private boolean hasSession(User user) {
+        for (Session session : sessions.values()) {
+            if (session.getUser() == user) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Closes every session that has been idle for longer than the timeout.
+     *
+     * @return the number of sessions closed
+     */
+    public int expireIdleSessions() {
+        long now = System.currentTimeMillis();
+        int expired = 0;
+        for (Session session : sessions.values()) {
+            if (session.isIdle(now, idleTimeout)) {
+                close(session);
+                expired++;
+            }
+        }
+        return expired;
+    }
+    
+    public int getSessionCount() {
+        return sessions.size();
+    }
+    
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+    
+    public void setIdleTimeout(long idleTimeout, TimeUnit unit) {
+        this.idleTimeout = unit.toMillis(idleTimeout);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,502 @@
+package com.vku.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Compact storage for attendance marks. Every student gets a dense ordinal,
+ * and each class session (a subject on a day) keeps two bitsets over those
+ * ordinals: one saying whether the student was marked at all, the other
+ * whether they were present. A term of daily attendance for tens of
+ * thousands of students fits in a few megabytes instead of millions of
+ * objects.
+ *
+ * Bitsets are split into blocks of {@value #BLOCK_STUDENTS} students that
+ * live in a memory-mapped file outside the Java heap; a session only
+ * allocates blocks for the student ranges it actually marks.
+ *
+ * Not thread-safe; DataManager guards it with its enrollment lock.
+ */
+public class AttendanceStore implements Closeable {
+    private static final int BLOCK_STUDENTS = 4096;
+    private static final int WORDS = BLOCK_STUDENTS / 64;
+    private static final int PRESENT_OFFSET = WORDS * Long.BYTES;
+    private static final int BLOCK_SIZE = 2 * WORDS * Long.BYTES;
+    private static final int BLOCKS_PER_REGION = 4096;
+    private static final long REGION_SIZE = (long) BLOCKS_PER_REGION * BLOCK_SIZE;
+    
+    private final Path file;
+    private final boolean temporary;
+    private final FileChannel channel;
+    private final List<MappedByteBuffer> regions = new ArrayList<>();
+    private int blockCount;
+    
+    private final OrdinalRegistry students = new OrdinalRegistry();
+    private final OrdinalRegistry subjects = new OrdinalRegistry();
+    
+    // Indexed by subject ordinal, then keyed by epoch day
+    private final List<TreeMap<Long, Session>> sessions = new ArrayList<>();
+    
+    /**
+     * Opens a store backed by the given file, replacing its contents.
+     *
+     * @param file the backing file
+     * @throws IOException if the file cannot be opened
+     */
+    public AttendanceStore(Path file) throws IOException {
+        this(file, false);
+    }
+    
+    private AttendanceStore(Path file, boolean temporary) throws IOException {
+        this.file = file;
+        this.temporary = temporary;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+    
+    /**
+     * Opens a store backed by a temporary file that is deleted on close.
+     *
+     * @return the new store
+     * @throws IOException if the file cannot be created
+     */
+    public static AttendanceStore createTemporary() throws IOException {
+        Path file = Files.createTempFile("vku-attendance", ".bin");
+        file.toFile().deleteOnExit();
+        return new AttendanceStore(file, true);
+    }
+    
+    /**
+     * Records whether a student attended a session, replacing any earlier mark.
+     *
+     * @param studentId the student
+     * @param subjectId the subject
+     * @param day the day of the session
+     * @param present whether the student was present
+     */
+    public void mark(String studentId, String subjectId, LocalDate day, boolean present) {
+        int student = students.ordinal(studentId);
+        Session session = session(subjects.ordinal(subjectId), day.toEpochDay(), true);
+        int block = block(session, student / BLOCK_STUDENTS, true);
+        
+        int word = (student % BLOCK_STUDENTS) >>> 6;
+        long bit = 1L << student;
+        setWord(block, word, 0, getWord(block, word, 0) | bit);
+        long presentWord = getWord(block, word, PRESENT_OFFSET);
+        setWord(block, word, PRESENT_OFFSET, present ? presentWord | bit : presentWord & ~bit);
+    }
+    
+    /**
+     * Records a whole roster for one session. The marks are gathered into
+     * words first, so each touched word of the bitsets is written once.
+     *
+     * @param subjectId the subject
+     * @param day the day of the session
+     * @param marks whether each student, by id, was present
+     */
+    public void markRoster(String subjectId, LocalDate day, Map<String, Boolean> marks) {
+        if (marks.isEmpty()) {
+            return;
+        }
+        int[] ordinals = new int[marks.size()];
+        int i = 0;
+        for (String studentId : marks.keySet()) {
+            ordinals[i++] = students.ordinal(studentId);
+        }
+        int words = (students.size() + 63) >>> 6;
+        long[] marked = new long[words];
+        long[] present = new long[words];
+        i = 0;
+        for (Boolean value : marks.values()) {
+            int student = ordinals[i++];
+            marked[student >>> 6] |= 1L << student;
+            if (value) {
+                present[student >>> 6] |= 1L << student;
+            }
+        }
+        
+        Session session = session(subjects.ordinal(subjectId), day.toEpochDay(), true);
+        for (int w = 0; w < words; w++) {
+            if (marked[w] == 0) {
+                continue;
+            }
+            int block = block(session, w / WORDS, true);
+            int word = w % WORDS;
+            setWord(block, word, 0, getWord(block, word, 0) | marked[w]);
+            long kept = getWord(block, word, PRESENT_OFFSET) & ~marked[w];
+            setWord(block, word, PRESENT_OFFSET, kept | present[w]);
+        }
+    }
+    
+    /**
+     * Gets a student's mark for a session.
+     *
+     * @param studentId the student
+     * @param subjectId the subject
+     * @param day the day of the session
+     * @return whether the student was present, or null if not marked
+     */
+    public Boolean get(String studentId, String subjectId, LocalDate day) {
+        int student = students.find(studentId);
+        int subject = subjects.find(subjectId);
+        if (student < 0 || subject < 0) {
+            return null;
+        }
+        Session session = session(subject, day.toEpochDay(), false);
+        int block = session == null ? -1 : block(session, student / BLOCK_STUDENTS, false);
+        if (block < 0) {
+            return null;
+        }
+        int word = (student % BLOCK_STUDENTS) >>> 6;
+        long bit = 1L << student;
+        if ((getWord(block, word, 0) & bit) == 0) {
+            return null;
+        }
+        return (getWord(block, word, PRESENT_OFFSET) & bit) != 0;
+    }
+    
+    /**
+     * Gets every mark recorded for one session.
+     *
+     * @param subjectId the subject
+     * @param day the day of the session
+     * @return whether each marked student, by id, was present
+     */
+    public Map<String, Boolean> getSheet(String subjectId, LocalDate day) {
+        Map<String, Boolean> sheet = new HashMap<>();
+        int subject = subjects.find(subjectId);
+        Session session = subject < 0 ? null : session(subject, day.toEpochDay(), false);
+        if (session == null) {
+            return sheet;
+        }
+        for (int chunk = 0; chunk < session.blocks.length; chunk++) {
+            int block = session.blocks[chunk];
+            if (block < 0) {
+                continue;
+            }
+            for (int word = 0; word < WORDS; word++) {
+                long marked = getWord(block, word, 0);
+                long present = getWord(block, word, PRESENT_OFFSET);
+                while (marked != 0) {
+                    int bit = Long.numberOfTrailingZeros(marked);
+                    marked &= marked - 1;
+                    int student = chunk * BLOCK_STUDENTS + (word << 6) + bit;
+                    sheet.put(students.id(student), (present & (1L << bit)) != 0);
+                }
+            }
+        }
+        return sheet;
+    }
+    
+    /**
+     * Gets the share of a subject's marked sessions a student was present at.
+     *
+     * @param studentId the student
+     * @param subjectId the subject
+     * @return the rate between 0 and 1, or 1 if the student was never marked
+     */
+    public double getRate(String studentId, String subjectId) {
+        int student = students.find(studentId);
+        int subject = subjects.find(subjectId);
+        if (student < 0 || subject < 0) {
+            return 1.0;
+        }
+        int chunk = student / BLOCK_STUDENTS;
+        int word = (student % BLOCK_STUDENTS) >>> 6;
+        long bit = 1L << student;
+        int marked = 0;
+        int present = 0;
+        for (Session session : sessions.get(subject).values()) {
+            int block = block(session, chunk, false);
+            if (block >= 0 && (getWord(block, word, 0) & bit) != 0) {
+                marked++;
+                if ((getWord(block, word, PRESENT_OFFSET) & bit) != 0) {
+                    present++;
+                }
+            }
+        }
+        return marked == 0 ? 1.0 : (double) present / marked;
+    }
+    
+    /**
+     * Gets the attendance rate of every student marked in a subject, in one
+     * pass over the subject's bitsets.
+     *
+     * @param subjectId the subject
+     * @return the rate between 0 and 1 of each marked student, by id
+     */
+    public Map<String, Double> getRates(String subjectId) {
+        Map<String, Double> rates = new HashMap<>();
+        int subject = subjects.find(subjectId);
+        if (subject < 0) {
+            return rates;
+        }
+        int[] marked = new int[students.size()];
+        int[] present = new int[students.size()];
+        for (Session session : sessions.get(subject).values()) {
+            for (int chunk = 0; chunk < session.blocks.length; chunk++) {
+                int block = session.blocks[chunk];
+                if (block < 0) {
+                    continue;
+                }
+                for (int word = 0; word < WORDS; word++) {
+                    long markedWord = getWord(block, word, 0);
+                    long presentWord = getWord(block, word, PRESENT_OFFSET);
+                    int base = chunk * BLOCK_STUDENTS + (word << 6);
+                    while (markedWord != 0) {
+                        int bit = Long.numberOfTrailingZeros(markedWord);
+                        markedWord &= markedWord - 1;
+                        marked[base + bit]++;
+                        present[base + bit] += (int) (presentWord >>> bit) & 1;
+                    }
+                }
+            }
+        }
+        for (int student = 0; student < marked.length; student++) {
+            if (marked[student] > 0) {
+                rates.put(students.id(student), (double) present[student] / marked[student]);
+            }
+        }
+        return rates;
+    }
+    
+    /**
+     * Gets the days on which a subject has marked sessions.
+     *
+     * @param subjectId the subject
+     * @return the days in order
+     */
+    public List<LocalDate> getSessionDays(String subjectId) {
+        int subject = subjects.find(subjectId);
+        List<LocalDate> days = new ArrayList<>();
+        if (subject >= 0) {
+            for (long day : sessions.get(subject).keySet()) {
+                days.add(LocalDate.ofEpochDay(day));
+            }
+        }
+        return days;
+    }
+    
+    /**
+     * Clears every mark of the given students. Their ordinals are kept, so
+     * re-adding a student reuses the same bit.
+     *
+     * @param studentIds the students to remove
+     */
+    public void removeStudents(Collection<String> studentIds) {
+        for (String studentId : studentIds) {
+            int student = students.find(studentId);
+            if (student < 0) {
+                continue;
+            }
+            int chunk = student / BLOCK_STUDENTS;
+            int word = (student % BLOCK_STUDENTS) >>> 6;
+            long keep = ~(1L << student);
+            for (TreeMap<Long, Session> bySubject : sessions) {
+                for (Session session : bySubject.values()) {
+                    int block = block(session, chunk, false);
+                    if (block >= 0) {
+                        setWord(block, word, 0, getWord(block, word, 0) & keep);
+                        setWord(block, word, PRESENT_OFFSET, getWord(block, word, PRESENT_OFFSET) & keep);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Removes every mark. The mapped file is kept and its blocks reused.
+     */
+    public void clear() {
+        students.clear();
+        subjects.clear();
+        sessions.clear();
+        blockCount = 0;
+    }
+    
+    /**
+     * Copies the marks into a heap snapshot that is unaffected by later changes.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        List<SessionCopy> copies = new ArrayList<>();
+        for (int subject = 0; subject < sessions.size(); subject++) {
+            for (Map.Entry<Long, Session> entry : sessions.get(subject).entrySet()) {
+                int[] blocks = entry.getValue().blocks;
+                SessionCopy copy = new SessionCopy(subject, entry.getKey(), blocks.length);
+                for (int chunk = 0; chunk < blocks.length; chunk++) {
+                    if (blocks[chunk] >= 0) {
+                        copy.marked[chunk] = copyWords(blocks[chunk], 0);
+                        copy.present[chunk] = copyWords(blocks[chunk], PRESENT_OFFSET);
+                    }
+                }
+                copies.add(copy);
+            }
+        }
+        return new Snapshot(students.toArray(), subjects.toArray(), copies);
+    }
+    
+    /**
+     * Gets the number of bytes of the backing file in use.
+     *
+     * @return the used size in bytes
+     */
+    public long getUsedBytes() {
+        return (long) blockCount * BLOCK_SIZE;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        regions.clear();
+        channel.close();
+        if (temporary) {
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    private Session session(int subject, long day, boolean create) {
+        while (create && sessions.size() <= subject) {
+            sessions.add(new TreeMap<>());
+        }
+        if (subject >= sessions.size()) {
+            return null;
+        }
+        TreeMap<Long, Session> bySubject = sessions.get(subject);
+        Session session = bySubject.get(day);
+        if (session == null && create) {
+            session = new Session();
+            bySubject.put(day, session);
+        }
+        return session;
+    }
+    
+    private int block(Session session, int chunk, boolean create) {
+        if (chunk < session.blocks.length && session.blocks[chunk] >= 0) {
+            return session.blocks[chunk];
+        }
+        if (!create) {
+            return -1;
+        }
+        if (chunk >= session.blocks.length) {
+            int length = session.blocks.length;
+            session.blocks = Arrays.copyOf(session.blocks, chunk + 1);
+            Arrays.fill(session.blocks, length, chunk + 1, -1);
+        }
+        session.blocks[chunk] = allocate();
+        return session.blocks[chunk];
+    }
+    
+    private int allocate() {
+        if (blockCount == regions.size() * BLOCKS_PER_REGION) {
+            try {
+                regions.add(channel.map(FileChannel.MapMode.READ_WRITE, regions.size() * REGION_SIZE, REGION_SIZE));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not grow attendance file " + file, e);
+            }
+        }
+        int block = blockCount++;
+        
+        // Blocks are reused after clear(), so start from zero
+        for (int word = 0; word < 2 * WORDS; word++) {
+            setWord(block, word, 0, 0L);
+        }
+        return block;
+    }
+    
+    private long getWord(int block, int word, int offset) {
+        return regions.get(block / BLOCKS_PER_REGION)
+                      .getLong((block % BLOCKS_PER_REGION) * BLOCK_SIZE + offset + word * Long.BYTES);
+    }
+    
+    private void setWord(int block, int word, int offset, long value) {
+        regions.get(block / BLOCKS_PER_REGION)
+               .putLong((block % BLOCKS_PER_REGION) * BLOCK_SIZE + offset + word * Long.BYTES, value);
+    }
+    
+    private long[] copyWords(int block, int offset) {
+        long[] words = new long[WORDS];
+        for (int word = 0; word < WORDS; word++) {
+            words[word] = getWord(block, word, offset);
+        }
+        return words;
+    }
+    
+    // Block numbers of one session, indexed by student range; -1 where none is allocated
+    private static final class Session {
+        int[] blocks = new int[0];
+    }
+    
+    private static final class SessionCopy {
+        final int subject;
+        final long day;
+        final long[][] marked;
+        final long[][] present;
+        
+        SessionCopy(int subject, long day, int chunks) {
+            this.subject = subject;
+            this.day = day;
+            this.marked = new long[chunks][];
+            this.present = new long[chunks][];
+        }
+    }
+    
+    /**
+     * Receives the marks of a snapshot one by one.
+     */
+    public interface Visitor {
+        void visit(String studentId, String subjectId, LocalDate day, boolean present);
+    }
+    
+    /**
+     * Heap copy of the marks at one point in time, used to export them
+     * without holding the store's lock.
+     */
+    public static final class Snapshot {
+        private final String[] studentIds;
+        private final String[] subjectIds;
+        private final List<SessionCopy> sessions;
+        
+        private Snapshot(String[] studentIds, String[] subjectIds, List<SessionCopy> sessions) {
+            this.studentIds = studentIds;
+            this.subjectIds = subjectIds;
+            this.sessions = sessions;
+        }
+        
+        /**
+         * Visits every mark, session by session.
+         *
+         * @param visitor receives the marks
+         */
+        public void forEach(Visitor visitor) {
+            for (SessionCopy session : sessions) {
+                String subjectId = subjectIds[session.subject];
+                LocalDate day = LocalDate.ofEpochDay(session.day);
+                for (int chunk = 0; chunk < session.marked.length; chunk++) {
+                    long[] marked = session.marked[chunk];
+                    long[] present = session.present[chunk];
+                    if (marked == null) {
+                        continue;
+                    }
+                    for (int word = 0; word < WORDS; word++) {
+                        long bits = marked[word];
+                        while (bits != 0) {
+                            int bit = Long.numberOfTrailingZeros(bits);
+                            bits &= bits - 1;
+                            int student = chunk * BLOCK_STUDENTS + (word << 6) + bit;
+                            visitor.visit(studentIds[student], subjectId, day, (present[word] & (1L << bit)) != 0);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,352 @@
+package com.vku.data;
+
+import com.vku.model.*;
+
+import java.util.*;
+
+/**
+ * Campus-wide figures for the dashboard, kept up to date as students, fees
+ * and projects are added or changed instead of being recomputed from the
+ * full data set. Readers take an immutable {@link Snapshot}.
+ */
+public class CampusStatistics implements EntityListener {
+    /** The group of students with no major or class set. */
+    public static final String UNKNOWN_GROUP = "Unknown";
+    
+    // Last values seen for each entity, so a change can be applied as a delta
+    private final Map<String, StudentEntry> students = new HashMap<>();
+    private final Map<String, FeeEntry> fees = new HashMap<>();
+    private final Map<String, ProjectEntry> projects = new HashMap<>();
+    
+    private final Map<String, Group> byMajor = new HashMap<>();
+    private final Map<String, Group> byClass = new HashMap<>();
+    private double gpaSum;
+    private double unpaidFees;
+    private int pendingProjects;
+    
+    // Set when subject credits change; every GPA is re-read on the next snapshot
+    private boolean gpaStale;
+    private Snapshot snapshot;
+    
+    CampusStatistics() {
+    }
+    
+    /**
+     * Gets the current figures. Cheap to call repeatedly: the snapshot is
+     * only rebuilt after something changed, and then only from the
+     * per-group totals.
+     *
+     * @return an immutable snapshot
+     */
+    public synchronized Snapshot getSnapshot() {
+        if (gpaStale) {
+            refreshAllGpas();
+        }
+        if (snapshot == null) {
+            snapshot = new Snapshot(students.size(), pendingProjects, unpaidFees,
+                                    students.isEmpty() ? 0.0 : gpaSum / students.size(),
+                                    copyGroups(byMajor), copyGroups(byClass));
+        }
+        return snapshot;
+    }
+    
+    synchronized void addStudent(Student student) {
+        StudentEntry entry = students.get(student.getId());
+        if (entry != null) {
+            // Same student reloaded, e.g. after paging it back in
+            removeFromGroups(entry);
+        }
+        entry = new StudentEntry(student);
+        students.put(student.getId(), entry);
+        addToGroups(entry);
+        snapshot = null;
+    }
+    
+    synchronized void removeStudent(String id) {
+        StudentEntry entry = students.remove(id);
+        if (entry != null) {
+            removeFromGroups(entry);
+            snapshot = null;
+        }
+        removeFee(id);
+    }
+    
+    /**
+     * Keeps an evicted student's figures but drops the references to the
+     * student and its fee, so paging can release them.
+     */
+    synchronized void detachStudent(String id) {
+        StudentEntry entry = students.get(id);
+        if (entry != null) {
+            entry.student = null;
+        }
+        FeeEntry feeEntry = fees.get(id);
+        if (feeEntry != null) {
+            feeEntry.fee = null;
+        }
+    }
+    
+    synchronized void addFee(Fee fee) {
+        removeFee(fee.getStudent().getId());
+        FeeEntry entry = new FeeEntry(fee);
+        fees.put(fee.getStudent().getId(), entry);
+        unpaidFees += entry.unpaidAmount;
+        snapshot = null;
+    }
+    
+    synchronized void addProject(Project project) {
+        ProjectEntry previous = projects.remove(project.getId());
+        if (previous != null && previous.pending) {
+            pendingProjects--;
+        }
+        ProjectEntry entry = new ProjectEntry(project);
+        projects.put(project.getId(), entry);
+        if (entry.pending) {
+            pendingProjects++;
+        }
+        snapshot = null;
+    }
+    
+    synchronized void clear() {
+        students.clear();
+        fees.clear();
+        projects.clear();
+        byMajor.clear();
+        byClass.clear();
+        gpaSum = 0.0;
+        unpaidFees = 0.0;
+        pendingProjects = 0;
+        gpaStale = false;
+        snapshot = null;
+    }
+    
+    @Override
+    public synchronized void entityChanged(Object entity) {
+        if (entity instanceof Student) {
+            studentChanged((Student) entity);
+        } else if (entity instanceof Fee) {
+            feeChanged((Fee) entity);
+        } else if (entity instanceof Project) {
+            projectChanged((Project) entity);
+        } else if (entity instanceof Subject) {
+            gpaStale = true;
+            snapshot = null;
+        }
+    }
+    
+    private void studentChanged(Student student) {
+        StudentEntry entry = students.get(student.getId());
+        // Ignore objects that are not the tracked instance (e.g. not yet added)
+        if (entry == null || entry.student != student) {
+            return;
+        }
+        removeFromGroups(entry);
+        entry.read();
+        addToGroups(entry);
+        snapshot = null;
+    }
+    
+    private void feeChanged(Fee fee) {
+        FeeEntry entry = fees.get(fee.getStudent().getId());
+        if (entry == null || entry.fee != fee) {
+            return;
+        }
+        unpaidFees -= entry.unpaidAmount;
+        entry.read();
+        unpaidFees += entry.unpaidAmount;
+        snapshot = null;
+    }
+    
+    private void projectChanged(Project project) {
+        ProjectEntry entry = projects.get(project.getId());
+        if (entry == null || entry.project != project) {
+            return;
+        }
+        boolean wasPending = entry.pending;
+        entry.read();
+        if (wasPending != entry.pending) {
+            pendingProjects += entry.pending ? 1 : -1;
+            snapshot = null;
+        }
+    }
+    
+    private void removeFee(String studentId) {
+        FeeEntry entry = fees.remove(studentId);
+        if (entry != null) {
+            unpaidFees -= entry.unpaidAmount;
+            snapshot = null;
+        }
+    }
+    
+    private void refreshAllGpas() {
+        byMajor.clear();
+        byClass.clear();
+        gpaSum = 0.0;
+        for (StudentEntry entry : students.values()) {
+            if (entry.student != null) {
+                entry.read();
+            }
+            addToGroups(entry);
+        }
+        gpaStale = false;
+    }
+    
+    private void addToGroups(StudentEntry entry) {
+        gpaSum += entry.gpa;
+        byMajor.computeIfAbsent(entry.major, k -> new Group()).add(entry.gpa);
+        byClass.computeIfAbsent(entry.className, k -> new Group()).add(entry.gpa);
+    }
+    
+    private void removeFromGroups(StudentEntry entry) {
+        gpaSum -= entry.gpa;
+        removeFrom(byMajor, entry.major, entry.gpa);
+        removeFrom(byClass, entry.className, entry.gpa);
+    }
+    
+    private static void removeFrom(Map<String, Group> groups, String key, double gpa) {
+        Group group = groups.get(key);
+        if (group != null && group.remove(gpa)) {
+            groups.remove(key);
+        }
+    }
+    
+    private static Map<String, GroupStats> copyGroups(Map<String, Group> groups) {
+        Map<String, GroupStats> copy = new TreeMap<>();
+        for (Map.Entry<String, Group> entry : groups.entrySet()) {
+            Group group = entry.getValue();
+            copy.put(entry.getKey(), new GroupStats(group.count, group.gpaSum / group.count));
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+    
+    /**
+     * Immutable view of the campus figures at one point in time.
+     */
+    public static class Snapshot {
+        private final int totalStudents;
+        private final int pendingProjects;
+        private final double unpaidFees;
+        private final double averageGpa;
+        private final Map<String, GroupStats> byMajor;
+        private final Map<String, GroupStats> byClass;
+        
+        private Snapshot(int totalStudents, int pendingProjects, double unpaidFees, double averageGpa,
+                         Map<String, GroupStats> byMajor, Map<String, GroupStats> byClass) {
+            this.totalStudents = totalStudents;
+            this.pendingProjects = pendingProjects;
+            this.unpaidFees = unpaidFees;
+            this.averageGpa = averageGpa;
+            this.byMajor = byMajor;
+            this.byClass = byClass;
+        }
+        
+        public int getTotalStudents() {
+            return totalStudents;
+        }
+        
+        public int getPendingProjects() {
+            return pendingProjects;
+        }
+        
+        public double getUnpaidFees() {
+            return unpaidFees;
+        }
+        
+        public double getAverageGpa() {
+            return averageGpa;
+        }
+        
+        public Map<String, GroupStats> getByMajor() {
+            return byMajor;
+        }
+        
+        public Map<String, GroupStats> getByClass() {
+            return byClass;
+        }
+    }
+    
+    /**
+     * Student count and average GPA for one major or class.
+     */
+    public static class GroupStats {
+        private final int students;
+        private final double averageGpa;
+        
+        private GroupStats(int students, double averageGpa) {
+            this.students = students;
+            this.averageGpa = averageGpa;
+        }
+        
+        public int getStudents() {
+            return students;
+        }
+        
+        public double getAverageGpa() {
+            return averageGpa;
+        }
+    }
+    
+    private static class Group {
+        private int count;
+        private double gpaSum;
+        
+        void add(double gpa) {
+            count++;
+            gpaSum += gpa;
+        }
+        
+        // Returns true once the group is empty
+        boolean remove(double gpa) {
+            count--;
+            gpaSum -= gpa;
+            return count == 0;
+        }
+    }
+    
+    private static class StudentEntry {
+        private Student student;
+        private String major;
+        private String className;
+        private double gpa;
+        
+        StudentEntry(Student student) {
+            this.student = student;
+            read();
+        }
+        
+        void read() {
+            // The snapshot's groups are sorted maps, which take no null key
+            major = Objects.requireNonNullElse(student.getMajor(), UNKNOWN_GROUP);
+            className = Objects.requireNonNullElse(student.getClassName(), UNKNOWN_GROUP);
+            gpa = student.calculateGPA();
+        }
+    }
+    
+    private static class FeeEntry {
+        private Fee fee;
+        private double unpaidAmount;
+        
+        FeeEntry(Fee fee) {
+            this.fee = fee;
+            read();
+        }
+        
+        void read() {
+            unpaidAmount = fee.isPaid() ? 0.0 : fee.getAmount();
+        }
+    }
+    
+    private static class ProjectEntry {
+        private final Project project;
+        private boolean pending;
+        
+        ProjectEntry(Project project) {
+            this.project = project;
+            read();
+        }
+        
+        void read() {
+            pending = project.getProgress() < 100;
+        }
+    }
+}
\ No newline at end of file
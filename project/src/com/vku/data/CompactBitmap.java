@@ -0,0 +1,515 @@
+package com.vku.data;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of non-negative ints, in the style of a Roaring bitmap.
+ * Values are split by their upper 16 bits into chunks; a chunk holding few
+ * values keeps them as a sorted array, a dense chunk as a plain 65536-bit
+ * bitmap. Sparse sets such as one class out of the whole campus cost a few
+ * bytes per member, dense ones an eighth of a byte, and intersections walk
+ * only the chunks both sides have. Not thread-safe.
+ */
+final class CompactBitmap {
+    // Above this many values a chunk is smaller as a bitmap
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1 << 10;
+    
+    // Chunk keys in ascending order, with their chunks
+    private char[] keys = new char[0];
+    private Chunk[] chunks = new Chunk[0];
+    private int size;
+    
+    void add(int value) {
+        char key = (char) (value >>> 16);
+        int index = find(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertChunk(index, key, new ArrayChunk());
+        }
+        chunks[index] = chunks[index].add((char) value);
+    }
+    
+    void remove(int value) {
+        int index = find((char) (value >>> 16));
+        if (index < 0) {
+            return;
+        }
+        Chunk chunk = chunks[index].remove((char) value);
+        if (chunk.cardinality() == 0) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(chunks, index + 1, chunks, index, size - index - 1);
+            size--;
+            chunks[size] = null;
+        } else {
+            chunks[index] = chunk;
+        }
+    }
+    
+    boolean contains(int value) {
+        int index = find((char) (value >>> 16));
+        return index >= 0 && chunks[index].contains((char) value);
+    }
+    
+    int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += chunks[i].cardinality();
+        }
+        return total;
+    }
+    
+    boolean isEmpty() {
+        return size == 0;
+    }
+    
+    void clear() {
+        keys = new char[0];
+        chunks = new Chunk[0];
+        size = 0;
+    }
+    
+    /**
+     * Calls the consumer with every value in ascending order.
+     *
+     * @param consumer receives the values
+     */
+    void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            chunks[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+    
+    static CompactBitmap and(CompactBitmap a, CompactBitmap b) {
+        CompactBitmap result = new CompactBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Chunk chunk = a.chunks[i].and(b.chunks[j]);
+                if (chunk.cardinality() > 0) {
+                    result.insertChunk(result.size, a.keys[i], chunk);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+    
+    static CompactBitmap or(CompactBitmap a, CompactBitmap b) {
+        CompactBitmap result = new CompactBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                result.insertChunk(result.size, a.keys[i], a.chunks[i].copy());
+                i++;
+            } else if (i == a.size || a.keys[i] > b.keys[j]) {
+                result.insertChunk(result.size, b.keys[j], b.chunks[j].copy());
+                j++;
+            } else {
+                result.insertChunk(result.size, a.keys[i], a.chunks[i].or(b.chunks[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Counts the values two sets have in common without building the
+     * intersection.
+     */
+    static int andCardinality(CompactBitmap a, CompactBitmap b) {
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                total += a.chunks[i].andCardinality(b.chunks[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Copies the set with every chunk stored as a bitmap. Counting the
+     * intersections of one set with many others is fastest against this
+     * form, as each value of the others costs a single bit test.
+     *
+     * @return the dense copy
+     */
+    CompactBitmap toDense() {
+        CompactBitmap result = new CompactBitmap();
+        for (int i = 0; i < size; i++) {
+            Chunk chunk = chunks[i];
+            result.insertChunk(i, keys[i],
+                chunk instanceof BitmapChunk ? chunk.copy() : ((ArrayChunk) chunk).toBitmap());
+        }
+        return result;
+    }
+    
+    /**
+     * Gets the memory held by the chunks, for monitoring.
+     *
+     * @return the approximate size in bytes
+     */
+    long getUsedBytes() {
+        long bytes = (long) keys.length * 2 + (long) chunks.length * 8;
+        for (int i = 0; i < size; i++) {
+            bytes += chunks[i].usedBytes();
+        }
+        return bytes;
+    }
+    
+    private int find(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+    
+    private void insertChunk(int index, char key, Chunk chunk) {
+        if (size == keys.length) {
+            int capacity = Math.max(4, size * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            chunks = Arrays.copyOf(chunks, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(chunks, index, chunks, index + 1, size - index);
+        keys[index] = key;
+        chunks[index] = chunk;
+        size++;
+    }
+    
+    /**
+     * The low 16 bits of the values sharing one key. Updates return the
+     * chunk to keep, which may have switched representation.
+     */
+    private abstract static class Chunk {
+        abstract Chunk add(char value);
+        
+        abstract Chunk remove(char value);
+        
+        abstract boolean contains(char value);
+        
+        abstract int cardinality();
+        
+        abstract void forEach(int high, IntConsumer consumer);
+        
+        abstract Chunk and(Chunk other);
+        
+        abstract Chunk or(Chunk other);
+        
+        abstract int andCardinality(Chunk other);
+        
+        abstract Chunk copy();
+        
+        abstract long usedBytes();
+    }
+    
+    private static final class ArrayChunk extends Chunk {
+        char[] values;
+        int cardinality;
+        
+        ArrayChunk() {
+            this(new char[4], 0);
+        }
+        
+        ArrayChunk(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+        
+        @Override
+        Chunk add(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_LIMIT) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, cardinality * 2));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+        
+        @Override
+        Chunk remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+        
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+        
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+        
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int i = 0; i < cardinality; i++) {
+                consumer.accept(high | values[i]);
+            }
+        }
+        
+        @Override
+        Chunk and(Chunk other) {
+            char[] result = new char[cardinality];
+            int count = 0;
+            if (other instanceof BitmapChunk) {
+                for (int i = 0; i < cardinality; i++) {
+                    if (other.contains(values[i])) {
+                        result[count++] = values[i];
+                    }
+                }
+            } else {
+                ArrayChunk array = (ArrayChunk) other;
+                int i = 0;
+                int j = 0;
+                while (i < cardinality && j < array.cardinality) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result[count++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            }
+            return new ArrayChunk(result, count);
+        }
+        
+        @Override
+        Chunk or(Chunk other) {
+            if (other instanceof BitmapChunk) {
+                return other.or(this);
+            }
+            ArrayChunk array = (ArrayChunk) other;
+            if (cardinality + array.cardinality > ARRAY_LIMIT) {
+                return toBitmap().or(other);
+            }
+            char[] result = new char[cardinality + array.cardinality];
+            int count = 0;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality || j < array.cardinality) {
+                if (j == array.cardinality || (i < cardinality && values[i] < array.values[j])) {
+                    result[count++] = values[i++];
+                } else if (i == cardinality || values[i] > array.values[j]) {
+                    result[count++] = array.values[j++];
+                } else {
+                    result[count++] = values[i];
+                    i++;
+                    j++;
+                }
+            }
+            return new ArrayChunk(result, count);
+        }
+        
+        @Override
+        int andCardinality(Chunk other) {
+            int count = 0;
+            if (other instanceof BitmapChunk) {
+                // Sum the bits rather than branch on them
+                long[] words = ((BitmapChunk) other).words;
+                for (int i = 0; i < cardinality; i++) {
+                    count += (int) (words[values[i] >>> 6] >>> values[i]) & 1;
+                }
+                return count;
+            }
+            ArrayChunk array = (ArrayChunk) other;
+            int i = 0;
+            int j = 0;
+            while (i < cardinality && j < array.cardinality) {
+                if (values[i] < array.values[j]) {
+                    i++;
+                } else if (values[i] > array.values[j]) {
+                    j++;
+                } else {
+                    count++;
+                    i++;
+                    j++;
+                }
+            }
+            return count;
+        }
+        
+        @Override
+        Chunk copy() {
+            return new ArrayChunk(Arrays.copyOf(values, Math.max(4, cardinality)), cardinality);
+        }
+        
+        @Override
+        long usedBytes() {
+            return 16 + values.length * 2L;
+        }
+        
+        private BitmapChunk toBitmap() {
+            BitmapChunk bitmap = new BitmapChunk();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+    
+    private static final class BitmapChunk extends Chunk {
+        final long[] words;
+        int cardinality;
+        
+        BitmapChunk() {
+            this(new long[BITMAP_WORDS], 0);
+        }
+        
+        BitmapChunk(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+        
+        @Override
+        Chunk add(char value) {
+            long bit = 1L << value;
+            int word = value >>> 6;
+            if ((words[word] & bit) == 0) {
+                words[word] |= bit;
+                cardinality++;
+            }
+            return this;
+        }
+        
+        @Override
+        Chunk remove(char value) {
+            long bit = 1L << value;
+            int word = value >>> 6;
+            if ((words[word] & bit) != 0) {
+                words[word] &= ~bit;
+                cardinality--;
+                if (cardinality <= ARRAY_LIMIT / 2) {
+                    // Switch back well below the limit so a set hovering
+                    // around it does not convert on every change
+                    return toArray();
+                }
+            }
+            return this;
+        }
+        
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+        
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+        
+        @Override
+        void forEach(int high, IntConsumer consumer) {
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    consumer.accept(high | (word << 6) | Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+        }
+        
+        @Override
+        Chunk and(Chunk other) {
+            if (other instanceof ArrayChunk) {
+                return other.and(this);
+            }
+            long[] otherWords = ((BitmapChunk) other).words;
+            long[] result = new long[BITMAP_WORDS];
+            int count = 0;
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                result[word] = words[word] & otherWords[word];
+                count += Long.bitCount(result[word]);
+            }
+            BitmapChunk chunk = new BitmapChunk(result, count);
+            return count > ARRAY_LIMIT ? chunk : chunk.toArray();
+        }
+        
+        @Override
+        Chunk or(Chunk other) {
+            BitmapChunk result = new BitmapChunk(words.clone(), cardinality);
+            if (other instanceof ArrayChunk) {
+                ArrayChunk array = (ArrayChunk) other;
+                for (int i = 0; i < array.cardinality; i++) {
+                    result.add(array.values[i]);
+                }
+                return result;
+            }
+            long[] otherWords = ((BitmapChunk) other).words;
+            int count = 0;
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                result.words[word] |= otherWords[word];
+                count += Long.bitCount(result.words[word]);
+            }
+            result.cardinality = count;
+            return result;
+        }
+        
+        @Override
+        int andCardinality(Chunk other) {
+            if (other instanceof ArrayChunk) {
+                return other.andCardinality(this);
+            }
+            long[] otherWords = ((BitmapChunk) other).words;
+            int count = 0;
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                count += Long.bitCount(words[word] & otherWords[word]);
+            }
+            return count;
+        }
+        
+        @Override
+        Chunk copy() {
+            return new BitmapChunk(words.clone(), cardinality);
+        }
+        
+        @Override
+        long usedBytes() {
+            return 16 + BITMAP_WORDS * 8L;
+        }
+        
+        private ArrayChunk toArray() {
+            char[] values = new char[Math.max(4, cardinality)];
+            int count = 0;
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                long bits = words[word];
+                while (bits != 0) {
+                    values[count++] = (char) ((word << 6) | Long.numberOfTrailingZeros(bits));
+                    bits &= bits - 1;
+                }
+            }
+            return new ArrayChunk(values, count);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,197 @@
+package com.vku.data;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fixed-size JDBC connection pool.
+ * Each pooled connection keeps its own cache of prepared statements so that
+ * repeated loads and batch writes do not re-prepare the same SQL.
+ */
+public class ConnectionPool {
+    private static final int STATEMENT_CACHE_SIZE = 32;
+    private static final long BORROW_TIMEOUT_SECONDS = 30;
+    
+    private final DatabaseConfig config;
+    private final BlockingQueue<PooledConnection> idle;
+    private final List<PooledConnection> all;
+    private volatile boolean closed;
+    
+    public ConnectionPool(DatabaseConfig config) throws SQLException {
+        this.config = config;
+        this.idle = new ArrayBlockingQueue<>(config.getPoolSize());
+        this.all = new ArrayList<>();
+        
+        try {
+            for (int i = 0; i < config.getPoolSize(); i++) {
+                PooledConnection connection = new PooledConnection(openConnection());
+                all.add(connection);
+                idle.add(connection);
+            }
+        } catch (SQLException | RuntimeException e) {
+            // Do not leak the connections opened before the failure
+            close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Borrows a connection. Close the returned object to give it back.
+     *
+     * @return a connection with auto-commit disabled
+     * @throws SQLException if no connection becomes available in time
+     */
+    public PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        try {
+            PooledConnection connection = idle.poll(BORROW_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            if (connection == null) {
+                throw new SQLException("Timed out waiting for a database connection");
+            }
+            boolean borrowed = false;
+            try {
+                if (!connection.connection.isValid(2)) {
+                    connection.discard();
+                    connection = replace(connection);
+                }
+                borrowed = true;
+                return connection;
+            } finally {
+                // Give the slot back, so a failed check or reconnect does not
+                // shrink the pool; the next borrower retries the reconnect
+                if (!borrowed) {
+                    idle.offer(connection);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+    }
+    
+    /**
+     * Closes every pooled connection.
+     */
+    public synchronized void close() {
+        closed = true;
+        for (PooledConnection connection : all) {
+            connection.discard();
+        }
+        all.clear();
+        idle.clear();
+    }
+    
+    private synchronized PooledConnection replace(PooledConnection broken) throws SQLException {
+        PooledConnection fresh = new PooledConnection(openConnection());
+        all.remove(broken);
+        all.add(fresh);
+        return fresh;
+    }
+    
+    private Connection openConnection() throws SQLException {
+        Connection connection = DriverManager.getConnection(config.getUrl(), config.getUser(), config.getPassword());
+        connection.setAutoCommit(false);
+        return connection;
+    }
+    
+    /**
+     * A borrowed connection together with its prepared statement cache.
+     */
+    public class PooledConnection implements AutoCloseable {
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements;
+        
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+            this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() > STATEMENT_CACHE_SIZE) {
+                        closeQuietly(eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+        
+        /**
+         * Gets a cached prepared statement for the SQL, preparing it on first use.
+         *
+         * @param sql the statement text
+         * @return a statement with cleared parameters and batch
+         * @throws SQLException if the statement cannot be prepared
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement == null || statement.isClosed()) {
+                statement = connection.prepareStatement(sql);
+                statements.put(sql, statement);
+            } else {
+                statement.clearParameters();
+                statement.clearBatch();
+            }
+            return statement;
+        }
+        
+        public Connection getConnection() {
+            return connection;
+        }
+        
+        public void commit() throws SQLException {
+            connection.commit();
+        }
+        
+        public void rollback() {
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+        
+        /**
+         * Returns the connection to the pool, rolling back any uncommitted work.
+         */
+        @Override
+        public void close() {
+            if (closed) {
+                discard();
+                return;
+            }
+            rollback();
+            idle.offer(this);
+        }
+        
+        private void discard() {
+            for (PreparedStatement statement : statements.values()) {
+                closeQuietly(statement);
+            }
+            statements.clear();
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // Connection is being thrown away anyway
+            }
+        }
+    }
+    
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // Statement is being evicted anyway
+        }
+    }
+}
\ No newline at end of file
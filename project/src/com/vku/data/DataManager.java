@@ -1,64 +1,158 @@
 package com.vku.data;
 
+import com.vku.auth.PasswordHasher;
 import com.vku.model.*;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * DataManager handles all in-memory data storage for the application.
  * Implements the Singleton pattern to ensure a single instance.
+ * 
+ * Safe for concurrent use: each entity type has its own read-write lock, so
+ * writers only wait for writers of the same type. After every change a new
+ * immutable {@link DataSnapshot} is published; the list getters read from it
+ * without taking any lock.
  */
 public class DataManager {
-    private static DataManager instance;
-    
-    // Collections to store application data
-    private List<User> users;
-    private List<Student> students;
-    private List<Teacher> teachers;
-    private List<Subject> subjects;
-    private List<Project> projects;
-    private List<Attendance> attendanceRecords;
-    private List<Fee> fees;
-    private List<Notification> notifications;
+    
+    // Index names used for secondary lookups
+    private static final String BY_EMAIL = "email";
+    private static final String BY_CLASS = "className";
+    private static final String BY_MAJOR = "major";
+    private static final String BY_NAME = "name";
+    
+    // Indexed stores for application data
+    private IndexedStore<User> users;
+    private IndexedStore<Student> students;
+    private IndexedStore<Teacher> teachers;
+    private IndexedStore<Subject> subjects;
+    private IndexedStore<Project> projects;
+    private IndexedStore<Fee> fees;
+    private volatile PersistentVector<Notification> notifications;
+    
+    // Subject rosters with grade lookups, and attendance marks as bitsets
+    private EnrollmentIndex enrollments;
+    private final AttendanceStore attendanceStore;
+    
+    // Grade scores as primitive columns; null when disabled with vku.grades.columnar=false
+    private final GradeColumnStore gradeColumns;
+    private final GradeBatchEngine gradeEngine = GradeBatchEngine.common();
+    private CampusStatistics statistics;
+    private StudentSearchIndex searchIndex;
+    private StudentFacets studentFacets;
+    private StudentSortIndex sortIndex;
+    
+    // Set when the data was loaded from a database, and then also when
+    // students are loaded page by page
+    private volatile JdbcDataStore database;
+    private StudentPager pager;
+    private final CountDownLatch ready = new CountDownLatch(1);
+    private volatile Throwable loadFailure;
+    
+    // Set when changes are logged to a journal directory instead of a database
+    private volatile Journal journal;
+    
+    // One lock per entity type. Updates spanning several types take the
+    // locks in the order declared here, so they cannot deadlock.
+    private final ReadWriteLock peopleLock = new ReentrantReadWriteLock(); // users, students, teachers
+    private final ReadWriteLock subjectLock = new ReentrantReadWriteLock();
+    private final ReadWriteLock projectLock = new ReentrantReadWriteLock();
+    private final ReadWriteLock feeLock = new ReentrantReadWriteLock();
+    private final ReadWriteLock enrollmentLock = new ReentrantReadWriteLock(); // enrollments, attendance
+    private final ReadWriteLock notificationLock = new ReentrantReadWriteLock();
+    
+    // Latest published state for lock-free readers
+    private final Object snapshotLock = new Object();
+    private volatile DataSnapshot snapshot;
     
     private DataManager() {
-        // Initialize collections
-        users = new ArrayList<>();
-        students = new ArrayList<>();
-        teachers = new ArrayList<>();
-        subjects = new ArrayList<>();
-        projects = new ArrayList<>();
-        attendanceRecords = new ArrayList<>();
-        fees = new ArrayList<>();
-        notifications = new ArrayList<>();
+        // Initialize stores and their secondary indexes
+        users = new IndexedStore<>(User::getId);
+        users.addIndex(BY_EMAIL, User::getEmail);
+        
+        students = new IndexedStore<>(Student::getId);
+        students.addIndex(BY_CLASS, Student::getClassName);
+        students.addIndex(BY_MAJOR, Student::getMajor);
+        
+        teachers = new IndexedStore<>(Teacher::getId);
+        
+        subjects = new IndexedStore<>(Subject::getId);
+        subjects.addIndex(BY_NAME, Subject::getName);
+        
+        projects = new IndexedStore<>(Project::getId);
+        
+        // A student has a single fee record, so the student id is the key
+        fees = new IndexedStore<>(fee -> fee.getStudent().getId());
+        
+        notifications = PersistentVector.empty();
+        enrollments = new EnrollmentIndex();
+        gradeColumns = Boolean.parseBoolean(System.getProperty("vku.grades.columnar", "true"))
+            ? new GradeColumnStore() : null;
+        try {
+            attendanceStore = AttendanceStore.createTemporary();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the attendance store", e);
+        }
+        
+        // Dashboard figures follow entity changes through the model events
+        statistics = new CampusStatistics();
+        ModelEvents.addListener(statistics);
+        searchIndex = new StudentSearchIndex();
+        ModelEvents.addListener(searchIndex);
+        studentFacets = new StudentFacets();
+        ModelEvents.addListener(studentFacets);
+        sortIndex = new StudentSortIndex();
+        ModelEvents.addListener(sortIndex);
+        
+        snapshot = new DataSnapshot(0, users.snapshot(), students.snapshot(), teachers.snapshot(),
+            subjects.snapshot(), projects.snapshot(), fees.snapshot(), notifications);
     }
     
-    public static synchronized DataManager getInstance() {
-        if (instance == null) {
-            instance = new DataManager();
-        }
-        return instance;
+    // Created on first use; class initialization makes this thread-safe without locking
+    private static class Holder {
+        static final DataManager INSTANCE = new DataManager();
+    }
+    
+    public static DataManager getInstance() {
+        return Holder.INSTANCE;
     }
     
     /**
      * Initialize sample data for testing
      */
     public void initializeData() {
+        addSampleData();
+        ready.countDown();
+    }
+    
+    // Fills in the sample data without releasing the threads waiting for it
+    private void addSampleData() {
         // Create teachers
-        Teacher teacher1 = new Teacher("T001", "Nguyen Van Teacher", "teacher1@vku.vn", "teacher123");
-        Teacher teacher2 = new Teacher("T002", "Tran Thi Lecturer", "teacher2@vku.vn", "teacher123");
+        Teacher teacher1 = new Teacher("T001", "Nguyen Van Teacher", "teacher1@vku.vn", hash("teacher123"));
+        Teacher teacher2 = new Teacher("T002", "Tran Thi Lecturer", "teacher2@vku.vn", hash("teacher123"));
         
-        teachers.add(teacher1);
-        teachers.add(teacher2);
-        users.add(teacher1);
-        users.add(teacher2);
+        addTeacher(teacher1);
+        addTeacher(teacher2);
         
         // Create students
-        Student student1 = new Student("S001", "Nguyen Van A", "K41A", "Information Technology", "2021-2025", "student1@vku.vn", "student123");
-        Student student2 = new Student("S002", "Tran Thi B", "K41A", "Information Technology", "2021-2025", "student2@vku.vn", "student123");
-        Student student3 = new Student("S003", "Le Van C", "K42B", "Business Administration", "2022-2026", "student3@vku.vn", "student123");
-        Student student4 = new Student("S004", "Pham Thi D", "K40C", "Design", "2020-2024", "student4@vku.vn", "student123");
-        Student student5 = new Student("S005", "Hoang Van E", "K42B", "Business Administration", "2022-2026", "student5@vku.vn", "student123");
+        Student student1 = new Student("S001", "Nguyen Van A", "K41A", "Information Technology", "2021-2025", "student1@vku.vn", hash("student123"));
+        Student student2 = new Student("S002", "Tran Thi B", "K41A", "Information Technology", "2021-2025", "student2@vku.vn", hash("student123"));
+        Student student3 = new Student("S003", "Le Van C", "K42B", "Business Administration", "2022-2026", "student3@vku.vn", hash("student123"));
+        Student student4 = new Student("S004", "Pham Thi D", "K40C", "Design", "2020-2024", "student4@vku.vn", hash("student123"));
+        Student student5 = new Student("S005", "Hoang Van E", "K42B", "Business Administration", "2022-2026", "student5@vku.vn", hash("student123"));
         
         // Set additional student info
         student1.setDateOfBirth("2003-05-15");
@@ -68,25 +162,20 @@ public class DataManager {
         student1.setAddress("123 ABC Street, Da Nang");
         student1.setPhone("0987654321");
         
-        students.add(student1);
-        students.add(student2);
-        students.add(student3);
-        students.add(student4);
-        students.add(student5);
-        users.add(student1);
-        users.add(student2);
-        users.add(student3);
-        users.add(student4);
-        users.add(student5);
+        addStudent(student1);
+        addStudent(student2);
+        addStudent(student3);
+        addStudent(student4);
+        addStudent(student5);
         
         // Create subjects
         Subject subject1 = new Subject("SUB001", "Java Programming", 3, teacher1);
         Subject subject2 = new Subject("SUB002", "Web Development", 3, teacher1);
         Subject subject3 = new Subject("SUB003", "Business Management", 2, teacher2);
         
-        subjects.add(subject1);
-        subjects.add(subject2);
-        subjects.add(subject3);
+        addSubject(subject1);
+        addSubject(subject2);
+        addSubject(subject3);
         
         // Assign subjects to students and create grades
         assignSubjectToStudent(student1, subject1, 8.5, 8.0, 9.0, 8.2);
@@ -115,40 +204,381 @@ public class DataManager {
         project2.setProgress(60);
         project2.setGrade(7.8);
         
-        projects.add(project1);
-        projects.add(project2);
+        addProject(project1);
+        addProject(project2);
         
         // Create attendance records
         Calendar cal = Calendar.getInstance();
         Date today = cal.getTime();
         
-        for (Student student : students) {
-            for (Subject subject : subjects) {
-                if (student.getSubjects().contains(subject)) {
-                    Attendance attendance = new Attendance(student, subject, today, true);
-                    attendanceRecords.add(attendance);
-                }
+        for (Student student : getStudents()) {
+            for (Subject subject : student.getSubjects()) {
+                Attendance attendance = new Attendance(student, subject, today, true);
+                addAttendance(attendance);
             }
         }
         
         // Create fees
-        for (Student student : students) {
+        for (Student student : getStudents()) {
             double feeAmount = student.getSubjects().size() * 1000000;
             Fee fee = new Fee(student, feeAmount, student.getId().equals("S001") || student.getId().equals("S003"));
-            fees.add(fee);
+            addFee(fee);
         }
         
         // Create notifications
         Notification notification1 = new Notification("System", "Welcome to VKU Student Management System!", new Date(), null);
         Notification notification2 = new Notification(teacher1.getName(), "Java Programming final project submission deadline is approaching.", new Date(), subject1);
         
-        notifications.add(notification1);
-        notifications.add(notification2);
+        addNotification(notification1);
+        addNotification(notification2);
     }
     
-    private void assignSubjectToStudent(Student student, Subject subject, double assignment, double midterm, double attendance, double finalGrade) {
-        student.addSubject(subject);
+    /**
+     * Replaces the in-memory data with the contents of a database.
+     * 
+     * @param store the JDBC store to load from
+     * @throws SQLException if loading fails
+     */
+    public void loadFrom(JdbcDataStore store) throws SQLException {
+        pager = null;
+        clear();
+        store.createSchema();
+        store.loadInto(this);
+        database = store;
+        ready.countDown();
+    }
+    
+    /**
+     * Attaches a database and loads students lazily, one page at a time.
+     * Only reference data and the first page are read up front; further
+     * pages are read on demand and the least recently used ones evicted.
+     * 
+     * @param store the JDBC store to load from
+     * @param pageSize the number of students per page
+     * @param residentPages the maximum number of pages kept in memory
+     * @throws SQLException if loading fails
+     */
+    public void openPaged(JdbcDataStore store, int pageSize, int residentPages) throws SQLException {
+        pager = null;
+        clear();
+        store.createSchema();
+        store.loadReferenceData(this);
+        database = store;
+        pager = new StudentPager(store, this, pageSize, residentPages);
+        
+        // Project members were read with the reference data, outside any page
+        pager.adopt(getStudents());
+        pager.getPage(0);
+        ready.countDown();
+    }
+    
+    /**
+     * Replaces whatever was loaded so far, e.g. by a load that failed half
+     * way, with the built-in sample data.
+     */
+    public void resetToSampleData() {
+        database = null;
+        pager = null;
+        clear();
+        initializeData();
+    }
+    
+    /**
+     * Ends the initial data load, releasing the threads in {@link #awaitReady}.
+     * Loading methods do this themselves; the loader calls it in any case so
+     * waiting threads are released even if loading failed.
+     * 
+     * @param failure why loading failed, or null if it succeeded
+     */
+    public void finishLoading(Throwable failure) {
+        if (failure != null) {
+            loadFailure = failure;
+        }
+        ready.countDown();
+    }
+    
+    /**
+     * Blocks until the initial data load has finished.
+     * 
+     * @throws IllegalStateException if the load failed
+     */
+    public void awaitReady() {
+        try {
+            ready.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Throwable failure = loadFailure;
+        if (failure != null) {
+            throw new IllegalStateException("The application data could not be loaded", failure);
+        }
+    }
+    
+    public boolean isPaged() {
+        return pager != null;
+    }
+    
+    /**
+     * Gets a page of students ordered by id. With a paged database the page
+     * is cut from the pager's pages it overlaps, whatever their size;
+     * otherwise straight from the id order of the sort index.
+     * 
+     * @param index the zero-based page index
+     * @param pageSize the number of students per page
+     * @return the students on the page, empty past the last page
+     * @throws IllegalArgumentException if the index is negative or the size not positive
+     * @throws IllegalStateException if the page could not be read from the database
+     */
+    public List<Student> getStudentPage(int index, int pageSize) {
+        if (index < 0 || pageSize < 1) {
+            throw new IllegalArgumentException("Invalid page " + index + " of size " + pageSize);
+        }
+        // Computed as a long, as the product of two ints can overflow
+        long from = (long) index * pageSize;
+        if (from >= getStudentCount()) {
+            return Collections.emptyList();
+        }
+        if (pager == null) {
+            return sortIndex.slice(SortKey.ID, from, pageSize);
+        }
+        try {
+            return pager.getRange(from, pageSize);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not load students from the database", e);
+        }
+    }
+    
+    /**
+     * Gets the total number of students, including those not resident.
+     * 
+     * @return the student count
+     */
+    public int getStudentCount() {
+        return pager != null ? pager.getTotalStudents() : read(peopleLock, students::size);
+    }
+    
+    /**
+     * Keeps a student resident while paging, e.g. the logged-in user.
+     * 
+     * @param student the student to pin
+     */
+    public void pinStudent(Student student) {
+        if (pager != null) {
+            pager.pin(student);
+        }
+    }
+    
+    /**
+     * Releases a student pinned with {@link #pinStudent}, e.g. on logout.
+     * 
+     * @param student the student to unpin
+     */
+    public void unpinStudent(Student student) {
+        if (pager != null) {
+            pager.unpin(student);
+        }
+    }
+    
+    /**
+     * Writes all in-memory data to a database in a single transaction.
+     * 
+     * @param store the JDBC store to save to
+     * @throws SQLException if saving fails
+     */
+    public void saveTo(JdbcDataStore store) throws SQLException {
+        store.createSchema();
+        store.saveAll(this);
+        if (pager != null) {
+            pager.flush();
+        }
+    }
+    
+    /**
+     * Makes a database the one that saved edits are written to, e.g. after
+     * seeding it with {@link #saveTo}. Loading from a database does this
+     * itself.
+     * 
+     * @param store the JDBC store
+     */
+    public void attachDatabase(JdbcDataStore store) {
+        database = store;
+    }
+    
+    /**
+     * Makes edited grades durable: writes them to the database the data
+     * came from, and waits for the journal if one is open.
+     * 
+     * @param grades the grades to save; grades nobody stored are skipped
+     * @throws SQLException if writing to the database failed
+     * @throws IOException if writing the journal failed
+     */
+    public void saveGrades(Collection<Grade> grades) throws SQLException, IOException {
+        List<Grade> stored = new ArrayList<>();
+        for (Grade grade : grades) {
+            if (getGrade(grade.getStudent(), grade.getSubject()) == grade) {
+                stored.add(grade);
+            }
+        }
+        JdbcDataStore store = database;
+        if (store != null) {
+            store.saveGrades(stored);
+        }
+        sync();
+    }
+    
+    /**
+     * Restores the data kept in a journal directory and logs every later
+     * change there. An empty directory is seeded with the sample data.
+     * 
+     * @param directory the journal directory
+     * @throws IOException if the journal cannot be read or opened
+     */
+    public void openJournal(Path directory) throws IOException {
+        long checkpointMinutes = Long.getLong("vku.journal.checkpointMinutes", 5);
+        Journal opened = Journal.open(directory, this, checkpointMinutes, TimeUnit.MINUTES);
+        if (!opened.hasRecoveredData()) {
+            addSampleData();
+        }
         
+        // Logins wait for ready; by then every change they make is logged
+        journal = opened;
+        ModelEvents.addListener(opened);
+        if (!opened.hasRecoveredData()) {
+            opened.checkpoint();
+        }
+        ready.countDown();
+    }
+    
+    /**
+     * Waits until every change made so far is on disk. Does nothing when no
+     * journal is open.
+     * 
+     * @throws IOException if writing the journal failed
+     */
+    public void sync() throws IOException {
+        Journal current = journal;
+        if (current != null) {
+            current.sync();
+        }
+    }
+    
+    /**
+     * Writes a final snapshot and closes the journal.
+     * 
+     * @throws IOException if the snapshot or the last changes could not be written
+     */
+    public void closeJournal() throws IOException {
+        Journal current = journal;
+        if (current == null) {
+            return;
+        }
+        ModelEvents.removeListener(current);
+        try {
+            current.checkpoint();
+        } finally {
+            journal = null;
+            current.close();
+        }
+    }
+    
+    /**
+     * Runs an action while holding every write lock, so no update is in
+     * progress. Used by the journal to cut a checkpoint.
+     */
+    void exclusive(Runnable action) {
+        ReadWriteLock[] locks = {peopleLock, subjectLock, projectLock, feeLock, enrollmentLock, notificationLock};
+        for (ReadWriteLock lock : locks) {
+            lock.writeLock().lock();
+        }
+        try {
+            action.run();
+        } finally {
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].writeLock().unlock();
+            }
+        }
+    }
+    
+    // Appends a record to the journal if one is open; called inside the write locks
+    private void log(Consumer<Journal> entry) {
+        Journal current = journal;
+        if (current != null) {
+            entry.accept(current);
+        }
+    }
+    
+    private void clear() {
+        write(() -> {
+            users.clear();
+            students.clear();
+            teachers.clear();
+            subjects.clear();
+            projects.clear();
+            fees.clear();
+            notifications = PersistentVector.empty();
+            enrollments.clear();
+            attendanceStore.clear();
+            if (gradeColumns != null) {
+                gradeColumns.clear();
+            }
+            statistics.clear();
+            searchIndex.clear();
+            studentFacets.clear();
+            sortIndex.clear();
+        }, peopleLock, subjectLock, projectLock, feeLock, enrollmentLock, notificationLock);
+    }
+    
+    private static <T> T read(ReadWriteLock lock, Supplier<T> query) {
+        lock.readLock().lock();
+        try {
+            return query.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Runs an update holding the write locks of every type it touches, then
+     * publishes the next snapshot before the locks are released.
+     * The snapshot is published even if the update fails part way, e.g.
+     * when journaling throws, so readers never lag behind the stores.
+     * The locks must be passed in declaration order.
+     */
+    private void write(Runnable update, ReadWriteLock... locks) {
+        for (ReadWriteLock lock : locks) {
+            lock.writeLock().lock();
+        }
+        try {
+            try {
+                update.run();
+            } finally {
+                publish();
+            }
+        } finally {
+            for (int i = locks.length - 1; i >= 0; i--) {
+                locks[i].writeLock().unlock();
+            }
+        }
+    }
+    
+    /**
+     * Publishes a snapshot of the current contents. Writers of different
+     * types can finish at the same time, so this is serialized: whichever
+     * publishes last reads every change made before it.
+     */
+    private void publish() {
+        synchronized (snapshotLock) {
+            snapshot = new DataSnapshot(snapshot.getVersion() + 1,
+                users.snapshot(), students.snapshot(), teachers.snapshot(), subjects.snapshot(),
+                projects.snapshot(), fees.snapshot(), notifications);
+        }
+    }
+    
+    private static String hash(String password) {
+        return PasswordHasher.hash(password.toCharArray());
+    }
+    
+    private void assignSubjectToStudent(Student student, Subject subject, double assignment, double midterm, double attendance, double finalGrade) {
         // Create grade for this subject
         Grade grade = new Grade(student, subject);
         grade.setAssignmentScore(assignment);
@@ -156,39 +586,763 @@ public class DataManager {
         grade.setAttendanceScore(attendance);
         grade.setFinalScore(finalGrade);
         
-        student.addGrade(grade);
+        enroll(student, subject, grade, null);
+    }
+    
+    // Mutators that keep the indexes consistent
+    public void addStudent(Student student) {
+        write(() -> {
+            students.add(student);
+            users.add(student);
+            enrollments.addStudent(student);
+            statistics.addStudent(student);
+            searchIndex.add(student);
+            studentFacets.add(student);
+            sortIndex.add(student);
+            log(j -> j.logStudent(student));
+        }, peopleLock, enrollmentLock);
+    }
+    
+    /**
+     * Re-indexes a student after its class, major or email has changed.
+     * 
+     * @param student the modified student
+     */
+    public void updateStudent(Student student) {
+        write(() -> {
+            students.update(student);
+            users.update(student);
+            statistics.entityChanged(student);
+            searchIndex.entityChanged(student);
+            studentFacets.entityChanged(student);
+            sortIndex.entityChanged(student);
+            log(j -> j.logStudent(student));
+        }, peopleLock);
+    }
+    
+    /**
+     * Removes a student with its grades, attendance and fee. With a database
+     * attached the student is deleted there too, straight away, so neither a
+     * later save nor paging brings it back.
+     * 
+     * @param id the student id
+     * @return the removed student, or null if there was none in memory
+     * @throws IllegalStateException if the database delete failed
+     */
+    public Student removeStudent(String id) {
+        Student[] removed = new Student[1];
+        write(() -> {
+            users.remove(id);
+            fees.remove(id);
+            enrollments.removeStudent(id);
+            attendanceStore.removeStudents(Collections.singleton(id));
+            if (gradeColumns != null) {
+                gradeColumns.removeStudents(Collections.singleton(id));
+            }
+            statistics.removeStudent(id);
+            searchIndex.remove(id);
+            studentFacets.remove(id);
+            sortIndex.remove(id);
+            removed[0] = students.remove(id);
+            if (removed[0] != null) {
+                log(j -> j.logRemoveStudent(id));
+            }
+        }, peopleLock, feeLock, enrollmentLock);
+        
+        // A paged student need not be resident, so the database is always told
+        JdbcDataStore store = database;
+        if (store != null) {
+            try {
+                if (pager != null) {
+                    pager.delete(id);
+                } else {
+                    store.deleteStudents(Collections.singleton(id));
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not delete the student " + id + " from the database", e);
+            }
+        }
+        return removed[0];
+    }
+    
+    /**
+     * Registers a student for a subject.
+     * 
+     * @param student the student
+     * @param subject the subject to take
+     */
+    public void enroll(Student student, Subject subject) {
+        enroll(student, subject, null, null);
+    }
+    
+    /**
+     * Registers a student for a subject together with its first grade and
+     * attendance records. Readers see either none or all of the changes.
+     * 
+     * @param student the student
+     * @param subject the subject to take
+     * @param grade the student's grade for the subject, or null
+     * @param attendance an attendance record for the subject, or null
+     * @throws IllegalArgumentException if a record belongs to another student or subject
+     */
+    public void enroll(Student student, Subject subject, Grade grade, Attendance attendance) {
+        enrollAndStore(student, subject, grade, attendance);
+    }
+    
+    private Grade enrollAndStore(Student student, Subject subject, Grade grade, Attendance attendance) {
+        // Check everything up front so a bad record leaves no partial enrollment
+        if (grade != null && (grade.getStudent() != student || !subject.equals(grade.getSubject()))) {
+            throw new IllegalArgumentException("Grade does not belong to this enrollment");
+        }
+        if (attendance != null && (attendance.getStudent() != student || !subject.equals(attendance.getSubject()))) {
+            throw new IllegalArgumentException("Attendance does not belong to this enrollment");
+        }
+        
+        Grade[] stored = new Grade[1];
+        write(() -> {
+            student.addSubject(subject);
+            enrollments.enroll(student, subject);
+            if (grade != null) {
+                stored[0] = gradeColumns != null ? gradeColumns.adopt(grade) : grade;
+                student.addGrade(stored[0]);
+                enrollments.addGrade(stored[0]);
+            }
+            if (attendance != null) {
+                attendanceStore.mark(student.getId(), subject.getId(), toDay(attendance.getDate()), attendance.isPresent());
+            }
+            log(j -> {
+                j.logEnroll(student, subject);
+                if (stored[0] != null) {
+                    j.logGrade(stored[0]);
+                }
+                if (attendance != null) {
+                    j.logAttendance(student, subject, attendance.getDate(), attendance.isPresent());
+                }
+            });
+        }, peopleLock, enrollmentLock);
+        return stored[0];
+    }
+    
+    /**
+     * Records a grade, enrolling the student in the grade's subject. With
+     * column storage the scores are copied into the columns, and the grade
+     * that was stored is a view of them rather than the one passed in.
+     * 
+     * @param grade the grade to add
+     * @return the grade as stored; use it for further edits
+     */
+    public Grade addGrade(Grade grade) {
+        return enrollAndStore(grade.getStudent(), grade.getSubject(), grade, null);
+    }
+    
+    /**
+     * Changes one score of a grade. The write holds the enrollment lock, so
+     * it cannot interleave with a recompute of the grade columns. A grade
+     * that is not stored yet, e.g. a blank row of a grade sheet, is added
+     * with the new score, unless another edit stored one for the same
+     * enrollment first; then the score goes to that grade.
+     * 
+     * @param grade the grade
+     * @param component the score to change, e.g. {@link Grade#FINAL}
+     * @param score the new score
+     * @return the grade as stored; use it for further edits
+     */
+    public Grade updateGrade(Grade grade, int component, double score) {
+        Grade[] stored = new Grade[1];
+        // The lookup and the insert share one write, so two edits of a blank
+        // row cannot both add a grade; the locks are reentrant
+        write(() -> {
+            stored[0] = enrollments.getGrade(grade.getStudent(), grade.getSubject());
+            if (stored[0] != null) {
+                setScore(stored[0], component, score);
+            } else {
+                // Nobody else can see the grade yet, so it is safe to change here
+                setScore(grade, component, score);
+                stored[0] = enrollAndStore(grade.getStudent(), grade.getSubject(), grade, null);
+            }
+        }, peopleLock, enrollmentLock);
+        return stored[0];
+    }
+    
+    // Goes through the setters, which keep the GPA totals and fire the events
+    private static void setScore(Grade grade, int component, double score) {
+        switch (component) {
+            case Grade.ASSIGNMENT:
+                grade.setAssignmentScore(score);
+                break;
+            case Grade.MIDTERM:
+                grade.setMidtermScore(score);
+                break;
+            case Grade.ATTENDANCE:
+                grade.setAttendanceScore(score);
+                break;
+            case Grade.FINAL:
+                grade.setFinalScore(score);
+                break;
+            default:
+                throw new IllegalArgumentException("No score component " + component);
+        }
+    }
+    
+    public void addTeacher(Teacher teacher) {
+        write(() -> {
+            teachers.add(teacher);
+            users.add(teacher);
+            log(j -> j.logTeacher(teacher));
+        }, peopleLock);
+    }
+    
+    public void addSubject(Subject subject) {
+        write(() -> {
+            subjects.add(subject);
+            log(j -> j.logSubject(subject));
+        }, subjectLock);
+    }
+    
+    /**
+     * Re-indexes a subject after its name has changed.
+     * 
+     * @param subject the modified subject
+     */
+    public void updateSubject(Subject subject) {
+        write(() -> {
+            subjects.update(subject);
+            log(j -> j.logSubject(subject));
+        }, subjectLock);
+    }
+    
+    public void addProject(Project project) {
+        write(() -> {
+            projects.add(project);
+            statistics.addProject(project);
+            log(j -> j.logProject(project));
+        }, projectLock);
+    }
+    
+    public void addFee(Fee fee) {
+        write(() -> {
+            fees.add(fee);
+            statistics.addFee(fee);
+            studentFacets.addFee(fee);
+            sortIndex.addFee(fee);
+            log(j -> j.logFee(fee));
+        }, feeLock);
+    }
+    
+    /**
+     * Marks a fee paid or unpaid. The write holds the fee lock, so the fee
+     * indexes and the journal follow the change before readers see it.
+     * 
+     * @param fee the fee
+     * @param paid whether the fee is paid
+     */
+    public void setFeePaid(Fee fee, boolean paid) {
+        write(() -> fee.setPaid(paid), feeLock);
+    }
+    
+    /**
+     * Records an attendance mark, replacing any earlier mark of the student
+     * for the same subject and day.
+     * 
+     * @param attendance the mark to record
+     */
+    public void addAttendance(Attendance attendance) {
+        markAttendance(attendance.getStudent(), attendance.getSubject(), attendance.getDate(), attendance.isPresent());
+    }
+    
+    /**
+     * Records whether a student attended a subject on a day, replacing any
+     * earlier mark for that day.
+     * 
+     * @param student the student
+     * @param subject the subject
+     * @param date the day of the class
+     * @param present whether the student was present
+     */
+    public void markAttendance(Student student, Subject subject, Date date, boolean present) {
+        write(() -> {
+            attendanceStore.mark(student.getId(), subject.getId(), toDay(date), present);
+            log(j -> j.logAttendance(student, subject, date, present));
+        }, enrollmentLock);
+    }
+    
+    /**
+     * Records the attendance of a whole class session at once.
+     * 
+     * @param subject the subject
+     * @param date the day of the class
+     * @param marks whether each student was present
+     */
+    public void markRoster(Subject subject, Date date, Map<Student, Boolean> marks) {
+        Map<String, Boolean> byId = new LinkedHashMap<>();
+        for (Map.Entry<Student, Boolean> mark : marks.entrySet()) {
+            byId.put(mark.getKey().getId(), mark.getValue());
+        }
+        write(() -> {
+            attendanceStore.markRoster(subject.getId(), toDay(date), byId);
+            log(j -> {
+                for (Map.Entry<Student, Boolean> mark : marks.entrySet()) {
+                    j.logAttendance(mark.getKey(), subject, date, mark.getValue());
+                }
+            });
+        }, enrollmentLock);
+    }
+    
+    public void addNotification(Notification notification) {
+        write(() -> {
+            notifications = notifications.append(notification);
+            // Replaying a notification adds it again, so it is logged under
+            // the lock to keep it on one side of a checkpoint
+            log(j -> j.logNotification(notification));
+        }, notificationLock);
+    }
+    
+    /**
+     * Drops evicted students and their records from memory.
+     */
+    void evictStudents(Collection<Student> evicted) {
+        if (evicted.isEmpty()) {
+            return;
+        }
+        List<String> ids = new ArrayList<>();
+        for (Student student : evicted) {
+            ids.add(student.getId());
+        }
+        write(() -> {
+            students.removeAll(ids);
+            users.removeAll(ids);
+            fees.removeAll(ids);
+            for (String id : ids) {
+                enrollments.removeStudent(id);
+                
+                // Evicted students still count towards the campus figures
+                statistics.detachStudent(id);
+                searchIndex.remove(id);
+                studentFacets.remove(id);
+                sortIndex.remove(id);
+            }
+            attendanceStore.removeStudents(ids);
+            if (gradeColumns != null) {
+                gradeColumns.removeStudents(ids);
+            }
+        }, peopleLock, feeLock, enrollmentLock);
+    }
+    
+    List<Attendance> getAttendanceFor(Collection<Student> page) {
+        Map<String, Student> wanted = new HashMap<>();
+        for (Student student : page) {
+            wanted.put(student.getId(), student);
+        }
+        return toRecords(getAttendanceSnapshot(), wanted);
+    }
+    
+    /**
+     * Copies the attendance marks for exporting them without holding a lock.
+     */
+    AttendanceStore.Snapshot getAttendanceSnapshot() {
+        return read(enrollmentLock, attendanceStore::snapshot);
+    }
+    
+    // Turns marks back into records for the given students
+    private List<Attendance> toRecords(AttendanceStore.Snapshot marks, Map<String, Student> wanted) {
+        Map<String, Subject> subjectsById = new HashMap<>();
+        for (Subject subject : getSubjects()) {
+            subjectsById.put(subject.getId(), subject);
+        }
+        List<Attendance> records = new ArrayList<>();
+        marks.forEach((studentId, subjectId, day, present) -> {
+            Student student = wanted.get(studentId);
+            Subject subject = subjectsById.get(subjectId);
+            if (student != null && subject != null) {
+                records.add(new Attendance(student, subject, toDate(day), present));
+            }
+        });
+        return records;
+    }
+    
+    // Attendance is taken once per day, so marks are keyed by calendar date
+    private static LocalDate toDay(Date date) {
+        return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+    
+    private static Date toDate(LocalDate day) {
+        return Date.from(day.atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+    
+    List<Fee> getFeesFor(Collection<Student> page) {
+        return read(feeLock, () -> {
+            List<Fee> result = new ArrayList<>();
+            for (Student student : page) {
+                Fee fee = fees.get(student.getId());
+                if (fee != null) {
+                    result.add(fee);
+                }
+            }
+            return result;
+        });
+    }
+    
+    Student getResidentStudent(String id) {
+        return read(peopleLock, () -> students.get(id));
+    }
+    
+    // Indexed lookups. In paged mode, misses are loaded through the pager,
+    // which keeps the student resident only for a while. This happens after
+    // the lock is released, since loading a student takes write locks. If
+    // loading fails, they throw IllegalStateException rather than report a miss.
+    public User findUserByEmail(String email) {
+        User user = read(peopleLock, () -> users.findFirst(BY_EMAIL, email));
+        if (user == null && pager != null) {
+            try {
+                user = pager.loadByEmail(email);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not load the user " + email + " from the database", e);
+            }
+        }
+        return user;
+    }
+    
+    public User getUser(String id) {
+        return read(peopleLock, () -> users.get(id));
+    }
+    
+    public Student getStudent(String id) {
+        Student student = read(peopleLock, () -> students.get(id));
+        if (student == null && id != null && pager != null) {
+            try {
+                student = pager.loadById(id);
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not load the student " + id + " from the database", e);
+            }
+        }
+        return student;
+    }
+    
+    public Teacher getTeacher(String id) {
+        return read(peopleLock, () -> teachers.get(id));
+    }
+    
+    public Subject getSubject(String id) {
+        return read(subjectLock, () -> subjects.get(id));
+    }
+    
+    public Subject findSubjectByName(String name) {
+        return read(subjectLock, () -> subjects.findFirst(BY_NAME, name));
+    }
+    
+    public Project getProject(String id) {
+        return read(projectLock, () -> projects.get(id));
+    }
+    
+    public List<Student> getStudentsByClass(String className) {
+        return read(peopleLock, () -> students.findAll(BY_CLASS, className));
+    }
+    
+    public List<Student> getStudentsByMajor(String major) {
+        return read(peopleLock, () -> students.findAll(BY_MAJOR, major));
+    }
+    
+    public Set<String> getClassNames() {
+        return read(peopleLock, () -> students.keys(BY_CLASS));
+    }
+    
+    public Set<String> getMajors() {
+        return read(peopleLock, () -> students.keys(BY_MAJOR));
+    }
+    
+    /**
+     * Searches students by name, id, email, class and major. Accents and
+     * case are ignored, words may be prefixes or contain small typos.
+     * 
+     * @param query the words to look for
+     * @return the matching students, best match first
+     */
+    public List<Student> searchStudents(String query) {
+        return searchIndex.search(query);
+    }
+    
+    /**
+     * Filters students by major, class, course, fee status and rank, and
+     * counts the matches for every value so filters can show them.
+     * 
+     * @param selection the values chosen for each facet; values of one facet are alternatives
+     * @param search words to search for first, or null or blank for all students
+     * @return the matches, in search order if searching, with the counts
+     */
+    public StudentFacets.Result filterStudents(Map<StudentFacets.Facet, ? extends Collection<String>> selection,
+                                               String search) {
+        List<Student> candidates = search == null || search.trim().isEmpty() ? null : searchIndex.search(search);
+        return studentFacets.query(selection, candidates);
+    }
+    
+    public List<String> getFacetValues(StudentFacets.Facet facet) {
+        return studentFacets.getValues(facet);
+    }
+    
+    /**
+     * Sorts students through the data layer's sort indexes.
+     * 
+     * @param students the students to sort, e.g. a filter result
+     * @param key the order; not {@link SortKey#AVERAGE}
+     * @param ascending whether the smallest value comes first
+     * @return the sorted students
+     */
+    public List<Student> sortStudents(List<Student> students, SortKey key, boolean ascending) {
+        return sortIndex.sort(students, student -> student, key, ascending);
+    }
+    
+    /**
+     * Sorts fees by their students, through the sort indexes.
+     * 
+     * @param fees the fees to sort
+     * @param key the order; not {@link SortKey#AVERAGE}
+     * @param ascending whether the smallest value comes first
+     * @return the sorted fees
+     */
+    public List<Fee> sortFees(List<Fee> fees, SortKey key, boolean ascending) {
+        return sortIndex.sort(fees, Fee::getStudent, key, ascending);
+    }
+    
+    /**
+     * Sorts the grades of a section by average or by their students,
+     * through the sort indexes.
+     * 
+     * @param subject the subject the grades belong to
+     * @param grades the grades to sort
+     * @param key the order
+     * @param ascending whether the smallest value comes first
+     * @return the sorted grades
+     */
+    public List<Grade> sortGrades(Subject subject, List<Grade> grades, SortKey key, boolean ascending) {
+        if (key != SortKey.AVERAGE) {
+            return sortIndex.sort(grades, Grade::getStudent, key, ascending);
+        }
+        if (gradeColumns == null) {
+            List<Grade> sorted = new ArrayList<>(grades);
+            Comparator<Grade> byAverage = Comparator.comparingDouble(Grade::calculateAverage);
+            sorted.sort(ascending ? byAverage : byAverage.reversed());
+            return sorted;
+        }
+        return read(enrollmentLock, () -> gradeColumns.sortByAverage(subject.getId(), grades, ascending));
+    }
+    
+    public Fee getFeeForStudent(Student student) {
+        return read(feeLock, () -> fees.get(student.getId()));
+    }
+    
+    public List<Student> getStudentsInSubject(Subject subject) {
+        return read(enrollmentLock, () -> enrollments.getStudents(subject));
+    }
+    
+    public Grade getGrade(Student student, Subject subject) {
+        return read(enrollmentLock, () -> enrollments.getGrade(student, subject));
+    }
+    
+    /**
+     * Gets a student's attendance mark for a subject on a day. The record is
+     * a copy; use {@link #markAttendance} to change it.
+     * 
+     * @param student the student
+     * @param subject the subject
+     * @param date the day of the class
+     * @return the mark, or null if the student was not marked that day
+     */
+    public Attendance getAttendance(Student student, Subject subject, Date date) {
+        Boolean present = read(enrollmentLock, () -> attendanceStore.get(student.getId(), subject.getId(), toDay(date)));
+        return present == null ? null : new Attendance(student, subject, date, present);
+    }
+    
+    /**
+     * Gets the average grade of a section, using the weights of its
+     * grading policy.
+     * 
+     * @param subject the subject
+     * @return the average, or 0 if nobody has a grade for it
+     */
+    public double getSectionAverage(Subject subject) {
+        return getSectionAverages(subject.getGradingPolicy().getWeights()).getOrDefault(subject.getId(), 0.0);
+    }
+    
+    /**
+     * Changes the grading policy of a subject and recomputes the stored
+     * average and letter of every grade in it.
+     * 
+     * @param subject the subject
+     * @param policy the new policy
+     */
+    public void setGradingPolicy(Subject subject, GradingPolicy policy) {
+        write(() -> {
+            subject.setGradingPolicy(policy);
+            if (gradeColumns != null) {
+                gradeColumns.recompute(gradeEngine, subject.getId());
+            }
+        }, subjectLock, enrollmentLock);
+    }
+    
+    /**
+     * Recomputes the stored average and letter of every grade in parallel.
+     * Edits keep them current, so this is only needed after bulk changes.
+     */
+    public void recomputeGrades() {
+        if (gradeColumns != null) {
+            write(() -> gradeColumns.recompute(gradeEngine), enrollmentLock);
+        }
+    }
+    
+    /**
+     * Counts the grades of a subject by letter.
+     * 
+     * @param subject the subject
+     * @return the number of each letter, indexed as by {@link GradingPolicy#letterIndex}
+     */
+    public int[] getLetterDistribution(Subject subject) {
+        GradingPolicy policy = subject.getGradingPolicy();
+        if (gradeColumns != null) {
+            int[] counts = read(enrollmentLock, () -> gradeColumns.getLetterDistribution(subject.getId()));
+            return counts.length == 0 ? new int[policy.getLetterCount()] : counts;
+        }
+        int[] counts = new int[policy.getLetterCount()];
+        for (Student student : getStudentsInSubject(subject)) {
+            Grade grade = getGrade(student, subject);
+            if (grade != null) {
+                counts[policy.letterIndex(grade.calculateAverage())]++;
+            }
+        }
+        return counts;
+    }
+    
+    /**
+     * Gets the average grade of every section under the given component
+     * weights, e.g. to see how a change of weighting would play out.
+     * 
+     * @param weights the weight of each component, indexed as in {@link Grade}
+     * @return the average of each section with grades, by subject id
+     */
+    public Map<String, Double> getSectionAverages(double[] weights) {
+        if (weights.length != Grade.COMPONENT_COUNT) {
+            throw new IllegalArgumentException("Expected " + Grade.COMPONENT_COUNT + " weights");
+        }
+        if (gradeColumns != null) {
+            return read(enrollmentLock, () -> gradeColumns.getSectionAverages(weights));
+        }
+        
+        // Without column storage, walk the grade objects
+        Map<String, Double> averages = new LinkedHashMap<>();
+        for (Subject subject : getSubjects()) {
+            double sum = 0.0;
+            int count = 0;
+            for (Student student : getStudentsInSubject(subject)) {
+                Grade grade = getGrade(student, subject);
+                if (grade != null) {
+                    sum += grade.getAssignmentScore() * weights[Grade.ASSIGNMENT]
+                         + grade.getMidtermScore() * weights[Grade.MIDTERM]
+                         + grade.getAttendanceScore() * weights[Grade.ATTENDANCE]
+                         + grade.getFinalScore() * weights[Grade.FINAL];
+                    count++;
+                }
+            }
+            if (count > 0) {
+                averages.put(subject.getId(), sum / count);
+            }
+        }
+        return averages;
     }
     
-    // Getters for collections
+    /**
+     * Gets every mark of one class session.
+     * 
+     * @param subject the subject
+     * @param date the day of the class
+     * @return whether each marked student, by id, was present
+     */
+    public Map<String, Boolean> getAttendanceSheet(Subject subject, Date date) {
+        return read(enrollmentLock, () -> attendanceStore.getSheet(subject.getId(), toDay(date)));
+    }
+    
+    /**
+     * Gets the share of a subject's sessions a student attended.
+     * 
+     * @param student the student
+     * @param subject the subject
+     * @return the rate between 0 and 1, or 1 if the student was never marked
+     */
+    public double getAttendanceRate(Student student, Subject subject) {
+        return read(enrollmentLock, () -> attendanceStore.getRate(student.getId(), subject.getId()));
+    }
+    
+    /**
+     * Gets the attendance rate of every student marked in a subject, e.g. to
+     * derive the attendance part of their grades.
+     * 
+     * @param subject the subject
+     * @return the rate between 0 and 1 of each marked student, by id
+     */
+    public Map<String, Double> getAttendanceRates(Subject subject) {
+        return read(enrollmentLock, () -> attendanceStore.getRates(subject.getId()));
+    }
+    
+    /**
+     * Gets the campus-wide dashboard figures.
+     * 
+     * @return the current statistics snapshot
+     */
+    public CampusStatistics.Snapshot getStatistics() {
+        return statistics.getSnapshot();
+    }
+    
+    /**
+     * Gets the latest published snapshot. Callers that read several lists
+     * should take one snapshot and read them all from it, so that the
+     * lists come from the same version.
+     * 
+     * @return the current snapshot
+     */
+    public DataSnapshot getSnapshot() {
+        return snapshot;
+    }
+    
+    // Read-only snapshots for iteration, served from the published snapshot
     public List<User> getUsers() {
-        return users;
+        return snapshot.getUsers();
     }
     
     public List<Student> getStudents() {
-        return students;
+        return snapshot.getStudents();
     }
     
     public List<Teacher> getTeachers() {
-        return teachers;
+        return snapshot.getTeachers();
     }
     
     public List<Subject> getSubjects() {
-        return subjects;
+        return snapshot.getSubjects();
     }
     
     public List<Project> getProjects() {
-        return projects;
+        return snapshot.getProjects();
     }
     
+    /**
+     * Gets every attendance mark as a record. Builds one object per mark, so
+     * this is meant for exporting; prefer the per-session and per-student
+     * queries elsewhere.
+     * 
+     * @return the attendance records
+     */
     public List<Attendance> getAttendanceRecords() {
-        return attendanceRecords;
+        AttendanceStore.Snapshot marks = getAttendanceSnapshot();
+        Map<String, Student> all = new HashMap<>();
+        for (Student student : getStudents()) {
+            all.put(student.getId(), student);
+        }
+        return toRecords(marks, all);
     }
     
     public List<Fee> getFees() {
-        return fees;
+        return snapshot.getFees();
     }
     
     public List<Notification> getNotifications() {
-        return notifications;
+        return snapshot.getNotifications();
     }
 }
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.vku.data;
+
+import com.vku.model.*;
+
+import java.util.List;
+
+/**
+ * Immutable, versioned view of the whole dataset. DataManager publishes a
+ * new snapshot after every change; readers take the current one with a
+ * single volatile read and can iterate it without locking while writers
+ * move on. Consecutive versions share the unchanged parts of their lists.
+ * Attendance marks are not part of it; they are kept as bitsets in an
+ * {@link AttendanceStore} and read through DataManager.
+ */
+public final class DataSnapshot {
+    private final long version;
+    private final List<User> users;
+    private final List<Student> students;
+    private final List<Teacher> teachers;
+    private final List<Subject> subjects;
+    private final List<Project> projects;
+    private final List<Fee> fees;
+    private final List<Notification> notifications;
+    
+    DataSnapshot(long version, List<User> users, List<Student> students, List<Teacher> teachers,
+                 List<Subject> subjects, List<Project> projects, List<Fee> fees,
+                 List<Notification> notifications) {
+        this.version = version;
+        this.users = users;
+        this.students = students;
+        this.teachers = teachers;
+        this.subjects = subjects;
+        this.projects = projects;
+        this.fees = fees;
+        this.notifications = notifications;
+    }
+    
+    /**
+     * Gets the version number, which grows with every published change.
+     *
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+    
+    public List<User> getUsers() {
+        return users;
+    }
+    
+    public List<Student> getStudents() {
+        return students;
+    }
+    
+    public List<Teacher> getTeachers() {
+        return teachers;
+    }
+    
+    public List<Subject> getSubjects() {
+        return subjects;
+    }
+    
+    public List<Project> getProjects() {
+        return projects;
+    }
+    
+    public List<Fee> getFees() {
+        return fees;
+    }
+    
+    public List<Notification> getNotifications() {
+        return notifications;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,105 @@
+package com.vku.data;
+
+/**
+ * Connection settings for the JDBC persistence layer.
+ * Values are read from system properties so that the same build can point
+ * at the production MySQL server or at an embedded stand-in database.
+ */
+public class DatabaseConfig {
+    public static final String URL_PROPERTY = "vku.db.url";
+    public static final String USER_PROPERTY = "vku.db.user";
+    public static final String PASSWORD_PROPERTY = "vku.db.password";
+    public static final String POOL_SIZE_PROPERTY = "vku.db.poolSize";
+    public static final String BATCH_SIZE_PROPERTY = "vku.db.batchSize";
+    public static final String PAGE_SIZE_PROPERTY = "vku.db.pageSize";
+    public static final String RESIDENT_PAGES_PROPERTY = "vku.db.residentPages";
+    
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int poolSize;
+    private final int batchSize;
+    private final int pageSize;
+    private final int residentPages;
+    
+    public DatabaseConfig(String url, String user, String password, int poolSize, int batchSize) {
+        this(url, user, password, poolSize, batchSize, 0, 0);
+    }
+    
+    /**
+     * Creates a configuration that loads students lazily, one page at a time.
+     * 
+     * @param pageSize students per page, or 0 to load everything eagerly
+     * @param residentPages maximum number of student pages kept in memory
+     */
+    public DatabaseConfig(String url, String user, String password, int poolSize, int batchSize,
+                          int pageSize, int residentPages) {
+        if (poolSize < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Pool size and batch size must be positive");
+        }
+        if (pageSize < 0 || (pageSize > 0 && residentPages < 1)) {
+            throw new IllegalArgumentException("Paged loading needs at least one resident page");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.poolSize = poolSize;
+        this.batchSize = batchSize;
+        this.pageSize = pageSize;
+        this.residentPages = residentPages;
+    }
+    
+    /**
+     * Builds a configuration from the vku.db.* system properties.
+     *
+     * @return the configuration, or null if no database URL is set
+     */
+    public static DatabaseConfig fromSystemProperties() {
+        String url = System.getProperty(URL_PROPERTY);
+        if (url == null || url.trim().isEmpty()) {
+            return null;
+        }
+        return new DatabaseConfig(
+            url,
+            System.getProperty(USER_PROPERTY, ""),
+            System.getProperty(PASSWORD_PROPERTY, ""),
+            Integer.getInteger(POOL_SIZE_PROPERTY, 4),
+            Integer.getInteger(BATCH_SIZE_PROPERTY, 1000),
+            Integer.getInteger(PAGE_SIZE_PROPERTY, 0),
+            Integer.getInteger(RESIDENT_PAGES_PROPERTY, 8)
+        );
+    }
+    
+    // Getters
+    public String getUrl() {
+        return url;
+    }
+    
+    public String getUser() {
+        return user;
+    }
+    
+    public String getPassword() {
+        return password;
+    }
+    
+    public int getPoolSize() {
+        return poolSize;
+    }
+    
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    public boolean isPaged() {
+        return pageSize > 0;
+    }
+    
+    public int getPageSize() {
+        return pageSize;
+    }
+    
+    public int getResidentPages() {
+        return residentPages;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.vku.data;
+
+import com.vku.model.Grade;
+import com.vku.model.Student;
+import com.vku.model.Subject;
+
+import java.util.*;
+
+/**
+ * Index of which students take which subject, together with their grade
+ * for that subject. Lets the grade and attendance views read a subject's
+ * roster without scanning every student. Attendance marks are kept in an
+ * {@link AttendanceStore}.
+ */
+class EnrollmentIndex {
+    // subject id -> student id -> value
+    private final Map<String, LinkedHashMap<String, Student>> rosters;
+    private final Map<String, Map<String, Grade>> grades;
+    
+    // student id -> subject ids the student appears under, used for removal
+    private final Map<String, Set<String>> subjectsByStudent;
+    
+    EnrollmentIndex() {
+        rosters = new HashMap<>();
+        grades = new HashMap<>();
+        subjectsByStudent = new HashMap<>();
+    }
+    
+    /**
+     * Indexes the subjects and grades a student already carries.
+     */
+    void addStudent(Student student) {
+        for (Subject subject : student.getSubjects()) {
+            enroll(student, subject);
+        }
+        for (Grade grade : student.getGrades()) {
+            addGrade(grade);
+        }
+    }
+    
+    void enroll(Student student, Subject subject) {
+        rosters.computeIfAbsent(subject.getId(), k -> new LinkedHashMap<>()).put(student.getId(), student);
+        subjectsByStudent.computeIfAbsent(student.getId(), k -> new HashSet<>()).add(subject.getId());
+    }
+    
+    void addGrade(Grade grade) {
+        Student student = grade.getStudent();
+        Subject subject = grade.getSubject();
+        enroll(student, subject);
+        grades.computeIfAbsent(subject.getId(), k -> new HashMap<>()).put(student.getId(), grade);
+    }
+    
+    void removeStudent(String studentId) {
+        Set<String> subjectIds = subjectsByStudent.remove(studentId);
+        if (subjectIds == null) {
+            return;
+        }
+        for (String subjectId : subjectIds) {
+            removeFrom(rosters, subjectId, studentId);
+            removeFrom(grades, subjectId, studentId);
+        }
+    }
+    
+    void clear() {
+        rosters.clear();
+        grades.clear();
+        subjectsByStudent.clear();
+    }
+    
+    List<Student> getStudents(Subject subject) {
+        Map<String, Student> roster = rosters.get(subject.getId());
+        return roster == null ? new ArrayList<>() : new ArrayList<>(roster.values());
+    }
+    
+    Grade getGrade(Student student, Subject subject) {
+        Map<String, Grade> bySubject = grades.get(subject.getId());
+        return bySubject == null ? null : bySubject.get(student.getId());
+    }
+    
+    private static <V> void removeFrom(Map<String, ? extends Map<String, V>> index, String subjectId, String studentId) {
+        Map<String, V> bySubject = index.get(subjectId);
+        if (bySubject != null) {
+            bySubject.remove(studentId);
+            if (bySubject.isEmpty()) {
+                index.remove(subjectId);
+            }
+        }
+    }
+}
\ No newline at end of file
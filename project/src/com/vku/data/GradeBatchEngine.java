@@ -0,0 +1,123 @@
+package com.vku.data;
+
+import com.vku.model.Grade;
+import com.vku.model.GradingPolicy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Recomputes weighted averages and letter grades for many grades at once.
+ * Works directly on the primitive columns of {@link GradeColumnStore}: the
+ * inner loops are passes over plain arrays through the section's compiled
+ * {@link GradingPolicy}, which the JIT inlines, and large sections are
+ * split into ranges that run in parallel on a fork-join pool.
+ */
+final class GradeBatchEngine {
+    // Ranges at most this long are computed without splitting further
+    static final int BATCH_SIZE = 4096;
+    
+    private final ForkJoinPool pool;
+    
+    GradeBatchEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    static GradeBatchEngine common() {
+        return new GradeBatchEngine(ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Computes every batch, in parallel across and within batches, and
+     * returns once all are done.
+     *
+     * @param batches the sections to compute
+     */
+    void compute(List<Batch> batches) {
+        List<RangeTask> tasks = new ArrayList<>(batches.size());
+        for (Batch batch : batches) {
+            if (batch.size > 0) {
+                tasks.add(new RangeTask(batch, 0, batch.size));
+            }
+        }
+        if (tasks.size() == 1 && tasks.get(0).to <= BATCH_SIZE) {
+            // Too small to be worth handing to the pool
+            tasks.get(0).compute();
+        } else if (!tasks.isEmpty()) {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Average of the four score columns over a range of rows.
+     */
+    static void averages(double[] assignment, double[] midterm, double[] attendance, double[] finalScore,
+                         GradingPolicy policy, double[] averages, int from, int to) {
+        for (int i = from; i < to; i++) {
+            averages[i] = policy.average(assignment[i], midterm[i], attendance[i], finalScore[i]);
+        }
+    }
+    
+    /**
+     * Letter index of each average over a range of rows, 0 being the best.
+     */
+    static void letters(double[] averages, GradingPolicy policy, byte[] letters, int from, int to) {
+        for (int i = from; i < to; i++) {
+            letters[i] = (byte) policy.letterIndex(averages[i]);
+        }
+    }
+    
+    /**
+     * The arrays of one section. The score arrays are read; the average and
+     * letter arrays are written.
+     */
+    static final class Batch {
+        final double[][] columns;
+        final GradingPolicy policy;
+        final double[] averages;
+        final byte[] letters;
+        final int size;
+        
+        Batch(double[][] columns, GradingPolicy policy, double[] averages, byte[] letters, int size) {
+            this.columns = columns;
+            this.policy = policy;
+            this.averages = averages;
+            this.letters = letters;
+            this.size = size;
+        }
+    }
+    
+    private static final class RangeTask extends RecursiveAction {
+        private final Batch batch;
+        private final int from;
+        private final int to;
+        
+        RangeTask(Batch batch, int from, int to) {
+            this.batch = batch;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from > BATCH_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RangeTask(batch, from, middle), new RangeTask(batch, middle, to));
+                return;
+            }
+            
+            // Both passes over one range while it is still in cache
+            double[][] columns = batch.columns;
+            averages(columns[Grade.ASSIGNMENT], columns[Grade.MIDTERM], columns[Grade.ATTENDANCE], columns[Grade.FINAL],
+                     batch.policy, batch.averages, from, to);
+            letters(batch.averages, batch.policy, batch.letters, from, to);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,444 @@
+package com.vku.data;
+
+import com.vku.model.Grade;
+import com.vku.model.GradingPolicy;
+import com.vku.model.Student;
+import com.vku.model.Subject;
+
+import java.util.*;
+
+/**
+ * Column-oriented storage for grade scores. Each subject (a course section)
+ * keeps one primitive array per score component, with a row per enrolled
+ * student, so bulk work such as section averages under any weighting walks
+ * contiguous memory and allocates nothing per grade.
+ *
+ * The rest of the application keeps using {@link Grade}: {@link #adopt}
+ * copies a grade into the columns and returns a view whose getters and
+ * setters read and write them.
+ * 
+ * Each section also keeps derived columns holding every row's average and
+ * letter under its subject's grading policy. Single edits refresh their
+ * own row; {@link #recompute} refreshes whole sections through the
+ * {@link GradeBatchEngine}, e.g. after the policy changed. The order of
+ * the rows by average is kept as a sort index, rebuilt after changes the
+ * first time grades are sorted by it.
+ *
+ * Rows and student ordinals freed by {@link #removeStudents} are reused by
+ * later grades, so the columns stay as large as the most grades a section
+ * has held at once.
+ *
+ * Structure changes are not thread-safe; DataManager guards them with its
+ * enrollment lock. Score writes through the views may come from any thread.
+ */
+public class GradeColumnStore {
+    private static final int INITIAL_ROWS = 16;
+    
+    private final OrdinalRegistry subjects = new OrdinalRegistry();
+    private final OrdinalRegistry students = new OrdinalRegistry();
+    
+    // Indexed by subject ordinal
+    private final List<Section> sections = new ArrayList<>();
+    
+    private int gradeCount;
+    
+    /**
+     * Copies a grade into the columns. If the student already has a row for
+     * the subject it is overwritten and its existing view returned.
+     *
+     * @param grade the grade to store
+     * @return the view backed by the columns
+     */
+    public Grade adopt(Grade grade) {
+        if (grade instanceof ColumnGrade && ((ColumnGrade) grade).store == this
+                && ((ColumnGrade) grade).section != null) {
+            return grade;
+        }
+        Subject subject = grade.getSubject();
+        Student student = grade.getStudent();
+        Section section = section(subjects.ordinal(subject.getId()));
+        section.subject = subject;
+        int studentOrdinal = students.ordinal(student.getId());
+        
+        ColumnGrade view;
+        Integer row = section.rowByStudent.get(studentOrdinal);
+        if (row != null) {
+            view = section.views[row];
+        } else {
+            row = section.addRow(studentOrdinal);
+            view = new ColumnGrade(this, student, subject, section, row);
+            section.views[row] = view;
+            gradeCount++;
+        }
+        
+        for (int component = 0; component < Grade.COMPONENT_COUNT; component++) {
+            section.write(component, row, readComponent(grade, component));
+        }
+        return view;
+    }
+    
+    /**
+     * Drops the rows of the given students and frees them for reuse. Views
+     * already handed out keep their scores but are no longer part of any
+     * section.
+     *
+     * @param studentIds the students to remove
+     */
+    public void removeStudents(Collection<String> studentIds) {
+        for (String studentId : studentIds) {
+            int studentOrdinal = students.find(studentId);
+            if (studentOrdinal < 0) {
+                continue;
+            }
+            for (Section section : sections) {
+                if (section.removeRow(studentOrdinal)) {
+                    gradeCount--;
+                }
+            }
+            // No section has a row under the ordinal any more
+            students.release(studentId);
+        }
+    }
+    
+    /**
+     * Recomputes the stored average and letter of every grade.
+     * 
+     * @param engine the engine to run the computation on
+     */
+    public void recompute(GradeBatchEngine engine) {
+        List<GradeBatchEngine.Batch> batches = new ArrayList<>(sections.size());
+        for (Section section : sections) {
+            batches.add(section.batch());
+        }
+        engine.compute(batches);
+        for (Section section : sections) {
+            section.averageRanks = null;
+        }
+    }
+    
+    /**
+     * Recomputes the stored average and letter of every grade in a section.
+     * 
+     * @param engine the engine to run the computation on
+     * @param subjectId the subject
+     */
+    public void recompute(GradeBatchEngine engine, String subjectId) {
+        Section section = find(subjectId);
+        if (section != null) {
+            engine.compute(Collections.singletonList(section.batch()));
+            section.averageRanks = null;
+        }
+    }
+    
+    /**
+     * Sorts grades of a section by their stored average, through the
+     * section's sort index.
+     * 
+     * @param subjectId the subject
+     * @param grades the grades to sort
+     * @param ascending whether the lowest average comes first
+     * @return the sorted grades; grades not stored in the section go last
+     */
+    public List<Grade> sortByAverage(String subjectId, List<Grade> grades, boolean ascending) {
+        Section section = find(subjectId);
+        if (section == null) {
+            return new ArrayList<>(grades);
+        }
+        int[] rank = section.averageRanks();
+        return RankOrder.sort(grades, grade -> {
+            if (!(grade instanceof ColumnGrade) || ((ColumnGrade) grade).section != section) {
+                return RankOrder.UNRANKED;
+            }
+            int row = ((ColumnGrade) grade).row;
+            return row < rank.length ? rank[row] : RankOrder.UNRANKED;
+        }, ascending);
+    }
+    
+    /**
+     * Counts the grades of a section by letter, from the stored letters.
+     * 
+     * @param subjectId the subject
+     * @return the number of each letter, indexed as by {@link GradingPolicy#letterIndex}
+     */
+    public int[] getLetterDistribution(String subjectId) {
+        Section section = find(subjectId);
+        if (section == null) {
+            return new int[0];
+        }
+        int[] counts = new int[section.subject.getGradingPolicy().getLetterCount()];
+        byte[] letters = section.letters;
+        boolean[] live = section.live;
+        for (int row = 0; row < section.size; row++) {
+            if (live[row]) {
+                // Letters stored under a previous policy may not fit until recomputed
+                counts[Math.min(letters[row], counts.length - 1)]++;
+            }
+        }
+        return counts;
+    }
+    
+    public void clear() {
+        subjects.clear();
+        students.clear();
+        sections.clear();
+        gradeCount = 0;
+    }
+    
+    public int getGradeCount() {
+        return gradeCount;
+    }
+    
+    /**
+     * Gets the mean of one score component across a section.
+     *
+     * @param subjectId the subject
+     * @param component the component, e.g. {@link Grade#FINAL}
+     * @return the mean, or 0 if the section has no grades
+     */
+    public double getComponentMean(String subjectId, int component) {
+        Section section = find(subjectId);
+        if (section == null) {
+            return 0.0;
+        }
+        double[] column = section.columns[component];
+        boolean[] live = section.live;
+        double sum = 0.0;
+        int count = 0;
+        for (int row = 0; row < section.size; row++) {
+            if (live[row]) {
+                sum += column[row];
+                count++;
+            }
+        }
+        return count == 0 ? 0.0 : sum / count;
+    }
+    
+    /**
+     * Gets the average grade of a section under the given component weights.
+     * Because the average is linear, this is the weighted sum of the
+     * component means, one pass over each column.
+     *
+     * @param subjectId the subject
+     * @param weights the weight of each component, indexed by component
+     * @return the section average, or 0 if the section has no grades
+     */
+    public double getSectionAverage(String subjectId, double[] weights) {
+        Section section = find(subjectId);
+        return section == null ? 0.0 : section.average(weights);
+    }
+    
+    /**
+     * Gets the average grade of every section under the given weights.
+     *
+     * @param weights the weight of each component, indexed by component
+     * @return the average of each section with grades, by subject id
+     */
+    public Map<String, Double> getSectionAverages(double[] weights) {
+        Map<String, Double> averages = new LinkedHashMap<>();
+        for (int ordinal = 0; ordinal < sections.size(); ordinal++) {
+            Section section = sections.get(ordinal);
+            if (section.liveRows > 0) {
+                averages.put(subjects.id(ordinal), section.average(weights));
+            }
+        }
+        return averages;
+    }
+    
+    private Section section(int subjectOrdinal) {
+        while (sections.size() <= subjectOrdinal) {
+            sections.add(new Section());
+        }
+        return sections.get(subjectOrdinal);
+    }
+    
+    private Section find(String subjectId) {
+        int ordinal = subjects.find(subjectId);
+        return ordinal < 0 ? null : sections.get(ordinal);
+    }
+    
+    private static double readComponent(Grade grade, int component) {
+        switch (component) {
+            case Grade.ASSIGNMENT:
+                return grade.getAssignmentScore();
+            case Grade.MIDTERM:
+                return grade.getMidtermScore();
+            case Grade.ATTENDANCE:
+                return grade.getAttendanceScore();
+            default:
+                return grade.getFinalScore();
+        }
+    }
+    
+    /**
+     * The columns of one subject. Removed rows are flagged and kept on a
+     * free list until a new grade takes them; their views are detached
+     * first, so a view's row number stays valid while it is attached.
+     */
+    private static final class Section {
+        // Replaced as a whole when growing, so readers never see half a copy
+        volatile double[][] columns = new double[Grade.COMPONENT_COUNT][INITIAL_ROWS];
+        Subject subject;
+        
+        // Derived from the scores and weights
+        double[] averages = new double[INITIAL_ROWS];
+        byte[] letters = new byte[INITIAL_ROWS];
+        
+        boolean[] live = new boolean[INITIAL_ROWS];
+        ColumnGrade[] views = new ColumnGrade[INITIAL_ROWS];
+        
+        // Position of each row in average order; null when stale
+        volatile int[] averageRanks;
+        final Map<Integer, Integer> rowByStudent = new HashMap<>();
+        final Deque<Integer> freeRows = new ArrayDeque<>();
+        int size;
+        int liveRows;
+        
+        int addRow(int studentOrdinal) {
+            int row;
+            if (!freeRows.isEmpty()) {
+                row = freeRows.pop();
+            } else {
+                if (size == live.length) {
+                    grow(size * 2);
+                }
+                row = size++;
+            }
+            live[row] = true;
+            averageRanks = null;
+            rowByStudent.put(studentOrdinal, row);
+            liveRows++;
+            return row;
+        }
+        
+        boolean removeRow(int studentOrdinal) {
+            Integer row = rowByStudent.remove(studentOrdinal);
+            if (row == null) {
+                return false;
+            }
+            live[row] = false;
+            liveRows--;
+            views[row].detach();
+            views[row] = null;
+            averageRanks = null;
+            freeRows.push(row);
+            return true;
+        }
+        
+        double read(int component, int row) {
+            return columns[component][row];
+        }
+        
+        // Synchronized with growing so a score written meanwhile is not lost
+        synchronized void write(int component, int row, double score) {
+            double[][] current = columns;
+            current[component][row] = score;
+            GradingPolicy policy = subject.getGradingPolicy();
+            double average = policy.average(current[Grade.ASSIGNMENT][row], current[Grade.MIDTERM][row],
+                                            current[Grade.ATTENDANCE][row], current[Grade.FINAL][row]);
+            averages[row] = average;
+            letters[row] = (byte) policy.letterIndex(average);
+            averageRanks = null;
+        }
+        
+        synchronized int[] averageRanks() {
+            int[] rank = averageRanks;
+            if (rank != null) {
+                return rank;
+            }
+            List<Integer> order = new ArrayList<>(liveRows);
+            for (int row = 0; row < size; row++) {
+                if (live[row]) {
+                    order.add(row);
+                }
+            }
+            double[] current = averages;
+            order.sort((a, b) -> Double.compare(current[a], current[b]));
+            
+            rank = new int[size];
+            Arrays.fill(rank, RankOrder.UNRANKED);
+            for (int position = 0; position < order.size(); position++) {
+                rank[order.get(position)] = position;
+            }
+            averageRanks = rank;
+            return rank;
+        }
+        
+        GradeBatchEngine.Batch batch() {
+            return new GradeBatchEngine.Batch(columns, subject.getGradingPolicy(), averages, letters, size);
+        }
+        
+        synchronized void grow(int capacity) {
+            double[][] grown = new double[Grade.COMPONENT_COUNT][];
+            for (int component = 0; component < grown.length; component++) {
+                grown[component] = Arrays.copyOf(columns[component], capacity);
+            }
+            columns = grown;
+            averages = Arrays.copyOf(averages, capacity);
+            letters = Arrays.copyOf(letters, capacity);
+            live = Arrays.copyOf(live, capacity);
+            views = Arrays.copyOf(views, capacity);
+        }
+        
+        double average(double[] weights) {
+            if (liveRows == 0) {
+                return 0.0;
+            }
+            double[][] current = columns;
+            double sum = 0.0;
+            for (int component = 0; component < Grade.COMPONENT_COUNT; component++) {
+                double[] column = current[component];
+                double componentSum = 0.0;
+                for (int row = 0; row < size; row++) {
+                    if (live[row]) {
+                        componentSum += column[row];
+                    }
+                }
+                sum += componentSum * weights[component];
+            }
+            return sum / liveRows;
+        }
+    }
+    
+    /**
+     * Grade whose scores live in a section's columns until its row is
+     * removed, and in the grade itself after that.
+     */
+    private static final class ColumnGrade extends Grade {
+        private final GradeColumnStore store;
+        private final int row;
+        // Null once detached
+        private volatile Section section;
+        
+        ColumnGrade(GradeColumnStore store, Student student, Subject subject, Section section, int row) {
+            super(student, subject);
+            this.store = store;
+            this.section = section;
+            this.row = row;
+        }
+        
+        // Copies the scores out of the columns, so the row can be reused
+        synchronized void detach() {
+            Section current = section;
+            for (int component = 0; component < Grade.COMPONENT_COUNT; component++) {
+                super.writeScore(component, current.read(component, row));
+            }
+            section = null;
+        }
+        
+        @Override
+        protected double readScore(int component) {
+            Section current = section;
+            return current != null ? current.read(component, row) : super.readScore(component);
+        }
+        
+        @Override
+        protected synchronized void writeScore(int component, double score) {
+            Section current = section;
+            if (current != null) {
+                current.write(component, row, score);
+            } else {
+                super.writeScore(component, score);
+            }
+        }
+    }
+}
\ No newline at end of file
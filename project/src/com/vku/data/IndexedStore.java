@@ -0,0 +1,242 @@
+package com.vku.data;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * In-memory table for one entity type.
+ * Keeps a hash index on the primary key plus any number of secondary
+ * indexes, all of which stay consistent on insert, update and delete.
+ * Rows are kept in a persistent vector, so a snapshot of them costs
+ * nothing and stays valid while the store changes. Each row's position is
+ * indexed too, so a replaced entity takes its predecessor's place and a
+ * removed one is filled by the last row, both without a rebuild.
+ *
+ * @param <T> the entity type
+ */
+public class IndexedStore<T> {
+    private final Function<T, String> primaryKey;
+    private volatile PersistentVector<T> rows;
+    private final Map<String, T> byId;
+    private final Map<String, Integer> positions;
+    private final Map<String, SecondaryIndex<T>> indexes;
+    
+    public IndexedStore(Function<T, String> primaryKey) {
+        this.primaryKey = primaryKey;
+        this.rows = PersistentVector.empty();
+        this.byId = new HashMap<>();
+        this.positions = new HashMap<>();
+        this.indexes = new HashMap<>();
+    }
+    
+    /**
+     * Registers a secondary index. Existing rows are indexed immediately.
+     *
+     * @param name the index name used for lookups
+     * @param keyExtractor extracts the indexed key from an entity
+     */
+    public void addIndex(String name, Function<T, String> keyExtractor) {
+        SecondaryIndex<T> index = new SecondaryIndex<>(keyExtractor);
+        for (T row : rows) {
+            index.put(primaryKey.apply(row), row);
+        }
+        indexes.put(name, index);
+    }
+    
+    /**
+     * Inserts an entity, replacing any entity with the same primary key.
+     *
+     * @param entity the entity to insert
+     */
+    public void add(T entity) {
+        String id = primaryKey.apply(entity);
+        Integer position = positions.get(id);
+        if (position != null) {
+            replace(id, position, entity);
+            return;
+        }
+        positions.put(id, rows.size());
+        rows = rows.append(entity);
+        byId.put(id, entity);
+        for (SecondaryIndex<T> index : indexes.values()) {
+            index.put(id, entity);
+        }
+    }
+    
+    /**
+     * Re-indexes an entity after one of its indexed fields changed. A
+     * different instance with the same primary key replaces the stored one.
+     *
+     * @param entity the modified entity
+     */
+    public void update(T entity) {
+        String id = primaryKey.apply(entity);
+        Integer position = positions.get(id);
+        if (position == null) {
+            add(entity);
+            return;
+        }
+        replace(id, position, entity);
+    }
+    
+    private void replace(String id, int position, T entity) {
+        if (byId.put(id, entity) != entity) {
+            rows = rows.with(position, entity);
+        }
+        for (SecondaryIndex<T> index : indexes.values()) {
+            index.remove(id);
+            index.put(id, entity);
+        }
+    }
+    
+    /**
+     * Removes the entity with the given primary key.
+     *
+     * @param id the primary key
+     * @return the removed entity, or null if none was stored
+     */
+    public T remove(String id) {
+        T entity = byId.remove(id);
+        if (entity == null) {
+            return null;
+        }
+        // Move the last row into the gap so no other row shifts
+        int position = positions.remove(id);
+        int last = rows.size() - 1;
+        PersistentVector<T> remaining = rows;
+        if (position != last) {
+            T moved = remaining.get(last);
+            remaining = remaining.with(position, moved);
+            positions.put(primaryKey.apply(moved), position);
+        }
+        rows = remaining.pop();
+        for (SecondaryIndex<T> index : indexes.values()) {
+            index.remove(id);
+        }
+        return entity;
+    }
+    
+    /**
+     * Removes several entities.
+     *
+     * @param ids the primary keys to remove
+     */
+    public void removeAll(Collection<String> ids) {
+        for (String id : ids) {
+            remove(id);
+        }
+    }
+    
+    public T get(String id) {
+        return id == null ? null : byId.get(id);
+    }
+    
+    /**
+     * Gets all entities whose indexed key equals the given value.
+     *
+     * @param indexName the secondary index to use
+     * @param key the key value
+     * @return the matching entities in insertion order
+     */
+    public List<T> findAll(String indexName, String key) {
+        Collection<T> matches = index(indexName).get(key);
+        return matches.isEmpty() ? Collections.emptyList() : new ArrayList<>(matches);
+    }
+    
+    /**
+     * Gets the first entity whose indexed key equals the given value.
+     *
+     * @param indexName the secondary index to use
+     * @param key the key value
+     * @return the matching entity, or null if there is none
+     */
+    public T findFirst(String indexName, String key) {
+        Collection<T> matches = index(indexName).get(key);
+        return matches.isEmpty() ? null : matches.iterator().next();
+    }
+    
+    /**
+     * Gets a copy of the distinct key values of a secondary index.
+     *
+     * @param indexName the secondary index
+     * @return the indexed keys
+     */
+    public Set<String> keys(String indexName) {
+        return Collections.unmodifiableSet(new HashSet<>(index(indexName).buckets.keySet()));
+    }
+    
+    /**
+     * Gets an immutable snapshot of all entities that is unaffected by
+     * later changes. Safe to call without holding the store's lock.
+     *
+     * @return the entities in insertion order, except where removals
+     *         moved the last row into a gap
+     */
+    public List<T> snapshot() {
+        return rows;
+    }
+    
+    public int size() {
+        return rows.size();
+    }
+    
+    public void clear() {
+        rows = PersistentVector.empty();
+        byId.clear();
+        positions.clear();
+        for (SecondaryIndex<T> index : indexes.values()) {
+            index.buckets.clear();
+            index.keysById.clear();
+        }
+    }
+    
+    private SecondaryIndex<T> index(String name) {
+        SecondaryIndex<T> index = indexes.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown index: " + name);
+        }
+        return index;
+    }
+    
+    /**
+     * Multi-valued hash index. Remembers the key each row was filed under
+     * so that an update can remove the stale entry after the field changed.
+     */
+    private static class SecondaryIndex<T> {
+        private final Function<T, String> keyExtractor;
+        private final Map<String, Map<String, T>> buckets = new HashMap<>();
+        private final Map<String, String> keysById = new HashMap<>();
+        
+        SecondaryIndex(Function<T, String> keyExtractor) {
+            this.keyExtractor = keyExtractor;
+        }
+        
+        Collection<T> get(String key) {
+            Map<String, T> bucket = buckets.get(key);
+            return bucket == null ? Collections.emptyList() : bucket.values();
+        }
+        
+        void put(String id, T entity) {
+            String key = keyExtractor.apply(entity);
+            if (key == null) {
+                return;
+            }
+            buckets.computeIfAbsent(key, k -> new LinkedHashMap<>()).put(id, entity);
+            keysById.put(id, key);
+        }
+        
+        void remove(String id) {
+            String key = keysById.remove(id);
+            if (key == null) {
+                return;
+            }
+            Map<String, T> bucket = buckets.get(key);
+            if (bucket != null) {
+                bucket.remove(id);
+                if (bucket.isEmpty()) {
+                    buckets.remove(key);
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,687 @@
+package com.vku.data;
+
+import com.vku.model.*;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Loads and saves the application data through JDBC.
+ * Writes use JDBC batches committed in a single transaction, so large uploads
+ * such as a whole term of grades cost a handful of round trips instead of one
+ * per row. The SQL sticks to portable DDL and DML so the store also runs
+ * against an embedded database when testing.
+ */
+public class JdbcDataStore implements AutoCloseable {
+    private static final String[] SCHEMA = {
+        "CREATE TABLE IF NOT EXISTS users (id VARCHAR(20) PRIMARY KEY, name VARCHAR(100) NOT NULL, "
+            + "email VARCHAR(100) NOT NULL, password VARCHAR(255), role VARCHAR(10) NOT NULL)",
+        "CREATE TABLE IF NOT EXISTS students (id VARCHAR(20) PRIMARY KEY, class_name VARCHAR(20), "
+            + "major VARCHAR(100), course VARCHAR(20), date_of_birth VARCHAR(20), gender VARCHAR(10), "
+            + "parent_name VARCHAR(100), parent_contact VARCHAR(20), address VARCHAR(255), phone VARCHAR(20))",
+        "CREATE TABLE IF NOT EXISTS subjects (id VARCHAR(20) PRIMARY KEY, name VARCHAR(100) NOT NULL, "
+            + "credits INT NOT NULL, teacher_id VARCHAR(20) NOT NULL)",
+        "CREATE TABLE IF NOT EXISTS grades (student_id VARCHAR(20) NOT NULL, subject_id VARCHAR(20) NOT NULL, "
+            + "assignment_score DOUBLE, midterm_score DOUBLE, attendance_score DOUBLE, final_score DOUBLE, "
+            + "PRIMARY KEY (student_id, subject_id))",
+        "CREATE TABLE IF NOT EXISTS attendance (student_id VARCHAR(20) NOT NULL, subject_id VARCHAR(20) NOT NULL, "
+            + "session_date TIMESTAMP NOT NULL, present BOOLEAN NOT NULL, "
+            + "PRIMARY KEY (student_id, subject_id, session_date))",
+        "CREATE TABLE IF NOT EXISTS fees (student_id VARCHAR(20) PRIMARY KEY, amount DOUBLE NOT NULL, "
+            + "paid BOOLEAN NOT NULL)",
+        "CREATE TABLE IF NOT EXISTS projects (id VARCHAR(20) PRIMARY KEY, name VARCHAR(200) NOT NULL, "
+            + "supervisor_id VARCHAR(20), deadline VARCHAR(20), progress INT, grade DOUBLE)",
+        "CREATE TABLE IF NOT EXISTS project_members (project_id VARCHAR(20) NOT NULL, "
+            + "student_id VARCHAR(20) NOT NULL, PRIMARY KEY (project_id, student_id))",
+        "CREATE TABLE IF NOT EXISTS notifications (id INT PRIMARY KEY, sender VARCHAR(100), "
+            + "message VARCHAR(2000), sent_at TIMESTAMP, subject_id VARCHAR(20), recipient VARCHAR(100))"
+    };
+    
+    private static final String STUDENT_SELECT =
+        "SELECT u.id, u.name, u.email, u.password, s.class_name, s.major, s.course, s.date_of_birth, "
+            + "s.gender, s.parent_name, s.parent_contact, s.address, s.phone "
+            + "FROM users u JOIN students s ON s.id = u.id";
+    
+    private final ConnectionPool pool;
+    private final int batchSize;
+    
+    public JdbcDataStore(DatabaseConfig config) throws SQLException {
+        this.pool = new ConnectionPool(config);
+        this.batchSize = config.getBatchSize();
+    }
+    
+    /**
+     * Creates any missing tables.
+     *
+     * @throws SQLException if the DDL fails
+     */
+    public void createSchema() throws SQLException {
+        try (ConnectionPool.PooledConnection connection = pool.borrow();
+             Statement statement = connection.getConnection().createStatement()) {
+            for (String ddl : SCHEMA) {
+                statement.execute(ddl);
+            }
+            connection.commit();
+        }
+    }
+    
+    /**
+     * Checks whether the database holds no users yet, creating the schema
+     * first if needed.
+     *
+     * @return true if there are no users
+     * @throws SQLException if a query fails
+     */
+    public boolean isEmpty() throws SQLException {
+        createSchema();
+        try (ConnectionPool.PooledConnection connection = pool.borrow()) {
+            PreparedStatement statement = connection.prepare("SELECT COUNT(*) FROM users");
+            try (ResultSet rs = statement.executeQuery()) {
+                return !rs.next() || rs.getInt(1) == 0;
+            }
+        }
+    }
+    
+    /**
+     * Loads every entity into the given DataManager.
+     *
+     * @param dataManager the target, expected to be empty
+     * @throws SQLException if a query fails
+     */
+    public void loadInto(DataManager dataManager) throws SQLException {
+        try (ConnectionPool.PooledConnection connection = pool.borrow()) {
+            loadTeachers(connection, dataManager);
+            loadSubjects(connection, dataManager);
+            Set<String> skip = new HashSet<>();
+            loadStudents(connection, dataManager, skip, "");
+            loadGrades(connection, dataManager, skip, "");
+            loadAttendance(connection, dataManager, skip, "");
+            loadFees(connection, dataManager, skip, "");
+            loadProjects(connection, dataManager);
+            loadNotifications(connection, dataManager);
+        }
+    }
+    
+    /**
+     * Saves every entity held by the given DataManager in one transaction.
+     *
+     * @param dataManager the source of the data
+     * @throws SQLException if a write fails; the transaction is rolled back
+     */
+    public void saveAll(DataManager dataManager) throws SQLException {
+        List<Grade> grades = new ArrayList<>();
+        for (Student student : dataManager.getStudents()) {
+            grades.addAll(student.getGrades());
+        }
+        
+        try (ConnectionPool.PooledConnection connection = pool.borrow()) {
+            writeUsers(connection, dataManager.getUsers());
+            writeStudents(connection, dataManager.getStudents());
+            writeSubjects(connection, dataManager.getSubjects());
+            writeGrades(connection, grades);
+            writeAttendance(connection, dataManager.getAttendanceRecords());
+            writeFees(connection, dataManager.getFees());
+            writeProjects(connection, dataManager.getProjects());
+            writeNotifications(connection, dataManager.getNotifications());
+            connection.commit();
+        }
+    }
+    
+    /**
+     * Inserts or replaces a set of grades in one batched transaction.
+     *
+     * @param grades the grades to write
+     * @throws SQLException if the write fails; the transaction is rolled back
+     */
+    public void saveGrades(Collection<Grade> grades) throws SQLException {
+        try (ConnectionPool.PooledConnection connection = pool.borrow()) {
+            writeGrades(connection, grades);
+            connection.commit();
+        }
+    }
+    
+    /**
+     * Inserts or replaces a set of attendance marks in one batched transaction.
+     *
+     * @param records the attendance records to write
+     * @throws SQLException if the write fails; the transaction is rolled back
+     */
+    public void saveAttendance(Collection<Attendance> records) throws SQLException {
+        try (ConnectionPool.PooledConnection connection = pool.borrow()) {
+            writeAttendance(connection, records);
+            connection.commit();
+        }
+    }
+    
+    /**
+     * Inserts or replaces a set of fee records in one batched transaction.
+     *
+     * @param fees the fees to write
+     * @throws SQLException if the write fails; the transaction is rolled back
+     */
+    public void saveFees(Collection<Fee> fees) throws SQLException {
+        try (ConnectionPool.PooledConnection connection = pool.borrow()) {
+            writeFees(connection, fees);
+            connection.commit();
+        }
+    }
+    
+    /**
+     * Deletes students with their grades, attendance, fee and project
+     * memberships in one batched transaction.
+     *
+     * @param ids the ids of the students to delete
+     * @throws SQLException if the delete fails; the transaction is rolled back
+     */
+    public void deleteStudents(Collection<String> ids) throws SQLException {
+        try (ConnectionPool.PooledConnection connection = pool.borrow()) {
+            // Rows that refer to the student go first
+            PreparedStatement[] deletes = {
+                connection.prepare("DELETE FROM project_members WHERE student_id = ?"),
+                connection.prepare("DELETE FROM attendance WHERE student_id = ?"),
+                connection.prepare("DELETE FROM grades WHERE student_id = ?"),
+                connection.prepare("DELETE FROM fees WHERE student_id = ?"),
+                connection.prepare("DELETE FROM students WHERE id = ?"),
+                connection.prepare("DELETE FROM users WHERE id = ?")
+            };
+            int pending = 0;
+            for (String id : ids) {
+                for (PreparedStatement delete : deletes) {
+                    delete.setString(1, id);
+                    delete.addBatch();
+                }
+                pending = flushIfFull(pending + 1, deletes);
+            }
+            flush(deletes);
+            connection.commit();
+        }
+    }
+    
+    /**
+     * Loads the data that is small enough to keep resident in paged mode:
+     * teachers, subjects, projects (with their members) and notifications.
+     *
+     * @param dataManager the target, expected to be empty
+     * @throws SQLException if a query fails
+     */
+    public void loadReferenceData(DataManager dataManager) throws SQLException {
+        try (ConnectionPool.PooledConnection connection = pool.borrow()) {
+            loadTeachers(connection, dataManager);
+            loadSubjects(connection, dataManager);
+            loadProjects(connection, dataManager);
+            loadNotifications(connection, dataManager);
+        }
+    }
+    
+    /**
+     * Counts the students in the database.
+     *
+     * @return the number of students
+     * @throws SQLException if the query fails
+     */
+    public int countStudents() throws SQLException {
+        try (ConnectionPool.PooledConnection connection = pool.borrow()) {
+            PreparedStatement statement = connection.prepare("SELECT COUNT(*) FROM students");
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+    
+    /**
+     * Loads one page of students ordered by id, together with their grades,
+     * attendance and fee. Uses keyset pagination so the cost of a page does
+     * not grow with its position.
+     *
+     * @param dataManager the target for the loaded entities
+     * @param afterId the last id of the previous page, or empty for the first page
+     * @param limit the page size
+     * @return the loaded students in id order
+     * @throws SQLException if a query fails
+     */
+    public List<Student> loadStudentPage(DataManager dataManager, String afterId, int limit) throws SQLException {
+        try (ConnectionPool.PooledConnection connection = pool.borrow()) {
+            PreparedStatement statement = connection.prepare(
+                "SELECT id FROM students WHERE id > ? ORDER BY id LIMIT ?");
+            statement.setString(1, afterId);
+            statement.setInt(2, limit);
+            String lastId = null;
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    lastId = rs.getString(1);
+                }
+            }
+            if (lastId == null) {
+                return new ArrayList<>();
+            }
+            
+            String range = " WHERE student_id > ? AND student_id <= ?";
+            Set<String> skip = new HashSet<>();
+            List<Student> students = loadStudents(connection, dataManager, skip, " WHERE u.id > ? AND u.id <= ?", afterId, lastId);
+            loadGrades(connection, dataManager, skip, range, afterId, lastId);
+            loadAttendance(connection, dataManager, skip, range, afterId, lastId);
+            loadFees(connection, dataManager, skip, range, afterId, lastId);
+            return students;
+        }
+    }
+    
+    /**
+     * Loads a single student by email, together with their records.
+     *
+     * @param dataManager the target for the loaded entities
+     * @param email the student's email
+     * @return the student, or null if there is none
+     * @throws SQLException if a query fails
+     */
+    public Student loadStudentByEmail(DataManager dataManager, String email) throws SQLException {
+        try (ConnectionPool.PooledConnection connection = pool.borrow()) {
+            return loadStudentWithRecords(connection, dataManager, " WHERE u.email = ?", email);
+        }
+    }
+    
+    /**
+     * Loads a single student by id, together with their records.
+     *
+     * @param dataManager the target for the loaded entities
+     * @param id the student id
+     * @return the student, or null if there is none
+     * @throws SQLException if a query fails
+     */
+    public Student loadStudentById(DataManager dataManager, String id) throws SQLException {
+        try (ConnectionPool.PooledConnection connection = pool.borrow()) {
+            return loadStudentWithRecords(connection, dataManager, " WHERE u.id = ?", id);
+        }
+    }
+    
+    @Override
+    public void close() {
+        pool.close();
+    }
+    
+    // Loading
+    
+    private void loadTeachers(ConnectionPool.PooledConnection connection, DataManager dataManager) throws SQLException {
+        PreparedStatement statement = connection.prepare(
+            "SELECT id, name, email, password FROM users WHERE role = 'Teacher' ORDER BY id");
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                dataManager.addTeacher(new Teacher(rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4)));
+            }
+        }
+    }
+    
+    private void loadSubjects(ConnectionPool.PooledConnection connection, DataManager dataManager) throws SQLException {
+        PreparedStatement statement = connection.prepare(
+            "SELECT id, name, credits, teacher_id FROM subjects ORDER BY id");
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                Teacher teacher = dataManager.getTeacher(rs.getString(4));
+                if (teacher != null) {
+                    dataManager.addSubject(new Subject(rs.getString(1), rs.getString(2), rs.getInt(3), teacher));
+                }
+            }
+        }
+    }
+    
+    private List<Student> loadStudents(ConnectionPool.PooledConnection connection, DataManager dataManager, Set<String> skip,
+                                       String where, Object... params) throws SQLException {
+        PreparedStatement statement = connection.prepare(STUDENT_SELECT + where + " ORDER BY u.id");
+        bind(statement, params);
+        List<Student> students = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                // Keep students that are already resident (e.g. pinned) and skip their records
+                Student student = dataManager.getResidentStudent(rs.getString(1));
+                if (student != null) {
+                    skip.add(student.getId());
+                } else {
+                    student = readStudent(rs);
+                    dataManager.addStudent(student);
+                }
+                students.add(student);
+            }
+        }
+        return students;
+    }
+    
+    private Student loadStudentWithRecords(ConnectionPool.PooledConnection connection, DataManager dataManager,
+                                           String where, String param) throws SQLException {
+        Set<String> skip = new HashSet<>();
+        List<Student> students = loadStudents(connection, dataManager, skip, where, param);
+        if (students.isEmpty()) {
+            return null;
+        }
+        Student student = students.get(0);
+        String byStudent = " WHERE student_id = ?";
+        loadGrades(connection, dataManager, skip, byStudent, student.getId());
+        loadAttendance(connection, dataManager, skip, byStudent, student.getId());
+        loadFees(connection, dataManager, skip, byStudent, student.getId());
+        return student;
+    }
+    
+    private static Student readStudent(ResultSet rs) throws SQLException {
+        Student student = new Student(rs.getString(1), rs.getString(2), rs.getString(5), rs.getString(6),
+                                      rs.getString(7), rs.getString(3), rs.getString(4));
+        student.setDateOfBirth(rs.getString(8));
+        student.setGender(rs.getString(9));
+        student.setParentName(rs.getString(10));
+        student.setParentContact(rs.getString(11));
+        student.setAddress(rs.getString(12));
+        student.setPhone(rs.getString(13));
+        return student;
+    }
+    
+    private void loadGrades(ConnectionPool.PooledConnection connection, DataManager dataManager, Set<String> skip,
+                            String where, Object... params) throws SQLException {
+        PreparedStatement statement = connection.prepare(
+            "SELECT student_id, subject_id, assignment_score, midterm_score, attendance_score, final_score "
+                + "FROM grades" + where + " ORDER BY student_id, subject_id");
+        bind(statement, params);
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                if (skip.contains(rs.getString(1))) {
+                    continue;
+                }
+                Student student = dataManager.getResidentStudent(rs.getString(1));
+                Subject subject = dataManager.getSubject(rs.getString(2));
+                if (student != null && subject != null) {
+                    dataManager.addGrade(readGrade(rs, student, subject));
+                }
+            }
+        }
+    }
+    
+    private static Grade readGrade(ResultSet rs, Student student, Subject subject) throws SQLException {
+        Grade grade = new Grade(student, subject);
+        grade.setAssignmentScore(rs.getDouble(3));
+        grade.setMidtermScore(rs.getDouble(4));
+        grade.setAttendanceScore(rs.getDouble(5));
+        grade.setFinalScore(rs.getDouble(6));
+        return grade;
+    }
+    
+    private void loadAttendance(ConnectionPool.PooledConnection connection, DataManager dataManager, Set<String> skip,
+                                String where, Object... params) throws SQLException {
+        PreparedStatement statement = connection.prepare(
+            "SELECT student_id, subject_id, session_date, present FROM attendance" + where
+                + " ORDER BY student_id, subject_id, session_date");
+        bind(statement, params);
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                if (skip.contains(rs.getString(1))) {
+                    continue;
+                }
+                Student student = dataManager.getResidentStudent(rs.getString(1));
+                Subject subject = dataManager.getSubject(rs.getString(2));
+                if (student != null && subject != null) {
+                    dataManager.addAttendance(new Attendance(student, subject,
+                        new Date(rs.getTimestamp(3).getTime()), rs.getBoolean(4)));
+                }
+            }
+        }
+    }
+    
+    private void loadFees(ConnectionPool.PooledConnection connection, DataManager dataManager, Set<String> skip,
+                          String where, Object... params) throws SQLException {
+        PreparedStatement statement = connection.prepare("SELECT student_id, amount, paid FROM fees" + where);
+        bind(statement, params);
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                if (skip.contains(rs.getString(1))) {
+                    continue;
+                }
+                Student student = dataManager.getResidentStudent(rs.getString(1));
+                if (student != null) {
+                    dataManager.addFee(new Fee(student, rs.getDouble(2), rs.getBoolean(3)));
+                }
+            }
+        }
+    }
+    
+    private void loadProjects(ConnectionPool.PooledConnection connection, DataManager dataManager) throws SQLException {
+        Map<String, List<Student>> members = new HashMap<>();
+        PreparedStatement memberStatement = connection.prepare(
+            "SELECT project_id, student_id FROM project_members ORDER BY project_id, student_id");
+        try (ResultSet rs = memberStatement.executeQuery()) {
+            while (rs.next()) {
+                Student student = dataManager.getResidentStudent(rs.getString(2));
+                if (student == null) {
+                    // In paged mode group members may not be resident yet
+                    student = loadStudentWithRecords(connection, dataManager, " WHERE u.id = ?", rs.getString(2));
+                }
+                if (student != null) {
+                    members.computeIfAbsent(rs.getString(1), k -> new ArrayList<>()).add(student);
+                }
+            }
+        }
+        
+        PreparedStatement statement = connection.prepare(
+            "SELECT id, name, supervisor_id, deadline, progress, grade FROM projects ORDER BY id");
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                String id = rs.getString(1);
+                Project project = new Project(id, rs.getString(2),
+                    members.getOrDefault(id, new ArrayList<>()),
+                    dataManager.getTeacher(rs.getString(3)), rs.getString(4));
+                project.setProgress(rs.getInt(5));
+                project.setGrade(rs.getDouble(6));
+                dataManager.addProject(project);
+            }
+        }
+    }
+    
+    private void loadNotifications(ConnectionPool.PooledConnection connection, DataManager dataManager) throws SQLException {
+        PreparedStatement statement = connection.prepare(
+            "SELECT sender, message, sent_at, subject_id, recipient FROM notifications ORDER BY id");
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                Timestamp sentAt = rs.getTimestamp(3);
+                dataManager.addNotification(new Notification(rs.getString(1), rs.getString(2),
+                    sentAt != null ? new Date(sentAt.getTime()) : null,
+                    dataManager.getSubject(rs.getString(4)), rs.getString(5)));
+            }
+        }
+    }
+    
+    // Writing. Every writer deletes the affected keys and re-inserts them, both
+    // as batches, which keeps upserts portable across database vendors.
+    
+    private void writeUsers(ConnectionPool.PooledConnection connection, Collection<User> users) throws SQLException {
+        PreparedStatement delete = connection.prepare("DELETE FROM users WHERE id = ?");
+        PreparedStatement insert = connection.prepare(
+            "INSERT INTO users (id, name, email, password, role) VALUES (?, ?, ?, ?, ?)");
+        int pending = 0;
+        for (User user : users) {
+            delete.setString(1, user.getId());
+            delete.addBatch();
+            insert.setString(1, user.getId());
+            insert.setString(2, user.getName());
+            insert.setString(3, user.getEmail());
+            insert.setString(4, user.getPassword());
+            insert.setString(5, user.getRole().getLabel());
+            insert.addBatch();
+            pending = flushIfFull(pending + 1, delete, insert);
+        }
+        flush(delete, insert);
+    }
+    
+    private void writeStudents(ConnectionPool.PooledConnection connection, Collection<Student> students) throws SQLException {
+        PreparedStatement delete = connection.prepare("DELETE FROM students WHERE id = ?");
+        PreparedStatement insert = connection.prepare(
+            "INSERT INTO students (id, class_name, major, course, date_of_birth, gender, parent_name, "
+                + "parent_contact, address, phone) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+        int pending = 0;
+        for (Student student : students) {
+            delete.setString(1, student.getId());
+            delete.addBatch();
+            insert.setString(1, student.getId());
+            insert.setString(2, student.getClassName());
+            insert.setString(3, student.getMajor());
+            insert.setString(4, student.getCourse());
+            insert.setString(5, student.getDateOfBirth());
+            insert.setString(6, student.getGender());
+            insert.setString(7, student.getParentName());
+            insert.setString(8, student.getParentContact());
+            insert.setString(9, student.getAddress());
+            insert.setString(10, student.getPhone());
+            insert.addBatch();
+            pending = flushIfFull(pending + 1, delete, insert);
+        }
+        flush(delete, insert);
+    }
+    
+    private void writeSubjects(ConnectionPool.PooledConnection connection, Collection<Subject> subjects) throws SQLException {
+        PreparedStatement delete = connection.prepare("DELETE FROM subjects WHERE id = ?");
+        PreparedStatement insert = connection.prepare(
+            "INSERT INTO subjects (id, name, credits, teacher_id) VALUES (?, ?, ?, ?)");
+        int pending = 0;
+        for (Subject subject : subjects) {
+            delete.setString(1, subject.getId());
+            delete.addBatch();
+            insert.setString(1, subject.getId());
+            insert.setString(2, subject.getName());
+            insert.setInt(3, subject.getCredits());
+            insert.setString(4, subject.getTeacher().getId());
+            insert.addBatch();
+            pending = flushIfFull(pending + 1, delete, insert);
+        }
+        flush(delete, insert);
+    }
+    
+    private void writeGrades(ConnectionPool.PooledConnection connection, Collection<Grade> grades) throws SQLException {
+        PreparedStatement delete = connection.prepare("DELETE FROM grades WHERE student_id = ? AND subject_id = ?");
+        PreparedStatement insert = connection.prepare(
+            "INSERT INTO grades (student_id, subject_id, assignment_score, midterm_score, attendance_score, "
+                + "final_score) VALUES (?, ?, ?, ?, ?, ?)");
+        int pending = 0;
+        for (Grade grade : grades) {
+            delete.setString(1, grade.getStudent().getId());
+            delete.setString(2, grade.getSubject().getId());
+            delete.addBatch();
+            insert.setString(1, grade.getStudent().getId());
+            insert.setString(2, grade.getSubject().getId());
+            insert.setDouble(3, grade.getAssignmentScore());
+            insert.setDouble(4, grade.getMidtermScore());
+            insert.setDouble(5, grade.getAttendanceScore());
+            insert.setDouble(6, grade.getFinalScore());
+            insert.addBatch();
+            pending = flushIfFull(pending + 1, delete, insert);
+        }
+        flush(delete, insert);
+    }
+    
+    private void writeAttendance(ConnectionPool.PooledConnection connection, Collection<Attendance> records) throws SQLException {
+        PreparedStatement delete = connection.prepare(
+            "DELETE FROM attendance WHERE student_id = ? AND subject_id = ? AND session_date = ?");
+        PreparedStatement insert = connection.prepare(
+            "INSERT INTO attendance (student_id, subject_id, session_date, present) VALUES (?, ?, ?, ?)");
+        int pending = 0;
+        for (Attendance record : records) {
+            Timestamp sessionDate = new Timestamp(record.getDate().getTime());
+            delete.setString(1, record.getStudent().getId());
+            delete.setString(2, record.getSubject().getId());
+            delete.setTimestamp(3, sessionDate);
+            delete.addBatch();
+            insert.setString(1, record.getStudent().getId());
+            insert.setString(2, record.getSubject().getId());
+            insert.setTimestamp(3, sessionDate);
+            insert.setBoolean(4, record.isPresent());
+            insert.addBatch();
+            pending = flushIfFull(pending + 1, delete, insert);
+        }
+        flush(delete, insert);
+    }
+    
+    private void writeFees(ConnectionPool.PooledConnection connection, Collection<Fee> fees) throws SQLException {
+        PreparedStatement delete = connection.prepare("DELETE FROM fees WHERE student_id = ?");
+        PreparedStatement insert = connection.prepare(
+            "INSERT INTO fees (student_id, amount, paid) VALUES (?, ?, ?)");
+        int pending = 0;
+        for (Fee fee : fees) {
+            delete.setString(1, fee.getStudent().getId());
+            delete.addBatch();
+            insert.setString(1, fee.getStudent().getId());
+            insert.setDouble(2, fee.getAmount());
+            insert.setBoolean(3, fee.isPaid());
+            insert.addBatch();
+            pending = flushIfFull(pending + 1, delete, insert);
+        }
+        flush(delete, insert);
+    }
+    
+    private void writeProjects(ConnectionPool.PooledConnection connection, Collection<Project> projects) throws SQLException {
+        PreparedStatement deleteMembers = connection.prepare("DELETE FROM project_members WHERE project_id = ?");
+        PreparedStatement delete = connection.prepare("DELETE FROM projects WHERE id = ?");
+        PreparedStatement insert = connection.prepare(
+            "INSERT INTO projects (id, name, supervisor_id, deadline, progress, grade) VALUES (?, ?, ?, ?, ?, ?)");
+        PreparedStatement insertMember = connection.prepare(
+            "INSERT INTO project_members (project_id, student_id) VALUES (?, ?)");
+        for (Project project : projects) {
+            deleteMembers.setString(1, project.getId());
+            deleteMembers.addBatch();
+            delete.setString(1, project.getId());
+            delete.addBatch();
+            insert.setString(1, project.getId());
+            insert.setString(2, project.getName());
+            insert.setString(3, project.getSupervisor() != null ? project.getSupervisor().getId() : null);
+            insert.setString(4, project.getDeadline());
+            insert.setInt(5, project.getProgress());
+            insert.setDouble(6, project.getGrade());
+            insert.addBatch();
+            for (Student student : project.getStudents()) {
+                insertMember.setString(1, project.getId());
+                insertMember.setString(2, student.getId());
+                insertMember.addBatch();
+            }
+        }
+        flush(deleteMembers, delete, insert, insertMember);
+    }
+    
+    private void writeNotifications(ConnectionPool.PooledConnection connection, List<Notification> notifications) throws SQLException {
+        // Notifications have no natural key, so the table is rewritten in list order
+        try (Statement statement = connection.getConnection().createStatement()) {
+            statement.executeUpdate("DELETE FROM notifications");
+        }
+        PreparedStatement insert = connection.prepare(
+            "INSERT INTO notifications (id, sender, message, sent_at, subject_id, recipient) "
+                + "VALUES (?, ?, ?, ?, ?, ?)");
+        int pending = 0;
+        for (int i = 0; i < notifications.size(); i++) {
+            Notification notification = notifications.get(i);
+            insert.setInt(1, i);
+            insert.setString(2, notification.getSender());
+            insert.setString(3, notification.getMessage());
+            insert.setTimestamp(4, notification.getDate() != null ? new Timestamp(notification.getDate().getTime()) : null);
+            insert.setString(5, notification.getRelatedSubject() != null ? notification.getRelatedSubject().getId() : null);
+            insert.setString(6, notification.getRecipient());
+            insert.addBatch();
+            pending = flushIfFull(pending + 1, insert);
+        }
+        flush(insert);
+    }
+    
+    private static void bind(PreparedStatement statement, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            statement.setObject(i + 1, params[i]);
+        }
+    }
+    
+    private int flushIfFull(int pending, PreparedStatement... statements) throws SQLException {
+        if (pending < batchSize) {
+            return pending;
+        }
+        flush(statements);
+        return 0;
+    }
+    
+    private static void flush(PreparedStatement... statements) throws SQLException {
+        // Order matters: deletes are always passed before the matching inserts
+        for (PreparedStatement statement : statements) {
+            statement.executeBatch();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,784 @@
+package com.vku.data;
+
+import com.vku.model.*;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Keeps the in-memory data durable without a database. Every change is
+ * appended to a write-ahead log, and from time to time the whole dataset is
+ * written to a compact binary snapshot after which older log segments are
+ * deleted. On startup the latest snapshot is loaded and the log written
+ * since then is replayed.
+ *
+ * Records describe the resulting state of an entity rather than the change
+ * itself, so replaying a record the snapshot already contains is harmless.
+ * The directory holds {@code snapshot.bin} and segments named
+ * {@code wal-<generation>.log}; a checkpoint starts a new generation.
+ */
+public class Journal implements EntityListener, Closeable {
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int SNAPSHOT_MAGIC = 0x564B5553;
+    private static final int FORMAT_VERSION = 1;
+    
+    // Record types
+    private static final byte PUT_TEACHER = 1;
+    private static final byte PUT_SUBJECT = 2;
+    private static final byte PUT_STUDENT = 3;
+    private static final byte REMOVE_STUDENT = 4;
+    private static final byte ENROLL = 5;
+    private static final byte PUT_GRADE = 6;
+    private static final byte PUT_PROJECT = 7;
+    private static final byte PUT_FEE = 8;
+    private static final byte PUT_ATTENDANCE = 9;
+    private static final byte ADD_NOTIFICATION = 10;
+    private static final byte PUT_GRADING_POLICY = 11;
+    private static final byte SEND_NOTIFICATION = 12; // ADD_NOTIFICATION with a recipient
+    
+    private final Path directory;
+    private final DataManager dataManager;
+    private final ScheduledExecutorService checkpointer;
+    private final Object checkpointLock = new Object();
+    
+    // The last record logged or snapshotted for each student. Most student
+    // events only move the GPA, which is not logged, so they leave the record
+    // unchanged and are skipped
+    private final Map<String, byte[]> studentRecords = new ConcurrentHashMap<>();
+    private WriteAheadLog log;
+    private long generation;
+    private boolean recovered;
+    
+    private Journal(Path directory, DataManager dataManager) {
+        this.directory = directory;
+        this.dataManager = dataManager;
+        this.checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "journal-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Restores the data kept in a directory into the data manager and starts
+     * logging further changes there. The caller attaches the returned
+     * journal to the data manager.
+     *
+     * @param directory the journal directory, created if missing
+     * @param dataManager the data manager to restore into
+     * @param checkpointInterval how often to write a snapshot
+     * @param unit the unit of the interval
+     * @return the open journal
+     * @throws IOException if the journal cannot be read or opened
+     */
+    static Journal open(Path directory, DataManager dataManager, long checkpointInterval, TimeUnit unit)
+            throws IOException {
+        Files.createDirectories(directory);
+        Journal journal = new Journal(directory, dataManager);
+        journal.recover();
+        journal.log = new WriteAheadLog(journal.segment(journal.generation));
+        journal.checkpointer.scheduleWithFixedDelay(journal::checkpointQuietly,
+            checkpointInterval, checkpointInterval, unit);
+        return journal;
+    }
+    
+    /**
+     * Checks whether any data was restored when the journal was opened.
+     *
+     * @return true if a snapshot or log records were found
+     */
+    boolean hasRecoveredData() {
+        return recovered;
+    }
+    
+    /**
+     * Waits until every change logged so far is on disk.
+     *
+     * @throws IOException if writing the log failed
+     */
+    public void sync() throws IOException {
+        WriteAheadLog current;
+        synchronized (this) {
+            current = log;
+        }
+        current.sync();
+    }
+    
+    /**
+     * Writes a snapshot of the current data and deletes the log segments it
+     * replaces. Writers are paused only while the log switches to a new
+     * segment; the snapshot itself is written while they continue.
+     *
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void checkpoint() throws IOException {
+        long snapshotGeneration;
+        DataSnapshot data;
+        AttendanceStore.Snapshot attendance;
+        synchronized (checkpointLock) {
+            // Holding every write lock: no addition is half logged, so the new
+            // segment starts exactly where the captured lists end
+            Object[] cut = new Object[3];
+            IOException[] error = new IOException[1];
+            dataManager.exclusive(() -> {
+                synchronized (this) {
+                    try {
+                        log.close();
+                        generation++;
+                        log = new WriteAheadLog(segment(generation));
+                        cut[0] = generation;
+                        cut[1] = dataManager.getSnapshot();
+                        cut[2] = dataManager.getAttendanceSnapshot();
+                    } catch (IOException e) {
+                        error[0] = e;
+                    }
+                }
+            });
+            if (error[0] != null) {
+                throw error[0];
+            }
+            snapshotGeneration = (Long) cut[0];
+            data = (DataSnapshot) cut[1];
+            attendance = (AttendanceStore.Snapshot) cut[2];
+            
+            writeSnapshot(snapshotGeneration, data, attendance);
+        }
+        
+        // Segments before the snapshot are no longer needed
+        for (long segmentGeneration : segmentGenerations()) {
+            if (segmentGeneration < snapshotGeneration) {
+                Files.deleteIfExists(segment(segmentGeneration));
+            }
+        }
+    }
+    
+    /**
+     * Stops checkpointing and closes the log after writing out pending records.
+     *
+     * @throws IOException if the last records could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (checkpointLock) {
+            checkpointer.shutdownNow();
+            synchronized (this) {
+                log.close();
+            }
+        }
+    }
+    
+    // Logging, called by the data manager inside its write locks
+    void logTeacher(Teacher teacher) {
+        append(PUT_TEACHER, out -> writeTeacher(out, teacher));
+    }
+    
+    void logSubject(Subject subject) {
+        append(PUT_SUBJECT, out -> writeSubject(out, subject));
+        append(PUT_GRADING_POLICY, out -> writeGradingPolicy(out, subject));
+    }
+    
+    void logStudent(Student student) {
+        byte[] record = encode(PUT_STUDENT, out -> writeStudent(out, student));
+        studentRecords.put(student.getId(), record);
+        append(record);
+    }
+    
+    void logRemoveStudent(String id) {
+        studentRecords.remove(id);
+        append(REMOVE_STUDENT, out -> out.writeUTF(id));
+    }
+    
+    void logEnroll(Student student, Subject subject) {
+        append(ENROLL, out -> {
+            out.writeUTF(student.getId());
+            out.writeUTF(subject.getId());
+        });
+    }
+    
+    void logGrade(Grade grade) {
+        append(PUT_GRADE, out -> writeGrade(out, grade));
+    }
+    
+    void logProject(Project project) {
+        append(PUT_PROJECT, out -> writeProject(out, project));
+    }
+    
+    void logFee(Fee fee) {
+        append(PUT_FEE, out -> writeFee(out, fee));
+    }
+    
+    void logAttendance(Student student, Subject subject, Date date, boolean present) {
+        append(PUT_ATTENDANCE, out -> writeAttendance(out, student.getId(), subject.getId(), date.getTime(), present));
+    }
+    
+    void logNotification(Notification notification) {
+        append(SEND_NOTIFICATION, out -> writeNotification(out, notification));
+    }
+    
+    /**
+     * Logs field changes made directly on model objects, e.g. a grade typed
+     * into the grade sheet or a fee marked as paid.
+     */
+    @Override
+    public void entityChanged(Object entity) {
+        if (entity instanceof Grade) {
+            logGrade((Grade) entity);
+        } else if (entity instanceof Fee) {
+            logFee((Fee) entity);
+        } else if (entity instanceof Project) {
+            logProject((Project) entity);
+        } else if (entity instanceof Subject) {
+            logSubject((Subject) entity);
+        } else if (entity instanceof Student) {
+            Student student = (Student) entity;
+            byte[] record = encode(PUT_STUDENT, out -> writeStudent(out, student));
+            if (!Arrays.equals(record, studentRecords.put(student.getId(), record))) {
+                append(record);
+            }
+        }
+    }
+    
+    private void append(byte type, RecordWriter writer) {
+        append(encode(type, writer));
+    }
+    
+    private void append(byte[] record) {
+        synchronized (this) {
+            log.append(record);
+        }
+    }
+    
+    private static byte[] encode(byte type, RecordWriter writer) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(type);
+            writer.write(out);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            // Writing to memory does not fail
+            throw new UncheckedIOException(e);
+        }
+    }
+    
+    // Recovery
+    private void recover() throws IOException {
+        generation = 0;
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshotFile)) {
+            generation = readSnapshot(snapshotFile);
+            recovered = true;
+        }
+        
+        List<Long> generations = segmentGenerations();
+        for (long segmentGeneration : generations) {
+            if (segmentGeneration < generation) {
+                continue;
+            }
+            for (byte[] record : WriteAheadLog.readAll(segment(segmentGeneration))) {
+                apply(record);
+                recovered = true;
+            }
+            generation = segmentGeneration;
+        }
+    }
+    
+    private void writeSnapshot(long snapshotGeneration, DataSnapshot data, AttendanceStore.Snapshot attendance)
+            throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, crc), 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(snapshotGeneration);
+            
+            // Referenced entities come before the records that point to them
+            for (Teacher teacher : data.getTeachers()) {
+                writeRecord(out, encode(PUT_TEACHER, o -> writeTeacher(o, teacher)));
+            }
+            for (Subject subject : data.getSubjects()) {
+                writeRecord(out, encode(PUT_SUBJECT, o -> writeSubject(o, subject)));
+                if (subject.getGradingPolicy() != GradingPolicy.STANDARD) {
+                    writeRecord(out, encode(PUT_GRADING_POLICY, o -> writeGradingPolicy(o, subject)));
+                }
+            }
+            for (Student student : data.getStudents()) {
+                byte[] record = encode(PUT_STUDENT, o -> writeStudent(o, student));
+                studentRecords.put(student.getId(), record);
+                writeRecord(out, record);
+                for (Subject subject : student.getSubjects()) {
+                    writeRecord(out, encode(ENROLL, o -> {
+                        o.writeUTF(student.getId());
+                        o.writeUTF(subject.getId());
+                    }));
+                }
+                for (Grade grade : student.getGrades()) {
+                    writeRecord(out, encode(PUT_GRADE, o -> writeGrade(o, grade)));
+                }
+            }
+            for (Project project : data.getProjects()) {
+                writeRecord(out, encode(PUT_PROJECT, o -> writeProject(o, project)));
+            }
+            for (Fee fee : data.getFees()) {
+                writeRecord(out, encode(PUT_FEE, o -> writeFee(o, fee)));
+            }
+            IOException[] error = new IOException[1];
+            attendance.forEach((studentId, subjectId, day, present) -> {
+                if (error[0] == null) {
+                    long date = day.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                    try {
+                        writeRecord(out, encode(PUT_ATTENDANCE, o -> writeAttendance(o, studentId, subjectId, date, present)));
+                    } catch (IOException e) {
+                        error[0] = e;
+                    }
+                }
+            });
+            if (error[0] != null) {
+                throw error[0];
+            }
+            for (Notification notification : data.getNotifications()) {
+                writeRecord(out, encode(SEND_NOTIFICATION, o -> writeNotification(o, notification)));
+            }
+            
+            out.writeInt(-1);
+            out.flush();
+            // The checksum covers everything before it
+            file.write(longBytes(crc.getValue()));
+            file.getFD().sync();
+        }
+        
+        // Replace the old snapshot only once the new one is complete
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE),
+                   StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private long readSnapshot(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16), crc))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a snapshot file: " + file);
+            }
+            long snapshotGeneration = in.readLong();
+            
+            // Read all records first so a damaged file changes nothing
+            List<byte[]> records = new ArrayList<>();
+            for (int length = in.readInt(); length >= 0; length = in.readInt()) {
+                byte[] record = new byte[length];
+                in.readFully(record);
+                records.add(record);
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Snapshot checksum mismatch: " + file);
+            }
+            
+            for (byte[] record : records) {
+                apply(record);
+            }
+            return snapshotGeneration;
+        }
+    }
+    
+    private void apply(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte type = in.readByte();
+        switch (type) {
+            case PUT_TEACHER:
+                applyTeacher(in);
+                break;
+            case PUT_SUBJECT:
+                applySubject(in);
+                break;
+            case PUT_STUDENT:
+                applyStudent(in);
+                break;
+            case REMOVE_STUDENT:
+                dataManager.removeStudent(in.readUTF());
+                break;
+            case ENROLL: {
+                Student student = dataManager.getStudent(in.readUTF());
+                Subject subject = dataManager.getSubject(in.readUTF());
+                if (student != null && subject != null) {
+                    dataManager.enroll(student, subject);
+                }
+                break;
+            }
+            case PUT_GRADE:
+                applyGrade(in);
+                break;
+            case PUT_PROJECT:
+                applyProject(in);
+                break;
+            case PUT_FEE:
+                applyFee(in);
+                break;
+            case PUT_ATTENDANCE: {
+                Student student = dataManager.getStudent(in.readUTF());
+                Subject subject = dataManager.getSubject(in.readUTF());
+                Date date = new Date(in.readLong());
+                boolean present = in.readBoolean();
+                if (student != null && subject != null) {
+                    dataManager.markAttendance(student, subject, date, present);
+                }
+                break;
+            }
+            case ADD_NOTIFICATION:
+            case SEND_NOTIFICATION: {
+                String sender = readString(in);
+                String message = readString(in);
+                Date date = new Date(in.readLong());
+                Subject subject = dataManager.getSubject(readString(in));
+                // Records written before recipients were kept went to everyone
+                String recipient = type == SEND_NOTIFICATION ? readString(in) : Notification.EVERYONE;
+                dataManager.addNotification(new Notification(sender, message, date, subject, recipient));
+                break;
+            }
+            case PUT_GRADING_POLICY:
+                applyGradingPolicy(in);
+                break;
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+    }
+    
+    private void applyTeacher(DataInputStream in) throws IOException {
+        String id = in.readUTF();
+        String name = readString(in);
+        String email = readString(in);
+        String password = readString(in);
+        
+        Teacher teacher = dataManager.getTeacher(id);
+        if (teacher == null) {
+            dataManager.addTeacher(new Teacher(id, name, email, password));
+        } else {
+            teacher.setName(name);
+            teacher.setEmail(email);
+            teacher.setPassword(password);
+        }
+    }
+    
+    private void applySubject(DataInputStream in) throws IOException {
+        String id = in.readUTF();
+        String name = readString(in);
+        int credits = in.readInt();
+        Teacher teacher = dataManager.getTeacher(readString(in));
+        
+        Subject subject = dataManager.getSubject(id);
+        if (subject == null) {
+            dataManager.addSubject(new Subject(id, name, credits, teacher));
+        } else {
+            subject.setName(name);
+            subject.setCredits(credits);
+            subject.setTeacher(teacher);
+            dataManager.updateSubject(subject);
+        }
+    }
+    
+    private void applyGradingPolicy(DataInputStream in) throws IOException {
+        Subject subject = dataManager.getSubject(in.readUTF());
+        String name = readString(in);
+        int decimals = in.readInt();
+        double[] weights = readDoubles(in, Grade.COMPONENT_COUNT);
+        String[] letters = new String[in.readInt()];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = in.readUTF();
+        }
+        double[] letterThresholds = readDoubles(in, letters.length - 1);
+        double[] points = readDoubles(in, in.readInt());
+        double[] pointThresholds = readDoubles(in, points.length - 1);
+        
+        if (subject != null) {
+            dataManager.setGradingPolicy(subject, new GradingPolicy(name, weights, decimals, letters, letterThresholds,
+                                                                    pointThresholds, points));
+        }
+    }
+    
+    private void applyStudent(DataInputStream in) throws IOException {
+        String id = in.readUTF();
+        String name = readString(in);
+        String email = readString(in);
+        String password = readString(in);
+        String className = readString(in);
+        String major = readString(in);
+        String course = readString(in);
+        
+        Student student = dataManager.getStudent(id);
+        boolean added = student == null;
+        if (added) {
+            student = new Student(id, name, className, major, course, email, password);
+        } else {
+            student.setName(name);
+            student.setEmail(email);
+            student.setPassword(password);
+            student.setClassName(className);
+            student.setMajor(major);
+            student.setCourse(course);
+        }
+        student.setDateOfBirth(readString(in));
+        student.setGender(readString(in));
+        student.setParentName(readString(in));
+        student.setParentContact(readString(in));
+        student.setAddress(readString(in));
+        student.setPhone(readString(in));
+        
+        if (added) {
+            dataManager.addStudent(student);
+        } else {
+            dataManager.updateStudent(student);
+        }
+    }
+    
+    private void applyGrade(DataInputStream in) throws IOException {
+        Student student = dataManager.getStudent(in.readUTF());
+        Subject subject = dataManager.getSubject(in.readUTF());
+        double attendance = in.readDouble();
+        double assignment = in.readDouble();
+        double midterm = in.readDouble();
+        double finalScore = in.readDouble();
+        if (student == null || subject == null) {
+            return;
+        }
+        
+        Grade grade = dataManager.getGrade(student, subject);
+        boolean added = grade == null;
+        if (added) {
+            grade = new Grade(student, subject);
+        }
+        grade.setAttendanceScore(attendance);
+        grade.setAssignmentScore(assignment);
+        grade.setMidtermScore(midterm);
+        grade.setFinalScore(finalScore);
+        if (added) {
+            dataManager.addGrade(grade);
+        }
+    }
+    
+    private void applyProject(DataInputStream in) throws IOException {
+        String id = in.readUTF();
+        String name = readString(in);
+        Teacher supervisor = dataManager.getTeacher(readString(in));
+        String deadline = readString(in);
+        int progress = in.readInt();
+        double grade = in.readDouble();
+        int memberCount = in.readInt();
+        List<Student> members = new ArrayList<>(memberCount);
+        for (int i = 0; i < memberCount; i++) {
+            Student student = dataManager.getStudent(in.readUTF());
+            if (student != null) {
+                members.add(student);
+            }
+        }
+        
+        Project project = dataManager.getProject(id);
+        boolean added = project == null;
+        if (added) {
+            project = new Project(id, name, members, supervisor, deadline);
+        } else {
+            project.setName(name);
+            project.setStudents(members);
+            project.setSupervisor(supervisor);
+            project.setDeadline(deadline);
+        }
+        project.setProgress(progress);
+        project.setGrade(grade);
+        if (added) {
+            dataManager.addProject(project);
+        }
+    }
+    
+    private void applyFee(DataInputStream in) throws IOException {
+        Student student = dataManager.getStudent(in.readUTF());
+        double amount = in.readDouble();
+        boolean paid = in.readBoolean();
+        if (student == null) {
+            return;
+        }
+        
+        Fee fee = dataManager.getFeeForStudent(student);
+        if (fee == null) {
+            dataManager.addFee(new Fee(student, amount, paid));
+        } else {
+            fee.setAmount(amount);
+            fee.setPaid(paid);
+        }
+    }
+    
+    // Record encoding
+    private static void writeTeacher(DataOutputStream out, Teacher teacher) throws IOException {
+        out.writeUTF(teacher.getId());
+        writeString(out, teacher.getName());
+        writeString(out, teacher.getEmail());
+        writeString(out, teacher.getPassword());
+    }
+    
+    private static void writeSubject(DataOutputStream out, Subject subject) throws IOException {
+        out.writeUTF(subject.getId());
+        writeString(out, subject.getName());
+        out.writeInt(subject.getCredits());
+        writeString(out, subject.getTeacher() != null ? subject.getTeacher().getId() : null);
+    }
+    
+    private static void writeGradingPolicy(DataOutputStream out, Subject subject) throws IOException {
+        GradingPolicy policy = subject.getGradingPolicy();
+        out.writeUTF(subject.getId());
+        writeString(out, policy.getName());
+        out.writeInt(policy.getDecimals());
+        writeDoubles(out, policy.getWeights());
+        out.writeInt(policy.getLetterCount());
+        for (int i = 0; i < policy.getLetterCount(); i++) {
+            out.writeUTF(policy.letterAt(i));
+        }
+        writeDoubles(out, policy.getLetterThresholds());
+        double[] points = policy.getPoints();
+        out.writeInt(points.length);
+        writeDoubles(out, points);
+        writeDoubles(out, policy.getPointThresholds());
+    }
+    
+    private static void writeStudent(DataOutputStream out, Student student) throws IOException {
+        out.writeUTF(student.getId());
+        writeString(out, student.getName());
+        writeString(out, student.getEmail());
+        writeString(out, student.getPassword());
+        writeString(out, student.getClassName());
+        writeString(out, student.getMajor());
+        writeString(out, student.getCourse());
+        writeString(out, student.getDateOfBirth());
+        writeString(out, student.getGender());
+        writeString(out, student.getParentName());
+        writeString(out, student.getParentContact());
+        writeString(out, student.getAddress());
+        writeString(out, student.getPhone());
+    }
+    
+    private static void writeGrade(DataOutputStream out, Grade grade) throws IOException {
+        out.writeUTF(grade.getStudent().getId());
+        out.writeUTF(grade.getSubject().getId());
+        out.writeDouble(grade.getAttendanceScore());
+        out.writeDouble(grade.getAssignmentScore());
+        out.writeDouble(grade.getMidtermScore());
+        out.writeDouble(grade.getFinalScore());
+    }
+    
+    private static void writeProject(DataOutputStream out, Project project) throws IOException {
+        out.writeUTF(project.getId());
+        writeString(out, project.getName());
+        writeString(out, project.getSupervisor() != null ? project.getSupervisor().getId() : null);
+        writeString(out, project.getDeadline());
+        out.writeInt(project.getProgress());
+        out.writeDouble(project.getGrade());
+        List<Student> members = new ArrayList<>(project.getStudents());
+        out.writeInt(members.size());
+        for (Student student : members) {
+            out.writeUTF(student.getId());
+        }
+    }
+    
+    private static void writeFee(DataOutputStream out, Fee fee) throws IOException {
+        out.writeUTF(fee.getStudent().getId());
+        out.writeDouble(fee.getAmount());
+        out.writeBoolean(fee.isPaid());
+    }
+    
+    private static void writeAttendance(DataOutputStream out, String studentId, String subjectId, long date,
+                                        boolean present) throws IOException {
+        out.writeUTF(studentId);
+        out.writeUTF(subjectId);
+        out.writeLong(date);
+        out.writeBoolean(present);
+    }
+    
+    private static void writeNotification(DataOutputStream out, Notification notification) throws IOException {
+        writeString(out, notification.getSender());
+        writeString(out, notification.getMessage());
+        out.writeLong(notification.getDate().getTime());
+        writeString(out, notification.getRelatedSubject() != null ? notification.getRelatedSubject().getId() : null);
+        writeString(out, notification.getRecipient());
+    }
+    
+    private static void writeRecord(DataOutputStream out, byte[] record) throws IOException {
+        out.writeInt(record.length);
+        out.write(record);
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+    
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+    
+    private static double[] readDoubles(DataInputStream in, int count) throws IOException {
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = in.readDouble();
+        }
+        return values;
+    }
+    
+    private static byte[] longBytes(long value) {
+        byte[] bytes = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            bytes[i] = (byte) value;
+            value >>>= 8;
+        }
+        return bytes;
+    }
+    
+    private Path segment(long segmentGeneration) {
+        return directory.resolve(SEGMENT_PREFIX + segmentGeneration + SEGMENT_SUFFIX);
+    }
+    
+    private List<Long> segmentGenerations() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path segment : segments) {
+                String name = segment.getFileName().toString();
+                try {
+                    generations.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+    
+    private void checkpointQuietly() {
+        try {
+            checkpoint();
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+    
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,95 @@
+package com.vku.data;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns dense int ordinals to string ids, so per-entity data can be kept
+ * in arrays and bitsets indexed by ordinal. Ordinals are handed out in
+ * order, so an id keeps its ordinal until it is released or the registry
+ * is cleared. Released ordinals are handed out again before new ones.
+ * Not thread-safe; the owner guards it.
+ */
+class OrdinalRegistry {
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private final Deque<Integer> released = new ArrayDeque<>();
+    
+    /**
+     * Gets the ordinal of an id, assigning the next free one if it is new.
+     *
+     * @param id the id
+     * @return the ordinal
+     */
+    int ordinal(String id) {
+        Integer ordinal = ordinals.get(id);
+        if (ordinal == null) {
+            if (released.isEmpty()) {
+                ordinal = ids.size();
+                ids.add(id);
+            } else {
+                ordinal = released.pop();
+                ids.set(ordinal, id);
+            }
+            ordinals.put(id, ordinal);
+        }
+        return ordinal;
+    }
+    
+    /**
+     * Gets the ordinal of an id without assigning one.
+     *
+     * @param id the id
+     * @return the ordinal, or -1 if the id has none
+     */
+    int find(String id) {
+        Integer ordinal = ordinals.get(id);
+        return ordinal == null ? -1 : ordinal;
+    }
+    
+    /**
+     * Frees the ordinal of an id for the next new id. The owner must drop
+     * whatever it keeps under the ordinal first.
+     *
+     * @param id the id
+     * @return the freed ordinal, or -1 if the id had none
+     */
+    int release(String id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return -1;
+        }
+        ids.set(ordinal, null);
+        released.push(ordinal);
+        return ordinal;
+    }
+    
+    // Null for a released ordinal
+    String id(int ordinal) {
+        return ids.get(ordinal);
+    }
+    
+    // Counts released ordinals too, so it bounds every ordinal in use
+    int size() {
+        return ids.size();
+    }
+    
+    /**
+     * Gets a copy of the ids indexed by ordinal.
+     *
+     * @return the ids
+     */
+    String[] toArray() {
+        return ids.toArray(new String[0]);
+    }
+    
+    void clear() {
+        ordinals.clear();
+        ids.clear();
+        released.clear();
+    }
+}
\ No newline at end of file
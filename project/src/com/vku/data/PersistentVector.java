@@ -0,0 +1,239 @@
+package com.vku.data;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Immutable list with cheap appends. Elements live in a 32-way trie plus a
+ * tail array; appending copies only the tail or the path to the new leaf,
+ * so successive versions share almost all of their structure. Replacing an
+ * element or dropping the last one copies a single path the same way.
+ *
+ * @param <T> the element type
+ */
+final class PersistentVector<T> extends AbstractList<T> implements RandomAccess {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final PersistentVector<?> EMPTY =
+        new PersistentVector<>(0, BITS, new Object[WIDTH], new Object[0]);
+    
+    private final int size;
+    private final int shift;
+    private final Object[] root;
+    private final Object[] tail;
+    
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+    
+    @SuppressWarnings("unchecked")
+    static <T> PersistentVector<T> empty() {
+        return (PersistentVector<T>) EMPTY;
+    }
+    
+    static <T> PersistentVector<T> of(Iterable<? extends T> elements) {
+        PersistentVector<T> vector = empty();
+        for (T element : elements) {
+            vector = vector.append(element);
+        }
+        return vector;
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int index) {
+        Objects.checkIndex(index, size);
+        return (T) leafFor(index)[index & MASK];
+    }
+    
+    /**
+     * Returns a new vector with the element added at the end.
+     *
+     * @param element the element to add
+     * @return the new vector; this one is unchanged
+     */
+    PersistentVector<T> append(T element) {
+        // Room left in the tail: copy just the tail
+        if (size - tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+        
+        // Full tail moves into the trie, growing a level when the root is full
+        Object[] newRoot;
+        int newShift = shift;
+        if ((size >>> BITS) > (1 << shift)) {
+            newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            newShift += BITS;
+        } else {
+            newRoot = pushTail(shift, root, tail);
+        }
+        return new PersistentVector<>(size + 1, newShift, newRoot, new Object[]{element});
+    }
+    
+    /**
+     * Returns a new vector with the element at an index replaced.
+     *
+     * @param index the index
+     * @param element the new element
+     * @return the new vector; this one is unchanged
+     */
+    PersistentVector<T> with(int index, T element) {
+        Objects.checkIndex(index, size);
+        if (index >= tailOffset()) {
+            Object[] newTail = tail.clone();
+            newTail[index & MASK] = element;
+            return new PersistentVector<>(size, shift, root, newTail);
+        }
+        return new PersistentVector<>(size, shift, assoc(shift, root, index, element), tail);
+    }
+    
+    /**
+     * Returns a new vector without its last element.
+     *
+     * @return the new vector; this one is unchanged
+     */
+    PersistentVector<T> pop() {
+        if (size == 0) {
+            throw new IllegalStateException("Vector is empty");
+        }
+        if (size == 1) {
+            return empty();
+        }
+        if (size - tailOffset() > 1) {
+            return new PersistentVector<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+        }
+        
+        // The tail empties, so the last leaf of the trie becomes the tail,
+        // dropping a level when the root is left with a single child
+        Object[] newTail = leafFor(size - 2);
+        Object[] newRoot = popTail(shift, root);
+        int newShift = shift;
+        if (newRoot == null) {
+            newRoot = new Object[WIDTH];
+        }
+        if (shift > BITS && newRoot[1] == null) {
+            newRoot = (Object[]) newRoot[0];
+            newShift -= BITS;
+        }
+        return new PersistentVector<>(size - 1, newShift, newRoot, newTail);
+    }
+    
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int index;
+            private Object[] leaf;
+            
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+            
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                // Walk the trie once per leaf rather than once per element
+                if ((index & MASK) == 0 || leaf == null) {
+                    leaf = leafFor(index);
+                }
+                return (T) leaf[index++ & MASK];
+            }
+        };
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super T> action) {
+        for (int start = 0; start < size; start += WIDTH) {
+            Object[] leaf = leafFor(start);
+            int end = Math.min(WIDTH, size - start);
+            for (int i = 0; i < end; i++) {
+                action.accept((T) leaf[i]);
+            }
+        }
+    }
+    
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+    
+    private Object[] leafFor(int index) {
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+    
+    private Object[] pushTail(int level, Object[] parent, Object[] tailNode) {
+        int subIndex = ((size - 1) >>> level) & MASK;
+        Object[] copy = parent.clone();
+        if (level == BITS) {
+            copy[subIndex] = tailNode;
+        } else {
+            Object[] child = (Object[]) parent[subIndex];
+            copy[subIndex] = child != null ? pushTail(level - BITS, child, tailNode)
+                                           : newPath(level - BITS, tailNode);
+        }
+        return copy;
+    }
+    
+    private static Object[] assoc(int level, Object[] node, int index, Object element) {
+        Object[] copy = node.clone();
+        if (level == 0) {
+            copy[index & MASK] = element;
+        } else {
+            int subIndex = (index >>> level) & MASK;
+            copy[subIndex] = assoc(level - BITS, (Object[]) node[subIndex], index, element);
+        }
+        return copy;
+    }
+    
+    // Copies the path to the last leaf without it; null when nothing is left
+    private Object[] popTail(int level, Object[] node) {
+        int subIndex = ((size - 2) >>> level) & MASK;
+        if (level > BITS) {
+            Object[] child = popTail(level - BITS, (Object[]) node[subIndex]);
+            if (child == null && subIndex == 0) {
+                return null;
+            }
+            Object[] copy = node.clone();
+            copy[subIndex] = child;
+            return copy;
+        }
+        if (subIndex == 0) {
+            return null;
+        }
+        Object[] copy = node.clone();
+        copy[subIndex] = null;
+        return copy;
+    }
+    
+    private static Object[] newPath(int level, Object[] node) {
+        if (level == 0) {
+            return node;
+        }
+        Object[] path = new Object[WIDTH];
+        path[0] = newPath(level - BITS, node);
+        return path;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.vku.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Orders items by their position in a sort index. The positions and the
+ * item indexes are packed into primitive longs and sorted as such, so
+ * no comparator runs and nothing is boxed.
+ */
+final class RankOrder {
+    /** Rank of an item that is not in the index; such items go last. */
+    static final int UNRANKED = -1;
+    
+    private RankOrder() {
+    }
+    
+    /**
+     * Sorts items by rank. Items of equal rank keep their order.
+     *
+     * @param items the items to sort
+     * @param rank gives the position of an item in the index, or {@link #UNRANKED}
+     * @param ascending whether the lowest rank comes first
+     * @return the sorted items
+     */
+    static <T> List<T> sort(List<T> items, ToIntFunction<? super T> rank, boolean ascending) {
+        long[] keys = new long[items.size()];
+        for (int i = 0; i < keys.length; i++) {
+            int position = rank.applyAsInt(items.get(i));
+            long key = position < 0 ? Integer.MAX_VALUE : ascending ? position : Integer.MAX_VALUE - 1L - position;
+            keys[i] = key << 32 | i;
+        }
+        Arrays.sort(keys);
+        
+        List<T> sorted = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            sorted.add(items.get((int) key));
+        }
+        return sorted;
+    }
+}
\ No newline at end of file
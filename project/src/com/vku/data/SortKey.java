@@ -0,0 +1,11 @@
+package com.vku.data;
+
+/**
+ * The orders the data layer keeps sort indexes for.
+ */
+public enum SortKey {
+    NAME, ID, CLASS, GPA, FEE_AMOUNT,
+    
+    /** The average of a grade; only for sorting grades. */
+    AVERAGE
+}
\ No newline at end of file
@@ -0,0 +1,334 @@
+package com.vku.data;
+
+import com.vku.model.EntityListener;
+import com.vku.model.Fee;
+import com.vku.model.Student;
+
+import java.util.*;
+
+/**
+ * Faceted filter over the students. Every value of every facet, e.g. the
+ * class "K41A" or the rank "B", owns a compressed bitmap of the ordinals of
+ * the students that have it. A filter ORs the bitmaps of the values chosen
+ * within a facet and ANDs the facets, so a query touches a handful of
+ * bitmaps instead of every student. The counts shown next to each value
+ * come from intersecting its bitmap with the filter of the other facets,
+ * which is what the count would become if that value were picked.
+ *
+ * The bitmaps follow additions, removals and changes to students and fees
+ * one student at a time.
+ */
+public class StudentFacets implements EntityListener {
+    public static final String PAID = "Paid";
+    public static final String UNPAID = "Unpaid";
+    public static final String NO_FEE = "No Fee";
+    
+    /**
+     * The properties students can be filtered by.
+     */
+    public enum Facet {
+        MAJOR, CLASS, COURSE, FEE_STATUS, RANK
+    }
+    
+    private static final Facet[] FACETS = Facet.values();
+    
+    // Facets with more values are counted against a dense copy of the filter
+    private static final int DENSE_COUNTING_VALUES = 8;
+    
+    private final OrdinalRegistry ordinals = new OrdinalRegistry();
+    private final List<Map<String, CompactBitmap>> bitmaps = new ArrayList<>();
+    private final CompactBitmap all = new CompactBitmap();
+    
+    // A student has a single fee record; kept here as fees may arrive first
+    private final Map<String, Fee> fees = new HashMap<>();
+    
+    // Indexed by ordinal; null once a student is removed
+    private Student[] students = new Student[64];
+    private String[][] values = new String[64][];
+    
+    StudentFacets() {
+        for (int i = 0; i < FACETS.length; i++) {
+            bitmaps.add(new TreeMap<>());
+        }
+    }
+    
+    /**
+     * Adds a student, replacing what was recorded under its id before.
+     *
+     * @param student the student
+     */
+    public synchronized void add(Student student) {
+        int ordinal = ordinals.ordinal(student.getId());
+        if (ordinal >= students.length) {
+            int capacity = Math.max(students.length * 2, ordinal + 1);
+            students = Arrays.copyOf(students, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        unindex(ordinal);
+        students[ordinal] = student;
+        index(ordinal, valuesOf(student));
+    }
+    
+    public synchronized void remove(String id) {
+        fees.remove(id);
+        int ordinal = ordinals.find(id);
+        if (ordinal >= 0) {
+            unindex(ordinal);
+            students[ordinal] = null;
+        }
+    }
+    
+    /**
+     * Records a student's fee, replacing any earlier one.
+     *
+     * @param fee the fee
+     */
+    public synchronized void addFee(Fee fee) {
+        fees.put(fee.getStudent().getId(), fee);
+        refresh(fee.getStudent().getId());
+    }
+    
+    public synchronized void clear() {
+        ordinals.clear();
+        for (Map<String, CompactBitmap> facet : bitmaps) {
+            facet.clear();
+        }
+        all.clear();
+        fees.clear();
+        Arrays.fill(students, null);
+        Arrays.fill(values, null);
+    }
+    
+    /**
+     * Moves a student to its new values after a change to it or its fee.
+     * A new grade may change the rank, so grades are covered too.
+     */
+    @Override
+    public synchronized void entityChanged(Object entity) {
+        if (entity instanceof Student) {
+            Student student = (Student) entity;
+            int ordinal = ordinals.find(student.getId());
+            // Ignore objects that are not the indexed instance (e.g. not yet added)
+            if (ordinal >= 0 && students[ordinal] == student) {
+                refresh(student.getId());
+            }
+        } else if (entity instanceof Fee) {
+            Fee fee = (Fee) entity;
+            if (fees.get(fee.getStudent().getId()) == fee) {
+                refresh(fee.getStudent().getId());
+            }
+        }
+    }
+    
+    /**
+     * Filters the students and counts the matches for every facet value.
+     *
+     * @param selection the values chosen for each facet; a facet that is
+     *                  missing or has no values does not filter
+     * @param candidates the students to filter, e.g. search results, or
+     *                   null for all of them
+     * @return the matching students, in the order of the candidates or
+     *         else in the order they were added, with the facet counts
+     */
+    public synchronized Result query(Map<Facet, ? extends Collection<String>> selection, List<Student> candidates) {
+        // The base is what every facet is counted within
+        CompactBitmap base = all;
+        if (candidates != null) {
+            base = new CompactBitmap();
+            for (Student student : candidates) {
+                int ordinal = ordinals.find(student.getId());
+                if (ordinal >= 0 && students[ordinal] != null) {
+                    base.add(ordinal);
+                }
+            }
+        }
+        
+        // One OR per filtered facet, null where the facet does not filter
+        CompactBitmap[] filters = new CompactBitmap[FACETS.length];
+        for (Facet facet : FACETS) {
+            Collection<String> chosen = selection.get(facet);
+            if (chosen == null || chosen.isEmpty()) {
+                continue;
+            }
+            CompactBitmap filter = new CompactBitmap();
+            for (String value : chosen) {
+                CompactBitmap bitmap = bitmaps.get(facet.ordinal()).get(value);
+                if (bitmap != null) {
+                    filter = CompactBitmap.or(filter, bitmap);
+                }
+            }
+            filters[facet.ordinal()] = filter;
+        }
+        
+        // A facet is counted within the filters of all the others, so its
+        // counts do not collapse to the one value that is picked
+        List<Map<String, Integer>> counts = new ArrayList<>();
+        int[] totals = new int[FACETS.length];
+        for (Facet facet : FACETS) {
+            CompactBitmap others = intersect(base, filters, facet.ordinal());
+            Map<String, CompactBitmap> facetBitmaps = bitmaps.get(facet.ordinal());
+            if (facetBitmaps.size() > DENSE_COUNTING_VALUES) {
+                others = others.toDense();
+            }
+            Map<String, Integer> facetCounts = new TreeMap<>();
+            for (Map.Entry<String, CompactBitmap> entry : facetBitmaps.entrySet()) {
+                facetCounts.put(entry.getKey(), CompactBitmap.andCardinality(others, entry.getValue()));
+            }
+            counts.add(Collections.unmodifiableMap(facetCounts));
+            totals[facet.ordinal()] = others.cardinality();
+        }
+        
+        CompactBitmap matches = intersect(base, filters, -1);
+        List<Student> result = new ArrayList<>(matches.cardinality());
+        if (candidates != null) {
+            for (Student student : candidates) {
+                int ordinal = ordinals.find(student.getId());
+                if (ordinal >= 0 && matches.contains(ordinal)) {
+                    result.add(students[ordinal]);
+                }
+            }
+        } else {
+            matches.forEach(ordinal -> result.add(students[ordinal]));
+        }
+        return new Result(result, counts, totals);
+    }
+    
+    /**
+     * Gets the values a facet currently has, in order.
+     *
+     * @param facet the facet
+     * @return the values held by at least one student
+     */
+    public synchronized List<String> getValues(Facet facet) {
+        return new ArrayList<>(bitmaps.get(facet.ordinal()).keySet());
+    }
+    
+    /**
+     * Gets the memory held by the bitmaps, for monitoring.
+     *
+     * @return the approximate size in bytes
+     */
+    public synchronized long getUsedBytes() {
+        long bytes = all.getUsedBytes();
+        for (Map<String, CompactBitmap> facet : bitmaps) {
+            for (CompactBitmap bitmap : facet.values()) {
+                bytes += bitmap.getUsedBytes();
+            }
+        }
+        return bytes;
+    }
+    
+    private CompactBitmap intersect(CompactBitmap base, CompactBitmap[] filters, int skipped) {
+        // Every value bitmap is a subset of all students, so that base can be left out
+        CompactBitmap result = base == all ? null : base;
+        for (int i = 0; i < filters.length; i++) {
+            if (i != skipped && filters[i] != null) {
+                result = result == null ? filters[i] : CompactBitmap.and(result, filters[i]);
+            }
+        }
+        return result == null ? all : result;
+    }
+    
+    private void refresh(String id) {
+        int ordinal = ordinals.find(id);
+        if (ordinal < 0 || students[ordinal] == null) {
+            return;
+        }
+        String[] current = valuesOf(students[ordinal]);
+        if (!Arrays.equals(current, values[ordinal])) {
+            unindex(ordinal);
+            index(ordinal, current);
+        }
+    }
+    
+    private String[] valuesOf(Student student) {
+        String[] result = new String[FACETS.length];
+        result[Facet.MAJOR.ordinal()] = student.getMajor();
+        result[Facet.CLASS.ordinal()] = student.getClassName();
+        result[Facet.COURSE.ordinal()] = student.getCourse();
+        Fee fee = fees.get(student.getId());
+        result[Facet.FEE_STATUS.ordinal()] = fee == null ? NO_FEE : fee.isPaid() ? PAID : UNPAID;
+        result[Facet.RANK.ordinal()] = student.getRank();
+        return result;
+    }
+    
+    private void index(int ordinal, String[] studentValues) {
+        for (int i = 0; i < FACETS.length; i++) {
+            if (studentValues[i] != null) {
+                bitmaps.get(i).computeIfAbsent(studentValues[i], k -> new CompactBitmap()).add(ordinal);
+            }
+        }
+        all.add(ordinal);
+        values[ordinal] = studentValues;
+    }
+    
+    private void unindex(int ordinal) {
+        String[] studentValues = values[ordinal];
+        if (studentValues == null) {
+            return;
+        }
+        for (int i = 0; i < FACETS.length; i++) {
+            CompactBitmap bitmap = studentValues[i] == null ? null : bitmaps.get(i).get(studentValues[i]);
+            if (bitmap != null) {
+                bitmap.remove(ordinal);
+                // Drop values nobody has any more, e.g. a class that was renamed
+                if (bitmap.isEmpty()) {
+                    bitmaps.get(i).remove(studentValues[i]);
+                }
+            }
+        }
+        all.remove(ordinal);
+        values[ordinal] = null;
+    }
+    
+    /**
+     * The students matching a filter and the facet counts around it.
+     */
+    public static final class Result {
+        private final List<Student> students;
+        private final List<Map<String, Integer>> counts;
+        private final int[] totals;
+        
+        Result(List<Student> students, List<Map<String, Integer>> counts, int[] totals) {
+            this.students = Collections.unmodifiableList(students);
+            this.counts = counts;
+            this.totals = totals;
+        }
+        
+        public List<Student> getStudents() {
+            return students;
+        }
+        
+        /**
+         * Gets the number of matches there would be with a facet set to a value.
+         *
+         * @param facet the facet
+         * @param value the value
+         * @return the count, 0 for values nobody has
+         */
+        public int getCount(Facet facet, String value) {
+            Integer count = counts.get(facet.ordinal()).get(value);
+            return count == null ? 0 : count;
+        }
+        
+        /**
+         * Gets the counts of every value of a facet.
+         *
+         * @param facet the facet
+         * @return the counts by value, in value order
+         */
+        public Map<String, Integer> getCounts(Facet facet) {
+            return counts.get(facet.ordinal());
+        }
+        
+        /**
+         * Gets the number of matches there would be with a facet not filtering.
+         *
+         * @param facet the facet
+         * @return the count
+         */
+        public int getTotal(Facet facet) {
+            return totals[facet.ordinal()];
+        }
+    }
+}
\ No newline at end of file
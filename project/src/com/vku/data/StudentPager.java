@@ -0,0 +1,300 @@
+package com.vku.data;
+
+import com.vku.model.Grade;
+import com.vku.model.Student;
+
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Loads students from the database one page at a time and keeps only a
+ * bounded number of pages resident. Pages are ordered by student id and
+ * fetched with keyset pagination; the least recently used page is evicted
+ * (and its records written back) when the resident limit is exceeded.
+ *
+ * Students looked up one at a time, e.g. by id or at sign-in, are loaded
+ * through the pager too. They are kept apart from the pages, up to one
+ * page's worth, and evicted least recently used first in the same way.
+ */
+public class StudentPager {
+    private final JdbcDataStore store;
+    private final DataManager dataManager;
+    private final int pageSize;
+    private final int maxResidentPages;
+    
+    // Last student id of each page seen so far; the cursor for page i is entry i - 1
+    private final List<String> pageEnds;
+    private final LinkedHashMap<Integer, List<Student>> residentPages;
+    private final Set<String> pinnedIds;
+    
+    // Ids on resident pages, and students resident on their own by id
+    private final Set<String> pagedIds;
+    private final LinkedHashMap<String, Student> singles;
+    private int totalStudents;
+    
+    public StudentPager(JdbcDataStore store, DataManager dataManager, int pageSize, int maxResidentPages)
+            throws SQLException {
+        if (pageSize < 1 || maxResidentPages < 1) {
+            throw new IllegalArgumentException("Page size and resident page limit must be positive");
+        }
+        this.store = store;
+        this.dataManager = dataManager;
+        this.pageSize = pageSize;
+        this.maxResidentPages = maxResidentPages;
+        this.pageEnds = new ArrayList<>();
+        this.residentPages = new LinkedHashMap<>(16, 0.75f, true);
+        this.pinnedIds = new HashSet<>();
+        this.pagedIds = new HashSet<>();
+        this.singles = new LinkedHashMap<>(16, 0.75f, true);
+        this.totalStudents = store.countStudents();
+    }
+    
+    /**
+     * Gets a page of students, loading it (and any unseen pages before it)
+     * if it is not resident.
+     *
+     * @param index the zero-based page index
+     * @return the students on the page, empty past the last page
+     * @throws SQLException if loading fails
+     */
+    public synchronized List<Student> getPage(int index) throws SQLException {
+        List<Student> page = residentPages.get(index);
+        if (page != null) {
+            return page;
+        }
+        
+        // Walk forward to discover the keyset cursor of the requested page
+        while (pageEnds.size() < index) {
+            List<Student> skipped = loadPage(pageEnds.size());
+            if (skipped.isEmpty()) {
+                return Collections.emptyList();
+            }
+        }
+        return loadPage(index);
+    }
+    
+    /**
+     * Gets a range of students in id order, across as many pages as it spans.
+     *
+     * @param from the position of the first student
+     * @param count the number of students
+     * @return the students, fewer past the last page
+     * @throws SQLException if loading fails
+     */
+    public synchronized List<Student> getRange(long from, int count) throws SQLException {
+        List<Student> range = new ArrayList<>();
+        long to = from + count;
+        for (long index = from / pageSize; index * pageSize < to && index <= Integer.MAX_VALUE; index++) {
+            List<Student> page = getPage((int) index);
+            if (page.isEmpty()) {
+                break;
+            }
+            long pageStart = index * pageSize;
+            int start = (int) Math.max(0, from - pageStart);
+            int end = (int) Math.min(page.size(), to - pageStart);
+            if (start < end) {
+                range.addAll(page.subList(start, end));
+            }
+        }
+        return range;
+    }
+    
+    /**
+     * Loads a single student by id unless already resident.
+     *
+     * @param id the student id
+     * @return the student, or null if there is none
+     * @throws SQLException if loading fails
+     */
+    public synchronized Student loadById(String id) throws SQLException {
+        return track(store.loadStudentById(dataManager, id));
+    }
+    
+    /**
+     * Loads a single student by email unless already resident.
+     *
+     * @param email the student's email
+     * @return the student, or null if there is none
+     * @throws SQLException if loading fails
+     */
+    public synchronized Student loadByEmail(String email) throws SQLException {
+        return track(store.loadStudentByEmail(dataManager, email));
+    }
+    
+    /**
+     * Takes charge of students that were loaded before the pager existed,
+     * e.g. project members read with the reference data.
+     *
+     * @param students the resident students
+     * @throws SQLException if writing back an evicted student fails
+     */
+    public synchronized void adopt(Collection<Student> students) throws SQLException {
+        for (Student student : students) {
+            track(student);
+        }
+    }
+    
+    /**
+     * Keeps a student resident regardless of page eviction, e.g. the user
+     * who is currently logged in.
+     *
+     * @param student the student to pin
+     */
+    public synchronized void pin(Student student) {
+        pinnedIds.add(student.getId());
+    }
+    
+    /**
+     * Lets a pinned student be evicted with its page again.
+     *
+     * @param student the student to unpin
+     */
+    public synchronized void unpin(Student student) {
+        pinnedIds.remove(student.getId());
+    }
+    
+    /**
+     * Deletes a student from the database. The pages from the one it was on
+     * are written back and dropped, since the students after it move up a
+     * position; they are cut again when next read.
+     *
+     * @param id the student id
+     * @throws SQLException if writing back or deleting fails
+     */
+    public synchronized void delete(String id) throws SQLException {
+        singles.remove(id);
+        pinnedIds.remove(id);
+        pagedIds.remove(id);
+        for (List<Student> page : residentPages.values()) {
+            page.removeIf(student -> student.getId().equals(id));
+        }
+        
+        int first = 0;
+        while (first < pageEnds.size() && pageEnds.get(first).compareTo(id) < 0) {
+            first++;
+        }
+        pageEnds.subList(first, pageEnds.size()).clear();
+        Iterator<Map.Entry<Integer, List<Student>>> pages = residentPages.entrySet().iterator();
+        while (pages.hasNext()) {
+            Map.Entry<Integer, List<Student>> page = pages.next();
+            if (page.getKey() >= first) {
+                pages.remove();
+                drop(page.getValue());
+            }
+        }
+        evictSinglesIfNeeded();
+        
+        store.deleteStudents(Collections.singleton(id));
+        totalStudents = store.countStudents();
+    }
+    
+    public synchronized int getPageCount() {
+        return (totalStudents + pageSize - 1) / pageSize;
+    }
+    
+    public synchronized int getTotalStudents() {
+        return totalStudents;
+    }
+    
+    public int getPageSize() {
+        return pageSize;
+    }
+    
+    /**
+     * Writes every resident page back to the database.
+     *
+     * @throws SQLException if saving fails
+     */
+    public synchronized void flush() throws SQLException {
+        for (List<Student> page : residentPages.values()) {
+            writeBack(page);
+        }
+        writeBack(new ArrayList<>(singles.values()));
+    }
+    
+    private List<Student> loadPage(int index) throws SQLException {
+        String afterId = index == 0 ? "" : pageEnds.get(index - 1);
+        List<Student> page = store.loadStudentPage(dataManager, afterId, pageSize);
+        if (page.isEmpty()) {
+            return page;
+        }
+        
+        String lastId = page.get(page.size() - 1).getId();
+        if (index == pageEnds.size()) {
+            pageEnds.add(lastId);
+        } else {
+            pageEnds.set(index, lastId);
+        }
+        
+        // Students loaded on their own before now belong to the page
+        for (Student student : page) {
+            pagedIds.add(student.getId());
+            singles.remove(student.getId());
+        }
+        residentPages.put(index, page);
+        evictIfNeeded();
+        return page;
+    }
+    
+    // Tracks a student that is resident but on no page
+    private Student track(Student student) throws SQLException {
+        if (student != null && !pagedIds.contains(student.getId())) {
+            singles.put(student.getId(), student);
+            evictSinglesIfNeeded();
+        }
+        return student;
+    }
+    
+    private void evictIfNeeded() throws SQLException {
+        Iterator<Map.Entry<Integer, List<Student>>> eldest = residentPages.entrySet().iterator();
+        while (residentPages.size() > maxResidentPages && eldest.hasNext()) {
+            List<Student> page = eldest.next().getValue();
+            eldest.remove();
+            drop(page);
+        }
+        evictSinglesIfNeeded();
+    }
+    
+    // Writes back a page that is no longer resident and evicts its students
+    private void drop(List<Student> page) throws SQLException {
+        writeBack(page);
+        
+        List<Student> evicted = new ArrayList<>();
+        for (Student student : page) {
+            pagedIds.remove(student.getId());
+            if (pinnedIds.contains(student.getId())) {
+                // Stays resident on its own, so it is evicted once unpinned
+                singles.put(student.getId(), student);
+            } else {
+                evicted.add(student);
+            }
+        }
+        dataManager.evictStudents(evicted);
+    }
+    
+    private void evictSinglesIfNeeded() throws SQLException {
+        List<Student> evicted = new ArrayList<>();
+        Iterator<Student> eldest = singles.values().iterator();
+        while (singles.size() > pageSize && eldest.hasNext()) {
+            Student student = eldest.next();
+            if (!pinnedIds.contains(student.getId())) {
+                eldest.remove();
+                evicted.add(student);
+            }
+        }
+        if (!evicted.isEmpty()) {
+            writeBack(evicted);
+            dataManager.evictStudents(evicted);
+        }
+    }
+    
+    private void writeBack(List<Student> page) throws SQLException {
+        List<Grade> grades = new ArrayList<>();
+        for (Student student : page) {
+            grades.addAll(student.getGrades());
+        }
+        store.saveGrades(grades);
+        store.saveAttendance(dataManager.getAttendanceFor(page));
+        store.saveFees(dataManager.getFeesFor(page));
+    }
+}
\ No newline at end of file
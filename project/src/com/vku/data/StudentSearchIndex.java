@@ -0,0 +1,399 @@
+package com.vku.data;
+
+import com.vku.model.EntityListener;
+import com.vku.model.Student;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * Full-text index over the name, id, email, class and major of every
+ * student, for search-as-you-type. Text is folded to lowercase ASCII first,
+ * so "nguyen van an" finds "Nguyễn Văn An" and "đ" matches "d".
+ *
+ * Each term maps to the sorted ordinals of the students it occurs in; the
+ * terms are kept sorted for prefix lookup and indexed by their trigrams for
+ * substring and fuzzy lookup. Every word of a query must match some term of
+ * a student: exactly or as a prefix, failing that as a substring, and
+ * failing that within a small edit distance. Results are ranked by how well
+ * they matched. The index follows additions, removals and field changes one
+ * student at a time.
+ */
+public class StudentSearchIndex implements EntityListener {
+    // How well a query word matched a term; the best match of each word is summed
+    private static final int EXACT = 8;
+    private static final int PREFIX = 4;
+    private static final int SUBSTRING = 2;
+    private static final int FUZZY = 1;
+    
+    // Shorter query words are only matched exactly or as a prefix
+    private static final int MIN_GRAM_WORD = 3;
+    
+    private final OrdinalRegistry ordinals = new OrdinalRegistry();
+    private final NavigableMap<String, Postings> postings = new TreeMap<>();
+    private final Map<String, Set<String>> termsByTrigram = new HashMap<>();
+    
+    // Indexed by ordinal; null once a student is removed
+    private Student[] students = new Student[64];
+    private String[][] termsByStudent = new String[64][];
+    private String[] signatures = new String[64];
+    
+    StudentSearchIndex() {
+    }
+    
+    /**
+     * Indexes a student, replacing what was indexed under its id before.
+     *
+     * @param student the student
+     */
+    public synchronized void add(Student student) {
+        int ordinal = ordinals.ordinal(student.getId());
+        if (ordinal >= students.length) {
+            int capacity = Math.max(students.length * 2, ordinal + 1);
+            students = Arrays.copyOf(students, capacity);
+            termsByStudent = Arrays.copyOf(termsByStudent, capacity);
+            signatures = Arrays.copyOf(signatures, capacity);
+        }
+        unindex(ordinal);
+        
+        String[] terms = terms(student);
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                list = new Postings();
+                postings.put(term, list);
+                for (String trigram : trigrams(term)) {
+                    termsByTrigram.computeIfAbsent(trigram, k -> new HashSet<>()).add(term);
+                }
+            }
+            list.add(ordinal);
+        }
+        students[ordinal] = student;
+        termsByStudent[ordinal] = terms;
+        signatures[ordinal] = signature(student);
+    }
+    
+    public synchronized void remove(String id) {
+        int ordinal = ordinals.find(id);
+        if (ordinal >= 0) {
+            unindex(ordinal);
+        }
+    }
+    
+    public synchronized void clear() {
+        ordinals.clear();
+        postings.clear();
+        termsByTrigram.clear();
+        Arrays.fill(students, null);
+        Arrays.fill(termsByStudent, null);
+        Arrays.fill(signatures, null);
+    }
+    
+    /**
+     * Re-indexes a student whose searchable fields changed. Other changes,
+     * e.g. a new grade, are recognised and cost nothing.
+     */
+    @Override
+    public synchronized void entityChanged(Object entity) {
+        if (!(entity instanceof Student)) {
+            return;
+        }
+        Student student = (Student) entity;
+        int ordinal = ordinals.find(student.getId());
+        // Ignore objects that are not the indexed instance (e.g. not yet added)
+        if (ordinal < 0 || students[ordinal] != student) {
+            return;
+        }
+        if (!signature(student).equals(signatures[ordinal])) {
+            add(student);
+        }
+    }
+    
+    /**
+     * Finds the students matching every word of a query.
+     *
+     * @param query the words to look for, in any case and with or without accents
+     * @return the matching students, best match first and then in the order they were added
+     */
+    public synchronized List<Student> search(String query) {
+        List<String> words = tokenize(fold(query));
+        if (words.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        // A student stays in the running while it matched every word so far
+        int[] matchedWords = new int[ordinals.size()];
+        int[] scores = new int[ordinals.size()];
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            // Best matches first, so a student scores the best term it has
+            List<Map.Entry<String, Integer>> matches = new ArrayList<>(matchingTerms(word).entrySet());
+            matches.sort((a, b) -> Integer.compare(b.getValue(), a.getValue()));
+            int matchedNow = 0;
+            for (Map.Entry<String, Integer> match : matches) {
+                Postings list = postings.get(match.getKey());
+                for (int n = 0; n < list.size; n++) {
+                    int ordinal = list.ordinals[n];
+                    if (matchedWords[ordinal] == i) {
+                        matchedWords[ordinal] = i + 1;
+                        scores[ordinal] += match.getValue();
+                        matchedNow++;
+                    }
+                }
+            }
+            if (matchedNow == 0) {
+                return Collections.emptyList();
+            }
+        }
+        
+        // Sort on one primitive key: best score first, then the order the
+        // students were added in
+        long[] hits = new long[matchedWords.length];
+        int hitCount = 0;
+        for (int ordinal = 0; ordinal < matchedWords.length; ordinal++) {
+            if (matchedWords[ordinal] == words.size() && students[ordinal] != null) {
+                hits[hitCount++] = ((long) -scores[ordinal] << 32) | ordinal;
+            }
+        }
+        Arrays.sort(hits, 0, hitCount);
+        List<Student> results = new ArrayList<>(hitCount);
+        for (int i = 0; i < hitCount; i++) {
+            results.add(students[(int) hits[i]]);
+        }
+        return results;
+    }
+    
+    public synchronized int getTermCount() {
+        return postings.size();
+    }
+    
+    private void unindex(int ordinal) {
+        String[] terms = termsByStudent[ordinal];
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Postings list = postings.get(term);
+            if (list != null && list.remove(ordinal) && list.size == 0) {
+                postings.remove(term);
+                for (String trigram : trigrams(term)) {
+                    Set<String> withTrigram = termsByTrigram.get(trigram);
+                    if (withTrigram != null && withTrigram.remove(term) && withTrigram.isEmpty()) {
+                        termsByTrigram.remove(trigram);
+                    }
+                }
+            }
+        }
+        students[ordinal] = null;
+        termsByStudent[ordinal] = null;
+        signatures[ordinal] = null;
+    }
+    
+    /**
+     * Collects the terms a query word matches, each with its match quality.
+     * Looser kinds of match are only tried when the stricter ones found
+     * nothing, which keeps both the noise and the work down.
+     */
+    private Map<String, Integer> matchingTerms(String word) {
+        Map<String, Integer> matches = new HashMap<>();
+        
+        // Exact and prefix matches are one range of the sorted terms
+        for (String term : postings.subMap(word, true, word + Character.MAX_VALUE, false).keySet()) {
+            matches.put(term, term.length() == word.length() ? EXACT : PREFIX);
+        }
+        if (!matches.isEmpty() || word.length() < MIN_GRAM_WORD) {
+            return matches;
+        }
+        
+        // A term containing the word has every trigram of it; check the
+        // terms with the rarest one
+        Set<String> rarest = null;
+        for (int i = 0; i + 3 <= word.length(); i++) {
+            Set<String> terms = termsByTrigram.get(word.substring(i, i + 3));
+            if (terms == null) {
+                rarest = Collections.emptySet();
+                break;
+            }
+            if (rarest == null || terms.size() < rarest.size()) {
+                rarest = terms;
+            }
+        }
+        for (String term : rarest) {
+            if (term.contains(word)) {
+                matches.put(term, SUBSTRING);
+            }
+        }
+        if (!matches.isEmpty() || hasDigit(word)) {
+            // Ids and other codes are never matched by similarity
+            return matches;
+        }
+        
+        // Count the padded trigrams each term shares with the word; each
+        // edit destroys at most three of them
+        Map<String, Integer> shared = new HashMap<>();
+        List<String> wordTrigrams = trigrams(word);
+        for (String trigram : wordTrigrams) {
+            Set<String> terms = termsByTrigram.get(trigram);
+            if (terms != null) {
+                for (String term : terms) {
+                    shared.merge(term, 1, Integer::sum);
+                }
+            }
+        }
+        int maxEdits = word.length() <= 5 ? 1 : 2;
+        for (Map.Entry<String, Integer> candidate : shared.entrySet()) {
+            String term = candidate.getKey();
+            if (candidate.getValue() >= wordTrigrams.size() - 3 * maxEdits
+                    && withinDistance(word, term, maxEdits)) {
+                matches.put(term, FUZZY);
+            }
+        }
+        return matches;
+    }
+    
+    private static boolean hasDigit(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.isDigit(word.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Levenshtein distance check that only fills the band of the table
+     * within the limit and gives up as soon as a row exceeds it.
+     */
+    static boolean withinDistance(String a, String b, int limit) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > limit) {
+            return false;
+        }
+        int infinity = limit + 1;
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            previous[j] = j <= limit ? j : infinity;
+        }
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - limit);
+            int to = Math.min(m, i + limit);
+            current[0] = i <= limit ? i : infinity;
+            if (from > 1) {
+                current[from - 1] = infinity;
+            }
+            int rowMin = current[0];
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+                current[j] = Math.min(value, infinity);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < m) {
+                current[to + 1] = infinity;
+            }
+            if (rowMin > limit) {
+                return false;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[m] <= limit;
+    }
+    
+    private static String[] terms(Student student) {
+        Set<String> terms = new LinkedHashSet<>();
+        for (String field : new String[]{student.getName(), student.getId(), student.getEmail(),
+                                         student.getClassName(), student.getMajor()}) {
+            if (field != null) {
+                terms.addAll(tokenize(fold(field)));
+            }
+        }
+        return terms.toArray(new String[0]);
+    }
+    
+    private static String signature(Student student) {
+        return student.getName() + '\u0000' + student.getEmail() + '\u0000' + student.getClassName()
+             + '\u0000' + student.getMajor();
+    }
+    
+    /**
+     * Lowercases text and strips accents, e.g. "Đặng Thị Ánh" becomes
+     * "dang thi anh".
+     */
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (c == 'đ' || c == 'Đ') {
+                c = 'd';
+            }
+            folded.append(Character.toLowerCase(c));
+        }
+        return folded.toString();
+    }
+    
+    // Splits folded text into runs of letters and digits
+    private static List<String> tokenize(String folded) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+    
+    // Trigrams of the term padded with a marker at both ends
+    private static List<String> trigrams(String term) {
+        String padded = "^" + term + "$";
+        List<String> trigrams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            trigrams.add(padded.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+    
+    /**
+     * Sorted ordinals of the students a term occurs in.
+     */
+    private static final class Postings {
+        int[] ordinals = new int[4];
+        int size;
+        
+        void add(int ordinal) {
+            int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (index >= 0) {
+                return;
+            }
+            index = -index - 1;
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            System.arraycopy(ordinals, index, ordinals, index + 1, size - index);
+            ordinals[index] = ordinal;
+            size++;
+        }
+        
+        boolean remove(int ordinal) {
+            int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+            if (index < 0) {
+                return false;
+            }
+            System.arraycopy(ordinals, index + 1, ordinals, index, size - index - 1);
+            size--;
+            return true;
+        }
+    }
+}
\ No newline at end of file
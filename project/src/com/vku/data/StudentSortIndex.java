@@ -0,0 +1,258 @@
+package com.vku.data;
+
+import com.vku.model.EntityListener;
+import com.vku.model.Fee;
+import com.vku.model.Student;
+import com.vku.model.Subject;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Sort indexes over the students by name, id, class, GPA and fee amount.
+ * Each index is a precomputed permutation, stored as every student's
+ * position in the order, so sorting any set of students, e.g. a filter
+ * result, only looks the positions up and sorts those as primitives.
+ *
+ * The index keeps a copy of each student's sort values and follows
+ * changes through the model events. A change that moves a student marks
+ * only the affected order stale; it is rebuilt on the next sort by it, so
+ * bulk loads and bursts of edits cost one rebuild. Names are ordered by
+ * the Vietnamese collation rules.
+ */
+public class StudentSortIndex implements EntityListener {
+    private final Collator collator = Collator.getInstance(new Locale("vi", "VN"));
+    private final OrdinalRegistry ordinals = new OrdinalRegistry();
+    
+    // A student has a single fee record; kept here as fees may arrive first
+    private final Map<String, Fee> fees = new HashMap<>();
+    
+    // Sort values indexed by ordinal; students[ordinal] is null if the ordinal is free
+    private Student[] students = new Student[64];
+    private String[] names = new String[64];
+    private String[] classes = new String[64];
+    private double[] gpas = new double[64];
+    private double[] amounts = new double[64];
+    
+    // Position of each ordinal per key, indexed by SortKey ordinal; null when stale
+    private final int[][] ranks = new int[SortKey.values().length][];
+    
+    // The ordinals in each order, by position; rebuilt along with the ranks
+    private final int[][] orders = new int[SortKey.values().length][];
+    
+    // Set when a subject changes, e.g. its credits, which may move every GPA
+    // without a student event
+    private boolean gpasChanged;
+    
+    StudentSortIndex() {
+    }
+    
+    /**
+     * Adds a student, replacing what was recorded under its id before.
+     *
+     * @param student the student
+     */
+    public synchronized void add(Student student) {
+        int ordinal = ordinals.ordinal(student.getId());
+        if (ordinal >= students.length) {
+            int capacity = Math.max(students.length * 2, ordinal + 1);
+            students = Arrays.copyOf(students, capacity);
+            names = Arrays.copyOf(names, capacity);
+            classes = Arrays.copyOf(classes, capacity);
+            gpas = Arrays.copyOf(gpas, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+        }
+        students[ordinal] = student;
+        names[ordinal] = student.getName();
+        classes[ordinal] = student.getClassName();
+        gpas[ordinal] = student.calculateGPA();
+        amounts[ordinal] = amountOf(student.getId());
+        Arrays.fill(ranks, null);
+    }
+    
+    public synchronized void remove(String id) {
+        fees.remove(id);
+        int ordinal = ordinals.release(id);
+        if (ordinal >= 0) {
+            // The orders keep the freed position until rebuilt; it is never
+            // looked up, and the next student added under it rebuilds them
+            students[ordinal] = null;
+            names[ordinal] = null;
+            classes[ordinal] = null;
+        }
+    }
+    
+    /**
+     * Records a student's fee, replacing any earlier one.
+     *
+     * @param fee the fee
+     */
+    public synchronized void addFee(Fee fee) {
+        String id = fee.getStudent().getId();
+        fees.put(id, fee);
+        int ordinal = ordinals.find(id);
+        if (ordinal >= 0 && students[ordinal] != null) {
+            invalidate(SortKey.FEE_AMOUNT, amounts[ordinal] != fee.getAmount());
+            amounts[ordinal] = fee.getAmount();
+        }
+    }
+    
+    public synchronized void clear() {
+        ordinals.clear();
+        fees.clear();
+        Arrays.fill(students, null);
+        Arrays.fill(ranks, null);
+        gpasChanged = false;
+    }
+    
+    /**
+     * Refreshes the sort values of a changed student or fee and marks the
+     * orders they moved in as stale.
+     */
+    @Override
+    public synchronized void entityChanged(Object entity) {
+        if (entity instanceof Student) {
+            Student student = (Student) entity;
+            int ordinal = ordinals.find(student.getId());
+            // Ignore objects that are not the indexed instance (e.g. not yet added)
+            if (ordinal < 0 || students[ordinal] != student) {
+                return;
+            }
+            invalidate(SortKey.NAME, !Objects.equals(names[ordinal], student.getName()));
+            invalidate(SortKey.CLASS, !Objects.equals(classes[ordinal], student.getClassName()));
+            double gpa = student.calculateGPA();
+            invalidate(SortKey.GPA, gpas[ordinal] != gpa);
+            names[ordinal] = student.getName();
+            classes[ordinal] = student.getClassName();
+            gpas[ordinal] = gpa;
+        } else if (entity instanceof Fee) {
+            Fee fee = (Fee) entity;
+            if (fees.get(fee.getStudent().getId()) == fee) {
+                addFee(fee);
+            }
+        } else if (entity instanceof Subject) {
+            gpasChanged = true;
+            ranks[SortKey.GPA.ordinal()] = null;
+        }
+    }
+    
+    /**
+     * Sorts items belonging to indexed students, e.g. the students of a
+     * filter or the grades of a section.
+     *
+     * @param items the items to sort
+     * @param studentOf gives the student of an item
+     * @param key the order; not {@link SortKey#AVERAGE}
+     * @param ascending whether the smallest value comes first
+     * @return the sorted items; items of students not in the index go last
+     */
+    public synchronized <T> List<T> sort(List<T> items, Function<? super T, Student> studentOf, SortKey key,
+                                         boolean ascending) {
+        int[] rank = ranks(key);
+        return RankOrder.sort(items, item -> {
+            Student student = studentOf.apply(item);
+            int ordinal = ordinals.find(student.getId());
+            return ordinal >= 0 && ordinal < rank.length && students[ordinal] == student
+                ? rank[ordinal] : RankOrder.UNRANKED;
+        }, ascending);
+    }
+    
+    /**
+     * Gets a run of students in an order without sorting them, e.g. a
+     * page of the students by id.
+     *
+     * @param key the order; not {@link SortKey#AVERAGE}
+     * @param from the position of the first student
+     * @param count the most students to return
+     * @return the students, fewer past the end of the order
+     */
+    public synchronized List<Student> slice(SortKey key, long from, int count) {
+        ranks(key);
+        int[] order = orders[key.ordinal()];
+        List<Student> slice = new ArrayList<>(Math.min(count, order.length));
+        long position = 0;
+        for (int i = 0; i < order.length && slice.size() < count; i++) {
+            // Students removed since the build leave gaps that do not count
+            Student student = students[order[i]];
+            if (student != null && position++ >= from) {
+                slice.add(student);
+            }
+        }
+        return slice;
+    }
+    
+    // Marks an order stale if a student's value in it changed
+    private void invalidate(SortKey key, boolean changed) {
+        if (changed) {
+            ranks[key.ordinal()] = null;
+        }
+    }
+    
+    private double amountOf(String id) {
+        Fee fee = fees.get(id);
+        return fee == null ? 0.0 : fee.getAmount();
+    }
+    
+    private int[] ranks(SortKey key) {
+        int[] rank = ranks[key.ordinal()];
+        if (rank == null) {
+            int[] order = build(key);
+            rank = new int[ordinals.size()];
+            Arrays.fill(rank, RankOrder.UNRANKED);
+            for (int position = 0; position < order.length; position++) {
+                rank[order[position]] = position;
+            }
+            ranks[key.ordinal()] = rank;
+            orders[key.ordinal()] = order;
+        }
+        return rank;
+    }
+    
+    // Returns the ordinals of the students in the order
+    private int[] build(SortKey key) {
+        if (key == SortKey.GPA && gpasChanged) {
+            for (int ordinal = 0; ordinal < ordinals.size(); ordinal++) {
+                if (students[ordinal] != null) {
+                    gpas[ordinal] = students[ordinal].calculateGPA();
+                }
+            }
+            gpasChanged = false;
+        }
+        
+        List<Integer> order = new ArrayList<>(ordinals.size());
+        for (int ordinal = 0; ordinal < ordinals.size(); ordinal++) {
+            if (students[ordinal] != null) {
+                order.add(ordinal);
+            }
+        }
+        // The sort is stable, so ties stay in ordinal order
+        order.sort(comparator(key));
+        return order.stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    private Comparator<Integer> comparator(SortKey key) {
+        switch (key) {
+            case NAME:
+                // Collation keys compare much faster than the collator itself
+                CollationKey[] collationKeys = new CollationKey[ordinals.size()];
+                for (int ordinal = 0; ordinal < collationKeys.length; ordinal++) {
+                    if (students[ordinal] != null) {
+                        collationKeys[ordinal] = collator.getCollationKey(String.valueOf(names[ordinal]));
+                    }
+                }
+                return (a, b) -> collationKeys[a].compareTo(collationKeys[b]);
+            case ID:
+                return Comparator.comparing(ordinals::id);
+            case CLASS:
+                return Comparator.comparing(ordinal -> classes[ordinal], Comparator.nullsFirst(Comparator.naturalOrder()));
+            case GPA:
+                return (a, b) -> Double.compare(gpas[a], gpas[b]);
+            case FEE_AMOUNT:
+                return (a, b) -> Double.compare(amounts[a], amounts[b]);
+            default:
+                throw new IllegalArgumentException("Students have no " + key + " order");
+        }
+    }
+}
\ No newline at end of file
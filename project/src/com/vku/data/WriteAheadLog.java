@@ -0,0 +1,281 @@
+package com.vku.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log file of opaque records with group commit. Appending only
+ * queues a record; a background writer collects everything queued, writes
+ * it in one go and forces it to disk with a single fsync, so concurrent
+ * writers share the cost of syncing. Each record is framed with its length
+ * and a CRC32, and a torn or corrupt tail left by a crash is cut off when
+ * the log is reopened.
+ */
+public class WriteAheadLog implements Closeable {
+    private static final int HEADER_SIZE = 8;
+    private static final int MAX_RECORD_SIZE = 16 * 1024 * 1024;
+    
+    // How long the writer waits for more records before syncing a batch
+    private static final long GROUP_COMMIT_DELAY = TimeUnit.MILLISECONDS.toNanos(2);
+    
+    private final Path file;
+    private final FileChannel channel;
+    private final Thread writer;
+    
+    // Guarded by the monitor of "this"
+    private List<byte[]> pending = new ArrayList<>();
+    private long appended;
+    private long durable;
+    private IOException failure;
+    private boolean closed;
+    
+    /**
+     * Opens a log for appending, creating the file if needed.
+     *
+     * @param file the log file
+     * @throws IOException if the file cannot be opened
+     */
+    public WriteAheadLog(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                        StandardOpenOption.WRITE);
+        
+        // Drop a partly written record left by a crash
+        long validLength = scan(channel, null);
+        channel.truncate(validLength);
+        channel.position(validLength);
+        
+        writer = new Thread(this::writeLoop, "wal-writer-" + file.getFileName());
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    /**
+     * Reads every intact record of a log file, stopping at a torn tail.
+     *
+     * @param file the log file
+     * @return the records in the order they were appended
+     * @throws IOException if the file cannot be read
+     */
+    public static List<byte[]> readAll(Path file) throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            scan(channel, records);
+        }
+        return records;
+    }
+    
+    /**
+     * Queues a record. It is durable once {@link #awaitDurable} returns for
+     * the returned sequence number.
+     *
+     * @param record the record bytes
+     * @return the sequence number of the record
+     * @throws IllegalStateException if the log is closed or a write failed
+     */
+    public synchronized long append(byte[] record) {
+        if (closed) {
+            throw new IllegalStateException("Write-ahead log is closed: " + file);
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Write-ahead log failed: " + file, failure);
+        }
+        if (record.length > MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Record too large: " + record.length + " bytes");
+        }
+        pending.add(record);
+        appended++;
+        notifyAll();
+        return appended;
+    }
+    
+    /**
+     * Waits until a record, and everything appended before it, is on disk.
+     *
+     * @param sequence the sequence number returned by {@link #append}
+     * @throws IOException if writing the log failed
+     */
+    public synchronized void awaitDurable(long sequence) throws IOException {
+        boolean interrupted = false;
+        while (durable < sequence && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (durable < sequence) {
+            throw failure;
+        }
+    }
+    
+    /**
+     * Waits until every record appended so far is on disk.
+     *
+     * @throws IOException if writing the log failed
+     */
+    public void sync() throws IOException {
+        long sequence;
+        synchronized (this) {
+            sequence = appended;
+        }
+        awaitDurable(sequence);
+    }
+    
+    public long size() throws IOException {
+        return channel.size();
+    }
+    
+    /**
+     * Writes out the queued records and closes the file.
+     *
+     * @throws IOException if the last records could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+    
+    private void writeLoop() {
+        while (true) {
+            synchronized (this) {
+                while (pending.isEmpty() && !closed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // Only close() stops the writer
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+            }
+            
+            // Give concurrent writers a moment to join the batch
+            LockSupport.parkNanos(GROUP_COMMIT_DELAY);
+            
+            List<byte[]> batch;
+            long last;
+            synchronized (this) {
+                batch = pending;
+                pending = new ArrayList<>();
+                last = appended;
+            }
+            
+            IOException error = null;
+            try {
+                writeBatch(batch);
+            } catch (IOException e) {
+                error = e;
+            }
+            
+            synchronized (this) {
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durable = last;
+                }
+                notifyAll();
+                if (failure != null) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    private void writeBatch(List<byte[]> batch) throws IOException {
+        int total = 0;
+        for (byte[] record : batch) {
+            total += HEADER_SIZE + record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(total);
+        CRC32 crc = new CRC32();
+        for (byte[] record : batch) {
+            crc.reset();
+            crc.update(record);
+            buffer.putInt(record.length);
+            buffer.putInt((int) crc.getValue());
+            buffer.put(record);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+    }
+    
+    /**
+     * Walks the records of a log from the start.
+     *
+     * @param records receives the intact records, or null to only measure
+     * @return the length of the intact prefix of the file
+     */
+    private static long scan(FileChannel channel, List<byte[]> records) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length < 0 || length > MAX_RECORD_SIZE || position + HEADER_SIZE + length > size) {
+                break;
+            }
+            
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, position + HEADER_SIZE);
+            crc.reset();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            if (records != null) {
+                records.add(payload.array());
+            }
+            position += HEADER_SIZE + length;
+        }
+        return position;
+    }
+    
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of log");
+            }
+        }
+    }
+}
\ No newline at end of file
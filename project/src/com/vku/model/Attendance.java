@@ -4,6 +4,8 @@ import java.util.Date;
 
 /**
  * Represents an attendance record for a student in a specific subject.
+ * DataManager stores attendance as bitsets and hands out these records
+ * as copies.
  */
 public class Attendance {
     private Student student;
@@ -0,0 +1,14 @@
+package com.vku.model;
+
+/**
+ * Receives notifications when a model object changes in a way that
+ * derived data (indexes, statistics) may depend on.
+ */
+public interface EntityListener {
+    /**
+     * Called after an entity has changed.
+     *
+     * @param entity the student, fee, project, subject or grade that changed
+     */
+    void entityChanged(Object entity);
+}
\ No newline at end of file
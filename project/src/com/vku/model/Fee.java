@@ -25,6 +25,7 @@ public class Fee {
     
     public void setAmount(double amount) {
         this.amount = amount;
+        ModelEvents.fireChanged(this);
     }
     
     public boolean isPaid() {
@@ -33,5 +34,6 @@ public class Fee {
     
     public void setPaid(boolean paid) {
         this.paid = paid;
+        ModelEvents.fireChanged(this);
     }
 }
\ No newline at end of file
@@ -4,6 +4,13 @@ package com.vku.model;
  * Represents a student's grade for a specific subject.
  */
 public class Grade {
+    // Score components, also used as column numbers by column storage
+    public static final int ASSIGNMENT = 0;
+    public static final int MIDTERM = 1;
+    public static final int ATTENDANCE = 2;
+    public static final int FINAL = 3;
+    public static final int COMPONENT_COUNT = 4;
+    
     private Student student;
     private Subject subject;
     private double assignmentScore;
@@ -11,38 +18,46 @@ public class Grade {
     private double attendanceScore;
     private double finalScore;
     
+    // Set once the grade is part of its student's running GPA totals
+    private boolean counted;
+    
     public Grade(Student student, Subject subject) {
         this.student = student;
         this.subject = subject;
     }
     
     /**
-     * Calculates the average score based on the weighted components:
-     * - Assignment: 20%
-     * - Midterm: 20%
-     * - Attendance: 10%
-     * - Final: 50%
+     * Calculates the average score from the weighted components, as set by
+     * the subject's grading policy (20% assignment, 20% midterm, 10%
+     * attendance and 50% final by default).
      * 
      * @return the calculated average score
      */
     public double calculateAverage() {
-        return (assignmentScore * 0.2) + (midtermScore * 0.2) + 
-               (attendanceScore * 0.1) + (finalScore * 0.5);
+        return getGradingPolicy().average(getAssignmentScore(), getMidtermScore(), 
+                                          getAttendanceScore(), getFinalScore());
     }
     
     /**
-     * Gets the letter grade (A, B, C, D, F) based on the average score.
+     * Gets the letter grade (A, B, C, D, F by default) based on the average score.
      * 
      * @return the letter grade
      */
     public String getLetterGrade() {
-        double average = calculateAverage();
-        
-        if (average >= 8.5) return "A";
-        if (average >= 7.0) return "B";
-        if (average >= 5.5) return "C";
-        if (average >= 4.0) return "D";
-        return "F";
+        return getGradingPolicy().letterFor(calculateAverage());
+    }
+    
+    /**
+     * Gets the average score on the 4-point scale.
+     * 
+     * @return the grade points
+     */
+    public double getGradePoints() {
+        return getGradingPolicy().gradePoints(calculateAverage());
+    }
+    
+    public GradingPolicy getGradingPolicy() {
+        return subject != null ? subject.getGradingPolicy() : GradingPolicy.STANDARD;
     }
     
     // Getters and setters
@@ -55,34 +70,89 @@ public class Grade {
     }
     
     public double getAssignmentScore() {
-        return assignmentScore;
+        return readScore(ASSIGNMENT);
     }
     
     public void setAssignmentScore(double assignmentScore) {
-        this.assignmentScore = assignmentScore;
+        writeScore(ASSIGNMENT, assignmentScore);
+        ModelEvents.fireChanged(this);
     }
     
     public double getMidtermScore() {
-        return midtermScore;
+        return readScore(MIDTERM);
     }
     
     public void setMidtermScore(double midtermScore) {
-        this.midtermScore = midtermScore;
+        writeScore(MIDTERM, midtermScore);
+        ModelEvents.fireChanged(this);
     }
     
     public double getAttendanceScore() {
-        return attendanceScore;
+        return readScore(ATTENDANCE);
     }
     
     public void setAttendanceScore(double attendanceScore) {
-        this.attendanceScore = attendanceScore;
+        writeScore(ATTENDANCE, attendanceScore);
+        ModelEvents.fireChanged(this);
     }
     
     public double getFinalScore() {
-        return finalScore;
+        return readScore(FINAL);
     }
     
     public void setFinalScore(double finalScore) {
-        this.finalScore = finalScore;
+        double previous = readScore(FINAL);
+        writeScore(FINAL, finalScore);
+        if (counted) {
+            student.finalScoreChanged(this, previous);
+        }
+        ModelEvents.fireChanged(this);
+    }
+    
+    void setCounted(boolean counted) {
+        this.counted = counted;
+    }
+    
+    /**
+     * Reads the stored value of a score component. Subclasses that keep the
+     * scores elsewhere override this together with {@link #writeScore}.
+     * 
+     * @param component the component, e.g. {@link #FINAL}
+     * @return the score
+     */
+    protected double readScore(int component) {
+        switch (component) {
+            case ASSIGNMENT:
+                return assignmentScore;
+            case MIDTERM:
+                return midtermScore;
+            case ATTENDANCE:
+                return attendanceScore;
+            default:
+                return finalScore;
+        }
+    }
+    
+    /**
+     * Stores the value of a score component without firing any events.
+     * 
+     * @param component the component, e.g. {@link #FINAL}
+     * @param score the score
+     */
+    protected void writeScore(int component, double score) {
+        switch (component) {
+            case ASSIGNMENT:
+                assignmentScore = score;
+                break;
+            case MIDTERM:
+                midtermScore = score;
+                break;
+            case ATTENDANCE:
+                attendanceScore = score;
+                break;
+            default:
+                finalScore = score;
+                break;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,219 @@
+package com.vku.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rules for grading a subject: the weight of each score component, how the
+ * average is rounded, the letter grades and the 4-point scale.
+ *
+ * Policies are immutable. Creating one compiles its letter and grade point
+ * ladders into lookup tables over the 10-point range, in steps of 0.01, and
+ * policies with the same ladders share the tables. Grading a score is then
+ * a clamp and an array read, with no branching on thresholds and no
+ * allocation.
+ */
+public final class GradingPolicy {
+    /** Rounding setting that keeps the average as computed. */
+    public static final int NO_ROUNDING = -1;
+    
+    private static final double MAX_SCORE = 10.0;
+    private static final int STEPS_PER_POINT = 100;
+    private static final int TABLE_SIZE = (int) (MAX_SCORE * STEPS_PER_POINT) + 1;
+    
+    // Absorbs floating point error, e.g. a weighted sum of 8.4999999999 for an 8.5
+    private static final double EPSILON = 1e-6;
+    
+    // Compiled ladders, keyed by their definition
+    private static final Map<String, Tables> TABLES = new ConcurrentHashMap<>();
+    
+    /**
+     * The university's rules: 20% assignment, 20% midterm, 10% attendance
+     * and 50% final, letters A to F, and the usual 4-point ladder.
+     */
+    public static final GradingPolicy STANDARD = new GradingPolicy("Standard",
+            new double[]{0.2, 0.2, 0.1, 0.5}, NO_ROUNDING,
+            new String[]{"A", "B", "C", "D", "F"}, new double[]{8.5, 7.0, 5.5, 4.0},
+            new double[]{8.5, 8.0, 7.5, 7.0, 6.5, 6.0, 5.5, 5.0, 4.0},
+            new double[]{4.0, 3.7, 3.3, 3.0, 2.7, 2.3, 2.0, 1.7, 1.0, 0.0});
+    
+    private final String name;
+    private final double[] weights;
+    private final int decimals;
+    private final double roundingScale;
+    private final String[] letters;
+    private final double[] letterThresholds;
+    private final double[] pointThresholds;
+    private final double[] points;
+    private final Tables tables;
+    
+    /**
+     * Creates a policy. Thresholds run from the best result down and may
+     * have at most two decimals.
+     *
+     * @param name the name shown to users
+     * @param weights the weight of each component, indexed as in {@link Grade}
+     * @param decimals the decimals the average is rounded to, half up, or {@link #NO_ROUNDING}
+     * @param letters the letter grades, best first
+     * @param letterThresholds the lowest average for each letter but the last
+     * @param pointThresholds the lowest average for each grade point value but the last
+     * @param points the grade points on the 4-point scale, best first
+     */
+    public GradingPolicy(String name, double[] weights, int decimals, String[] letters, double[] letterThresholds,
+                         double[] pointThresholds, double[] points) {
+        if (weights.length != Grade.COMPONENT_COUNT) {
+            throw new IllegalArgumentException("Expected " + Grade.COMPONENT_COUNT + " weights");
+        }
+        for (double weight : weights) {
+            if (!(weight >= 0.0)) {
+                throw new IllegalArgumentException("Weights must not be negative");
+            }
+        }
+        if (decimals < NO_ROUNDING || decimals > 3) {
+            throw new IllegalArgumentException("Cannot round to " + decimals + " decimals");
+        }
+        if (letters.length != letterThresholds.length + 1 || points.length != pointThresholds.length + 1) {
+            throw new IllegalArgumentException("Expected one threshold fewer than grades");
+        }
+        if (letters.length > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many letter grades");
+        }
+        checkThresholds(letterThresholds);
+        checkThresholds(pointThresholds);
+        
+        this.name = name;
+        this.weights = weights.clone();
+        this.decimals = decimals;
+        this.roundingScale = decimals == NO_ROUNDING ? 1.0 : Math.pow(10, decimals);
+        this.letters = letters.clone();
+        this.letterThresholds = letterThresholds.clone();
+        this.pointThresholds = pointThresholds.clone();
+        this.points = points.clone();
+        this.tables = TABLES.computeIfAbsent(
+            Arrays.toString(letterThresholds) + Arrays.toString(pointThresholds) + Arrays.toString(points),
+            key -> new Tables(this.letterThresholds, this.pointThresholds, this.points));
+    }
+    
+    private static void checkThresholds(double[] thresholds) {
+        for (int i = 0; i < thresholds.length; i++) {
+            double steps = thresholds[i] * STEPS_PER_POINT;
+            if (!(thresholds[i] >= 0.0 && thresholds[i] <= MAX_SCORE) || Math.abs(steps - Math.rint(steps)) > EPSILON) {
+                throw new IllegalArgumentException("Invalid threshold " + thresholds[i]);
+            }
+            if (i > 0 && thresholds[i] >= thresholds[i - 1]) {
+                throw new IllegalArgumentException("Thresholds must run from the best result down");
+            }
+        }
+    }
+    
+    /**
+     * Calculates the average of a grade's score components.
+     *
+     * @return the weighted average, rounded as the policy says
+     */
+    public double average(double assignment, double midterm, double attendance, double finalScore) {
+        double sum = assignment * weights[Grade.ASSIGNMENT] + midterm * weights[Grade.MIDTERM]
+                   + attendance * weights[Grade.ATTENDANCE] + finalScore * weights[Grade.FINAL];
+        if (decimals == NO_ROUNDING) {
+            return sum;
+        }
+        return Math.floor(sum * roundingScale + 0.5 + EPSILON) / roundingScale;
+    }
+    
+    /**
+     * Gets the position of an average's letter grade, from 0 for the best.
+     *
+     * @param average the average score
+     * @return the letter index
+     */
+    public int letterIndex(double average) {
+        return tables.letters[step(average)];
+    }
+    
+    /**
+     * Gets the letter grade for an average score.
+     *
+     * @param average the average score
+     * @return the letter grade
+     */
+    public String letterFor(double average) {
+        return letters[tables.letters[step(average)]];
+    }
+    
+    /**
+     * Converts an average score to the 4-point scale.
+     *
+     * @param average the average score
+     * @return the grade points
+     */
+    public double gradePoints(double average) {
+        return tables.points[step(average)];
+    }
+    
+    // Clamped into the table; NaN lands on 0
+    private static int step(double average) {
+        return (int) (Math.min(Math.max(average, 0.0), MAX_SCORE) * STEPS_PER_POINT + EPSILON);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public double[] getWeights() {
+        return weights.clone();
+    }
+    
+    public int getDecimals() {
+        return decimals;
+    }
+    
+    public int getLetterCount() {
+        return letters.length;
+    }
+    
+    public String letterAt(int index) {
+        return letters[index];
+    }
+    
+    public double[] getLetterThresholds() {
+        return letterThresholds.clone();
+    }
+    
+    public double[] getPointThresholds() {
+        return pointThresholds.clone();
+    }
+    
+    public double[] getPoints() {
+        return points.clone();
+    }
+    
+    @Override
+    public String toString() {
+        return name;
+    }
+    
+    /**
+     * The ladders evaluated once at every step of the 10-point range.
+     */
+    private static final class Tables {
+        final byte[] letters = new byte[TABLE_SIZE];
+        final double[] points = new double[TABLE_SIZE];
+        
+        Tables(double[] letterThresholds, double[] pointThresholds, double[] gradePoints) {
+            for (int step = 0; step < TABLE_SIZE; step++) {
+                double score = step / (double) STEPS_PER_POINT;
+                letters[step] = (byte) rung(letterThresholds, score);
+                points[step] = gradePoints[rung(pointThresholds, score)];
+            }
+        }
+        
+        private static int rung(double[] thresholds, double score) {
+            int index = 0;
+            while (index < thresholds.length && score < thresholds[index]) {
+                index++;
+            }
+            return index;
+        }
+    }
+}
\ No newline at end of file
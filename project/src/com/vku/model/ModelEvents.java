@@ -0,0 +1,28 @@
+package com.vku.model;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Registry of listeners notified when model objects change.
+ */
+public class ModelEvents {
+    private static final List<EntityListener> LISTENERS = new CopyOnWriteArrayList<>();
+    
+    private ModelEvents() {
+    }
+    
+    public static void addListener(EntityListener listener) {
+        LISTENERS.add(listener);
+    }
+    
+    public static void removeListener(EntityListener listener) {
+        LISTENERS.remove(listener);
+    }
+    
+    static void fireChanged(Object entity) {
+        for (EntityListener listener : LISTENERS) {
+            listener.entityChanged(entity);
+        }
+    }
+}
\ No newline at end of file
@@ -6,16 +6,25 @@ import java.util.Date;
  * Represents a notification or announcement in the system.
  */
 public class Notification {
+    /** The recipient of an announcement to everyone. */
+    public static final String EVERYONE = "@All";
+    
     private String sender;
     private String message;
     private Date date;
     private Subject relatedSubject; // Can be null for general announcements
+    private String recipient; // A class, an email or EVERYONE
     
     public Notification(String sender, String message, Date date, Subject relatedSubject) {
+        this(sender, message, date, relatedSubject, EVERYONE);
+    }
+    
+    public Notification(String sender, String message, Date date, Subject relatedSubject, String recipient) {
         this.sender = sender;
         this.message = message;
         this.date = date;
         this.relatedSubject = relatedSubject;
+        this.recipient = recipient != null ? recipient : EVERYONE;
     }
     
     // Getters and setters
@@ -34,4 +43,8 @@ public class Notification {
     public Subject getRelatedSubject() {
         return relatedSubject;
     }
+    
+    public String getRecipient() {
+        return recipient;
+    }
 }
\ No newline at end of file
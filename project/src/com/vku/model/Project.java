@@ -71,6 +71,7 @@ public class Project {
     
     public void setProgress(int progress) {
         this.progress = progress;
+        ModelEvents.fireChanged(this);
     }
     
     public double getGrade() {
@@ -79,5 +80,6 @@ public class Project {
     
     public void setGrade(double grade) {
         this.grade = grade;
+        ModelEvents.fireChanged(this);
     }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package com.vku.model;
+
+/**
+ * The kinds of user that can sign in.
+ */
+public enum Role {
+    TEACHER("Teacher"),
+    STUDENT("Student");
+    
+    private final String label;
+    
+    Role(String label) {
+        this.label = label;
+    }
+    
+    /**
+     * Gets the display name, also used as the stored role value.
+     *
+     * @return "Teacher" or "Student"
+     */
+    public String getLabel() {
+        return label;
+    }
+    
+    @Override
+    public String toString() {
+        return label;
+    }
+}
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.vku.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -19,6 +20,16 @@ public class Student extends User {
     private List<Subject> subjects;
     private List<Grade> grades;
     
+    // Read-only copies handed out by the getters; null after a change
+    private List<Subject> subjectsSnapshot;
+    private List<Grade> gradesSnapshot;
+    
+    // Running totals behind the GPA and credit getters
+    private double weightedScoreSum;
+    private int gradedCredits;
+    private int totalCredits;
+    private long creditsRevision = Subject.getCreditsRevision();
+    
     public Student(String id, String name, String className, String major, String course, 
                   String email, String password) {
         super(id, name, email, password);
@@ -29,29 +40,19 @@ public class Student extends User {
         this.grades = new ArrayList<>();
     }
     
+    @Override
+    public Role getRole() {
+        return Role.STUDENT;
+    }
+    
     /**
      * Calculates the GPA of the student based on a 10-point scale.
      * 
      * @return the GPA of the student
      */
-    public double calculateGPA() {
-        if (grades.isEmpty()) {
-            return 0.0;
-        }
-        
-        double totalPoints = 0.0;
-        double totalCredits = 0.0;
-        
-        for (Grade grade : grades) {
-            Subject subject = grade.getSubject();
-            double finalScore = grade.getFinalScore();
-            int credits = subject.getCredits();
-            
-            totalPoints += finalScore * credits;
-            totalCredits += credits;
-        }
-        
-        return totalCredits > 0 ? totalPoints / totalCredits : 0.0;
+    public synchronized double calculateGPA() {
+        refreshIfCreditsChanged();
+        return gradedCredits > 0 ? weightedScoreSum / gradedCredits : 0.0;
     }
     
     /**
@@ -60,19 +61,8 @@ public class Student extends User {
      * @return the GPA of the student
      */
     public double calculateGPA4Scale() {
-        double gpa10 = calculateGPA();
-        
-        // Convert 10-scale to 4-scale
-        if (gpa10 >= 8.5) return 4.0;
-        if (gpa10 >= 8.0) return 3.7;
-        if (gpa10 >= 7.5) return 3.3;
-        if (gpa10 >= 7.0) return 3.0;
-        if (gpa10 >= 6.5) return 2.7;
-        if (gpa10 >= 6.0) return 2.3;
-        if (gpa10 >= 5.5) return 2.0;
-        if (gpa10 >= 5.0) return 1.7;
-        if (gpa10 >= 4.0) return 1.0;
-        return 0.0;
+        // The GPA spans subjects, so it follows the university-wide policy
+        return GradingPolicy.STANDARD.gradePoints(calculateGPA());
     }
     
     /**
@@ -81,13 +71,7 @@ public class Student extends User {
      * @return the rank of the student (A, B, C, D, or F)
      */
     public String getRank() {
-        double gpa = calculateGPA();
-        
-        if (gpa >= 8.5) return "A";
-        if (gpa >= 7.0) return "B";
-        if (gpa >= 5.5) return "C";
-        if (gpa >= 4.0) return "D";
-        return "F";
+        return GradingPolicy.STANDARD.letterFor(calculateGPA());
     }
     
     /**
@@ -95,24 +79,75 @@ public class Student extends User {
      * 
      * @return the total credits
      */
-    public int getTotalCredits() {
-        int totalCredits = 0;
-        for (Subject subject : subjects) {
-            totalCredits += subject.getCredits();
-        }
+    public synchronized int getTotalCredits() {
+        refreshIfCreditsChanged();
         return totalCredits;
     }
     
     // Add subject to student's list
-    public void addSubject(Subject subject) {
+    public synchronized void addSubject(Subject subject) {
         if (!subjects.contains(subject)) {
             subjects.add(subject);
+            subjectsSnapshot = null;
+            refreshIfCreditsChanged();
+            totalCredits += subject.getCredits();
         }
     }
     
     // Add grade for student
     public void addGrade(Grade grade) {
-        grades.add(grade);
+        synchronized (this) {
+            grades.add(grade);
+            gradesSnapshot = null;
+            grade.setCounted(true);
+            refreshIfCreditsChanged();
+            
+            int credits = grade.getSubject().getCredits();
+            weightedScoreSum += grade.getFinalScore() * credits;
+            gradedCredits += credits;
+        }
+        // Listeners are called outside the lock so they may read the student back
+        ModelEvents.fireChanged(this);
+    }
+    
+    /**
+     * Adjusts the running totals after a counted grade's final score changed.
+     */
+    void finalScoreChanged(Grade grade, double previousScore) {
+        synchronized (this) {
+            if (!refreshIfCreditsChanged()) {
+                weightedScoreSum += (grade.getFinalScore() - previousScore) * grade.getSubject().getCredits();
+            }
+        }
+        ModelEvents.fireChanged(this);
+    }
+    
+    /**
+     * Recomputes the running totals from scratch if any subject's credits
+     * changed since they were last computed.
+     * 
+     * @return true if the totals were recomputed
+     */
+    private boolean refreshIfCreditsChanged() {
+        long revision = Subject.getCreditsRevision();
+        if (revision == creditsRevision) {
+            return false;
+        }
+        creditsRevision = revision;
+        
+        weightedScoreSum = 0.0;
+        gradedCredits = 0;
+        for (Grade grade : grades) {
+            int credits = grade.getSubject().getCredits();
+            weightedScoreSum += grade.getFinalScore() * credits;
+            gradedCredits += credits;
+        }
+        
+        totalCredits = 0;
+        for (Subject subject : subjects) {
+            totalCredits += subject.getCredits();
+        }
+        return true;
     }
     
     // Getters and setters
@@ -122,6 +157,7 @@ public class Student extends User {
     
     public void setClassName(String className) {
         this.className = className;
+        ModelEvents.fireChanged(this);
     }
     
     public String getMajor() {
@@ -130,6 +166,7 @@ public class Student extends User {
     
     public void setMajor(String major) {
         this.major = major;
+        ModelEvents.fireChanged(this);
     }
     
     public String getCourse() {
@@ -188,11 +225,20 @@ public class Student extends User {
         this.phone = phone;
     }
     
-    public List<Subject> getSubjects() {
-        return subjects;
+    // Copies, so callers can iterate while other threads add subjects and
+    // grades; a copy is shared by every call until the list changes
+    public synchronized List<Subject> getSubjects() {
+        if (subjectsSnapshot == null) {
+            subjectsSnapshot = Collections.unmodifiableList(new ArrayList<>(subjects));
+        }
+        return subjectsSnapshot;
     }
     
-    public List<Grade> getGrades() {
-        return grades;
+    // Read-only so that grades go through addGrade and keep the GPA totals right
+    public synchronized List<Grade> getGrades() {
+        if (gradesSnapshot == null) {
+            gradesSnapshot = Collections.unmodifiableList(new ArrayList<>(grades));
+        }
+        return gradesSnapshot;
     }
 }
\ No newline at end of file
@@ -1,13 +1,19 @@
 package com.vku.model;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Represents a subject or course in the system.
  */
 public class Subject {
+    // Bumped whenever any subject's credits change, so cached GPAs know to recompute
+    private static final AtomicLong CREDITS_REVISION = new AtomicLong();
+    
     private String id;
     private String name;
     private int credits;
     private Teacher teacher;
+    private volatile GradingPolicy gradingPolicy = GradingPolicy.STANDARD;
     
     public Subject(String id, String name, int credits, Teacher teacher) {
         this.id = id;
@@ -41,7 +47,15 @@ public class Subject {
     }
     
     public void setCredits(int credits) {
-        this.credits = credits;
+        if (this.credits != credits) {
+            this.credits = credits;
+            CREDITS_REVISION.incrementAndGet();
+            ModelEvents.fireChanged(this);
+        }
+    }
+    
+    static long getCreditsRevision() {
+        return CREDITS_REVISION.get();
     }
     
     public Teacher getTeacher() {
@@ -52,6 +66,23 @@ public class Subject {
         this.teacher = teacher;
     }
     
+    public GradingPolicy getGradingPolicy() {
+        return gradingPolicy;
+    }
+    
+    /**
+     * Sets the rules the subject's grades are averaged and graded by. Use
+     * DataManager.setGradingPolicy so that stored grades are recomputed.
+     * 
+     * @param gradingPolicy the policy
+     */
+    public void setGradingPolicy(GradingPolicy gradingPolicy) {
+        if (this.gradingPolicy != gradingPolicy) {
+            this.gradingPolicy = gradingPolicy;
+            ModelEvents.fireChanged(this);
+        }
+    }
+    
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
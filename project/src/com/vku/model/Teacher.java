@@ -14,6 +14,11 @@ public class Teacher extends User {
         this.subjects = new ArrayList<>();
     }
     
+    @Override
+    public Role getRole() {
+        return Role.TEACHER;
+    }
+    
     /**
      * Adds a subject to the teacher's list of taught subjects.
      * 
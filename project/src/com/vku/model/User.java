@@ -16,6 +16,13 @@ public abstract class User {
         this.password = password;
     }
     
+    /**
+     * Gets the role this user signs in with.
+     * 
+     * @return the user's role
+     */
+    public abstract Role getRole();
+    
     // Getters and setters
     public String getId() {
         return id;
@@ -0,0 +1,17 @@
+package com.vku.server;
+
+/**
+ * Signals an API error that is reported to the client with an HTTP status.
+ */
+class ApiException extends RuntimeException {
+    private final int status;
+    
+    ApiException(int status, String message) {
+        super(message);
+        this.status = status;
+    }
+    
+    int getStatus() {
+        return status;
+    }
+}
\ No newline at end of file
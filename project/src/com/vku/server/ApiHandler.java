@@ -0,0 +1,348 @@
+package com.vku.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.vku.auth.AuthenticationManager;
+import com.vku.auth.Session;
+import com.vku.auth.SessionManager;
+import com.vku.data.DataManager;
+import com.vku.data.StudentFacets;
+import com.vku.model.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Routes the JSON API under /api. Apart from login, every call needs a
+ * session token in an "Authorization: Bearer" header, and each resource
+ * checks the session's role: teachers see everyone, students only their
+ * own records.
+ */
+class ApiHandler implements HttpHandler {
+    private static final Logger LOG = Logger.getLogger(ApiHandler.class.getName());
+    static final String PREFIX = "/api";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 1000;
+    
+    private final DataManager dataManager = DataManager.getInstance();
+    
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            send(exchange, 200, route(exchange));
+        } catch (ApiException e) {
+            send(exchange, e.getStatus(), error(e.getMessage()));
+        } catch (RuntimeException e) {
+            LOG.log(Level.SEVERE, "Failed to handle " + exchange.getRequestMethod() + " "
+                + exchange.getRequestURI().getPath(), e);
+            send(exchange, 500, error("Internal server error; the details are in the server log"));
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private Object route(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath().substring(PREFIX.length());
+        Map<String, String> query = parseParameters(exchange.getRequestURI().getRawQuery());
+        
+        if (path.equals("/login")) {
+            requireMethod(method, "POST");
+            return login(parseParameters(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8)));
+        }
+        
+        Session session = requireSession(exchange);
+        if (path.equals("/logout")) {
+            requireMethod(method, "POST");
+            AuthenticationManager.logout(session);
+            return Collections.singletonMap("loggedOut", true);
+        }
+        
+        requireMethod(method, "GET");
+        switch (path) {
+            case "/me":
+                return session.isStudent() ? JsonViews.studentDetails(session.getStudent())
+                                           : JsonViews.user(session.getUser());
+            case "/students":
+                return students(session, query);
+            case "/subjects":
+                return subjects();
+            case "/grades":
+                return grades(session, query);
+            case "/attendance":
+                return attendance(session, query);
+            case "/fees":
+                return fees(session);
+            case "/projects":
+                return projects(session);
+            case "/notifications":
+                return notifications();
+            case "/statistics":
+                requireTeacher(session);
+                return JsonViews.statistics(dataManager.getStatistics());
+            default:
+                if (path.startsWith("/students/")) {
+                    return student(session, path.substring("/students/".length()));
+                }
+                throw new ApiException(404, "Not found: " + PREFIX + path);
+        }
+    }
+    
+    private Object login(Map<String, String> form) {
+        Role role = parseRole(form.get("role"));
+        String email = form.get("email");
+        String password = form.get("password");
+        if (email == null || password == null) {
+            throw new ApiException(400, "email and password are required");
+        }
+        
+        Session session;
+        try {
+            session = AuthenticationManager.authenticateAsync(role, email, password.toCharArray()).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                throw new ApiException(503, "Too many sign-in attempts, try again shortly");
+            }
+            throw e;
+        }
+        if (session == null) {
+            throw new ApiException(401, "Invalid credentials");
+        }
+        
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("token", session.getId());
+        json.put("user", JsonViews.user(session.getUser()));
+        return json;
+    }
+    
+    private Object students(Session session, Map<String, String> query) {
+        requireTeacher(session);
+        
+        // Plain paging walks the store in order, which also works on a paged database
+        if (query.containsKey("page")) {
+            int page = parseInt(query.get("page"), 0);
+            int size = parseInt(query.get("size"), DEFAULT_PAGE_SIZE);
+            if (size < 1 || size > MAX_PAGE_SIZE) {
+                throw new ApiException(400, "size must be between 1 and " + MAX_PAGE_SIZE);
+            }
+            List<Object> rows = new ArrayList<>();
+            for (Student student : dataManager.getStudentPage(page, size)) {
+                rows.add(JsonViews.student(student));
+            }
+            Map<String, Object> json = new LinkedHashMap<>();
+            json.put("page", page);
+            json.put("size", size);
+            json.put("total", dataManager.getStudentCount());
+            json.put("students", rows);
+            return json;
+        }
+        
+        // The same indexes as the student list in the application
+        Map<StudentFacets.Facet, Set<String>> selection = new EnumMap<>(StudentFacets.Facet.class);
+        if (query.containsKey("major")) {
+            selection.put(StudentFacets.Facet.MAJOR, Collections.singleton(query.get("major")));
+        }
+        if (query.containsKey("class")) {
+            selection.put(StudentFacets.Facet.CLASS, Collections.singleton(query.get("class")));
+        }
+        List<Object> rows = new ArrayList<>();
+        for (Student student : dataManager.filterStudents(selection, query.get("search")).getStudents()) {
+            rows.add(JsonViews.student(student));
+        }
+        return rows;
+    }
+    
+    private Object student(Session session, String id) {
+        if (session.isStudent() && !session.getUser().getId().equals(id)) {
+            throw new ApiException(403, "Students can only view their own record");
+        }
+        Student student = dataManager.getStudent(id);
+        if (student == null) {
+            throw new ApiException(404, "No student with id " + id);
+        }
+        return JsonViews.studentDetails(student);
+    }
+    
+    private Object subjects() {
+        List<Object> rows = new ArrayList<>();
+        for (Subject subject : dataManager.getSubjects()) {
+            rows.add(JsonViews.subject(subject));
+        }
+        return rows;
+    }
+    
+    private Object grades(Session session, Map<String, String> query) {
+        List<Object> rows = new ArrayList<>();
+        if (session.isStudent()) {
+            for (Grade grade : session.getStudent().getGrades()) {
+                rows.add(JsonViews.grade(grade));
+            }
+            return rows;
+        }
+        
+        Subject subject = requireSubject(query);
+        for (Student student : dataManager.getStudentsInSubject(subject)) {
+            Grade grade = dataManager.getGrade(student, subject);
+            rows.add(JsonViews.grade(grade != null ? grade : new Grade(student, subject)));
+        }
+        return rows;
+    }
+    
+    private Object attendance(Session session, Map<String, String> query) {
+        Date date = parseDate(query.get("date"));
+        List<Object> rows = new ArrayList<>();
+        if (session.isStudent()) {
+            Student student = session.getStudent();
+            for (Subject subject : student.getSubjects()) {
+                Attendance attendance = dataManager.getAttendance(student, subject, date);
+                rows.add(JsonViews.attendance(student, subject, date, attendance != null ? attendance.isPresent() : null));
+            }
+            return rows;
+        }
+        
+        // Read the whole session at once instead of one lookup per student
+        Subject subject = requireSubject(query);
+        Map<String, Boolean> sheet = dataManager.getAttendanceSheet(subject, date);
+        for (Student student : dataManager.getStudentsInSubject(subject)) {
+            rows.add(JsonViews.attendance(student, subject, date, sheet.get(student.getId())));
+        }
+        return rows;
+    }
+    
+    private Object fees(Session session) {
+        if (session.isStudent()) {
+            Fee fee = dataManager.getFeeForStudent(session.getStudent());
+            return fee != null ? JsonViews.fee(fee) : null;
+        }
+        List<Object> rows = new ArrayList<>();
+        for (Fee fee : dataManager.getFees()) {
+            rows.add(JsonViews.fee(fee));
+        }
+        return rows;
+    }
+    
+    private Object projects(Session session) {
+        Student student = session.isStudent() ? session.getStudent() : null;
+        List<Object> rows = new ArrayList<>();
+        for (Project project : dataManager.getProjects()) {
+            if (student == null || project.getStudents().contains(student)) {
+                rows.add(JsonViews.project(project));
+            }
+        }
+        return rows;
+    }
+    
+    private Object notifications() {
+        List<Object> rows = new ArrayList<>();
+        for (Notification notification : dataManager.getNotifications()) {
+            rows.add(JsonViews.notification(notification));
+        }
+        return rows;
+    }
+    
+    private Session requireSession(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        String token = header != null && header.startsWith("Bearer ") ? header.substring("Bearer ".length()).trim() : null;
+        Session session = SessionManager.getInstance().getSession(token);
+        if (session == null) {
+            throw new ApiException(401, "Sign in required");
+        }
+        return session;
+    }
+    
+    private static void requireTeacher(Session session) {
+        if (!session.isTeacher()) {
+            throw new ApiException(403, "Teacher access required");
+        }
+    }
+    
+    private static void requireMethod(String method, String expected) {
+        if (!expected.equals(method)) {
+            throw new ApiException(405, expected + " required");
+        }
+    }
+    
+    private Subject requireSubject(Map<String, String> query) {
+        String id = query.get("subject");
+        if (id == null) {
+            throw new ApiException(400, "subject is required");
+        }
+        Subject subject = dataManager.getSubject(id);
+        if (subject == null) {
+            throw new ApiException(404, "No subject with id " + id);
+        }
+        return subject;
+    }
+    
+    private static Role parseRole(String label) {
+        for (Role role : Role.values()) {
+            if (role.getLabel().equalsIgnoreCase(label) || role.name().equalsIgnoreCase(label)) {
+                return role;
+            }
+        }
+        throw new ApiException(400, "role must be Teacher or Student");
+    }
+    
+    private static int parseInt(String value, int defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int number = Integer.parseInt(value);
+            if (number < 0) {
+                throw new ApiException(400, "Expected a non-negative number: " + value);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "Expected a number: " + value);
+        }
+    }
+    
+    private static Date parseDate(String value) {
+        if (value == null) {
+            return new Date();
+        }
+        try {
+            return Date.from(LocalDate.parse(value).atStartOfDay(ZoneId.systemDefault()).toInstant());
+        } catch (DateTimeParseException e) {
+            throw new ApiException(400, "Expected a date like 2024-01-31: " + value);
+        }
+    }
+    
+    private static Map<String, String> parseParameters(String raw) {
+        Map<String, String> parameters = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return parameters;
+        }
+        for (String pair : raw.split("&")) {
+            int split = pair.indexOf('=');
+            String name = split >= 0 ? pair.substring(0, split) : pair;
+            String value = split >= 0 ? pair.substring(split + 1) : "";
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+    
+    private static Map<String, Object> error(String message) {
+        return Collections.singletonMap("error", message);
+    }
+    
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
\ No newline at end of file
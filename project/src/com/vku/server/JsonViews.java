@@ -0,0 +1,149 @@
+package com.vku.server;
+
+import com.vku.data.CampusStatistics;
+import com.vku.model.*;
+
+import java.time.ZoneId;
+import java.util.*;
+
+/**
+ * Converts model objects to the maps written by the API. Related entities
+ * are referenced by id rather than nested, so responses stay small.
+ */
+final class JsonViews {
+    private JsonViews() {
+    }
+    
+    static Map<String, Object> user(User user) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", user.getId());
+        json.put("name", user.getName());
+        json.put("email", user.getEmail());
+        json.put("role", user.getRole().getLabel());
+        return json;
+    }
+    
+    static Map<String, Object> student(Student student) {
+        Map<String, Object> json = user(student);
+        json.put("className", student.getClassName());
+        json.put("major", student.getMajor());
+        json.put("course", student.getCourse());
+        json.put("gpa", student.calculateGPA());
+        json.put("gpa4", student.calculateGPA4Scale());
+        json.put("rank", student.getRank());
+        json.put("totalCredits", student.getTotalCredits());
+        return json;
+    }
+    
+    static Map<String, Object> studentDetails(Student student) {
+        Map<String, Object> json = student(student);
+        json.put("dateOfBirth", student.getDateOfBirth());
+        json.put("gender", student.getGender());
+        json.put("phone", student.getPhone());
+        json.put("address", student.getAddress());
+        json.put("parentName", student.getParentName());
+        json.put("parentContact", student.getParentContact());
+        List<String> subjectIds = new ArrayList<>();
+        for (Subject subject : student.getSubjects()) {
+            subjectIds.add(subject.getId());
+        }
+        json.put("subjects", subjectIds);
+        return json;
+    }
+    
+    static Map<String, Object> subject(Subject subject) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", subject.getId());
+        json.put("name", subject.getName());
+        json.put("credits", subject.getCredits());
+        json.put("teacherId", subject.getTeacher() != null ? subject.getTeacher().getId() : null);
+        json.put("gradingPolicy", subject.getGradingPolicy().getName());
+        return json;
+    }
+    
+    static Map<String, Object> grade(Grade grade) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("studentId", grade.getStudent().getId());
+        json.put("studentName", grade.getStudent().getName());
+        json.put("subjectId", grade.getSubject().getId());
+        json.put("attendance", grade.getAttendanceScore());
+        json.put("assignment", grade.getAssignmentScore());
+        json.put("midterm", grade.getMidtermScore());
+        json.put("final", grade.getFinalScore());
+        json.put("average", grade.calculateAverage());
+        json.put("rank", grade.getLetterGrade());
+        json.put("gradePoints", grade.getGradePoints());
+        return json;
+    }
+    
+    static Map<String, Object> attendance(Student student, Subject subject, Date date, Boolean present) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("studentId", student.getId());
+        json.put("studentName", student.getName());
+        json.put("subjectId", subject.getId());
+        json.put("date", date(date));
+        // No record counts as present, like the attendance sheet
+        json.put("present", present == null || present);
+        return json;
+    }
+    
+    static Map<String, Object> fee(Fee fee) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("studentId", fee.getStudent().getId());
+        json.put("studentName", fee.getStudent().getName());
+        json.put("amount", fee.getAmount());
+        json.put("paid", fee.isPaid());
+        return json;
+    }
+    
+    static Map<String, Object> project(Project project) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", project.getId());
+        json.put("name", project.getName());
+        json.put("supervisorId", project.getSupervisor() != null ? project.getSupervisor().getId() : null);
+        json.put("deadline", project.getDeadline());
+        json.put("progress", project.getProgress());
+        json.put("grade", project.getGrade());
+        List<String> studentIds = new ArrayList<>();
+        for (Student student : project.getStudents()) {
+            studentIds.add(student.getId());
+        }
+        json.put("students", studentIds);
+        return json;
+    }
+    
+    static Map<String, Object> notification(Notification notification) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("sender", notification.getSender());
+        json.put("message", notification.getMessage());
+        json.put("date", date(notification.getDate()));
+        json.put("subjectId", notification.getRelatedSubject() != null ? notification.getRelatedSubject().getId() : null);
+        return json;
+    }
+    
+    static Map<String, Object> statistics(CampusStatistics.Snapshot snapshot) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("totalStudents", snapshot.getTotalStudents());
+        json.put("pendingProjects", snapshot.getPendingProjects());
+        json.put("unpaidFees", snapshot.getUnpaidFees());
+        json.put("averageGpa", snapshot.getAverageGpa());
+        json.put("byMajor", groups(snapshot.getByMajor()));
+        json.put("byClass", groups(snapshot.getByClass()));
+        return json;
+    }
+    
+    private static Map<String, Object> groups(Map<String, CampusStatistics.GroupStats> groups) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        for (Map.Entry<String, CampusStatistics.GroupStats> entry : groups.entrySet()) {
+            Map<String, Object> group = new LinkedHashMap<>();
+            group.put("students", entry.getValue().getStudents());
+            group.put("averageGpa", entry.getValue().getAverageGpa());
+            json.put(entry.getKey(), group);
+        }
+        return json;
+    }
+    
+    private static String date(Date date) {
+        return date != null ? date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().toString() : null;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.vku.server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executor that runs API requests. On Java 21 and later each
+ * request gets its own virtual thread; the factory method is looked up
+ * reflectively because the code is still built for Java 11. Older runtimes
+ * fall back to a bounded platform-thread pool that pushes back on the
+ * accepting thread once its queue is full.
+ */
+final class RequestExecutors {
+    private static final int QUEUE_CAPACITY = 1024;
+    
+    private RequestExecutors() {
+    }
+    
+    /**
+     * Creates the request executor.
+     *
+     * @param poolThreads the pool size used when virtual threads are unavailable
+     * @return the executor
+     */
+    static ExecutorService create(int poolThreads) {
+        ExecutorService virtualThreads = newVirtualThreadExecutor();
+        if (virtualThreads != null) {
+            return virtualThreads;
+        }
+        
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(poolThreads, poolThreads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+            runnable -> {
+                Thread thread = new Thread(runnable, "api-worker-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+    
+    /**
+     * Checks whether requests run on virtual threads in this runtime.
+     *
+     * @param executor an executor returned by {@link #create}
+     * @return true for the virtual thread executor
+     */
+    static boolean isVirtual(ExecutorService executor) {
+        return !(executor instanceof ThreadPoolExecutor);
+    }
+    
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            // Not available (before Java 21, or preview features disabled)
+            return null;
+        }
+    }
+}
\ No newline at end of file
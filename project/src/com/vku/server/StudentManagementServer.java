@@ -0,0 +1,82 @@
+package com.vku.server;
+
+import com.sun.net.httpserver.HttpServer;
+import com.vku.StudentManagementApp;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Headless entry point that serves the application data as a JSON API on
+ * the loopback interface, so thin clients can share one backend instead of
+ * each loading the whole dataset.
+ *
+ * Usage: {@code java com.vku.server.StudentManagementServer [port]}. The
+ * port can also be set with -Dvku.server.port (default 8080) and the
+ * fallback pool size with -Dvku.server.threads. The database settings are
+ * the same as for the desktop application.
+ */
+public class StudentManagementServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int BACKLOG = 512;
+    
+    private final HttpServer server;
+    private final ExecutorService executor;
+    
+    /**
+     * Creates a server bound to the loopback interface.
+     *
+     * @param port the port to listen on, or 0 for any free port
+     * @param poolThreads the pool size used when virtual threads are unavailable
+     * @throws IOException if the port cannot be bound
+     */
+    public StudentManagementServer(int port, int poolThreads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+        executor = RequestExecutors.create(poolThreads);
+        server.setExecutor(executor);
+        server.createContext(ApiHandler.PREFIX, new ApiHandler());
+    }
+    
+    public void start() {
+        server.start();
+    }
+    
+    /**
+     * Stops accepting requests and waits briefly for running ones.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+    
+    public boolean isUsingVirtualThreads() {
+        return RequestExecutors.isVirtual(executor);
+    }
+    
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("vku.server.port", DEFAULT_PORT);
+        int poolThreads = Integer.getInteger("vku.server.threads", Runtime.getRuntime().availableProcessors() * 8);
+        
+        // Load the data before accepting requests
+        StudentManagementApp.initData();
+        
+        StudentManagementServer server = new StudentManagementServer(port, poolThreads);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        server.start();
+        
+        System.out.println("VKU API listening on http://localhost:" + server.getPort() + ApiHandler.PREFIX
+                           + (server.isUsingVirtualThreads() ? " (virtual threads)" : " (" + poolThreads + " worker threads)"));
+    }
+}
\ No newline at end of file
@@ -1,18 +1,22 @@
 package com.vku.ui;
 
 import com.vku.auth.AuthenticationManager;
+import com.vku.model.Role;
 import com.vku.ui.components.ModernButton;
 import com.vku.ui.components.ModernPanel;
 import com.vku.ui.components.RoundedTextField;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Login panel for the application with role selection, email and password fields.
  */
 public class LoginPanel extends ModernPanel {
-    private JComboBox<String> roleComboBox;
+    private JComboBox<Role> roleComboBox;
     private JTextField emailField;
     private JPasswordField passwordField;
     private JLabel errorLabel;
@@ -22,6 +26,21 @@ public class LoginPanel extends ModernPanel {
         initComponents();
     }
     
+    /**
+     * Opens the login screen in a new frame.
+     *
+     * @return the login frame
+     */
+    public static JFrame showLoginFrame() {
+        JFrame loginFrame = new JFrame("VKU Student Management System");
+        loginFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        loginFrame.setSize(400, 500);
+        loginFrame.setLocationRelativeTo(null);
+        loginFrame.add(new LoginPanel());
+        loginFrame.setVisible(true);
+        return loginFrame;
+    }
+    
     private void initComponents() {
         // Center panel with login form
         JPanel centerPanel = new ModernPanel();
@@ -44,7 +63,7 @@ public class LoginPanel extends ModernPanel {
         
         // Role selection
         JLabel roleLabel = new JLabel("Select Role:");
-        roleComboBox = new JComboBox<>(new String[]{"Teacher", "Student"});
+        roleComboBox = new JComboBox<>(Role.values());
         roleComboBox.setPreferredSize(new Dimension(200, 30));
         
         // Email field
@@ -107,27 +126,37 @@ public class LoginPanel extends ModernPanel {
         
         // Add login action
         loginButton.addActionListener(e -> {
-            String role = (String) roleComboBox.getSelectedItem();
+            Role role = (Role) roleComboBox.getSelectedItem();
             String email = emailField.getText();
-            String password = new String(passwordField.getPassword());
+            char[] password = passwordField.getPassword();
             
-            if (email.isEmpty() || password.isEmpty()) {
+            if (email.isEmpty() || password.length == 0) {
                 errorLabel.setText("Please enter email and password");
                 return;
             }
             
-            if (AuthenticationManager.authenticate(role, email, password)) {
-                // Open main application window
-                JFrame loginFrame = (JFrame) SwingUtilities.getWindowAncestor(this);
-                loginFrame.dispose();
-                
-                SwingUtilities.invokeLater(() -> {
-                    MainFrame mainFrame = new MainFrame();
-                    mainFrame.setVisible(true);
-                });
-            } else {
-                errorLabel.setText("Invalid credentials. Please try again.");
-            }
+            // The password check is slow on purpose, so keep it off the EDT
+            loginButton.setEnabled(false);
+            errorLabel.setText("Signing in...");
+            AuthenticationManager.authenticateAsync(role, email, password)
+                .whenComplete((session, error) -> SwingUtilities.invokeLater(() -> {
+                    loginButton.setEnabled(true);
+                    if (error != null) {
+                        boolean busy = error instanceof RejectedExecutionException
+                            || (error instanceof CompletionException && error.getCause() instanceof RejectedExecutionException);
+                        errorLabel.setText(busy ? "Too many sign-in attempts. Please try again shortly."
+                                                : "Sign-in failed. Please try again.");
+                    } else if (session != null) {
+                        // Open main application window
+                        JFrame loginFrame = (JFrame) SwingUtilities.getWindowAncestor(this);
+                        loginFrame.dispose();
+                        
+                        MainFrame mainFrame = new MainFrame(session);
+                        mainFrame.setVisible(true);
+                    } else {
+                        errorLabel.setText("Invalid credentials. Please try again.");
+                    }
+                }));
         });
         
         // Add the form panel to the main panel
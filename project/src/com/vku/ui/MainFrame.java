@@ -1,6 +1,7 @@
 package com.vku.ui;
 
 import com.vku.auth.AuthenticationManager;
+import com.vku.auth.Session;
 import com.vku.ui.components.ModernPanel;
 import com.vku.ui.components.SidebarButton;
 import com.vku.ui.panels.*;
@@ -10,28 +11,33 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * Main application frame with sidebar navigation and content panels.
  */
 public class MainFrame extends JFrame {
+    // Cards kept alive at once, not counting the pinned home card
+    private static final int MAX_OPEN_PANELS = 3;
+    private static final String HOME = "Home";
+    
+    private final Session session;
     private JPanel contentPanel;
     private CardLayout cardLayout;
     private JPanel sidebarPanel;
     private JButton logoutButton;
     private JButton notificationsButton;
+    private boolean signingOut;
     
-    // Content panels
-    private HomePanel homePanel;
-    private StudentInfoPanel studentInfoPanel;
-    private GradesPanel gradesPanel;
-    private ProjectsPanel projectsPanel;
-    private AttendancePanel attendancePanel;
-    private FeesPanel feesPanel;
-    private MessagesPanel messagesPanel;
-    private NotificationsPanel notificationsPanel;
+    // Content panels are built on first visit and evicted least recently used first
+    private final Map<String, Supplier<JPanel>> panelFactories = new LinkedHashMap<>();
+    private final LinkedHashMap<String, JPanel> openPanels = new LinkedHashMap<>(16, 0.75f, true);
     
-    public MainFrame() {
+    public MainFrame(Session session) {
+        this.session = session;
         setTitle("VKU Student Management System");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setSize(1200, 800);
@@ -61,7 +67,7 @@ public class MainFrame extends JFrame {
         add(contentPanel, BorderLayout.CENTER);
         
         // Show home panel by default
-        cardLayout.show(contentPanel, "Home");
+        showPanel(HOME);
     }
     
     private void createSidebar() {
@@ -89,13 +95,13 @@ public class MainFrame extends JFrame {
         SidebarButton messagesButton = new SidebarButton("Messages", "\uD83D\uDCE8");
         
         // Add action listeners
-        homeButton.addActionListener(e -> cardLayout.show(contentPanel, "Home"));
-        studentInfoButton.addActionListener(e -> cardLayout.show(contentPanel, "StudentInfo"));
-        gradesButton.addActionListener(e -> cardLayout.show(contentPanel, "Grades"));
-        projectsButton.addActionListener(e -> cardLayout.show(contentPanel, "Projects"));
-        attendanceButton.addActionListener(e -> cardLayout.show(contentPanel, "Attendance"));
-        feesButton.addActionListener(e -> cardLayout.show(contentPanel, "Fees"));
-        messagesButton.addActionListener(e -> cardLayout.show(contentPanel, "Messages"));
+        homeButton.addActionListener(e -> showPanel("Home"));
+        studentInfoButton.addActionListener(e -> showPanel("StudentInfo"));
+        gradesButton.addActionListener(e -> showPanel("Grades"));
+        projectsButton.addActionListener(e -> showPanel("Projects"));
+        attendanceButton.addActionListener(e -> showPanel("Attendance"));
+        feesButton.addActionListener(e -> showPanel("Fees"));
+        messagesButton.addActionListener(e -> showPanel("Messages"));
         
         // Add components to sidebar
         sidebarPanel.add(logoPanel);
@@ -136,14 +142,14 @@ public class MainFrame extends JFrame {
         notificationsButton.setContentAreaFilled(false);
         
         // User profile/logout button
-        String userName = AuthenticationManager.getCurrentUser().getName();
+        String userName = session.getUser().getName();
         logoutButton = new JButton(userName + " \uD83D\uDD3D"); // Down arrow emoji
         logoutButton.setFont(new Font("Segoe UI", Font.PLAIN, 14));
         logoutButton.setBorderPainted(false);
         logoutButton.setFocusPainted(false);
         logoutButton.setContentAreaFilled(false);
         
-        notificationsButton.addActionListener(e -> cardLayout.show(contentPanel, "Notifications"));
+        notificationsButton.addActionListener(e -> showPanel("Notifications"));
         
         logoutButton.addActionListener(e -> {
             int choice = JOptionPane.showConfirmDialog(
@@ -155,18 +161,7 @@ public class MainFrame extends JFrame {
             );
             
             if (choice == JOptionPane.YES_OPTION) {
-                AuthenticationManager.logout();
-                dispose();
-                
-                SwingUtilities.invokeLater(() -> {
-                    LoginPanel loginPanel = new LoginPanel();
-                    JFrame loginFrame = new JFrame("VKU Student Management System");
-                    loginFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-                    loginFrame.setSize(400, 500);
-                    loginFrame.setLocationRelativeTo(null);
-                    loginFrame.add(loginPanel);
-                    loginFrame.setVisible(true);
-                });
+                returnToLogin();
             }
         });
         
@@ -178,25 +173,73 @@ public class MainFrame extends JFrame {
         add(topBarPanel, BorderLayout.NORTH);
     }
     
+    /**
+     * Tells the user their session has expired and returns to the login
+     * screen. Safe to call more than once, e.g. when several loads fail.
+     */
+    public void sessionExpired() {
+        if (signingOut) {
+            return;
+        }
+        signingOut = true;
+        JOptionPane.showMessageDialog(this,
+            "Your session has expired. Please sign in again.",
+            "Session Expired", JOptionPane.WARNING_MESSAGE);
+        returnToLogin();
+    }
+    
+    private void returnToLogin() {
+        signingOut = true;
+        AuthenticationManager.logout(session);
+        dispose();
+        SwingUtilities.invokeLater(LoginPanel::showLoginFrame);
+    }
+    
     private void createContentPanels() {
-        // Create panels based on user role
-        homePanel = new HomePanel();
-        studentInfoPanel = new StudentInfoPanel();
-        gradesPanel = new GradesPanel();
-        projectsPanel = new ProjectsPanel();
-        attendancePanel = new AttendancePanel();
-        feesPanel = new FeesPanel();
-        messagesPanel = new MessagesPanel();
-        notificationsPanel = new NotificationsPanel();
-        
-        // Add panels to the content panel with card layout
-        contentPanel.add(homePanel, "Home");
-        contentPanel.add(studentInfoPanel, "StudentInfo");
-        contentPanel.add(gradesPanel, "Grades");
-        contentPanel.add(projectsPanel, "Projects");
-        contentPanel.add(attendancePanel, "Attendance");
-        contentPanel.add(feesPanel, "Fees");
-        contentPanel.add(messagesPanel, "Messages");
-        contentPanel.add(notificationsPanel, "Notifications");
+        // Register panel factories; each card is created when first shown
+        panelFactories.put(HOME, () -> new HomePanel(session));
+        panelFactories.put("StudentInfo", () -> new StudentInfoPanel(session));
+        panelFactories.put("Grades", () -> new GradesPanel(session));
+        panelFactories.put("Projects", () -> new ProjectsPanel(session));
+        panelFactories.put("Attendance", () -> new AttendancePanel(session));
+        panelFactories.put("Fees", () -> new FeesPanel(session));
+        panelFactories.put("Messages", () -> new MessagesPanel(session));
+        panelFactories.put("Notifications", () -> new NotificationsPanel(session));
+    }
+    
+    /**
+     * Shows a content card, building it if it has not been opened yet or was
+     * evicted since the last visit.
+     * 
+     * @param name the card name, e.g. "Home" or "Grades"
+     */
+    public void showPanel(String name) {
+        Supplier<JPanel> factory = panelFactories.get(name);
+        if (factory == null) {
+            throw new IllegalArgumentException("Unknown panel: " + name);
+        }
+        
+        if (openPanels.get(name) == null) {
+            JPanel panel = factory.get();
+            openPanels.put(name, panel);
+            contentPanel.add(panel, name);
+            evictPanels(name);
+        }
+        cardLayout.show(contentPanel, name);
+    }
+    
+    private void evictPanels(String current) {
+        // Home is always kept, so it does not count towards the limit
+        int limit = openPanels.containsKey(HOME) ? MAX_OPEN_PANELS + 1 : MAX_OPEN_PANELS;
+        Iterator<Map.Entry<String, JPanel>> eldest = openPanels.entrySet().iterator();
+        while (openPanels.size() > limit && eldest.hasNext()) {
+            Map.Entry<String, JPanel> entry = eldest.next();
+            if (entry.getKey().equals(HOME) || entry.getKey().equals(current)) {
+                continue;
+            }
+            // Removing the card also cancels any load it still has running
+            contentPanel.remove(entry.getValue());
+            eldest.remove();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.vku.ui.components;
+
+import com.vku.ui.utils.UIConstants;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Skeleton placeholder shown while a panel's data is loading.
+ */
+public class LoadingPanel extends JPanel {
+    private static final Color BAR_COLOR = new Color(226, 232, 240);
+    
+    public LoadingPanel() {
+        setLayout(new BorderLayout());
+        setOpaque(false);
+        setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+        
+        JLabel loadingLabel = new JLabel("Loading...");
+        loadingLabel.setFont(UIConstants.SUBTITLE_FONT);
+        loadingLabel.setForeground(Color.GRAY);
+        add(loadingLabel, BorderLayout.NORTH);
+    }
+    
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Graphics2D g2d = (Graphics2D) g.create();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setColor(BAR_COLOR);
+        
+        // Draw grey bars roughly where the content will appear
+        int width = getWidth() - 40;
+        for (int y = 60, i = 0; y < getHeight() - 40 && i < 8; y += 40, i++) {
+            int barWidth = i % 3 == 2 ? width * 2 / 3 : width;
+            g2d.fillRoundRect(20, y, barWidth, 24, 10, 10);
+        }
+        
+        g2d.dispose();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,158 @@
+package com.vku.ui.models;
+
+import com.vku.data.DataManager;
+import com.vku.model.Grade;
+import com.vku.model.GradingPolicy;
+
+import javax.swing.table.AbstractTableModel;
+import java.text.DecimalFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Table model for the teacher grade sheet, backed directly by Grade objects.
+ * The average and rank columns are computed when a cell is rendered, and
+ * edits to the score columns are written to the grade through DataManager.
+ * The score headers show the weights of the grades' grading policy.
+ */
+public class GradeSheetTableModel extends AbstractTableModel {
+    public static final int NAME_COLUMN = 0;
+    public static final int ID_COLUMN = 1;
+    public static final int ASSIGNMENT_COLUMN = 2;
+    public static final int MIDTERM_COLUMN = 3;
+    public static final int ATTENDANCE_COLUMN = 4;
+    public static final int FINAL_COLUMN = 5;
+    public static final int AVERAGE_COLUMN = 6;
+    public static final int RANK_COLUMN = 7;
+    
+    private static final String[] COLUMN_NAMES = {"Student Name", "ID", "Assignment", "Midterm",
+                                                  "Attendance", "Final", "Average", "Rank"};
+    
+    private List<Grade> grades = Collections.emptyList();
+    private GradingPolicy policy = GradingPolicy.STANDARD;
+    
+    /**
+     * Replaces the rows shown in the sheet, firing a single table event.
+     * The columns are rebuilt if the grades follow other weights than the
+     * rows shown before.
+     *
+     * @param grades one grade per student of a subject; grades not yet
+     *               added to their student are attached on the first edit
+     */
+    public void setGrades(List<Grade> grades) {
+        this.grades = new ArrayList<>(grades);
+        GradingPolicy previous = policy;
+        if (!grades.isEmpty()) {
+            policy = grades.get(0).getGradingPolicy();
+        }
+        if (Arrays.equals(previous.getWeights(), policy.getWeights())) {
+            fireTableDataChanged();
+        } else {
+            fireTableStructureChanged();
+        }
+    }
+    
+    /**
+     * Gets the grading policy of the grades shown.
+     *
+     * @return the policy, the standard one until grades are set
+     */
+    public GradingPolicy getPolicy() {
+        return policy;
+    }
+    
+    /**
+     * Gets the grades in row order.
+     *
+     * @return a read-only view of the rows
+     */
+    public List<Grade> getGrades() {
+        return Collections.unmodifiableList(grades);
+    }
+    
+    public Grade getGradeAt(int row) {
+        return grades.get(row);
+    }
+    
+    @Override
+    public int getRowCount() {
+        return grades.size();
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        if (column < ASSIGNMENT_COLUMN || column > FINAL_COLUMN) {
+            return COLUMN_NAMES[column];
+        }
+        double weight = policy.getWeights()[Grade.ASSIGNMENT + column - ASSIGNMENT_COLUMN];
+        return COLUMN_NAMES[column] + " (" + new DecimalFormat("0.#").format(weight * 100) + "%)";
+    }
+    
+    @Override
+    public Class<?> getColumnClass(int column) {
+        if (column >= ASSIGNMENT_COLUMN && column <= AVERAGE_COLUMN) {
+            return Double.class;
+        }
+        return String.class;
+    }
+    
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        // Make score columns editable
+        return column >= ASSIGNMENT_COLUMN && column <= FINAL_COLUMN;
+    }
+    
+    @Override
+    public Object getValueAt(int row, int column) {
+        Grade grade = grades.get(row);
+        switch (column) {
+            case NAME_COLUMN:
+                return grade.getStudent().getName();
+            case ID_COLUMN:
+                return grade.getStudent().getId();
+            case ASSIGNMENT_COLUMN:
+                return grade.getAssignmentScore();
+            case MIDTERM_COLUMN:
+                return grade.getMidtermScore();
+            case ATTENDANCE_COLUMN:
+                return grade.getAttendanceScore();
+            case FINAL_COLUMN:
+                return grade.getFinalScore();
+            case AVERAGE_COLUMN:
+                return grade.calculateAverage();
+            case RANK_COLUMN:
+                return grade.getLetterGrade();
+            default:
+                throw new IndexOutOfBoundsException("Column " + column);
+        }
+    }
+    
+    @Override
+    public void setValueAt(Object value, int row, int column) {
+        if (!isCellEditable(row, column) || value == null) {
+            return;
+        }
+        
+        double score;
+        try {
+            score = value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(value.toString());
+        } catch (NumberFormatException e) {
+            return;
+        }
+        
+        // Students without a grade for the subject get one on their first
+        // edit; later edits go to the grade as stored
+        int component = Grade.ASSIGNMENT + column - ASSIGNMENT_COLUMN;
+        grades.set(row, DataManager.getInstance().updateGrade(grades.get(row), component, score));
+        
+        // Average and rank depend on every score, so repaint the whole row
+        fireTableRowsUpdated(row, row);
+    }
+}
\ No newline at end of file
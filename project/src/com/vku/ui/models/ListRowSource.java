@@ -0,0 +1,127 @@
+package com.vku.ui.models;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Row source over a list of model objects, e.g. a data snapshot or a query
+ * result. Only the object references are held; the cells of a row are
+ * built when its page is fetched. Columns are sorted by a comparator or
+ * by a {@link Sorter}, e.g. one using the data layer's sort indexes.
+ */
+public class ListRowSource<T> implements RowSource {
+    private final List<T> items;
+    private final Function<T, Object> key;
+    private final Function<T, Object[]> toRow;
+    private final Map<Integer, Sorter<T>> sorters;
+    
+    /**
+     * Creates a source over a list that is not modified afterwards.
+     *
+     * @param items the objects shown, one per row
+     * @param key gives the identity of an object
+     * @param toRow builds the cells of an object's row
+     */
+    public ListRowSource(List<T> items, Function<T, Object> key, Function<T, Object[]> toRow) {
+        this(items, key, toRow, new HashMap<>());
+    }
+    
+    private ListRowSource(List<T> items, Function<T, Object> key, Function<T, Object[]> toRow,
+                          Map<Integer, Sorter<T>> sorters) {
+        this.items = items;
+        this.key = key;
+        this.toRow = toRow;
+        this.sorters = sorters;
+    }
+    
+    /**
+     * Makes a column sortable. Must be called before the source is shared.
+     *
+     * @param column the column
+     * @param comparator orders the objects by the column, ascending
+     * @return this source
+     */
+    public ListRowSource<T> sortable(int column, Comparator<? super T> comparator) {
+        return sortableBy(column, (items, ascending) -> {
+            List<T> sorted = new ArrayList<>(items);
+            sorted.sort(ascending ? comparator : Collections.reverseOrder(comparator));
+            return sorted;
+        });
+    }
+    
+    /**
+     * Makes a column sortable by a sorter. Must be called before the source
+     * is shared.
+     *
+     * @param column the column
+     * @param sorter orders the objects by the column
+     * @return this source
+     */
+    public ListRowSource<T> sortableBy(int column, Sorter<T> sorter) {
+        sorters.put(column, sorter);
+        return this;
+    }
+    
+    public T getItem(int row) {
+        return items.get(row);
+    }
+    
+    /**
+     * Gets the same rows without one, e.g. after it was deleted from view.
+     *
+     * @param row the row to leave out
+     * @return the new source
+     */
+    public ListRowSource<T> without(int row) {
+        List<T> rest = new ArrayList<>(items);
+        rest.remove(row);
+        return new ListRowSource<>(rest, key, toRow, sorters);
+    }
+    
+    @Override
+    public int size() {
+        return items.size();
+    }
+    
+    @Override
+    public Object keyAt(int row) {
+        return key.apply(items.get(row));
+    }
+    
+    @Override
+    public List<Object[]> fetch(int start, int end) {
+        List<Object[]> rows = new ArrayList<>(end - start);
+        for (int row = start; row < end; row++) {
+            rows.add(toRow.apply(items.get(row)));
+        }
+        return rows;
+    }
+    
+    @Override
+    public boolean isSortable(int column) {
+        return sorters.containsKey(column);
+    }
+    
+    @Override
+    public RowSource sortedBy(int column, boolean ascending) {
+        Sorter<T> sorter = sorters.get(column);
+        if (sorter == null) {
+            return RowSource.super.sortedBy(column, ascending);
+        }
+        return new ListRowSource<>(sorter.sort(items, ascending), key, toRow, sorters);
+    }
+    
+    /**
+     * Puts the objects of a source in the order of a column.
+     */
+    public interface Sorter<T> {
+        /**
+         * Sorts objects. Called off the EDT.
+         *
+         * @param items the objects, which must not be modified
+         * @param ascending whether the smallest value comes first
+         * @return the objects in order
+         */
+        List<T> sort(List<T> items, boolean ascending);
+    }
+}
\ No newline at end of file
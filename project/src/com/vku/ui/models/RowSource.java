@@ -0,0 +1,45 @@
+package com.vku.ui.models;
+
+import java.util.List;
+
+/**
+ * The rows of a table, fetched a range at a time by a
+ * {@link WindowedTableModel}. A source is immutable: sorting or otherwise
+ * changing the rows gives a new source.
+ */
+public interface RowSource {
+    int size();
+    
+    /**
+     * Gets the identity of a row, e.g. a student id. Called on the EDT, so
+     * it must be cheap.
+     *
+     * @param row the row index
+     * @return the key, distinct within the source
+     */
+    Object keyAt(int row);
+    
+    /**
+     * Builds the cells of a range of rows. Called off the EDT.
+     *
+     * @param start the first row
+     * @param end the row after the last
+     * @return the rows in order
+     */
+    List<Object[]> fetch(int start, int end);
+    
+    default boolean isSortable(int column) {
+        return false;
+    }
+    
+    /**
+     * Gets the same rows in the order of a column. Called off the EDT.
+     *
+     * @param column the column to sort by
+     * @param ascending whether the smallest value comes first
+     * @return the sorted source
+     */
+    default RowSource sortedBy(int column, boolean ascending) {
+        throw new UnsupportedOperationException("Column " + column + " is not sortable");
+    }
+}
\ No newline at end of file
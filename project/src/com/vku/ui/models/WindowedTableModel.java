@@ -0,0 +1,290 @@
+package com.vku.ui.models;
+
+import com.vku.ui.utils.AsyncLoader;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.*;
+
+/**
+ * Table model that holds only the rows on screen. Rows are fetched from a
+ * {@link RowSource} in pages, in the background, when the table first asks
+ * for them; the pages next to a requested one are fetched along with it so
+ * scrolling rarely reaches rows that are not there yet. A bounded number of
+ * pages is cached and the least recently used are dropped, so a table over
+ * hundreds of thousands of rows opens at once and costs the same memory as
+ * a small one. Rows still loading show blank cells.
+ *
+ * When the source is replaced, e.g. by a new search, rows are matched by
+ * key: rows that left are deleted and new ones inserted in contiguous runs,
+ * so the table keeps its selection and scroll position. When the rows that
+ * stayed come back in a different order, or the changes are scattered over
+ * many runs, the model falls back to a single full refresh.
+ */
+public class WindowedTableModel extends AbstractTableModel {
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int DEFAULT_CACHED_PAGES = 20;
+    
+    // Most row events fired for one source change before a full refresh is cheaper
+    private static final int MAX_EVENTS = 64;
+    
+    // Larger sources are not diffed, as matching the keys would stall the EDT
+    private static final int MAX_DIFF_ROWS = 20000;
+    
+    private final String[] columnNames;
+    private final int pageSize;
+    private final Map<Integer, List<Object[]>> pages;
+    private final Set<Integer> pending = new HashSet<>();
+    
+    private RowSource source;
+    private int rowCount;
+    
+    // Rows of the previous source by key, shown while the new pages load
+    private Map<Object, Object[]> staleRows = Collections.emptyMap();
+    
+    private int sortColumn = -1;
+    private boolean sortAscending = true;
+    
+    public WindowedTableModel(String[] columnNames, RowSource source) {
+        this(columnNames, source, DEFAULT_PAGE_SIZE, DEFAULT_CACHED_PAGES);
+    }
+    
+    public WindowedTableModel(String[] columnNames, RowSource source, int pageSize, int cachedPages) {
+        this.columnNames = columnNames.clone();
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<Integer, List<Object[]>>(cachedPages * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Object[]>> eldest) {
+                return size() > cachedPages;
+            }
+        };
+        this.source = source;
+        this.rowCount = source.size();
+    }
+    
+    public RowSource getSource() {
+        return source;
+    }
+    
+    /**
+     * Replaces the rows with those of another source. Must be called on the EDT.
+     *
+     * @param next the new rows
+     */
+    public void setSource(RowSource next) {
+        RowSource previous = source;
+        staleRows = cachedRowsByKey(previous);
+        source = next;
+        pages.clear();
+        pending.clear();
+        
+        Map<Object, Integer> newIndex = isSmallChange(previous, next);
+        if (newIndex == null) {
+            rowCount = next.size();
+            fireTableDataChanged();
+            return;
+        }
+        
+        // Replay the change on the keys, firing an event per run. Delete runs
+        // of rows that are not in the new source, bottom up so the indexes of
+        // the rows above stay valid
+        List<Object> keys = new ArrayList<>(previous.size());
+        for (int row = 0; row < previous.size(); row++) {
+            keys.add(previous.keyAt(row));
+        }
+        int end = keys.size() - 1;
+        while (end >= 0) {
+            if (newIndex.containsKey(keys.get(end))) {
+                end--;
+                continue;
+            }
+            int start = end;
+            while (start > 0 && !newIndex.containsKey(keys.get(start - 1))) {
+                start--;
+            }
+            keys.subList(start, end + 1).clear();
+            rowCount = keys.size();
+            fireTableRowsDeleted(start, end);
+            end = start - 1;
+        }
+        
+        // Insert runs of new rows in front of the next row that stayed
+        int row = 0;
+        while (row < next.size()) {
+            if (row < keys.size() && Objects.equals(keys.get(row), next.keyAt(row))) {
+                row++;
+                continue;
+            }
+            Object nextKey = row < keys.size() ? keys.get(row) : null;
+            int start = row;
+            while (row < next.size() && (nextKey == null || !Objects.equals(next.keyAt(row), nextKey))) {
+                keys.add(row, next.keyAt(row));
+                row++;
+            }
+            rowCount = keys.size();
+            fireTableRowsInserted(start, row - 1);
+        }
+        
+        // Rows that stayed may show new values once their pages are fetched
+        if (rowCount > 0) {
+            fireTableRowsUpdated(0, rowCount - 1);
+        }
+    }
+    
+    /**
+     * Checks that the rows which stay are already in the new order and
+     * counts the runs of deleted and inserted rows.
+     *
+     * @return the new row of each key, or null if a full refresh is better
+     */
+    private static Map<Object, Integer> isSmallChange(RowSource previous, RowSource next) {
+        if (previous.size() > MAX_DIFF_ROWS || next.size() > MAX_DIFF_ROWS) {
+            return null;
+        }
+        Map<Object, Integer> newIndex = new HashMap<>(next.size() * 2);
+        for (int row = 0; row < next.size(); row++) {
+            newIndex.put(next.keyAt(row), row);
+        }
+        Set<Object> oldKeys = new HashSet<>(previous.size() * 2);
+        int events = 0;
+        int last = -1;
+        boolean deleting = false;
+        for (int row = 0; row < previous.size(); row++) {
+            Object key = previous.keyAt(row);
+            oldKeys.add(key);
+            Integer index = newIndex.get(key);
+            if (index == null) {
+                if (!deleting) {
+                    events++;
+                }
+                deleting = true;
+            } else if (index <= last) {
+                return null;
+            } else {
+                last = index;
+                deleting = false;
+            }
+        }
+        boolean inserting = false;
+        for (int row = 0; row < next.size(); row++) {
+            boolean inserted = !oldKeys.contains(next.keyAt(row));
+            if (inserted && !inserting) {
+                events++;
+            }
+            inserting = inserted;
+        }
+        return events <= MAX_EVENTS ? newIndex : null;
+    }
+    
+    private Map<Object, Object[]> cachedRowsByKey(RowSource previous) {
+        Map<Object, Object[]> rows = new HashMap<>();
+        for (Map.Entry<Integer, List<Object[]>> page : pages.entrySet()) {
+            int start = page.getKey() * pageSize;
+            List<Object[]> values = page.getValue();
+            for (int i = 0; i < values.size() && start + i < previous.size(); i++) {
+                rows.put(previous.keyAt(start + i), values.get(i));
+            }
+        }
+        return rows;
+    }
+    
+    /**
+     * Re-orders the rows by a column in the background, if the source can.
+     *
+     * @param column the column to sort by
+     * @param ascending whether the smallest value comes first
+     */
+    public void sortBy(int column, boolean ascending) {
+        if (!source.isSortable(column)) {
+            return;
+        }
+        RowSource unsorted = source;
+        AsyncLoader.load(() -> unsorted.sortedBy(column, ascending), sorted -> {
+            // Drop the result if the rows were replaced meanwhile
+            if (source == unsorted) {
+                sortColumn = column;
+                sortAscending = ascending;
+                setSource(sorted);
+            }
+        }, Throwable::printStackTrace);
+    }
+    
+    /**
+     * Sorts by a column when its header is clicked; clicking it again
+     * reverses the order.
+     *
+     * @param table the table showing this model
+     */
+    public void sortOnHeaderClick(JTable table) {
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.convertColumnIndexToModel(table.columnAtPoint(e.getPoint()));
+                if (column >= 0) {
+                    sortBy(column, column != sortColumn || !sortAscending);
+                }
+            }
+        });
+    }
+    
+    public int getSortColumn() {
+        return sortColumn;
+    }
+    
+    public boolean isSortAscending() {
+        return sortAscending;
+    }
+    
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+    
+    @Override
+    public Object getValueAt(int row, int column) {
+        int page = row / pageSize;
+        
+        // Keep the pages either side ready for scrolling
+        request(page - 1);
+        request(page + 1);
+        List<Object[]> values = pages.get(page);
+        if (values != null) {
+            return values.get(row - page * pageSize)[column];
+        }
+        request(page);
+        Object[] stale = row < source.size() ? staleRows.get(source.keyAt(row)) : null;
+        return stale != null ? stale[column] : null;
+    }
+    
+    private void request(int page) {
+        int start = page * pageSize;
+        if (start < 0 || start >= source.size() || pages.containsKey(page) || !pending.add(page)) {
+            return;
+        }
+        RowSource requested = source;
+        int end = Math.min(start + pageSize, requested.size());
+        AsyncLoader.load(() -> requested.fetch(start, end), values -> {
+            // Pages of a replaced source are of no use
+            if (source == requested) {
+                pending.remove(page);
+                pages.put(page, values);
+                fireTableRowsUpdated(start, end - 1);
+            }
+        }, e -> {
+            // Left pending, so a failing source is not asked again on every repaint
+            e.printStackTrace();
+        });
+    }
+}
\ No newline at end of file
@@ -0,0 +1,132 @@
+package com.vku.ui.panels;
+
+import com.vku.auth.Session;
+import com.vku.auth.SessionExpiredException;
+import com.vku.model.Role;
+import com.vku.ui.MainFrame;
+import com.vku.ui.components.LoadingPanel;
+import com.vku.ui.utils.AsyncLoader;
+import com.vku.ui.utils.UIConstants;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+
+/**
+ * Base class for content panels that fetch their data in the background.
+ * Shows a skeleton placeholder until the data arrives, then builds the view
+ * on the Event Dispatch Thread. Pending loads are cancelled when the panel
+ * is removed from its container. Every load runs on behalf of the panel's
+ * session and fails once that session has expired, which sends the user
+ * back to the sign-in screen.
+ */
+public abstract class AsyncPanel extends JPanel {
+    protected final Session session;
+    private final List<AsyncLoader.LoadTask<?>> tasks = new ArrayList<>();
+    
+    protected AsyncPanel(Session session) {
+        this.session = session;
+        setLayout(new BorderLayout());
+        setBackground(UIConstants.BG_COLOR);
+    }
+    
+    /**
+     * Shows a placeholder, runs the query off the EDT and then replaces the
+     * placeholder with the view built from the result.
+     *
+     * @param query the data access to run in the background
+     * @param view builds the panel content from the result on the EDT
+     */
+    protected <T> void loadView(Callable<T> query, Consumer<T> view) {
+        loadView(null, query, view);
+    }
+    
+    /**
+     * Like {@link #loadView(Callable, Consumer)}, for data only the given
+     * role may see.
+     *
+     * @param role the role the query requires, or null for any
+     * @param query the data access to run in the background
+     * @param view builds the panel content from the result on the EDT
+     */
+    protected <T> void loadView(Role role, Callable<T> query, Consumer<T> view) {
+        removeAll();
+        add(new LoadingPanel(), BorderLayout.CENTER);
+        revalidate();
+        repaint();
+        
+        load(role, query, result -> {
+            removeAll();
+            view.accept(result);
+            revalidate();
+            repaint();
+        });
+    }
+    
+    /**
+     * Runs a query off the EDT and hands the result to the callback on the
+     * EDT, without touching the current content.
+     *
+     * @param query the data access to run in the background
+     * @param onLoaded receives the result on the EDT
+     * @return a handle that can cancel the load
+     */
+    protected <T> AsyncLoader.LoadTask<T> load(Callable<T> query, Consumer<T> onLoaded) {
+        return load(null, query, onLoaded);
+    }
+    
+    /**
+     * Like {@link #load(Callable, Consumer)}, for data only the given role
+     * may see or change.
+     *
+     * @param role the role the query requires, or null for any
+     * @param query the data access to run in the background
+     * @param onLoaded receives the result on the EDT
+     * @return a handle that can cancel the load
+     */
+    protected <T> AsyncLoader.LoadTask<T> load(Role role, Callable<T> query, Consumer<T> onLoaded) {
+        // A task cancelled before it ran never finishes, so drop it as well
+        tasks.removeIf(task -> task.isDone() || task.isCancelled());
+        Callable<T> sessionQuery = () -> {
+            if (role != null) {
+                session.requireRole(role);
+            } else {
+                session.touch();
+            }
+            return query.call();
+        };
+        AsyncLoader.LoadTask<T> task = AsyncLoader.load(sessionQuery, onLoaded, this::showLoadError);
+        tasks.add(task);
+        return task;
+    }
+    
+    private void showLoadError(Exception e) {
+        // An expired session is not a loading error; the user signs in again
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SessionExpiredException) {
+                MainFrame frame = (MainFrame) SwingUtilities.getAncestorOfClass(MainFrame.class, this);
+                if (frame != null) {
+                    frame.sessionExpired();
+                    return;
+                }
+            }
+        }
+        
+        e.printStackTrace();
+        JOptionPane.showMessageDialog(this,
+            "Could not load data: " + e.getMessage(),
+            "Loading Error", JOptionPane.ERROR_MESSAGE);
+    }
+    
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+        for (AsyncLoader.LoadTask<?> task : tasks) {
+            task.cancel();
+        }
+        tasks.clear();
+    }
+}
\ No newline at end of file
@@ -1,37 +1,49 @@
 package com.vku.ui.panels;
 
-import com.vku.auth.AuthenticationManager;
+import com.vku.auth.Session;
 import com.vku.data.DataManager;
-import com.vku.model.Attendance;
+import com.vku.model.Role;
 import com.vku.model.Student;
 import com.vku.model.Subject;
 import com.vku.ui.components.ModernPanel;
+import com.vku.ui.utils.AsyncLoader;
 import com.vku.ui.utils.UIConstants;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableCellRenderer;
 import java.awt.*;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.io.IOException;
+import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Panel for displaying and managing student attendance.
  */
-public class AttendancePanel extends JPanel {
+public class AttendancePanel extends AsyncPanel {
+    private AsyncLoader.LoadTask<List<Object[]>> attendanceTask;
+    private Date shownDate;
     
-    public AttendancePanel() {
-        setLayout(new BorderLayout());
-        setBackground(UIConstants.BG_COLOR);
-        
-        if (AuthenticationManager.isTeacher()) {
-            initTeacherView();
-        } else if (AuthenticationManager.isStudent()) {
-            initStudentView();
+    public AttendancePanel(Session session) {
+        super(session);
+        if (session.isTeacher()) {
+            loadView(Role.TEACHER, () -> DataManager.getInstance().getSubjects().stream()
+                               .map(Subject::getName)
+                               .toArray(String[]::new), this::initTeacherView);
+        } else if (session.isStudent()) {
+            Student student = session.getStudent();
+            loadView(() -> findAttendanceRates(student), this::initStudentView);
         }
     }
     
-    private void initTeacherView() {
+    private void initTeacherView(String[] subjectNames) {
         // Title
         JLabel titleLabel = new JLabel("Student Attendance");
         titleLabel.setFont(UIConstants.TITLE_FONT);
@@ -44,10 +56,6 @@ public class AttendancePanel extends JPanel {
         
         // Subject selection
         JLabel subjectLabel = new JLabel("Subject:");
-        String[] subjectNames = DataManager.getInstance().getSubjects().stream()
-                               .map(Subject::getName)
-                               .toArray(String[]::new);
-        
         JComboBox<String> subjectComboBox = new JComboBox<>(subjectNames);
         
         // Date selection
@@ -75,7 +83,7 @@ public class AttendancePanel extends JPanel {
         
         // Populate table with initial data
         if (subjectNames.length > 0) {
-            updateAttendanceTable(tableModel, subjectNames[0]);
+            updateAttendanceTable(tableModel, subjectNames[0], parseDate(dateFormat, dateField.getText()));
         }
         
         JScrollPane scrollPane = new JScrollPane(attendanceTable);
@@ -106,50 +114,129 @@ public class AttendancePanel extends JPanel {
         // Add action listeners
         subjectComboBox.addActionListener(e -> {
             String selectedSubject = (String) subjectComboBox.getSelectedItem();
-            updateAttendanceTable(tableModel, selectedSubject);
+            Date date = parseDate(dateFormat, dateField.getText());
+            if (date != null) {
+                updateAttendanceTable(tableModel, selectedSubject, date);
+            }
+        });
+        
+        // Show the marks of the day entered, once the date is confirmed
+        Runnable dateChanged = () -> {
+            Date date = parseDate(dateFormat, dateField.getText());
+            if (date != null && !date.equals(shownDate) && subjectComboBox.getSelectedItem() != null) {
+                updateAttendanceTable(tableModel, (String) subjectComboBox.getSelectedItem(), date);
+            }
+        };
+        dateField.addActionListener(e -> dateChanged.run());
+        dateField.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                dateChanged.run();
+            }
         });
         
         saveButton.addActionListener(e -> {
-            JOptionPane.showMessageDialog(this, 
+            Date date = parseDate(dateFormat, dateField.getText());
+            if (date == null) {
+                JOptionPane.showMessageDialog(this, 
+                    "Please enter the date as yyyy-MM-dd.", 
+                    "Invalid Date", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            if (attendanceTable.isEditing()) {
+                attendanceTable.getCellEditor().stopCellEditing();
+            }
+            
+            // Copy the marks on the EDT, then record them in the background
+            String subjectName = (String) subjectComboBox.getSelectedItem();
+            Map<String, Boolean> marks = new LinkedHashMap<>();
+            for (int i = 0; i < tableModel.getRowCount(); i++) {
+                marks.put((String) tableModel.getValueAt(i, 1), (Boolean) tableModel.getValueAt(i, 2));
+            }
+            load(Role.TEACHER, () -> {
+                saveAttendance(subjectName, date, marks);
+                return null;
+            }, saved -> JOptionPane.showMessageDialog(this, 
                 "Attendance saved successfully!", 
-                "Save Attendance", JOptionPane.INFORMATION_MESSAGE);
+                "Save Attendance", JOptionPane.INFORMATION_MESSAGE));
+        });
+    }
+    
+    private void updateAttendanceTable(DefaultTableModel model, String subjectName, Date date) {
+        // Switching subjects or dates quickly should only show the last one
+        if (attendanceTask != null) {
+            attendanceTask.cancel();
+        }
+        shownDate = date;
+        attendanceTask = load(Role.TEACHER, () -> findAttendanceRows(subjectName, date), rows -> {
+            model.setRowCount(0);
+            for (Object[] row : rows) {
+                model.addRow(row);
+            }
         });
     }
     
-    private void updateAttendanceTable(DefaultTableModel model, String subjectName) {
-        model.setRowCount(0);
+    // Parses a yyyy-MM-dd date, or returns null if the text is not one
+    private static Date parseDate(SimpleDateFormat dateFormat, String text) {
+        try {
+            return dateFormat.parse(text.trim());
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+    
+    private static void saveAttendance(String subjectName, Date date, Map<String, Boolean> marks) throws IOException {
+        DataManager dataManager = DataManager.getInstance();
+        Subject subject = dataManager.findSubjectByName(subjectName);
+        if (subject == null) {
+            return;
+        }
+        Map<Student, Boolean> roster = new LinkedHashMap<>();
+        for (Map.Entry<String, Boolean> mark : marks.entrySet()) {
+            Student student = dataManager.getStudent(mark.getKey());
+            if (student != null) {
+                roster.put(student, mark.getValue());
+            }
+        }
+        dataManager.markRoster(subject, date, roster);
+        dataManager.sync();
+    }
+    
+    static List<Object[]> findAttendanceRows(String subjectName, Date date) {
+        List<Object[]> rows = new ArrayList<>();
         
         // Find the selected subject
-        Subject selectedSubject = DataManager.getInstance().getSubjects().stream()
-                                 .filter(s -> s.getName().equals(subjectName))
-                                 .findFirst()
-                                 .orElse(null);
+        Subject selectedSubject = DataManager.getInstance().findSubjectByName(subjectName);
         
         if (selectedSubject == null) {
-            return;
+            return rows;
         }
         
-        // Find students for this subject
-        for (Student student : DataManager.getInstance().getStudents()) {
-            if (student.getSubjects().contains(selectedSubject)) {
-                // Find attendance record for today
-                boolean present = DataManager.getInstance().getAttendanceRecords().stream()
-                                 .filter(a -> a.getStudent().equals(student) && a.getSubject().equals(selectedSubject))
-                                 .findFirst()
-                                 .map(Attendance::isPresent)
-                                 .orElse(true); // Default to present
-                
-                model.addRow(new Object[]{
-                    student.getName(),
-                    student.getId(),
-                    present
-                });
-            }
+        // Find students for this subject and the day's marks
+        DataManager dataManager = DataManager.getInstance();
+        Map<String, Boolean> sheet = dataManager.getAttendanceSheet(selectedSubject, date);
+        for (Student student : dataManager.getStudentsInSubject(selectedSubject)) {
+            Boolean present = sheet.get(student.getId());
+            
+            rows.add(new Object[]{
+                student.getName(),
+                student.getId(),
+                present == null || present // Default to present
+            });
         }
+        return rows;
     }
     
-    private void initStudentView() {
-        Student student = (Student) AuthenticationManager.getCurrentUser();
+    private static Map<Subject, Double> findAttendanceRates(Student student) {
+        DataManager dataManager = DataManager.getInstance();
+        Map<Subject, Double> rates = new LinkedHashMap<>();
+        for (Subject subject : student.getSubjects()) {
+            rates.put(subject, dataManager.getAttendanceRate(student, subject));
+        }
+        return rates;
+    }
+    
+    private void initStudentView(Map<Subject, Double> rates) {
         
         // Main panel
         JPanel mainPanel = new JPanel(new BorderLayout(20, 20));
@@ -173,7 +260,8 @@ public class AttendancePanel extends JPanel {
         cardsPanel.setOpaque(false);
         
         // Add subject cards
-        for (Subject subject : student.getSubjects()) {
+        for (Map.Entry<Subject, Double> entry : rates.entrySet()) {
+            Subject subject = entry.getKey();
             ModernPanel subjectCard = new ModernPanel(true);
             subjectCard.setLayout(new BorderLayout(10, 10));
             subjectCard.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
@@ -183,8 +271,7 @@ public class AttendancePanel extends JPanel {
             
             JLabel teacherLabel = new JLabel("Teacher: " + subject.getTeacher().getName());
             
-            // Count sessions for today (dummy data)
-            JLabel sessionsLabel = new JLabel("Today's Sessions: 1");
+            JLabel sessionsLabel = new JLabel(String.format("Attendance Rate: %.0f%%", entry.getValue() * 100));
             
             JButton viewScheduleButton = new JButton("View Schedule");
             viewScheduleButton.setBackground(UIConstants.PRIMARY_COLOR);
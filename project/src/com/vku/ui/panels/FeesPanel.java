@@ -1,42 +1,79 @@
 package com.vku.ui.panels;
 
-import com.vku.auth.AuthenticationManager;
+import com.vku.auth.Session;
 import com.vku.data.DataManager;
+import com.vku.data.SortKey;
 import com.vku.model.Fee;
+import com.vku.model.Role;
 import com.vku.model.Student;
 import com.vku.model.Subject;
 import com.vku.ui.components.ModernPanel;
+import com.vku.ui.models.ListRowSource;
+import com.vku.ui.models.WindowedTableModel;
 import com.vku.ui.utils.UIConstants;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableCellRenderer;
 import java.awt.*;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Panel for displaying and managing student fees.
  */
-public class FeesPanel extends JPanel {
+public class FeesPanel extends AsyncPanel {
     
-    public FeesPanel() {
-        setLayout(new BorderLayout());
-        setBackground(UIConstants.BG_COLOR);
-        
-        if (AuthenticationManager.isTeacher()) {
-            initTeacherView();
-        } else if (AuthenticationManager.isStudent()) {
-            initStudentView();
+    public FeesPanel(Session session) {
+        super(session);
+        if (session.isTeacher()) {
+            loadView(Role.TEACHER, () -> DataManager.getInstance().getFees(), this::initTeacherView);
+        } else if (session.isStudent()) {
+            // Find student's fee
+            Student student = session.getStudent();
+            loadView(() -> DataManager.getInstance().getFeeForStudent(student), this::initStudentView);
         }
     }
     
-    private void initTeacherView() {
+    private void initTeacherView(List<Fee> fees) {
         // Title
         JLabel titleLabel = new JLabel("Student Fees");
         titleLabel.setFont(UIConstants.TITLE_FONT);
         titleLabel.setBorder(BorderFactory.createEmptyBorder(20, 20, 10, 20));
         
-        // Fees table
+        // Fees table, fetching only the rows on screen; ticks are kept aside
+        // by student id until they are saved
         String[] columnNames = {"Student Name", "ID", "Class", "Fees Owed (VND)", "Paid"};
-        DefaultTableModel tableModel = new DefaultTableModel(columnNames, 0);
+        DataManager dataManager = DataManager.getInstance();
+        ListRowSource<Fee> source = new ListRowSource<>(fees, fee -> fee.getStudent().getId(), FeesPanel::toRow)
+            .sortableBy(0, (rows, ascending) -> dataManager.sortFees(rows, SortKey.NAME, ascending))
+            .sortableBy(1, (rows, ascending) -> dataManager.sortFees(rows, SortKey.ID, ascending))
+            .sortableBy(2, (rows, ascending) -> dataManager.sortFees(rows, SortKey.CLASS, ascending))
+            .sortableBy(3, (rows, ascending) -> dataManager.sortFees(rows, SortKey.FEE_AMOUNT, ascending))
+            .sortable(4, Comparator.comparing(Fee::isPaid));
+        Map<String, Boolean> paidEdits = new HashMap<>();
+        WindowedTableModel tableModel = new WindowedTableModel(columnNames, source) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return column == 4;
+            }
+            
+            @Override
+            public Object getValueAt(int row, int column) {
+                Boolean edited = column == 4 ? paidEdits.get((String) getSource().keyAt(row)) : null;
+                return edited != null ? edited : super.getValueAt(row, column);
+            }
+            
+            @Override
+            public void setValueAt(Object value, int row, int column) {
+                paidEdits.put((String) getSource().keyAt(row), (Boolean) value);
+                fireTableCellUpdated(row, column);
+            }
+        };
         
         JTable feesTable = new JTable(tableModel);
         feesTable.setRowHeight(30);
@@ -47,18 +84,7 @@ public class FeesPanel extends JPanel {
         feesTable.getColumnModel().getColumn(4).setCellRenderer(new CheckBoxRenderer());
         feesTable.getColumnModel().getColumn(4).setCellEditor(new DefaultCellEditor(new JCheckBox()));
         
-        // Populate table with fees
-        for (Fee fee : DataManager.getInstance().getFees()) {
-            Student student = fee.getStudent();
-            
-            tableModel.addRow(new Object[]{
-                student.getName(),
-                student.getId(),
-                student.getClassName(),
-                String.format("%.0f", fee.getAmount()),
-                fee.isPaid()
-            });
-        }
+        tableModel.sortOnHeaderClick(feesTable);
         
         JScrollPane scrollPane = new JScrollPane(feesTable);
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
@@ -87,20 +113,46 @@ public class FeesPanel extends JPanel {
         
         // Add action listeners
         saveButton.addActionListener(e -> {
-            JOptionPane.showMessageDialog(this, 
+            if (feesTable.isEditing()) {
+                feesTable.getCellEditor().stopCellEditing();
+            }
+            
+            // Copy the ticks on the EDT, then apply them in the background
+            Map<String, Boolean> paid = new LinkedHashMap<>(paidEdits);
+            load(Role.TEACHER, () -> {
+                savePaymentStatus(paid);
+                return null;
+            }, saved -> JOptionPane.showMessageDialog(this, 
                 "Payment status saved successfully!", 
-                "Save Payment Status", JOptionPane.INFORMATION_MESSAGE);
+                "Save Payment Status", JOptionPane.INFORMATION_MESSAGE));
         });
     }
     
-    private void initStudentView() {
-        Student student = (Student) AuthenticationManager.getCurrentUser();
-        
-        // Find student's fee
-        Fee studentFee = DataManager.getInstance().getFees().stream()
-                       .filter(f -> f.getStudent().equals(student))
-                       .findFirst()
-                       .orElse(null);
+    private static Object[] toRow(Fee fee) {
+        Student student = fee.getStudent();
+        return new Object[]{
+            student.getName(),
+            student.getId(),
+            student.getClassName(),
+            String.format("%.0f", fee.getAmount()),
+            fee.isPaid()
+        };
+    }
+    
+    private static void savePaymentStatus(Map<String, Boolean> paid) throws IOException {
+        DataManager dataManager = DataManager.getInstance();
+        for (Map.Entry<String, Boolean> entry : paid.entrySet()) {
+            Student student = dataManager.getStudent(entry.getKey());
+            Fee fee = student != null ? dataManager.getFeeForStudent(student) : null;
+            if (fee != null && fee.isPaid() != entry.getValue()) {
+                dataManager.setFeePaid(fee, entry.getValue());
+            }
+        }
+        dataManager.sync();
+    }
+    
+    private void initStudentView(Fee studentFee) {
+        Student student = session.getStudent();
         
         // Main panel
         JPanel mainPanel = new JPanel(new BorderLayout(20, 20));
@@ -1,36 +1,53 @@
 package com.vku.ui.panels;
 
-import com.vku.auth.AuthenticationManager;
+import com.vku.auth.Session;
 import com.vku.data.DataManager;
+import com.vku.data.SortKey;
 import com.vku.model.Grade;
+import com.vku.model.GradingPolicy;
+import com.vku.model.Role;
 import com.vku.model.Student;
 import com.vku.model.Subject;
 import com.vku.ui.components.ModernPanel;
+import com.vku.ui.models.GradeSheetTableModel;
+import com.vku.ui.utils.AsyncLoader;
 import com.vku.ui.utils.UIConstants;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import javax.swing.table.TableCellRenderer;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntFunction;
 
 /**
  * Panel for displaying and managing student grades.
  */
-public class GradesPanel extends JPanel {
+public class GradesPanel extends AsyncPanel {
+    private AsyncLoader.LoadTask<List<Grade>> gradesTask;
+    private AsyncLoader.LoadTask<String> averageTask;
+    private JLabel averageLabel;
     
-    public GradesPanel() {
-        setLayout(new BorderLayout());
-        setBackground(UIConstants.BG_COLOR);
-        
-        if (AuthenticationManager.isTeacher()) {
-            initTeacherView();
-        } else if (AuthenticationManager.isStudent()) {
+    // Order picked by clicking a column header, or null for roster order
+    private SortKey sortKey;
+    private boolean sortAscending = true;
+    
+    public GradesPanel(Session session) {
+        super(session);
+        if (session.isTeacher()) {
+            // Get subjects for the teacher
+            loadView(Role.TEACHER, () -> DataManager.getInstance().getSubjects().stream()
+                               .map(Subject::getName)
+                               .toArray(String[]::new), this::initTeacherView);
+        } else if (session.isStudent()) {
             initStudentView();
         }
     }
     
-    private void initTeacherView() {
+    private void initTeacherView(String[] subjectNames) {
         // Title
         JLabel titleLabel = new JLabel("Student Grades");
         titleLabel.setFont(UIConstants.TITLE_FONT);
@@ -43,35 +60,46 @@ public class GradesPanel extends JPanel {
         
         JLabel subjectLabel = new JLabel("Select Subject:");
         
-        // Get subjects for the teacher
-        String[] subjectNames = DataManager.getInstance().getSubjects().stream()
-                               .map(Subject::getName)
-                               .toArray(String[]::new);
-        
         JComboBox<String> subjectComboBox = new JComboBox<>(subjectNames);
         
+        // Section average, read from the grade columns
+        averageLabel = new JLabel();
+        averageLabel.setBorder(BorderFactory.createEmptyBorder(0, 20, 0, 0));
+        
         selectionPanel.add(subjectLabel);
         selectionPanel.add(subjectComboBox);
+        selectionPanel.add(averageLabel);
         
         // Grades table
-        String[] columnNames = {"Student Name", "ID", "Assignment (20%)", "Midterm (20%)", 
-                             "Attendance (10%)", "Final (50%)", "Average", "Rank"};
+        GradeSheetTableModel tableModel = new GradeSheetTableModel();
         
-        DefaultTableModel tableModel = new DefaultTableModel(columnNames, 0) {
+        JTable gradesTable = new JTable(tableModel) {
             @Override
-            public boolean isCellEditable(int row, int column) {
-                // Make score columns editable
-                return column >= 2 && column <= 5;
+            public void createDefaultColumnsFromModel() {
+                super.createDefaultColumnsFromModel();
+                // Set custom renderer for the rank column, again whenever the
+                // columns are rebuilt for another grading policy
+                getColumnModel().getColumn(GradeSheetTableModel.RANK_COLUMN)
+                    .setCellRenderer(new GradeRankRenderer(row -> tableModel.getGradeAt(row).getGradingPolicy()));
             }
         };
-        
-        JTable gradesTable = new JTable(tableModel);
         gradesTable.setRowHeight(30);
         gradesTable.getTableHeader().setFont(UIConstants.BODY_FONT);
         gradesTable.setFont(UIConstants.BODY_FONT);
         
-        // Set custom renderer for the rank column
-        gradesTable.getColumnModel().getColumn(7).setCellRenderer(new GradeRankRenderer());
+        // Header clicks sort through the data layer's sort indexes; clicking
+        // the same column again reverses the order
+        gradesTable.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                SortKey key = sortKeyFor(gradesTable.convertColumnIndexToModel(gradesTable.columnAtPoint(e.getPoint())));
+                if (key != null) {
+                    sortAscending = key != sortKey || !sortAscending;
+                    sortKey = key;
+                    sortGradesTable(tableModel, (String) subjectComboBox.getSelectedItem());
+                }
+            }
+        });
         
         // Populate table with initial subject
         if (subjectNames.length > 0) {
@@ -110,64 +138,119 @@ public class GradesPanel extends JPanel {
         });
         
         saveButton.addActionListener(e -> {
-            JOptionPane.showMessageDialog(this, 
-                "Grades saved successfully!", 
-                "Save Grades", JOptionPane.INFORMATION_MESSAGE);
+            // Edits are applied as they are typed; save the sheet's grades
+            // and report success only once they are stored
+            List<Grade> grades = new ArrayList<>(tableModel.getGrades());
+            load(Role.TEACHER, () -> {
+                DataManager.getInstance().saveGrades(grades);
+                return null;
+            }, saved -> {
+                updateAverage((String) subjectComboBox.getSelectedItem());
+                JOptionPane.showMessageDialog(this, 
+                    "Grades saved successfully!", 
+                    "Save Grades", JOptionPane.INFORMATION_MESSAGE);
+            });
         });
     }
     
-    private void updateGradesTable(DefaultTableModel model, String subjectName) {
-        model.setRowCount(0);
+    private void updateGradesTable(GradeSheetTableModel model, String subjectName) {
+        // Switching subjects quickly should only show the last one
+        if (gradesTask != null) {
+            gradesTask.cancel();
+        }
+        SortKey key = sortKey;
+        boolean ascending = sortAscending;
+        gradesTask = load(Role.TEACHER, () -> sortGrades(findGrades(subjectName), subjectName, key, ascending),
+                          model::setGrades);
+        updateAverage(subjectName);
+    }
+    
+    private void sortGradesTable(GradeSheetTableModel model, String subjectName) {
+        // Rows of a subject still loading are not the ones to sort; load it sorted
+        if (gradesTask != null && !gradesTask.isDone()) {
+            updateGradesTable(model, subjectName);
+            return;
+        }
+        List<Grade> grades = new ArrayList<>(model.getGrades());
+        SortKey key = sortKey;
+        boolean ascending = sortAscending;
+        gradesTask = load(Role.TEACHER, () -> sortGrades(grades, subjectName, key, ascending), model::setGrades);
+    }
+    
+    private static SortKey sortKeyFor(int column) {
+        switch (column) {
+            case GradeSheetTableModel.NAME_COLUMN:
+                return SortKey.NAME;
+            case GradeSheetTableModel.ID_COLUMN:
+                return SortKey.ID;
+            case GradeSheetTableModel.AVERAGE_COLUMN:
+            case GradeSheetTableModel.RANK_COLUMN:
+                return SortKey.AVERAGE;
+            default:
+                return null;
+        }
+    }
+    
+    static List<Grade> sortGrades(List<Grade> grades, String subjectName, SortKey key, boolean ascending) {
+        DataManager dataManager = DataManager.getInstance();
+        Subject subject = key == null ? null : dataManager.findSubjectByName(subjectName);
+        return subject == null ? grades : dataManager.sortGrades(subject, grades, key, ascending);
+    }
+    
+    private void updateAverage(String subjectName) {
+        if (averageTask != null) {
+            averageTask.cancel();
+        }
+        averageTask = load(Role.TEACHER, () -> {
+            DataManager dataManager = DataManager.getInstance();
+            Subject subject = dataManager.findSubjectByName(subjectName);
+            if (subject == null) {
+                return String.format("Class Average: %.2f", 0.0);
+            }
+            return String.format("Class Average: %.2f", dataManager.getSectionAverage(subject))
+                 + describeLetters(subject.getGradingPolicy(), dataManager.getLetterDistribution(subject));
+        }, averageLabel::setText);
+    }
+    
+    // e.g. "  (A: 3, B: 5, C: 1)", leaving out letters nobody got
+    private static String describeLetters(GradingPolicy policy, int[] counts) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                text.append(text.length() == 0 ? "  (" : ", ")
+                    .append(policy.letterAt(i)).append(": ").append(counts[i]);
+            }
+        }
+        return text.length() == 0 ? "" : text.append(')').toString();
+    }
+    
+    static List<Grade> findGrades(String subjectName) {
+        List<Grade> rows = new ArrayList<>();
         
         // Find the selected subject
-        Subject selectedSubject = DataManager.getInstance().getSubjects().stream()
-                                 .filter(s -> s.getName().equals(subjectName))
-                                 .findFirst()
-                                 .orElse(null);
+        Subject selectedSubject = DataManager.getInstance().findSubjectByName(subjectName);
         
         if (selectedSubject == null) {
-            return;
+            return rows;
         }
         
         // Find students for this subject and their grades
-        for (Student student : DataManager.getInstance().getStudents()) {
-            if (student.getSubjects().contains(selectedSubject)) {
-                // Find grade for this subject
-                Grade grade = student.getGrades().stream()
-                             .filter(g -> g.getSubject().equals(selectedSubject))
-                             .findFirst()
-                             .orElse(null);
-                
-                if (grade != null) {
-                    model.addRow(new Object[]{
-                        student.getName(),
-                        student.getId(),
-                        grade.getAssignmentScore(),
-                        grade.getMidtermScore(),
-                        grade.getAttendanceScore(),
-                        grade.getFinalScore(),
-                        grade.calculateAverage(),
-                        grade.getLetterGrade()
-                    });
-                } else {
-                    // If no grade yet, add student with empty scores
-                    model.addRow(new Object[]{
-                        student.getName(),
-                        student.getId(),
-                        0.0,
-                        0.0,
-                        0.0,
-                        0.0,
-                        0.0,
-                        "F"
-                    });
-                }
+        DataManager dataManager = DataManager.getInstance();
+        for (Student student : dataManager.getStudentsInSubject(selectedSubject)) {
+            Grade grade = dataManager.getGrade(student, selectedSubject);
+            
+            if (grade != null) {
+                rows.add(grade);
+            } else {
+                // If no grade yet, add student with empty scores
+                rows.add(new Grade(student, selectedSubject));
             }
         }
+        return rows;
     }
     
     private void initStudentView() {
-        Student student = (Student) AuthenticationManager.getCurrentUser();
+        Student student = session.getStudent();
         
         // Main panel with border layout
         JPanel mainPanel = new JPanel(new BorderLayout(20, 20));
@@ -221,7 +304,8 @@ public class GradesPanel extends JPanel {
         DefaultTableModel detailedModel = new DefaultTableModel(detailedColumns, 0);
         
         // Populate with student's subjects and grades
-        for (Grade grade : student.getGrades()) {
+        List<Grade> grades = student.getGrades();
+        for (Grade grade : grades) {
             Subject subject = grade.getSubject();
             
             detailedModel.addRow(new Object[]{
@@ -243,7 +327,8 @@ public class GradesPanel extends JPanel {
         detailedTable.setFont(UIConstants.BODY_FONT);
         
         // Set custom renderer for the rank column
-        detailedTable.getColumnModel().getColumn(8).setCellRenderer(new GradeRankRenderer());
+        detailedTable.getColumnModel().getColumn(8)
+            .setCellRenderer(new GradeRankRenderer(row -> grades.get(row).getGradingPolicy()));
         
         JScrollPane detailedScrollPane = new JScrollPane(detailedTable);
         detailedScrollPane.setBorder(BorderFactory.createEmptyBorder());
@@ -265,9 +350,13 @@ public class GradesPanel extends JPanel {
         add(mainPanel, BorderLayout.CENTER);
     }
     
-    // Custom renderer for the grade rank column
+    // Custom renderer for the grade rank column; letters are coloured by
+    // where they stand in their row's grading policy, best green, failing red
     class GradeRankRenderer extends JLabel implements TableCellRenderer {
-        public GradeRankRenderer() {
+        private final IntFunction<GradingPolicy> policyForRow;
+        
+        public GradeRankRenderer(IntFunction<GradingPolicy> policyForRow) {
+            this.policyForRow = policyForRow;
             setOpaque(true);
             setHorizontalAlignment(SwingConstants.CENTER);
             setFont(UIConstants.BODY_FONT.deriveFont(Font.BOLD));
@@ -276,21 +365,22 @@ public class GradesPanel extends JPanel {
         @Override
         public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
             String rank = value.toString();
+            GradingPolicy policy = policyForRow.apply(table.convertRowIndexToModel(row));
             
-            switch (rank) {
-                case "A":
+            switch (band(policy, rank)) {
+                case 0:
                     setBackground(new Color(34, 197, 94, 50)); // Light green
                     setForeground(new Color(21, 128, 61)); // Dark green
                     break;
-                case "B":
+                case 1:
                     setBackground(new Color(59, 130, 246, 50)); // Light blue
                     setForeground(new Color(29, 78, 216)); // Dark blue
                     break;
-                case "C":
+                case 2:
                     setBackground(new Color(249, 115, 22, 50)); // Light orange
                     setForeground(new Color(194, 65, 12)); // Dark orange
                     break;
-                case "D":
+                case 3:
                     setBackground(new Color(234, 179, 8, 50)); // Light yellow
                     setForeground(new Color(161, 98, 7)); // Dark yellow
                     break;
@@ -303,5 +393,17 @@ public class GradesPanel extends JPanel {
             setText(rank);
             return this;
         }
+        
+        // Spreads the passing letters over the four colours A to D; the last
+        // letter, and any letter the policy does not know, is failing
+        private int band(GradingPolicy policy, String rank) {
+            int last = policy.getLetterCount() - 1;
+            for (int index = 0; index < last; index++) {
+                if (policy.letterAt(index).equals(rank)) {
+                    return index * 4 / last;
+                }
+            }
+            return 4;
+        }
     }
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package com.vku.ui.panels;
 
-import com.vku.auth.AuthenticationManager;
+import com.vku.auth.Session;
+import com.vku.data.CampusStatistics;
 import com.vku.data.DataManager;
+import com.vku.model.Role;
 import com.vku.model.Student;
 import com.vku.model.Subject;
+import com.vku.ui.MainFrame;
 import com.vku.ui.components.ModernPanel;
 import com.vku.ui.utils.UIConstants;
 
@@ -16,45 +19,29 @@ import java.util.Map;
 /**
  * Home panel that displays different content based on user role.
  */
-public class HomePanel extends JPanel {
+public class HomePanel extends AsyncPanel {
     
-    public HomePanel() {
-        setLayout(new BorderLayout());
-        setBackground(UIConstants.BG_COLOR);
-        
-        if (AuthenticationManager.isTeacher()) {
-            initTeacherView();
-        } else if (AuthenticationManager.isStudent()) {
-            initStudentView();
+    public HomePanel(Session session) {
+        super(session);
+        if (session.isTeacher()) {
+            loadView(Role.TEACHER, () -> DataManager.getInstance().getStatistics(), this::initTeacherView);
+        } else if (session.isStudent()) {
+            Student student = session.getStudent();
+            loadView(() -> findProjectProgress(student), this::initStudentView);
         }
     }
     
-    private void initTeacherView() {
+    private void initTeacherView(CampusStatistics.Snapshot stats) {
         // Top section - Statistics cards
         JPanel statsPanel = new JPanel(new GridLayout(1, 4, 15, 0));
         statsPanel.setOpaque(false);
         statsPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
         
-        // Get data for statistics
-        int totalStudents = DataManager.getInstance().getStudents().size();
-        int pendingProjects = (int) DataManager.getInstance().getProjects().stream()
-                                .filter(p -> p.getProgress() < 100).count();
-        
-        double totalFees = DataManager.getInstance().getFees().stream()
-                             .filter(f -> !f.isPaid())
-                             .mapToDouble(f -> f.getAmount())
-                             .sum();
-        
-        double averageGPA = DataManager.getInstance().getStudents().stream()
-                             .mapToDouble(s -> s.calculateGPA())
-                             .average()
-                             .orElse(0.0);
-        
         // Create statistic cards
-        statsPanel.add(createStatCard("Total Students", String.valueOf(totalStudents), UIConstants.PRIMARY_COLOR));
-        statsPanel.add(createStatCard("Pending Projects", String.valueOf(pendingProjects), UIConstants.SECONDARY_COLOR));
-        statsPanel.add(createStatCard("Unpaid Fees", String.format("%.0f VND", totalFees), UIConstants.WARNING_COLOR));
-        statsPanel.add(createStatCard("Average GPA", String.format("%.1f", averageGPA), UIConstants.ACCENT_COLOR));
+        statsPanel.add(createStatCard("Total Students", String.valueOf(stats.getTotalStudents()), UIConstants.PRIMARY_COLOR));
+        statsPanel.add(createStatCard("Pending Projects", String.valueOf(stats.getPendingProjects()), UIConstants.SECONDARY_COLOR));
+        statsPanel.add(createStatCard("Unpaid Fees", String.format("%.0f VND", stats.getUnpaidFees()), UIConstants.WARNING_COLOR));
+        statsPanel.add(createStatCard("Average GPA", String.format("%.1f", stats.getAverageGpa()), UIConstants.ACCENT_COLOR));
         
         // Middle section - Charts
         JPanel chartPanel = new ModernPanel(true);
@@ -67,9 +54,8 @@ public class HomePanel extends JPanel {
         
         // Count students by major
         Map<String, Integer> majorCounts = new HashMap<>();
-        for (Student student : DataManager.getInstance().getStudents()) {
-            String major = student.getMajor();
-            majorCounts.put(major, majorCounts.getOrDefault(major, 0) + 1);
+        for (Map.Entry<String, CampusStatistics.GroupStats> entry : stats.getByMajor().entrySet()) {
+            majorCounts.put(entry.getKey(), entry.getValue().getStudents());
         }
         
         // Create simple pie chart visualization
@@ -92,16 +78,12 @@ public class HomePanel extends JPanel {
         // Add action listeners
         viewStudentsBtn.addActionListener(e -> {
             // Switch to Student Info panel
-            Container mainPanel = getParent();
-            CardLayout cardLayout = (CardLayout) mainPanel.getLayout();
-            cardLayout.show(mainPanel, "StudentInfo");
+            showPanel("StudentInfo");
         });
         
         checkGradesBtn.addActionListener(e -> {
             // Switch to Grades panel
-            Container mainPanel = getParent();
-            CardLayout cardLayout = (CardLayout) mainPanel.getLayout();
-            cardLayout.show(mainPanel, "Grades");
+            showPanel("Grades");
         });
         
         // Add all sections to the main panel
@@ -116,8 +98,8 @@ public class HomePanel extends JPanel {
         add(buttonsPanel, BorderLayout.SOUTH);
     }
     
-    private void initStudentView() {
-        Student student = (Student) AuthenticationManager.getCurrentUser();
+    private void initStudentView(int projectProgress) {
+        Student student = session.getStudent();
         
         // Main panel with border layout
         JPanel mainPanel = new JPanel(new BorderLayout(20, 20));
@@ -193,16 +175,6 @@ public class HomePanel extends JPanel {
         int totalRequiredCredits = 120; // Assuming 120 credits required for graduation
         int currentSubjectsCount = student.getSubjects().size();
         
-        // Get project progress if student has any
-        int projectProgress = 0;
-        if (!DataManager.getInstance().getProjects().isEmpty()) {
-            projectProgress = DataManager.getInstance().getProjects().stream()
-                .filter(p -> p.getStudents().contains(student))
-                .findFirst()
-                .map(p -> p.getProgress())
-                .orElse(0);
-        }
-        
         middlePanel.add(createStatCard("Current GPA", String.format("%.1f", gpa), UIConstants.PRIMARY_COLOR));
         middlePanel.add(createStatCard("Credits", completedCredits + "/" + totalRequiredCredits, UIConstants.SECONDARY_COLOR));
         middlePanel.add(createStatCard("Current Subjects", String.valueOf(currentSubjectsCount), UIConstants.ACCENT_COLOR));
@@ -245,6 +217,23 @@ public class HomePanel extends JPanel {
         add(mainPanel, BorderLayout.CENTER);
     }
     
+    private void showPanel(String name) {
+        // Go through the frame so the card is built if it is not open yet
+        MainFrame mainFrame = (MainFrame) SwingUtilities.getAncestorOfClass(MainFrame.class, this);
+        if (mainFrame != null) {
+            mainFrame.showPanel(name);
+        }
+    }
+    
+    private static int findProjectProgress(Student student) {
+        // Get project progress if student has any
+        return DataManager.getInstance().getProjects().stream()
+            .filter(p -> p.getStudents().contains(student))
+            .findFirst()
+            .map(p -> p.getProgress())
+            .orElse(0);
+    }
+    
     private JPanel createStatCard(String title, String value, Color color) {
         JPanel card = new ModernPanel(true);
         card.setLayout(new BorderLayout());
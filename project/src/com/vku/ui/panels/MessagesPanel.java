@@ -1,6 +1,6 @@
 package com.vku.ui.panels;
 
-import com.vku.auth.AuthenticationManager;
+import com.vku.auth.Session;
 import com.vku.data.DataManager;
 import com.vku.model.Teacher;
 import com.vku.ui.components.ModernPanel;
@@ -8,21 +8,20 @@ import com.vku.ui.utils.UIConstants;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Panel for displaying and sending messages.
  */
-public class MessagesPanel extends JPanel {
+public class MessagesPanel extends AsyncPanel {
     
-    public MessagesPanel() {
-        setLayout(new BorderLayout());
-        setBackground(UIConstants.BG_COLOR);
-        
-        initView();
+    public MessagesPanel(Session session) {
+        super(session);
+        loadView(() -> new ArrayList<>(DataManager.getInstance().getTeachers()), this::initView);
     }
     
-    private void initView() {
+    private void initView(List<Teacher> teachers) {
         // Title
         JLabel titleLabel = new JLabel("Messages");
         titleLabel.setFont(UIConstants.TITLE_FONT);
@@ -33,9 +32,6 @@ public class MessagesPanel extends JPanel {
         teachersPanel.setOpaque(false);
         teachersPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
         
-        // Get all teachers
-        List<Teacher> teachers = DataManager.getInstance().getTeachers();
-        
         // Create teacher cards
         for (Teacher teacher : teachers) {
             ModernPanel teacherCard = new ModernPanel(true);
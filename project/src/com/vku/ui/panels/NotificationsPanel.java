@@ -1,36 +1,58 @@
 package com.vku.ui.panels;
 
-import com.vku.auth.AuthenticationManager;
+import com.vku.auth.Session;
 import com.vku.data.DataManager;
 import com.vku.model.Notification;
+import com.vku.model.Role;
 import com.vku.model.Student;
 import com.vku.ui.components.ModernPanel;
+import com.vku.ui.models.ListRowSource;
+import com.vku.ui.models.RowSource;
+import com.vku.ui.models.WindowedTableModel;
 import com.vku.ui.utils.UIConstants;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Panel for displaying and creating notifications.
  */
-public class NotificationsPanel extends JPanel {
+public class NotificationsPanel extends AsyncPanel {
+    // Rows are built on loader threads, so the format must be thread-safe
+    private static final DateTimeFormatter DATE_FORMAT =
+        DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
     
-    public NotificationsPanel() {
-        setLayout(new BorderLayout());
-        setBackground(UIConstants.BG_COLOR);
-        
-        if (AuthenticationManager.isTeacher()) {
-            initTeacherView();
-        } else if (AuthenticationManager.isStudent()) {
-            initStudentView();
+    public NotificationsPanel(Session session) {
+        super(session);
+        if (session.isTeacher()) {
+            loadView(NotificationsPanel::loadNotifications, this::initTeacherView);
+        } else if (session.isStudent()) {
+            loadView(NotificationsPanel::loadNotifications, this::initStudentView);
         }
     }
     
-    private void initTeacherView() {
+    private static List<Notification> loadNotifications() {
+        return DataManager.getInstance().getNotifications();
+    }
+    
+    // Notifications have no id, so each row is keyed by the object itself
+    private static ListRowSource<Notification> toSource(List<Notification> notifications,
+                                                         Function<Notification, Object[]> toRow) {
+        return new ListRowSource<>(notifications, notification -> notification, toRow)
+            .sortable(0, Comparator.comparing(Notification::getDate));
+    }
+    
+    private static String formatDate(Date date) {
+        return DATE_FORMAT.format(date.toInstant());
+    }
+    
+    private void initTeacherView(List<Notification> notifications) {
         // Title
         JLabel titleLabel = new JLabel("Notifications");
         titleLabel.setFont(UIConstants.TITLE_FONT);
@@ -53,7 +75,7 @@ public class NotificationsPanel extends JPanel {
         
         // Recipient selection
         JLabel recipientLabel = new JLabel("Recipient:");
-        String[] recipientOptions = {"@All", "K40C", "K41A", "K42B", "student1@vku.vn", "student2@vku.vn"};
+        String[] recipientOptions = {Notification.EVERYONE, "K40C", "K41A", "K42B", "student1@vku.vn", "student2@vku.vn"};
         JComboBox<String> recipientComboBox = new JComboBox<>(recipientOptions);
         
         gbc.gridx = 0;
@@ -115,26 +137,20 @@ public class NotificationsPanel extends JPanel {
         JLabel notificationsTitle = new JLabel("Sent Announcements");
         notificationsTitle.setFont(UIConstants.SUBTITLE_FONT);
         
-        // Notifications table
+        // Notifications table, fetching only the rows on screen
         String[] columnNames = {"Date", "Recipient", "Message"};
-        DefaultTableModel tableModel = new DefaultTableModel(columnNames, 0);
-        
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
-        
-        // Add notifications
-        List<Notification> notifications = DataManager.getInstance().getNotifications();
-        for (Notification notification : notifications) {
-            tableModel.addRow(new Object[]{
-                dateFormat.format(notification.getDate()),
-                "@All", // Dummy recipient
-                notification.getMessage()
-            });
-        }
+        Function<Notification, Object[]> toRow = notification -> new Object[]{
+            formatDate(notification.getDate()),
+            notification.getRecipient(),
+            notification.getMessage()
+        };
+        WindowedTableModel tableModel = new WindowedTableModel(columnNames, toSource(notifications, toRow));
         
         JTable notificationsTable = new JTable(tableModel);
         notificationsTable.setRowHeight(30);
         notificationsTable.getTableHeader().setFont(UIConstants.BODY_FONT);
         notificationsTable.setFont(UIConstants.BODY_FONT);
+        tableModel.sortOnHeaderClick(notificationsTable);
         
         JScrollPane tableScrollPane = new JScrollPane(notificationsTable);
         tableScrollPane.setBorder(BorderFactory.createEmptyBorder());
@@ -165,23 +181,32 @@ public class NotificationsPanel extends JPanel {
                 return;
             }
             
-            // Add new notification to table
-            tableModel.insertRow(0, new Object[]{
-                dateFormat.format(new Date()),
-                recipient,
-                message
+            // Store the notification, then show the table with it added, in
+            // the order it is sorted by
+            Notification notification = new Notification(session.getUser().getName(), message, new Date(), null,
+                                                         recipient);
+            int sortColumn = tableModel.getSortColumn();
+            boolean ascending = tableModel.isSortAscending();
+            load(Role.TEACHER, () -> {
+                DataManager dataManager = DataManager.getInstance();
+                dataManager.addNotification(notification);
+                dataManager.sync();
+                RowSource rows = toSource(dataManager.getNotifications(), toRow);
+                return sortColumn >= 0 ? rows.sortedBy(sortColumn, ascending) : rows;
+            }, sent -> {
+                tableModel.setSource(sent);
+                
+                JOptionPane.showMessageDialog(this, 
+                    "Announcement sent successfully!", 
+                    "Send Announcement", JOptionPane.INFORMATION_MESSAGE);
+                
+                messageArea.setText("");
             });
-            
-            JOptionPane.showMessageDialog(this, 
-                "Announcement sent successfully!", 
-                "Send Announcement", JOptionPane.INFORMATION_MESSAGE);
-            
-            messageArea.setText("");
         });
     }
     
-    private void initStudentView() {
-        Student student = (Student) AuthenticationManager.getCurrentUser();
+    private void initStudentView(List<Notification> notifications) {
+        Student student = session.getStudent();
         
         // Main panel
         JPanel mainPanel = new JPanel(new BorderLayout(20, 20));
@@ -197,26 +222,20 @@ public class NotificationsPanel extends JPanel {
         notificationsPanel.setLayout(new BorderLayout());
         notificationsPanel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
         
-        // Notifications table
+        // Notifications table, fetching only the rows on screen
         String[] columnNames = {"Date", "Sender", "Message"};
-        DefaultTableModel tableModel = new DefaultTableModel(columnNames, 0);
-        
-        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
-        
-        // Add notifications
-        List<Notification> notifications = DataManager.getInstance().getNotifications();
-        for (Notification notification : notifications) {
-            tableModel.addRow(new Object[]{
-                dateFormat.format(notification.getDate()),
+        WindowedTableModel tableModel = new WindowedTableModel(columnNames, toSource(notifications,
+            notification -> new Object[]{
+                formatDate(notification.getDate()),
                 notification.getSender(),
                 notification.getMessage()
-            });
-        }
+            }));
         
         JTable notificationsTable = new JTable(tableModel);
         notificationsTable.setRowHeight(30);
         notificationsTable.getTableHeader().setFont(UIConstants.BODY_FONT);
         notificationsTable.setFont(UIConstants.BODY_FONT);
+        tableModel.sortOnHeaderClick(notificationsTable);
         
         // Set column widths
         notificationsTable.getColumnModel().getColumn(0).setPreferredWidth(150);
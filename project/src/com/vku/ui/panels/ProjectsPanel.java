@@ -1,8 +1,9 @@
 package com.vku.ui.panels;
 
-import com.vku.auth.AuthenticationManager;
+import com.vku.auth.Session;
 import com.vku.data.DataManager;
 import com.vku.model.Project;
+import com.vku.model.Role;
 import com.vku.model.Student;
 import com.vku.ui.components.ModernButton;
 import com.vku.ui.components.ModernPanel;
@@ -10,26 +11,30 @@ import com.vku.ui.utils.UIConstants;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 /**
  * Panel for displaying and managing student projects.
  */
-public class ProjectsPanel extends JPanel {
+public class ProjectsPanel extends AsyncPanel {
     
-    public ProjectsPanel() {
-        setLayout(new BorderLayout());
-        setBackground(UIConstants.BG_COLOR);
-        
-        if (AuthenticationManager.isTeacher()) {
-            initTeacherView();
-        } else if (AuthenticationManager.isStudent()) {
-            initStudentView();
+    public ProjectsPanel(Session session) {
+        super(session);
+        if (session.isTeacher()) {
+            loadView(Role.TEACHER, () -> new ArrayList<>(DataManager.getInstance().getProjects()), this::initTeacherView);
+        } else if (session.isStudent()) {
+            // Find student's project
+            Student student = session.getStudent();
+            loadView(() -> DataManager.getInstance().getProjects().stream()
+                                .filter(p -> p.getStudents().contains(student))
+                                .findFirst()
+                                .orElse(null), this::initStudentView);
         }
     }
     
-    private void initTeacherView() {
+    private void initTeacherView(List<Project> projects) {
         // Title
         JLabel titleLabel = new JLabel("Student Projects");
         titleLabel.setFont(UIConstants.TITLE_FONT);
@@ -42,8 +47,6 @@ public class ProjectsPanel extends JPanel {
         projectsPanel.setBorder(BorderFactory.createEmptyBorder(10, 20, 20, 20));
         
         // Add project groups
-        List<Project> projects = DataManager.getInstance().getProjects();
-        
         for (Project project : projects) {
             ModernPanel projectPanel = new ModernPanel(true);
             projectPanel.setLayout(new BorderLayout());
@@ -162,14 +165,8 @@ public class ProjectsPanel extends JPanel {
         add(scrollPane, BorderLayout.CENTER);
     }
     
-    private void initStudentView() {
-        Student student = (Student) AuthenticationManager.getCurrentUser();
-        
-        // Find student's project
-        Project studentProject = DataManager.getInstance().getProjects().stream()
-                                .filter(p -> p.getStudents().contains(student))
-                                .findFirst()
-                                .orElse(null);
+    private void initStudentView(Project studentProject) {
+        Student student = session.getStudent();
         
         // Main panel
         JPanel mainPanel = new JPanel(new BorderLayout(20, 20));
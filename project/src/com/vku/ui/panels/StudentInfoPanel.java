@@ -1,34 +1,58 @@
 package com.vku.ui.panels;
 
-import com.vku.auth.AuthenticationManager;
+import com.vku.auth.Session;
 import com.vku.data.DataManager;
+import com.vku.data.SortKey;
+import com.vku.data.StudentFacets;
+import com.vku.data.StudentFacets.Facet;
+import com.vku.model.Role;
 import com.vku.model.Student;
 import com.vku.ui.components.ModernButton;
 import com.vku.ui.components.ModernPanel;
+import com.vku.ui.models.ListRowSource;
+import com.vku.ui.models.RowSource;
+import com.vku.ui.models.WindowedTableModel;
+import com.vku.ui.utils.AsyncLoader;
 import com.vku.ui.utils.UIConstants;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.TableCellEditor;
+import javax.swing.table.TableCellRenderer;
 import java.awt.*;
-import java.util.List;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.Vector;
 
 /**
  * Panel for displaying and managing student information.
  */
-public class StudentInfoPanel extends JPanel {
+public class StudentInfoPanel extends AsyncPanel {
+    // Quiet time after the last keystroke before the search runs
+    private static final int SEARCH_DELAY_MS = 150;
     
-    public StudentInfoPanel() {
-        setLayout(new BorderLayout());
-        setBackground(UIConstants.BG_COLOR);
-        
-        if (AuthenticationManager.isTeacher()) {
-            initTeacherView();
-        } else if (AuthenticationManager.isStudent()) {
+    private AsyncLoader.LoadTask<Matches> filterTask;
+    private Timer searchTimer;
+    
+    // One combo box per facet, and the counts they show for the current filter
+    private final Map<Facet, JComboBox<String>> facetBoxes = new EnumMap<>(Facet.class);
+    private StudentFacets.Result facetCounts;
+    
+    public StudentInfoPanel(Session session) {
+        super(session);
+        if (session.isTeacher()) {
+            loadView(Role.TEACHER, () -> findStudents(Collections.emptyMap(), ""), this::initTeacherView);
+        } else if (session.isStudent()) {
             initStudentView();
         }
     }
     
-    private void initTeacherView() {
+    private void initTeacherView(Matches matches) {
+        facetCounts = matches.facets;
+        
         // Title
         JLabel titleLabel = new JLabel("Student Information");
         titleLabel.setFont(UIConstants.TITLE_FONT);
@@ -39,33 +63,28 @@ public class StudentInfoPanel extends JPanel {
         filtersPanel.setOpaque(false);
         filtersPanel.setBorder(BorderFactory.createEmptyBorder(0, 20, 10, 20));
         
-        // Major filter
-        JLabel majorLabel = new JLabel("Major:");
-        JComboBox<String> majorComboBox = new JComboBox<>(new String[]{"All", "Information Technology", "Business Administration", "Design"});
-        
-        // Class filter
-        JLabel classLabel = new JLabel("Class:");
-        JComboBox<String> classComboBox = new JComboBox<>(new String[]{"All", "K40C", "K41A", "K42B"});
+        // Facet filters, listing the values students have with their counts
+        addFacetFilter(filtersPanel, "Major:", Facet.MAJOR);
+        addFacetFilter(filtersPanel, "Class:", Facet.CLASS);
+        addFacetFilter(filtersPanel, "Course:", Facet.COURSE);
+        addFacetFilter(filtersPanel, "Fee:", Facet.FEE_STATUS);
+        addFacetFilter(filtersPanel, "Rank:", Facet.RANK);
         
         // Search field
         JLabel searchLabel = new JLabel("Search:");
         JTextField searchField = new JTextField(15);
         
-        filtersPanel.add(majorLabel);
-        filtersPanel.add(majorComboBox);
-        filtersPanel.add(classLabel);
-        filtersPanel.add(classComboBox);
         filtersPanel.add(searchLabel);
         filtersPanel.add(searchField);
         
-        // Students table
-        DefaultTableModel tableModel = new DefaultTableModel(
-            new Object[]{"ID", "Name", "Class", "Major", "Course", "Contact", "Actions"}, 0
+        // Students table, fetching only the rows on screen
+        WindowedTableModel tableModel = new WindowedTableModel(
+            new String[]{"ID", "Name", "Class", "Major", "Course", "GPA", "Contact", "Actions"}, matches.rows
         ) {
             @Override
             public boolean isCellEditable(int row, int column) {
                 // Make only the actions column editable
-                return column == 6;
+                return column == 7;
             }
         };
         
@@ -74,23 +93,12 @@ public class StudentInfoPanel extends JPanel {
         studentsTable.getTableHeader().setFont(UIConstants.BODY_FONT);
         studentsTable.setFont(UIConstants.BODY_FONT);
         
+        // Header clicks sort through the data layer's sort indexes
+        tableModel.sortOnHeaderClick(studentsTable);
+        
         // Set custom renderer for the actions column
-        studentsTable.getColumnModel().getColumn(6).setCellRenderer(new ButtonRenderer());
-        studentsTable.getColumnModel().getColumn(6).setCellEditor(new ButtonEditor());
-        
-        // Populate table with students
-        List<Student> students = DataManager.getInstance().getStudents();
-        for (Student student : students) {
-            tableModel.addRow(new Object[]{
-                student.getId(),
-                student.getName(),
-                student.getClassName(),
-                student.getMajor(),
-                student.getCourse(),
-                student.getEmail(),
-                "Actions"
-            });
-        }
+        studentsTable.getColumnModel().getColumn(7).setCellRenderer(new ButtonRenderer());
+        studentsTable.getColumnModel().getColumn(7).setCellEditor(new ButtonEditor());
         
         JScrollPane scrollPane = new JScrollPane(studentsTable);
         scrollPane.setBorder(BorderFactory.createEmptyBorder());
@@ -120,19 +128,33 @@ public class StudentInfoPanel extends JPanel {
         add(centerPanel, BorderLayout.CENTER);
         
         // Add action listeners
-        majorComboBox.addActionListener(e -> {
-            filterStudents(tableModel, (String) majorComboBox.getSelectedItem(), 
-                         (String) classComboBox.getSelectedItem(), searchField.getText());
-        });
+        for (JComboBox<String> comboBox : facetBoxes.values()) {
+            comboBox.addActionListener(e -> filterStudents(tableModel, searchField.getText()));
+        }
         
-        classComboBox.addActionListener(e -> {
-            filterStudents(tableModel, (String) majorComboBox.getSelectedItem(), 
-                         (String) classComboBox.getSelectedItem(), searchField.getText());
+        // Search as the user types, once typing pauses; Enter searches at once
+        searchTimer = new Timer(SEARCH_DELAY_MS, e -> filterStudents(tableModel, searchField.getText()));
+        searchTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchTimer.restart();
+            }
         });
         
         searchField.addActionListener(e -> {
-            filterStudents(tableModel, (String) majorComboBox.getSelectedItem(), 
-                         (String) classComboBox.getSelectedItem(), searchField.getText());
+            searchTimer.stop();
+            filterStudents(tableModel, searchField.getText());
         });
         
         exportButton.addActionListener(e -> {
@@ -142,32 +164,104 @@ public class StudentInfoPanel extends JPanel {
         });
     }
     
-    private void filterStudents(DefaultTableModel model, String major, String className, String search) {
-        model.setRowCount(0);
-        
-        for (Student student : DataManager.getInstance().getStudents()) {
-            boolean majorMatch = major.equals("All") || student.getMajor().equals(major);
-            boolean classMatch = className.equals("All") || student.getClassName().equals(className);
-            boolean searchMatch = search.isEmpty() || 
-                                student.getName().toLowerCase().contains(search.toLowerCase()) ||
-                                student.getId().toLowerCase().contains(search.toLowerCase());
-            
-            if (majorMatch && classMatch && searchMatch) {
-                model.addRow(new Object[]{
-                    student.getId(),
-                    student.getName(),
-                    student.getClassName(),
-                    student.getMajor(),
-                    student.getCourse(),
-                    student.getEmail(),
-                    "Actions"
-                });
+    private void addFacetFilter(JPanel filtersPanel, String label, Facet facet) {
+        Vector<String> values = new Vector<>();
+        values.add("All");
+        values.addAll(facetCounts.getCounts(facet).keySet());
+        JComboBox<String> comboBox = new JComboBox<>(values);
+        comboBox.setRenderer(new FacetCountRenderer(facet));
+        facetBoxes.put(facet, comboBox);
+        
+        filtersPanel.add(new JLabel(label));
+        filtersPanel.add(comboBox);
+    }
+    
+    private void filterStudents(WindowedTableModel model, String search) {
+        Map<Facet, String> choices = new EnumMap<>(Facet.class);
+        for (Map.Entry<Facet, JComboBox<String>> entry : facetBoxes.entrySet()) {
+            choices.put(entry.getKey(), (String) entry.getValue().getSelectedItem());
+        }
+        
+        // Only the latest filter matters, drop any query still running
+        if (filterTask != null) {
+            filterTask.cancel();
+        }
+        int sortColumn = model.getSortColumn();
+        boolean ascending = model.isSortAscending();
+        filterTask = load(Role.TEACHER, () -> {
+            Matches matches = findStudents(choices, search);
+            // Keep the order picked by clicking a header
+            return sortColumn >= 0
+                ? new Matches(matches.rows.sortedBy(sortColumn, ascending), matches.facets) : matches;
+        }, matches -> {
+            model.setSource(matches.rows);
+            facetCounts = matches.facets;
+            for (JComboBox<String> comboBox : facetBoxes.values()) {
+                comboBox.repaint();
             }
+        });
+    }
+    
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+        if (searchTimer != null) {
+            searchTimer.stop();
+        }
+    }
+    
+    /**
+     * Finds the students with the chosen facet values that match a search.
+     *
+     * @param choices the value chosen for each facet, or "All"
+     * @param search the search words, or blank for all students
+     * @return the rows, in search order if searching, and the facet counts
+     */
+    static Matches findStudents(Map<Facet, String> choices, String search) {
+        Map<Facet, Set<String>> selection = new EnumMap<>(Facet.class);
+        for (Map.Entry<Facet, String> choice : choices.entrySet()) {
+            if (choice.getValue() != null && !choice.getValue().equals("All")) {
+                selection.put(choice.getKey(), Collections.singleton(choice.getValue()));
+            }
+        }
+        StudentFacets.Result result = DataManager.getInstance().filterStudents(selection, search);
+        DataManager dataManager = DataManager.getInstance();
+        ListRowSource<Student> rows = new ListRowSource<>(result.getStudents(), Student::getId, StudentInfoPanel::toRow)
+            .sortableBy(0, (students, ascending) -> dataManager.sortStudents(students, SortKey.ID, ascending))
+            .sortableBy(1, (students, ascending) -> dataManager.sortStudents(students, SortKey.NAME, ascending))
+            .sortableBy(2, (students, ascending) -> dataManager.sortStudents(students, SortKey.CLASS, ascending))
+            .sortableBy(5, (students, ascending) -> dataManager.sortStudents(students, SortKey.GPA, ascending));
+        return new Matches(rows, result);
+    }
+    
+    private static Object[] toRow(Student student) {
+        return new Object[]{
+            student.getId(),
+            student.getName(),
+            student.getClassName(),
+            student.getMajor(),
+            student.getCourse(),
+            String.format("%.2f", student.calculateGPA()),
+            student.getEmail(),
+            "Actions"
+        };
+    }
+    
+    /**
+     * The rows of a filter and the facet counts around it.
+     */
+    static final class Matches {
+        final RowSource rows;
+        final StudentFacets.Result facets;
+        
+        Matches(RowSource rows, StudentFacets.Result facets) {
+            this.rows = rows;
+            this.facets = facets;
         }
     }
     
     private void initStudentView() {
-        Student student = (Student) AuthenticationManager.getCurrentUser();
+        Student student = session.getStudent();
         
         // Main panel with border layout
         JPanel mainPanel = new JPanel(new BorderLayout(20, 20));
@@ -387,6 +481,21 @@ public class StudentInfoPanel extends JPanel {
         panel.add(valueComponent);
     }
     
+    // Shows each facet value with the number of students the filter would match
+    class FacetCountRenderer extends DefaultListCellRenderer {
+        private final Facet facet;
+        
+        FacetCountRenderer(Facet facet) {
+            this.facet = facet;
+        }
+        
+        @Override
+        public Component getListCellRendererComponent(JList<?> list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
+            int count = "All".equals(value) ? facetCounts.getTotal(facet) : facetCounts.getCount(facet, (String) value);
+            return super.getListCellRendererComponent(list, value + " (" + count + ")", index, isSelected, cellHasFocus);
+        }
+    }
+    
     // Custom renderer for the actions column
     class ButtonRenderer extends JPanel implements TableCellRenderer {
         private JButton viewButton;
@@ -469,8 +578,8 @@ public class StudentInfoPanel extends JPanel {
                     "Delete Student", JOptionPane.YES_NO_OPTION);
                 
                 if (choice == JOptionPane.YES_OPTION) {
-                    DefaultTableModel model = (DefaultTableModel) table.getModel();
-                    model.removeRow(row);
+                    WindowedTableModel model = (WindowedTableModel) table.getModel();
+                    model.setSource(((ListRowSource<?>) model.getSource()).without(row));
                 }
                 
                 fireEditingStopped();
@@ -0,0 +1,88 @@
+package com.vku.ui.utils;
+
+import javax.swing.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs data queries on a background executor and publishes the results
+ * back to the Event Dispatch Thread, so panels never block the UI while
+ * reading from the data layer.
+ */
+public class AsyncLoader {
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+        Math.max(2, Runtime.getRuntime().availableProcessors() / 2), new LoaderThreadFactory());
+    
+    private AsyncLoader() {
+    }
+    
+    /**
+     * Runs a query in the background.
+     *
+     * @param query the data access to run off the EDT
+     * @param onLoaded receives the result on the EDT unless the task was cancelled
+     * @param onError receives any failure on the EDT unless the task was cancelled
+     * @return a handle that can cancel the task
+     */
+    public static <T> LoadTask<T> load(Callable<T> query, Consumer<T> onLoaded, Consumer<Exception> onError) {
+        LoadTask<T> task = new LoadTask<>();
+        task.future = EXECUTOR.submit(() -> {
+            try {
+                T result = query.call();
+                SwingUtilities.invokeLater(() -> {
+                    if (!task.isCancelled()) {
+                        task.done = true;
+                        onLoaded.accept(result);
+                    }
+                });
+            } catch (Exception e) {
+                SwingUtilities.invokeLater(() -> {
+                    if (!task.isCancelled()) {
+                        task.done = true;
+                        onError.accept(e);
+                    }
+                });
+            }
+        });
+        return task;
+    }
+    
+    /**
+     * Handle for a background load.
+     */
+    public static class LoadTask<T> {
+        private volatile Future<?> future;
+        private volatile boolean cancelled;
+        private volatile boolean done;
+        
+        /**
+         * Cancels the task. A cancelled task never delivers its result.
+         */
+        public void cancel() {
+            cancelled = true;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+        
+        public boolean isCancelled() {
+            return cancelled;
+        }
+        
+        public boolean isDone() {
+            return done;
+        }
+    }
+    
+    private static class LoaderThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+        
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "ui-loader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
\ No newline at end of file
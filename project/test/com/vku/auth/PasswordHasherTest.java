@@ -0,0 +1,81 @@
+package com.vku.auth;
+
+import com.vku.data.DataManager;
+import com.vku.data.DatabaseConfig;
+import com.vku.data.JdbcDataStore;
+import com.vku.model.Role;
+import com.vku.model.Student;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hashing and checking passwords, including legacy plaintext ones and
+ * stored values that are damaged.
+ */
+class PasswordHasherTest {
+    @Test
+    void verifiesOnlyTheHashedPassword() {
+        String stored = PasswordHasher.hash("student123".toCharArray());
+        assertTrue(PasswordHasher.isHash(stored));
+        assertTrue(PasswordHasher.verify("student123".toCharArray(), stored));
+        assertFalse(PasswordHasher.verify("student124".toCharArray(), stored));
+        assertFalse(PasswordHasher.verify(new char[0], stored));
+        
+        // Each hash has its own salt
+        assertNotEquals(stored, PasswordHasher.hash("student123".toCharArray()));
+    }
+    
+    @Test
+    void comparesLegacyPlaintextPasswords() {
+        assertFalse(PasswordHasher.isHash("student123"));
+        assertTrue(PasswordHasher.verify("student123".toCharArray(), "student123"));
+        assertFalse(PasswordHasher.verify("Student123".toCharArray(), "student123"));
+        assertFalse(PasswordHasher.verify("student123".toCharArray(), null));
+    }
+    
+    @Test
+    void rejectsMalformedHashes() {
+        String salt = "AAAAAAAAAAAAAAAAAAAAAA==";
+        String[] malformed = {
+            "pbkdf2$",
+            "pbkdf2$1000$" + salt,
+            "pbkdf2$many$" + salt + "$AAAA",
+            "pbkdf2$0$" + salt + "$AAAA",
+            "pbkdf2$1000$not base64!$AAAA",
+            "pbkdf2$1000$$AAAA",
+            "pbkdf2$1000$" + salt + "$AAAA$AAAA"
+        };
+        for (String stored : malformed) {
+            assertFalse(PasswordHasher.verify("student123".toCharArray(), stored), stored);
+        }
+    }
+    
+    @Test
+    void replacesALegacyPasswordWithAHashOnSignIn() throws SQLException {
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        JdbcDataStore store = new JdbcDataStore(new DatabaseConfig(url, "sa", "", 1, 100));
+        try {
+            DataManager dataManager = DataManager.getInstance();
+            dataManager.loadFrom(store);
+            Student student = new Student("S100", "Student S100", "K41A", "IT", "2021-2025", "s100@vku.vn",
+                                          "legacy123");
+            dataManager.addStudent(student);
+            
+            assertNull(AuthenticationManager.authenticate(Role.STUDENT, "s100@vku.vn", "legacy".toCharArray()));
+            assertEquals("legacy123", student.getPassword());
+            
+            Session session = AuthenticationManager.authenticate(Role.STUDENT, "s100@vku.vn",
+                                                                 "legacy123".toCharArray());
+            assertNotNull(session);
+            AuthenticationManager.logout(session);
+            assertTrue(PasswordHasher.isHash(student.getPassword()));
+            assertTrue(PasswordHasher.verify("legacy123".toCharArray(), student.getPassword()));
+        } finally {
+            store.close();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.vku.auth;
+
+import com.vku.data.DataManager;
+import com.vku.data.DatabaseConfig;
+import com.vku.data.JdbcDataStore;
+import com.vku.model.Student;
+import com.vku.model.Teacher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Idle expiry of sessions, and keeping signed-in students resident while
+ * the data is paged.
+ */
+class SessionManagerTest {
+    private final SessionManager sessions = SessionManager.getInstance();
+    private long idleTimeout;
+    private JdbcDataStore store;
+    private DataManager dataManager;
+    
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        idleTimeout = sessions.getIdleTimeout();
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        store = new JdbcDataStore(new DatabaseConfig(url, "sa", "", 1, 100));
+        dataManager = DataManager.getInstance();
+        dataManager.loadFrom(store);
+    }
+    
+    @AfterEach
+    void restore() {
+        sessions.setIdleTimeout(idleTimeout, TimeUnit.MILLISECONDS);
+        store.close();
+    }
+    
+    @Test
+    void expiresSessionsLeftIdle() throws InterruptedException {
+        Session idle = sessions.open(new Teacher("T100", "Teacher", "t100@vku.vn", "x"));
+        sessions.setIdleTimeout(200, TimeUnit.MILLISECONDS);
+        Thread.sleep(300);
+        Session fresh = sessions.open(new Teacher("T101", "Teacher", "t101@vku.vn", "x"));
+        
+        assertTrue(sessions.expireIdleSessions() >= 1);
+        assertTrue(idle.isClosed());
+        assertNull(sessions.getSession(idle.getId()));
+        assertThrows(SessionExpiredException.class, idle::touch);
+        assertSame(fresh, sessions.getSession(fresh.getId()));
+        sessions.close(fresh);
+    }
+    
+    @Test
+    void expiresAnIdleSessionWhenItIsLookedUp() throws InterruptedException {
+        sessions.setIdleTimeout(200, TimeUnit.MILLISECONDS);
+        Session session = sessions.open(new Teacher("T100", "Teacher", "t100@vku.vn", "x"));
+        Thread.sleep(300);
+        
+        assertNull(sessions.getSession(session.getId()));
+        assertTrue(session.isClosed());
+    }
+    
+    @Test
+    void keepsAStudentPinnedUntilTheirLastSessionCloses() throws SQLException {
+        for (int i = 0; i < 12; i++) {
+            dataManager.addStudent(new Student(String.format("P%02d", i), "Student " + i, "K41A", "IT", "2021-2025",
+                                               String.format("p%02d@vku.vn", i), "x"));
+        }
+        dataManager.saveTo(store);
+        dataManager.openPaged(store, 2, 1);
+        
+        Student student = dataManager.getStudent("P05");
+        Session first = sessions.open(student);
+        Session second = sessions.open(student);
+        sessions.close(first);
+        assertTrue(first.isClosed());
+        loadOthers();
+        assertSame(student, dataManager.getStudent("P05"));
+        
+        sessions.close(second);
+        loadOthers();
+        assertNotSame(student, dataManager.getStudent("P05"));
+    }
+    
+    // Loads enough students one at a time to evict any unpinned one
+    private void loadOthers() {
+        for (int i = 6; i < 12; i++) {
+            dataManager.getStudent(String.format("P%02d", i));
+        }
+    }
+}
\ No newline at end of file
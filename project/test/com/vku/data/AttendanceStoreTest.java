@@ -0,0 +1,115 @@
+package com.vku.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Marks on both sides of the 4096-student block boundaries, and reopening
+ * the mapped file.
+ */
+class AttendanceStoreTest {
+    private static final int STUDENTS = 8200;
+    private static final int BLOCK_BYTES = 2 * 4096 / 8;
+    private static final LocalDate MONDAY = LocalDate.of(2025, 3, 3);
+    private static final LocalDate TUESDAY = MONDAY.plusDays(1);
+    private static final int[] EDGES = {0, 63, 64, 4095, 4096, 4097, 8191, 8192, STUDENTS - 1};
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void keepsMarksApartAcrossBlocks() throws IOException {
+        try (AttendanceStore store = new AttendanceStore(directory.resolve("attendance.bin"))) {
+            markEveryone(store);
+            assertEquals(3 * BLOCK_BYTES, store.getUsedBytes());
+            for (int student : EDGES) {
+                assertEquals(present(student), store.get(id(student), "SUB001", MONDAY), id(student));
+            }
+            Map<String, Boolean> sheet = store.getSheet("SUB001", MONDAY);
+            assertEquals(STUDENTS, sheet.size());
+            assertEquals(present(4096), sheet.get(id(4096)));
+            
+            // A second session only takes a block for the range it marks
+            store.mark(id(4096), "SUB001", TUESDAY, false);
+            assertEquals(4 * BLOCK_BYTES, store.getUsedBytes());
+            assertEquals(Collections.singletonMap(id(4096), false), store.getSheet("SUB001", TUESDAY));
+            assertEquals(0.5, store.getRate(id(4096), "SUB001"));
+            assertEquals(1.0, store.getRate(id(4097), "SUB001"));
+            Map<String, Double> rates = store.getRates("SUB001");
+            assertEquals(STUDENTS, rates.size());
+            assertEquals(0.5, rates.get(id(4096)));
+            assertEquals(0.0, rates.get(id(4095)));
+        }
+    }
+    
+    @Test
+    void removesAStudentWithoutTouchingItsNeighbours() throws IOException {
+        try (AttendanceStore store = new AttendanceStore(directory.resolve("attendance.bin"))) {
+            markEveryone(store);
+            store.removeStudents(Arrays.asList(id(4095), id(4096)));
+            
+            assertNull(store.get(id(4095), "SUB001", MONDAY));
+            assertNull(store.get(id(4096), "SUB001", MONDAY));
+            assertEquals(present(4094), store.get(id(4094), "SUB001", MONDAY));
+            assertEquals(present(4097), store.get(id(4097), "SUB001", MONDAY));
+            assertEquals(STUDENTS - 2, store.getSheet("SUB001", MONDAY).size());
+        }
+    }
+    
+    @Test
+    void snapshotsEveryMark() throws IOException {
+        try (AttendanceStore store = new AttendanceStore(directory.resolve("attendance.bin"))) {
+            markEveryone(store);
+            AttendanceStore.Snapshot snapshot = store.snapshot();
+            
+            // Later marks do not reach the snapshot
+            store.mark(id(8192), "SUB001", TUESDAY, true);
+            Map<String, Boolean> seen = new HashMap<>();
+            snapshot.forEach((studentId, subjectId, day, present) -> {
+                assertEquals(MONDAY, day);
+                seen.put(studentId, present);
+            });
+            assertEquals(store.getSheet("SUB001", MONDAY), seen);
+        }
+    }
+    
+    @Test
+    void reopeningTheFileStartsEmpty() throws IOException {
+        Path file = directory.resolve("attendance.bin");
+        try (AttendanceStore store = new AttendanceStore(file)) {
+            markEveryone(store);
+        }
+        try (AttendanceStore store = new AttendanceStore(file)) {
+            assertEquals(0, store.getUsedBytes());
+            assertNull(store.get(id(4096), "SUB001", MONDAY));
+            
+            store.mark(id(4096), "SUB001", MONDAY, true);
+            assertTrue(store.get(id(4096), "SUB001", MONDAY));
+            assertEquals(BLOCK_BYTES, store.getUsedBytes());
+        }
+    }
+    
+    // Marks students in ordinal order, every third one absent
+    private static void markEveryone(AttendanceStore store) {
+        Map<String, Boolean> roster = new LinkedHashMap<>();
+        for (int student = 0; student < STUDENTS; student++) {
+            roster.put(id(student), present(student));
+        }
+        store.markRoster("SUB001", MONDAY, roster);
+    }
+    
+    private static boolean present(int student) {
+        return student % 3 != 0;
+    }
+    
+    private static String id(int student) {
+        return String.format("S%05d", student);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.vku.data;
+
+import com.vku.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Keeping the campus figures up to date through adds, changes and removals.
+ */
+class CampusStatisticsTest {
+    private final Subject subject = new Subject("SUB001", "Java Programming", 3,
+                                                new Teacher("T001", "Teacher", "teacher@vku.vn", "x"));
+    
+    @Test
+    void groupsStudentsByMajorAndClass() {
+        CampusStatistics statistics = new CampusStatistics();
+        statistics.addStudent(student("S001", "K41A", "IT", 6.0));
+        statistics.addStudent(student("S002", "K41A", "IT", 8.0));
+        statistics.addStudent(student("S003", "K41B", "Business", 4.0));
+        
+        CampusStatistics.Snapshot snapshot = statistics.getSnapshot();
+        assertEquals(3, snapshot.getTotalStudents());
+        assertEquals(2, snapshot.getByMajor().get("IT").getStudents());
+        assertEquals(snapshot.getByMajor().get("IT").getAverageGpa(), snapshot.getByClass().get("K41A").getAverageGpa());
+        
+        statistics.removeStudent("S003");
+        assertNull(statistics.getSnapshot().getByMajor().get("Business"));
+        assertEquals(2, statistics.getSnapshot().getTotalStudents());
+    }
+    
+    @Test
+    void groupsStudentsWithoutMajorOrClassAsUnknown() {
+        CampusStatistics statistics = new CampusStatistics();
+        Student student = student("S001", null, null, 6.0);
+        statistics.addStudent(student);
+        statistics.addStudent(student("S002", "K41A", "IT", 8.0));
+        
+        Map<String, CampusStatistics.GroupStats> byMajor = statistics.getSnapshot().getByMajor();
+        assertEquals(1, byMajor.get(CampusStatistics.UNKNOWN_GROUP).getStudents());
+        assertEquals(1, statistics.getSnapshot().getByClass().get(CampusStatistics.UNKNOWN_GROUP).getStudents());
+        
+        // Setting the major moves the student out of the unknown group
+        student.setMajor("IT");
+        statistics.entityChanged(student);
+        byMajor = statistics.getSnapshot().getByMajor();
+        assertNull(byMajor.get(CampusStatistics.UNKNOWN_GROUP));
+        assertEquals(2, byMajor.get("IT").getStudents());
+    }
+    
+    @Test
+    void tracksUnpaidFees() {
+        CampusStatistics statistics = new CampusStatistics();
+        Student student = student("S001", "K41A", "IT", 6.0);
+        statistics.addStudent(student);
+        Fee fee = new Fee(student, 1000000, false);
+        statistics.addFee(fee);
+        assertEquals(1000000, statistics.getSnapshot().getUnpaidFees());
+        
+        fee.setPaid(true);
+        statistics.entityChanged(fee);
+        assertEquals(0.0, statistics.getSnapshot().getUnpaidFees());
+    }
+    
+    private Student student(String id, String className, String major, double finalScore) {
+        Student student = new Student(id, "Student " + id, className, major, "2021-2025", id.toLowerCase() + "@vku.vn", "x");
+        Grade grade = new Grade(student, subject);
+        grade.setFinalScore(finalScore);
+        student.addGrade(grade);
+        return student;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.vku.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the bitmap with a TreeSet, across sparse and dense chunks.
+ */
+class CompactBitmapTest {
+    
+    @Test
+    void matchesASetAsChunksTurnDenseAndSparseAgain() {
+        Random random = new Random(42);
+        CompactBitmap bitmap = new CompactBitmap();
+        TreeSet<Integer> expected = new TreeSet<>();
+        
+        // Enough values in the first chunk to outgrow the array form, then
+        // remove most of them again
+        for (int i = 0; i < 20000; i++) {
+            int value = random.nextInt(1 << 16);
+            bitmap.add(value);
+            expected.add(value);
+        }
+        assertSame(expected, bitmap);
+        for (int i = 0; i < 60000; i++) {
+            int value = random.nextInt(1 << 16);
+            bitmap.remove(value);
+            expected.remove(value);
+        }
+        assertSame(expected, bitmap);
+        
+        // Values spread over many chunks
+        for (int i = 0; i < 5000; i++) {
+            int value = random.nextInt(Integer.MAX_VALUE);
+            bitmap.add(value);
+            expected.add(value);
+        }
+        assertSame(expected, bitmap);
+    }
+    
+    @Test
+    void removingTheLastValueOfAChunkDropsIt() {
+        CompactBitmap bitmap = new CompactBitmap();
+        bitmap.add(7);
+        bitmap.add(1 << 20);
+        bitmap.remove(7);
+        bitmap.remove(8);
+        assertFalse(bitmap.contains(7));
+        assertEquals(1, bitmap.cardinality());
+        bitmap.remove(1 << 20);
+        assertTrue(bitmap.isEmpty());
+    }
+    
+    @Test
+    void combinesSetsLikeSetOperations() {
+        Random random = new Random(7);
+        for (int round = 0; round < 20; round++) {
+            // Dense and sparse sets, overlapping in some chunks only
+            TreeSet<Integer> left = randomSet(random, round % 2 == 0 ? 10000 : 300, 3 << 16);
+            TreeSet<Integer> right = randomSet(random, round % 3 == 0 ? 10000 : 300, 4 << 16);
+            CompactBitmap a = bitmapOf(left);
+            CompactBitmap b = bitmapOf(right);
+            
+            TreeSet<Integer> both = new TreeSet<>(left);
+            both.retainAll(right);
+            TreeSet<Integer> either = new TreeSet<>(left);
+            either.addAll(right);
+            
+            assertSame(both, CompactBitmap.and(a, b));
+            assertSame(either, CompactBitmap.or(a, b));
+            assertEquals(both.size(), CompactBitmap.andCardinality(a, b));
+            assertEquals(both.size(), CompactBitmap.andCardinality(a.toDense(), b));
+            assertSame(left, a.toDense());
+        }
+    }
+    
+    private static TreeSet<Integer> randomSet(Random random, int count, int bound) {
+        TreeSet<Integer> values = new TreeSet<>();
+        for (int i = 0; i < count; i++) {
+            values.add(random.nextInt(bound));
+        }
+        return values;
+    }
+    
+    private static CompactBitmap bitmapOf(Collection<Integer> values) {
+        CompactBitmap bitmap = new CompactBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+    
+    private static void assertSame(TreeSet<Integer> expected, CompactBitmap actual) {
+        List<Integer> values = new ArrayList<>();
+        actual.forEach(values::add);
+        assertEquals(new ArrayList<>(expected), values);
+        assertEquals(expected.size(), actual.cardinality());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        for (int value : expected) {
+            assertTrue(actual.contains(value));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+package com.vku.data;
+
+import com.vku.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Removing students from the column store and reusing their rows.
+ */
+class GradeColumnStoreTest {
+    private final Teacher teacher = new Teacher("T001", "Teacher", "teacher@vku.vn", "x");
+    private final Subject subject = new Subject("SUB001", "Java Programming", 3, teacher);
+    
+    @Test
+    void removedViewsKeepTheirScoresWhenTheRowIsReused() {
+        GradeColumnStore store = new GradeColumnStore();
+        Grade removed = store.adopt(grade(student("S001"), 4.0));
+        store.removeStudents(Collections.singleton("S001"));
+        assertEquals(0, store.getGradeCount());
+        
+        Grade reused = store.adopt(grade(student("S002"), 9.0));
+        assertEquals(4.0, removed.getFinalScore());
+        assertEquals(9.0, reused.getFinalScore());
+        
+        // Writes to the removed view no longer reach the section
+        removed.setFinalScore(1.0);
+        assertEquals(9.0, reused.getFinalScore());
+        assertEquals(9.0, store.getComponentMean(subject.getId(), Grade.FINAL));
+    }
+    
+    @Test
+    void sortsOnlyTheGradesStillInTheSection() {
+        GradeColumnStore store = new GradeColumnStore();
+        Grade high = store.adopt(grade(student("S001"), 8.0));
+        Grade low = store.adopt(grade(student("S002"), 2.0));
+        Grade middle = store.adopt(grade(student("S003"), 5.0));
+        store.removeStudents(Collections.singleton("S001"));
+        Grade added = store.adopt(grade(student("S004"), 7.0));
+        
+        assertEquals(Arrays.asList(low, middle, added, high),
+                     store.sortByAverage(subject.getId(), Arrays.asList(high, added, middle, low), true));
+    }
+    
+    @Test
+    void readdedStudentsGetAFreshRow() {
+        GradeColumnStore store = new GradeColumnStore();
+        Student student = student("S001");
+        Grade first = store.adopt(grade(student, 3.0));
+        store.removeStudents(Collections.singleton("S001"));
+        
+        Grade second = store.adopt(grade(student, 6.0));
+        assertNotSame(first, second);
+        assertSame(second, store.adopt(second));
+        assertNotSame(first, store.adopt(first));
+        assertEquals(3.0, store.getComponentMean(subject.getId(), Grade.FINAL));
+        assertEquals(1, store.getGradeCount());
+    }
+    
+    private Grade grade(Student student, double finalScore) {
+        Grade grade = new Grade(student, subject);
+        grade.setFinalScore(finalScore);
+        return grade;
+    }
+    
+    private static Student student(String id) {
+        return new Student(id, "Student " + id, "K41A", "IT", "2021-2025", id.toLowerCase() + "@vku.vn", "x");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.vku.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Keeps the rows, the primary key and a secondary index in step with a
+ * plain map under random adds, updates and removes.
+ */
+class IndexedStoreTest {
+    
+    @Test
+    void updatesReplaceRowsInPlace() {
+        IndexedStore<String[]> store = store();
+        store.add(row("1", "red"));
+        store.add(row("2", "blue"));
+        store.add(row("3", "red"));
+        List<String[]> before = store.snapshot();
+        
+        String[] replacement = row("2", "red");
+        store.update(replacement);
+        assertEquals(Arrays.asList("1", "2", "3"), ids(store.snapshot()));
+        assertSame(replacement, store.get("2"));
+        assertEquals(Arrays.asList("1", "2", "3"), sorted(ids(store.findAll("colour", "red"))));
+        assertTrue(store.findAll("colour", "blue").isEmpty());
+        
+        // Snapshots taken earlier are not affected
+        assertEquals("blue", before.get(1)[1]);
+    }
+    
+    @Test
+    void removalsFillTheGapWithTheLastRow() {
+        IndexedStore<String[]> store = store();
+        for (String id : new String[]{"1", "2", "3", "4"}) {
+            store.add(row(id, "red"));
+        }
+        assertEquals("2", store.remove("2")[0]);
+        assertNull(store.remove("2"));
+        assertEquals(Arrays.asList("1", "4", "3"), ids(store.snapshot()));
+        
+        // The moved row can still be replaced and removed where it now is
+        store.update(row("4", "blue"));
+        assertEquals("blue", store.snapshot().get(1)[1]);
+        store.remove("4");
+        assertEquals(Arrays.asList("1", "3"), ids(store.snapshot()));
+        assertEquals(2, store.size());
+    }
+    
+    @Test
+    void staysConsistentUnderRandomChanges() {
+        Random random = new Random(3);
+        IndexedStore<String[]> store = store();
+        Map<String, String[]> expected = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            String id = String.valueOf(random.nextInt(300));
+            int operation = random.nextInt(3);
+            if (operation == 0) {
+                String[] row = row(id, "c" + random.nextInt(5));
+                store.add(row);
+                expected.put(id, row);
+            } else if (operation == 1 && expected.containsKey(id)) {
+                String[] row = row(id, "c" + random.nextInt(5));
+                store.update(row);
+                expected.put(id, row);
+            } else {
+                assertEquals(expected.remove(id), store.remove(id));
+            }
+        }
+        
+        assertEquals(expected.size(), store.size());
+        assertEquals(sorted(new ArrayList<>(expected.keySet())), sorted(ids(store.snapshot())));
+        for (String[] row : expected.values()) {
+            assertSame(row, store.get(row[0]));
+        }
+        for (int colour = 0; colour < 5; colour++) {
+            List<String> matching = new ArrayList<>();
+            for (String[] row : expected.values()) {
+                if (row[1].equals("c" + colour)) {
+                    matching.add(row[0]);
+                }
+            }
+            assertEquals(sorted(matching), sorted(ids(store.findAll("colour", "c" + colour))));
+        }
+    }
+    
+    private static IndexedStore<String[]> store() {
+        IndexedStore<String[]> store = new IndexedStore<>(row -> row[0]);
+        store.addIndex("colour", row -> row[1]);
+        return store;
+    }
+    
+    private static String[] row(String id, String colour) {
+        return new String[]{id, colour};
+    }
+    
+    private static List<String> ids(List<String[]> rows) {
+        List<String> ids = new ArrayList<>();
+        for (String[] row : rows) {
+            ids.add(row[0]);
+        }
+        return ids;
+    }
+    
+    private static List<String> sorted(List<String> values) {
+        Collections.sort(values);
+        return values;
+    }
+}
\ No newline at end of file
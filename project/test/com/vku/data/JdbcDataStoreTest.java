@@ -0,0 +1,252 @@
+package com.vku.data;
+
+import com.vku.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips through the JDBC store against an in-memory H2 database in
+ * MySQL mode.
+ */
+class JdbcDataStoreTest {
+    private JdbcDataStore store;
+    private DataManager dataManager;
+    
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        store = new JdbcDataStore(new DatabaseConfig(url, "sa", "", 2, 3));
+        dataManager = DataManager.getInstance();
+        
+        // Loading the empty database resets the shared DataManager
+        dataManager.loadFrom(store);
+    }
+    
+    @AfterEach
+    void closeDatabase() {
+        store.close();
+    }
+    
+    @Test
+    void createsSchemaOnceAndStartsEmpty() throws SQLException {
+        store.createSchema();
+        store.createSchema();
+        assertTrue(store.isEmpty());
+        assertEquals(0, store.countStudents());
+    }
+    
+    @Test
+    void savesAndLoadsEveryEntity() throws SQLException {
+        dataManager.initializeData();
+        Map<String, String> before = describe(dataManager);
+        dataManager.saveTo(store);
+        assertFalse(store.isEmpty());
+        
+        dataManager.loadFrom(store);
+        assertEquals(before, describe(dataManager));
+    }
+    
+    @Test
+    void savingTwiceReplacesRows() throws SQLException {
+        dataManager.initializeData();
+        dataManager.saveTo(store);
+        
+        Student student = dataManager.getStudent("S001");
+        Subject subject = dataManager.getSubject("SUB001");
+        Grade grade = dataManager.getGrade(student, subject);
+        grade.setFinalScore(3.5);
+        dataManager.getFeeForStudent(student).setPaid(false);
+        dataManager.saveTo(store);
+        
+        dataManager.loadFrom(store);
+        assertEquals(5, dataManager.getStudents().size());
+        Student reloaded = dataManager.getStudent("S001");
+        assertEquals(3.5, dataManager.getGrade(reloaded, dataManager.getSubject("SUB001")).getFinalScore());
+        assertFalse(dataManager.getFeeForStudent(reloaded).isPaid());
+    }
+    
+    @Test
+    void savesGradesInBatchesLargerThanTheBatchSize() throws SQLException {
+        dataManager.initializeData();
+        dataManager.saveTo(store);
+        
+        List<Grade> grades = new ArrayList<>();
+        for (Student student : dataManager.getStudents()) {
+            for (Grade grade : student.getGrades()) {
+                grade.setMidtermScore(1.0);
+                grades.add(grade);
+            }
+        }
+        assertTrue(grades.size() > 3);
+        store.saveGrades(grades);
+        
+        dataManager.loadFrom(store);
+        for (Student student : dataManager.getStudents()) {
+            for (Grade grade : student.getGrades()) {
+                assertEquals(1.0, grade.getMidtermScore());
+            }
+        }
+    }
+    
+    @Test
+    void savesEditedGradesStraightToTheDatabase() throws Exception {
+        dataManager.initializeData();
+        dataManager.saveTo(store);
+        dataManager.loadFrom(store);
+        
+        Student student = dataManager.getStudent("S003");
+        Grade grade = dataManager.getGrade(student, dataManager.getSubject("SUB003"));
+        assertSame(grade, dataManager.updateGrade(grade, Grade.FINAL, 2.0));
+        dataManager.saveGrades(Collections.singletonList(grade));
+        
+        // Reloading shows what reached the database
+        dataManager.loadFrom(store);
+        Student reloaded = dataManager.getStudent("S003");
+        assertEquals(2.0, dataManager.getGrade(reloaded, dataManager.getSubject("SUB003")).getFinalScore());
+    }
+    
+    @Test
+    void loadsStudentPagesInIdOrder() throws SQLException {
+        dataManager.initializeData();
+        dataManager.saveTo(store);
+        dataManager.loadFrom(store);
+        
+        assertEquals(5, store.countStudents());
+        assertEquals(Arrays.asList("S001", "S002"), ids(store.loadStudentPage(dataManager, "", 2)));
+        assertEquals(Arrays.asList("S003", "S004"), ids(store.loadStudentPage(dataManager, "S002", 2)));
+        assertEquals(Collections.singletonList("S005"), ids(store.loadStudentPage(dataManager, "S004", 2)));
+        assertTrue(store.loadStudentPage(dataManager, "S005", 2).isEmpty());
+    }
+    
+    @Test
+    void servesPagesOfAnySizeFromThePager() throws SQLException {
+        seedStudents(20);
+        dataManager.openPaged(store, 3, 2);
+        
+        assertEquals(Arrays.asList("P05", "P06", "P07", "P08", "P09"), ids(dataManager.getStudentPage(1, 5)));
+        assertEquals(Arrays.asList("P18", "P19"), ids(dataManager.getStudentPage(3, 6)));
+        assertTrue(dataManager.getStudentPage(4, 6).isEmpty());
+        assertTrue(dataManager.getStudentPage(Integer.MAX_VALUE, Integer.MAX_VALUE).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> dataManager.getStudentPage(0, 0));
+    }
+    
+    @Test
+    void evictsStudentsLoadedOneAtATime() throws SQLException {
+        seedStudents(20);
+        dataManager.openPaged(store, 3, 1);
+        
+        for (int i = 19; i >= 0; i--) {
+            assertNotNull(dataManager.getStudent(String.format("P%02d", i)));
+        }
+        assertNotNull(dataManager.findUserByEmail("p07@vku.vn"));
+        
+        // One page plus at most a page's worth of single students
+        assertTrue(dataManager.getStudents().size() <= 6, "resident: " + dataManager.getStudents().size());
+        assertEquals(20, dataManager.getStudentCount());
+    }
+    
+    @Test
+    void deletesRemovedStudentsFromTheDatabase() throws SQLException {
+        dataManager.initializeData();
+        dataManager.saveTo(store);
+        dataManager.loadFrom(store);
+        
+        assertNotNull(dataManager.removeStudent("S002"));
+        dataManager.saveTo(store);
+        
+        dataManager.loadFrom(store);
+        assertNull(dataManager.getStudent("S002"));
+        assertNull(dataManager.getUser("S002"));
+        assertEquals(4, store.countStudents());
+        for (Fee fee : dataManager.getFees()) {
+            assertNotEquals("S002", fee.getStudent().getId());
+        }
+    }
+    
+    @Test
+    void loadsSingleStudentsById() throws SQLException {
+        dataManager.initializeData();
+        dataManager.saveTo(store);
+        
+        dataManager.loadFrom(store);
+        Student student = store.loadStudentById(dataManager, "S004");
+        assertNotNull(student);
+        assertEquals("student4@vku.vn", student.getEmail());
+        assertNull(store.loadStudentById(dataManager, "S999"));
+    }
+    
+    private void seedStudents(int count) throws SQLException {
+        Teacher teacher = new Teacher("T001", "Teacher", "teacher@vku.vn", "x");
+        Subject subject = new Subject("SUB001", "Java Programming", 3, teacher);
+        dataManager.addTeacher(teacher);
+        dataManager.addSubject(subject);
+        for (int i = 0; i < count; i++) {
+            Student student = new Student(String.format("P%02d", i), "Student " + i, "K41A", "IT", "2021-2025",
+                                          String.format("p%02d@vku.vn", i), "x");
+            dataManager.addStudent(student);
+            Grade grade = new Grade(student, subject);
+            grade.setFinalScore(i % 10);
+            dataManager.addGrade(grade);
+            dataManager.addFee(new Fee(student, 1000000, i % 2 == 0));
+        }
+        dataManager.saveTo(store);
+    }
+    
+    private static List<String> ids(List<Student> students) {
+        List<String> ids = new ArrayList<>();
+        for (Student student : students) {
+            ids.add(student.getId());
+        }
+        return ids;
+    }
+    
+    // A comparable description of everything the store persists
+    private static Map<String, String> describe(DataManager dataManager) {
+        Map<String, String> rows = new TreeMap<>();
+        for (User user : dataManager.getUsers()) {
+            rows.put("user " + user.getId(), user.getName() + "|" + user.getEmail() + "|" + user.getPassword()
+                + "|" + user.getRole());
+        }
+        for (Student student : dataManager.getStudents()) {
+            rows.put("student " + student.getId(), student.getClassName() + "|" + student.getMajor() + "|"
+                + student.getCourse() + "|" + student.getDateOfBirth() + "|" + student.getGender() + "|"
+                + student.getParentName() + "|" + student.getParentContact() + "|" + student.getAddress() + "|"
+                + student.getPhone());
+            for (Grade grade : student.getGrades()) {
+                rows.put("grade " + student.getId() + " " + grade.getSubject().getId(), grade.getAssignmentScore()
+                    + "|" + grade.getMidtermScore() + "|" + grade.getAttendanceScore() + "|" + grade.getFinalScore());
+            }
+        }
+        for (Subject subject : dataManager.getSubjects()) {
+            rows.put("subject " + subject.getId(), subject.getName() + "|" + subject.getCredits() + "|"
+                + subject.getTeacher().getId());
+        }
+        for (Attendance record : dataManager.getAttendanceRecords()) {
+            rows.put("attendance " + record.getStudent().getId() + " " + record.getSubject().getId() + " "
+                + record.getDate().getTime(), String.valueOf(record.isPresent()));
+        }
+        for (Fee fee : dataManager.getFees()) {
+            rows.put("fee " + fee.getStudent().getId(), fee.getAmount() + "|" + fee.isPaid());
+        }
+        for (Project project : dataManager.getProjects()) {
+            rows.put("project " + project.getId(), project.getName() + "|" + project.getSupervisor().getId() + "|"
+                + project.getDeadline() + "|" + project.getProgress() + "|" + project.getGrade() + "|"
+                + ids(project.getStudents()));
+        }
+        List<Notification> notifications = dataManager.getNotifications();
+        for (int i = 0; i < notifications.size(); i++) {
+            Notification notification = notifications.get(i);
+            rows.put("notification " + i, notification.getSender() + "|" + notification.getMessage() + "|"
+                + notification.getDate().getTime() + "|"
+                + (notification.getRelatedSubject() != null ? notification.getRelatedSubject().getId() : null) + "|"
+                + notification.getRecipient());
+        }
+        return rows;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,158 @@
+package com.vku.data;
+
+import com.vku.model.Grade;
+import com.vku.model.Notification;
+import com.vku.model.Student;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Recovery from the files a crash leaves behind: the last snapshot plus
+ * the log written since, possibly ending in a torn record.
+ */
+class JournalTest {
+    @TempDir
+    Path directory;
+    
+    private JdbcDataStore store;
+    private DataManager dataManager;
+    
+    @BeforeEach
+    void resetData() throws SQLException {
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        store = new JdbcDataStore(new DatabaseConfig(url, "sa", "", 1, 100));
+        dataManager = DataManager.getInstance();
+        
+        // Loading the empty database resets the shared DataManager
+        dataManager.loadFrom(store);
+    }
+    
+    @AfterEach
+    void closeJournal() throws IOException {
+        try {
+            dataManager.closeJournal();
+        } finally {
+            store.close();
+        }
+    }
+    
+    @Test
+    void replaysTheLogWrittenSinceTheSnapshot() throws Exception {
+        Path crashed = writeChangesAndCrash();
+        
+        dataManager.openJournal(crashed);
+        assertChangesRecovered();
+    }
+    
+    @Test
+    void dropsATornRecordAndKeepsLogging() throws Exception {
+        Path crashed = writeChangesAndCrash();
+        List<Path> segments = segments(crashed);
+        Files.write(segments.get(segments.size() - 1), new byte[]{0, 0, 0, 50, 1, 2, 3, 4, 9, 9},
+                    StandardOpenOption.APPEND);
+        
+        dataManager.openJournal(crashed);
+        assertChangesRecovered();
+        
+        // Changes after the recovery land behind the intact records
+        dataManager.addStudent(student("S101"));
+        dataManager.sync();
+        Path crashedAgain = copy(crashed, directory.resolve("crashed-again"));
+        dataManager.closeJournal();
+        
+        dataManager.loadFrom(store);
+        dataManager.openJournal(crashedAgain);
+        assertChangesRecovered();
+        assertNotNull(dataManager.getStudent("S101"));
+    }
+    
+    @Test
+    void skipsStudentEventsThatOnlyMoveTheGpa() throws Exception {
+        Path live = directory.resolve("live");
+        dataManager.openJournal(live);
+        Student student = dataManager.getStudent("S001");
+        Grade grade = dataManager.getGrade(student, dataManager.getSubject("SUB001"));
+        dataManager.updateGrade(grade, Grade.FINAL, 2.5);
+        dataManager.updateGrade(grade, Grade.FINAL, 3.5);
+        dataManager.sync();
+        assertEquals(0, countStudentRecords(live));
+        
+        student.setMajor("Data Science");
+        dataManager.sync();
+        assertEquals(1, countStudentRecords(live));
+    }
+    
+    // Makes changes after the first snapshot and copies the files as they are
+    private Path writeChangesAndCrash() throws Exception {
+        Path live = directory.resolve("live");
+        dataManager.openJournal(live);
+        dataManager.addStudent(student("S100"));
+        Grade grade = dataManager.getGrade(dataManager.getStudent("S001"), dataManager.getSubject("SUB001"));
+        dataManager.updateGrade(grade, Grade.FINAL, 1.5);
+        dataManager.addNotification(new Notification("Teacher", "Class moved", new Date(), null, "K41A"));
+        dataManager.sync();
+        
+        Path crashed = copy(live, directory.resolve("crashed"));
+        dataManager.closeJournal();
+        dataManager.loadFrom(store);
+        return crashed;
+    }
+    
+    private void assertChangesRecovered() {
+        assertEquals("Student S100", dataManager.getStudent("S100").getName());
+        Grade grade = dataManager.getGrade(dataManager.getStudent("S001"), dataManager.getSubject("SUB001"));
+        assertEquals(1.5, grade.getFinalScore());
+        List<Notification> notifications = dataManager.getNotifications();
+        assertEquals("K41A", notifications.get(notifications.size() - 1).getRecipient());
+    }
+    
+    private static Student student(String id) {
+        return new Student(id, "Student " + id, "K41A", "IT", "2021-2025", id.toLowerCase() + "@vku.vn", "x");
+    }
+    
+    // Counts the student records in the log, whose first byte is the record type
+    private static long countStudentRecords(Path journal) throws IOException {
+        long count = 0;
+        for (Path segment : segments(journal)) {
+            for (byte[] record : WriteAheadLog.readAll(segment)) {
+                if (record[0] == 3) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+    
+    private static List<Path> segments(Path journal) throws IOException {
+        try (Stream<Path> files = Files.list(journal)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log"))
+                        .sorted()
+                        .collect(Collectors.toList());
+        }
+    }
+    
+    private static Path copy(Path from, Path to) throws IOException {
+        Files.createDirectories(to);
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.copy(file, to.resolve(file.getFileName()));
+            }
+        }
+        return to;
+    }
+}
\ No newline at end of file
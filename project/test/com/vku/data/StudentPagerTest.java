@@ -0,0 +1,135 @@
+package com.vku.data;
+
+import com.vku.model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Residency and eviction of paged students, against an in-memory H2
+ * database holding 20 students with a page size of 3.
+ */
+class StudentPagerTest {
+    private JdbcDataStore store;
+    private DataManager dataManager;
+    
+    @BeforeEach
+    void openDatabase() throws SQLException {
+        String url = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        store = new JdbcDataStore(new DatabaseConfig(url, "sa", "", 2, 3));
+        dataManager = DataManager.getInstance();
+        dataManager.loadFrom(store);
+        
+        Teacher teacher = new Teacher("T001", "Teacher", "teacher@vku.vn", "x");
+        Subject subject = new Subject("SUB001", "Java Programming", 3, teacher);
+        dataManager.addTeacher(teacher);
+        dataManager.addSubject(subject);
+        for (int i = 0; i < 20; i++) {
+            Student student = new Student(id(i), "Student " + i, "K41A", "IT", "2021-2025",
+                                          String.format("p%02d@vku.vn", i), "x");
+            dataManager.addStudent(student);
+            Grade grade = new Grade(student, subject);
+            grade.setFinalScore(i % 10);
+            dataManager.addGrade(grade);
+        }
+        dataManager.saveTo(store);
+        dataManager.openPaged(store, 3, 1);
+    }
+    
+    @AfterEach
+    void closeDatabase() {
+        store.close();
+    }
+    
+    @Test
+    void keepsAPageOfStudentsLoadedOneAtATime() {
+        for (int i = 19; i >= 3; i--) {
+            assertNotNull(dataManager.getStudent(id(i)));
+        }
+        
+        // Page 0 plus the three most recently loaded singles
+        assertEquals(Arrays.asList("P00", "P01", "P02", "P03", "P04", "P05"), residentIds());
+    }
+    
+    @Test
+    void keepsPinnedSinglesResident() {
+        Student pinned = dataManager.getStudent("P10");
+        dataManager.pinStudent(pinned);
+        for (int i = 19; i >= 11; i--) {
+            dataManager.getStudent(id(i));
+        }
+        assertEquals(Arrays.asList("P00", "P01", "P02", "P10", "P11", "P12"), residentIds());
+        
+        dataManager.unpinStudent(pinned);
+        dataManager.getStudent("P09");
+        assertNull(dataManager.getResidentStudent("P10"));
+    }
+    
+    @Test
+    void writesEvictedPagesBack() {
+        Student student = dataManager.getStudent("P01");
+        Grade grade = dataManager.getGrade(student, dataManager.getSubject("SUB001"));
+        dataManager.updateGrade(grade, Grade.FINAL, 7.5);
+        
+        // Page 1 takes the only resident slot
+        assertEquals(Arrays.asList("P03", "P04", "P05"), ids(dataManager.getStudentPage(1, 3)));
+        assertNull(dataManager.getResidentStudent("P01"));
+        
+        Student reloaded = dataManager.getStudent("P01");
+        assertNotSame(student, reloaded);
+        assertEquals(7.5, dataManager.getGrade(reloaded, dataManager.getSubject("SUB001")).getFinalScore());
+    }
+    
+    @Test
+    void keepsPinnedStudentsWhenTheirPageIsEvicted() {
+        for (int i = 10; i <= 12; i++) {
+            dataManager.getStudent(id(i));
+        }
+        Student pinned = dataManager.getStudent("P02");
+        dataManager.pinStudent(dataManager.getStudent("P01"));
+        dataManager.pinStudent(pinned);
+        dataManager.getStudentPage(1, 3);
+        
+        // The pinned students join the singles, pushing out the eldest two
+        assertSame(pinned, dataManager.getResidentStudent("P02"));
+        assertEquals(Arrays.asList("P01", "P02", "P03", "P04", "P05", "P12"), residentIds());
+    }
+    
+    @Test
+    void deletesStudentsAndCutsLaterPagesAgain() {
+        assertEquals(Arrays.asList("P03", "P04", "P05"), ids(dataManager.getStudentPage(1, 3)));
+        dataManager.removeStudent("P01");
+        
+        assertEquals(19, dataManager.getStudentCount());
+        assertEquals(Arrays.asList("P00", "P02", "P03"), ids(dataManager.getStudentPage(0, 3)));
+        assertEquals(Arrays.asList("P04", "P05", "P06"), ids(dataManager.getStudentPage(1, 3)));
+        assertNull(dataManager.getStudent("P01"));
+    }
+    
+    private List<String> residentIds() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            if (dataManager.getResidentStudent(id(i)) != null) {
+                ids.add(id(i));
+            }
+        }
+        return ids;
+    }
+    
+    private static String id(int i) {
+        return String.format("P%02d", i);
+    }
+    
+    private static List<String> ids(List<Student> students) {
+        List<String> ids = new ArrayList<>();
+        for (Student student : students) {
+            ids.add(student.getId());
+        }
+        return ids;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package com.vku.data;
+
+import com.vku.model.Student;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exact, prefix, substring and fuzzy matching, with and without accents.
+ */
+class StudentSearchIndexTest {
+    private final Student an = student("S001", "Nguyễn Văn An", "K41A");
+    private final Student binh = student("S002", "Trần Thị Bình", "K41B");
+    private final Student anh = student("S003", "Lê Hoàng Anh", "K42A");
+    private final Student dung = student("S004", "Đặng Minh Dũng", "K42B");
+    
+    @Test
+    void matchesWordsAndPrefixesWithoutAccents() {
+        StudentSearchIndex index = index();
+        // The exact match ranks before the prefix
+        assertEquals(Arrays.asList(an, anh), index.search("an"));
+        assertEquals(Collections.singletonList(an), index.search("nguyen van an"));
+        assertEquals(Collections.singletonList(dung), index.search("dang"));
+        assertEquals(Collections.singletonList(binh), index.search("TRAN b"));
+        assertEquals(Collections.singletonList(anh), index.search("s003"));
+        assertTrue(index.search("an binh").isEmpty());
+        assertTrue(index.search("   ").isEmpty());
+    }
+    
+    @Test
+    void fallsBackToSubstringsAndThenTypos() {
+        StudentSearchIndex index = index();
+        assertEquals(Collections.singletonList(dung), index.search("inh d"));
+        assertEquals(Collections.singletonList(binh), index.search("trab"));
+        assertEquals(Collections.singletonList(an), index.search("nguyne"));
+        
+        // Ids are never matched by similarity
+        assertTrue(index.search("s009").isEmpty());
+    }
+    
+    @Test
+    void followsRenamesAndRemovals() {
+        StudentSearchIndex index = index();
+        binh.setName("Phạm Thị Bình");
+        index.entityChanged(binh);
+        assertTrue(index.search("tran").isEmpty());
+        assertEquals(Collections.singletonList(binh), index.search("pham"));
+        
+        index.remove("S001");
+        assertEquals(Collections.singletonList(anh), index.search("an"));
+    }
+    
+    @Test
+    void checksEditDistanceWithinTheLimit() {
+        assertTrue(StudentSearchIndex.withinDistance("nguyen", "nguyne", 2));
+        assertTrue(StudentSearchIndex.withinDistance("binh", "bin", 1));
+        assertFalse(StudentSearchIndex.withinDistance("binh", "bo", 1));
+        assertFalse(StudentSearchIndex.withinDistance("hoang", "huong", 1));
+        assertTrue(StudentSearchIndex.withinDistance("hoang", "huong", 2));
+    }
+    
+    private StudentSearchIndex index() {
+        StudentSearchIndex index = new StudentSearchIndex();
+        for (Student student : Arrays.asList(an, binh, anh, dung)) {
+            index.add(student);
+        }
+        return index;
+    }
+    
+    private static Student student(String id, String name, String className) {
+        return new Student(id, name, className, "IT", "2021-2025", id.toLowerCase() + "@vku.vn", "x");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.vku.data;
+
+import com.vku.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sorting students by GPA, reusing the positions of removed students and
+ * slicing pages out of an order.
+ */
+class StudentSortIndexTest {
+    private final Subject subject = new Subject("SUB001", "Java Programming", 3,
+                                                new Teacher("T001", "Teacher", "teacher@vku.vn", "x"));
+    
+    @Test
+    void sortsByGpaAsGradesChange() {
+        StudentSortIndex index = new StudentSortIndex();
+        ModelEvents.addListener(index);
+        try {
+            Student low = student("S001", 4.0);
+            Student high = student("S002", 6.0);
+            index.add(low);
+            index.add(high);
+            assertEquals(Arrays.asList(low, high), index.sort(Arrays.asList(high, low), s -> s, SortKey.GPA, true));
+            
+            // The event from the new grade moves the student
+            Grade grade = new Grade(low, new Subject("SUB002", "Databases", 3, subject.getTeacher()));
+            grade.setFinalScore(10.0);
+            low.addGrade(grade);
+            assertEquals(Arrays.asList(high, low), index.sort(Arrays.asList(high, low), s -> s, SortKey.GPA, true));
+        } finally {
+            ModelEvents.removeListener(index);
+        }
+    }
+    
+    @Test
+    void removedStudentsFreeTheirPosition() {
+        StudentSortIndex index = new StudentSortIndex();
+        Student first = student("S001", 5.0);
+        Student second = student("S002", 6.0);
+        index.add(first);
+        index.add(second);
+        index.remove("S001");
+        
+        Student third = student("S000", 7.0);
+        index.add(third);
+        assertEquals(Arrays.asList(third, second, first),
+                     index.sort(Arrays.asList(first, second, third), s -> s, SortKey.ID, true));
+        assertEquals(Arrays.asList(second, third, first),
+                     index.sort(Arrays.asList(first, second, third), s -> s, SortKey.GPA, true));
+    }
+    
+    @Test
+    void slicesPagesSkippingRemovedStudents() {
+        StudentSortIndex index = new StudentSortIndex();
+        Student[] students = new Student[5];
+        for (int i = 4; i >= 0; i--) {
+            students[i] = student("S00" + i, i);
+            index.add(students[i]);
+        }
+        assertEquals(Arrays.asList(students[1], students[2]), index.slice(SortKey.ID, 1, 2));
+        
+        // Removing keeps the built order, with a gap that is not counted
+        index.remove("S001");
+        assertEquals(Arrays.asList(students[2], students[3]), index.slice(SortKey.ID, 1, 2));
+        assertEquals(Arrays.asList(students[4]), index.slice(SortKey.ID, 3, 2));
+        assertTrue(index.slice(SortKey.ID, 4, 2).isEmpty());
+    }
+    
+    private Student student(String id, double finalScore) {
+        Student student = new Student(id, "Student " + id, "K41A", "IT", "2021-2025", id.toLowerCase() + "@vku.vn", "x");
+        Grade grade = new Grade(student, subject);
+        grade.setFinalScore(finalScore);
+        student.addGrade(grade);
+        return student;
+    }
+}
\ No newline at end of file
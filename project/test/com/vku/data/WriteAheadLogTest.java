@@ -0,0 +1,102 @@
+package com.vku.data;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reading back the log after clean shutdowns and after crashes that left a
+ * torn or corrupt tail.
+ */
+class WriteAheadLogTest {
+    @TempDir
+    Path directory;
+    
+    @Test
+    void readsBackEveryDurableRecord() throws IOException {
+        Path file = directory.resolve("wal.log");
+        try (WriteAheadLog log = new WriteAheadLog(file)) {
+            log.append(bytes("one"));
+            long second = log.append(bytes("two"));
+            log.awaitDurable(second);
+            log.append(new byte[0]);
+            log.sync();
+        }
+        assertEquals(Arrays.asList("one", "two", ""), strings(WriteAheadLog.readAll(file)));
+    }
+    
+    @Test
+    void cutsOffATornTailWhenReopened() throws IOException {
+        Path file = directory.resolve("wal.log");
+        try (WriteAheadLog log = new WriteAheadLog(file)) {
+            log.append(bytes("one"));
+            log.append(bytes("two"));
+        }
+        long intact = Files.size(file);
+        
+        // A crash in the middle of the next record: its header and half its payload
+        byte[] torn = ByteBuffer.allocate(12).putInt(100).putInt(0).put(bytes("thr")).array();
+        Files.write(file, torn, StandardOpenOption.APPEND);
+        assertEquals(Arrays.asList("one", "two"), strings(WriteAheadLog.readAll(file)));
+        
+        try (WriteAheadLog log = new WriteAheadLog(file)) {
+            assertEquals(intact, log.size());
+            log.append(bytes("three"));
+        }
+        assertEquals(Arrays.asList("one", "two", "three"), strings(WriteAheadLog.readAll(file)));
+    }
+    
+    @Test
+    void stopsAtARecordWithABadChecksum() throws IOException {
+        Path file = directory.resolve("wal.log");
+        try (WriteAheadLog log = new WriteAheadLog(file)) {
+            log.append(bytes("one"));
+            log.append(bytes("two"));
+            log.append(bytes("three"));
+        }
+        
+        // Flip a byte of the second record's payload
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes("T")), 8 + 3 + 8);
+        }
+        assertEquals(Arrays.asList("one"), strings(WriteAheadLog.readAll(file)));
+        
+        // Everything from the damaged record on is dropped for good
+        try (WriteAheadLog log = new WriteAheadLog(file)) {
+            log.append(bytes("four"));
+        }
+        assertEquals(Arrays.asList("one", "four"), strings(WriteAheadLog.readAll(file)));
+    }
+    
+    @Test
+    void refusesAppendsOnceClosed() throws IOException {
+        WriteAheadLog log = new WriteAheadLog(directory.resolve("wal.log"));
+        log.close();
+        log.close();
+        assertThrows(IllegalStateException.class, () -> log.append(bytes("late")));
+    }
+    
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    private static List<String> strings(List<byte[]> records) {
+        List<String> strings = new ArrayList<>();
+        for (byte[] record : records) {
+            strings.add(new String(record, StandardCharsets.UTF_8));
+        }
+        return strings;
+    }
+}
\ No newline at end of file
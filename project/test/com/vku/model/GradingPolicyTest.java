@@ -0,0 +1,83 @@
+package com.vku.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Grading at the thresholds, where the 0.01 lookup step and the floating
+ * point tolerance meet.
+ */
+class GradingPolicyTest {
+    private final GradingPolicy policy = GradingPolicy.STANDARD;
+    
+    @Test
+    void gradesExactThresholdsUp() {
+        assertEquals("A", policy.letterFor(8.5));
+        assertEquals("B", policy.letterFor(7.0));
+        assertEquals("C", policy.letterFor(5.5));
+        assertEquals("D", policy.letterFor(4.0));
+        assertEquals(4.0, policy.gradePoints(8.5));
+        assertEquals(3.7, policy.gradePoints(8.0));
+        assertEquals(1.0, policy.gradePoints(4.0));
+    }
+    
+    @Test
+    void gradesJustBelowAThresholdByTheStepBelow() {
+        assertEquals("B", policy.letterFor(8.49));
+        assertEquals("B", policy.letterFor(8.499));
+        assertEquals("C", policy.letterFor(6.99));
+        assertEquals("F", policy.letterFor(3.99));
+        assertEquals(3.7, policy.gradePoints(8.49));
+        assertEquals(0.0, policy.gradePoints(3.99));
+    }
+    
+    @Test
+    void absorbsFloatingPointErrorBelowAThreshold() {
+        assertEquals("A", policy.letterFor(8.4999999999));
+        assertEquals(4.0, policy.gradePoints(8.4999999999));
+        assertEquals("B", policy.letterFor(6.9999999999));
+        
+        // A weighted sum of 8.5 in every component lands just off 8.5
+        double average = policy.average(8.5, 8.5, 8.5, 8.5);
+        assertEquals(8.5, average, 1e-9);
+        assertEquals("A", policy.letterFor(average));
+    }
+    
+    @Test
+    void clampsScoresOutsideTheRange() {
+        assertEquals("A", policy.letterFor(10.0));
+        assertEquals("A", policy.letterFor(12.0));
+        assertEquals("F", policy.letterFor(-1.0));
+        assertEquals("F", policy.letterFor(Double.NaN));
+        assertEquals(0.0, policy.gradePoints(Double.NaN));
+    }
+    
+    @Test
+    void roundsTheAverageHalfUp() {
+        GradingPolicy rounded = new GradingPolicy("Rounded", new double[]{0.0, 0.0, 0.0, 1.0}, 1,
+                                                  new String[]{"A", "B", "C", "D", "F"},
+                                                  new double[]{8.5, 7.0, 5.5, 4.0},
+                                                  new double[]{8.5, 7.0, 5.5, 4.0},
+                                                  new double[]{4.0, 3.0, 2.0, 1.0, 0.0});
+        assertEquals(8.5, rounded.average(0, 0, 0, 8.45));
+        assertEquals("A", rounded.letterFor(rounded.average(0, 0, 0, 8.45)));
+        assertEquals(8.4, rounded.average(0, 0, 0, 8.44));
+        assertEquals("B", rounded.letterFor(rounded.average(0, 0, 0, 8.44)));
+    }
+    
+    @Test
+    void rejectsThresholdsOffTheStep() {
+        assertThrows(IllegalArgumentException.class, () -> letters(new double[]{8.505, 7.0, 5.5, 4.0}));
+        assertThrows(IllegalArgumentException.class, () -> letters(new double[]{8.5, 8.5, 5.5, 4.0}));
+        assertThrows(IllegalArgumentException.class, () -> letters(new double[]{10.01, 7.0, 5.5, 4.0}));
+        assertEquals("A", letters(new double[]{8.51, 7.0, 5.5, 4.0}).letterFor(8.51));
+        assertEquals("B", letters(new double[]{8.51, 7.0, 5.5, 4.0}).letterFor(8.5));
+    }
+    
+    private static GradingPolicy letters(double[] thresholds) {
+        return new GradingPolicy("Custom", new double[]{0.2, 0.2, 0.1, 0.5}, GradingPolicy.NO_ROUNDING,
+                                 new String[]{"A", "B", "C", "D", "F"}, thresholds,
+                                 new double[]{8.5, 7.0, 5.5, 4.0}, new double[]{4.0, 3.0, 2.0, 1.0, 0.0});
+    }
+}
\ No newline at end of file
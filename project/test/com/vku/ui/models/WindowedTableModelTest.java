@@ -0,0 +1,96 @@
+package com.vku.ui.models;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The row events fired when the source of a windowed model is replaced.
+ */
+class WindowedTableModelTest {
+    
+    @Test
+    void firesDeletesAndInsertsForRunsOfRows() {
+        WindowedTableModel model = model("a", "b", "c", "d", "e");
+        List<String> events = record(model);
+        
+        model.setSource(source("a", "c", "x", "y", "d", "e", "z"));
+        assertEquals(Arrays.asList("delete 1-1", "insert 2-3", "insert 6-6", "update 0-6"), events);
+        assertEquals(7, model.getRowCount());
+    }
+    
+    @Test
+    void deletesFromTheBottomUp() {
+        WindowedTableModel model = model("a", "b", "c", "d", "e", "f");
+        List<String> events = record(model);
+        
+        model.setSource(source("a", "d"));
+        assertEquals(Arrays.asList("delete 4-5", "delete 1-2", "update 0-1"), events);
+        assertEquals(2, model.getRowCount());
+    }
+    
+    @Test
+    void refreshesEverythingWhenRowsChangeOrder() {
+        WindowedTableModel model = model("a", "b", "c");
+        List<String> events = record(model);
+        
+        model.setSource(source("c", "b", "a", "d"));
+        assertEquals(Arrays.asList("refresh"), events);
+        assertEquals(4, model.getRowCount());
+    }
+    
+    @Test
+    void refreshesEverythingWhenChangesAreScattered() {
+        String[] before = new String[200];
+        String[] after = new String[200];
+        for (int i = 0; i < before.length; i++) {
+            before[i] = "r" + i;
+            // Every other row is replaced: a hundred runs
+            after[i] = i % 2 == 0 ? "r" + i : "n" + i;
+        }
+        WindowedTableModel model = model(before);
+        List<String> events = record(model);
+        
+        model.setSource(source(after));
+        assertEquals(Arrays.asList("refresh"), events);
+    }
+    
+    @Test
+    void emptyingTheSourceDeletesEveryRow() {
+        WindowedTableModel model = model("a", "b");
+        List<String> events = record(model);
+        
+        model.setSource(source());
+        assertEquals(Arrays.asList("delete 0-1"), events);
+        assertEquals(0, model.getRowCount());
+    }
+    
+    private static WindowedTableModel model(String... keys) {
+        return new WindowedTableModel(new String[]{"Key"}, source(keys));
+    }
+    
+    private static RowSource source(String... keys) {
+        return new ListRowSource<>(Arrays.asList(keys), key -> key, key -> new Object[]{key});
+    }
+    
+    private static List<String> record(WindowedTableModel model) {
+        List<String> events = new ArrayList<>();
+        model.addTableModelListener(e -> {
+            if (e.getLastRow() == Integer.MAX_VALUE) {
+                events.add("refresh");
+            } else if (e.getType() == TableModelEvent.DELETE) {
+                events.add("delete " + e.getFirstRow() + "-" + e.getLastRow());
+            } else if (e.getType() == TableModelEvent.INSERT) {
+                events.add("insert " + e.getFirstRow() + "-" + e.getLastRow());
+            } else {
+                events.add("update " + e.getFirstRow() + "-" + e.getLastRow());
+            }
+        });
+        return events;
+    }
+}
\ No newline at end of file